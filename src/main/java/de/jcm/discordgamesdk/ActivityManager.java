@@ -4,10 +4,15 @@ import de.jcm.discordgamesdk.activity.Activity;
 import de.jcm.discordgamesdk.activity.ActivityActionType;
 import de.jcm.discordgamesdk.activity.ActivityJoinRequestReply;
 import de.jcm.discordgamesdk.impl.Command;
+import de.jcm.discordgamesdk.impl.RateLimiter;
 import de.jcm.discordgamesdk.impl.commands.ActivityInviteUser;
 import de.jcm.discordgamesdk.impl.commands.SendActivityJoinInvite;
 import de.jcm.discordgamesdk.impl.commands.SetActivity;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 
 /**
@@ -19,9 +24,29 @@ public class ActivityManager
 {
 	private final Core.CorePrivate core;
 
+	/** Only set if updates are coalesced */
+	private final RateLimiter updateLimiter;
+	/** Guards the pending update and the fingerprint of the last update sent */
+	private final Object updateLock = new Object();
+	private final List<Consumer<Result>> pendingCallbacks = new ArrayList<>();
+	private SetActivity.Encoded pendingUpdate;
+	private long pendingFingerprint;
+	private volatile boolean updatePending;
+	private long lastFingerprint;
+	private boolean hasFingerprint;
+	/** Callbacks of the last update sent, as long as its response has not arrived */
+	private List<Consumer<Result>> sentCallbacks;
+	private final LongAdder coalescedUpdates = new LongAdder();
+	private final LongAdder skippedUpdates = new LongAdder();
+
 	ActivityManager(Core.CorePrivate core)
 	{
 		this.core = core;
+
+		CreateParams params = core.getCreateParams();
+		this.updateLimiter = params.coalesceActivityUpdates ?
+				new RateLimiter(params.activityUpdateLimit, params.activityUpdatePeriod.toNanos(), System.nanoTime()) :
+				null;
 	}
 
 	/**
@@ -64,6 +89,12 @@ public class ActivityManager
 	/**
 	 * <p>Updates the user's current presence to a new activity.</p>
 	 * <p>A custom callback is used to handle the returned {@link Result}.</p>
+	 * <p>If the activity is identical to the last one sent, nothing is sent and the callback
+	 * receives the result of that update, right away if Discord has accepted it already.
+	 * Use {@link #updateActivity(Activity, boolean, Consumer)} to send it anyway.</p>
+	 * <p>If {@linkplain CreateParams#setCoalesceActivityUpdates(boolean) updates are coalesced},
+	 * the update might be replaced by a newer one before it is sent. The callback then receives
+	 * the result of the newer update.</p>
 	 * @param activity New activity for the user.
 	 * @param callback Callback to process the returned {@link Result}.
 	 * @see <a href="https://discordapp.com/developers/docs/game-sdk/activities#updateactivity">
@@ -71,9 +102,203 @@ public class ActivityManager
 	 */
 	public void updateActivity(Activity activity, Consumer<Result> callback)
 	{
-		core.sendCommand(Command.Type.SET_ACTIVITY, new SetActivity.Args(core.pid, activity), c->{
-			callback.accept(core.checkError(c));
+		updateActivity(activity, false, callback);
+	}
+
+	/**
+	 * <p>Updates the user's current presence to a new activity.</p>
+	 * <p>Works like {@link #updateActivity(Activity, Consumer)}, but can send the activity
+	 * even if it is identical to the last one sent.</p>
+	 * @param activity New activity for the user.
+	 * @param force {@code true} to send the activity even if it is identical to the last one sent
+	 * @param callback Callback to process the returned {@link Result}.
+	 * @see <a href="https://discordapp.com/developers/docs/game-sdk/activities#updateactivity">
+	 *     https://discordapp.com/developers/docs/game-sdk/activities#updateactivity</a>
+	 */
+	public void updateActivity(Activity activity, boolean force, Consumer<Result> callback)
+	{
+		// encode now, the caller may change the activity while the update is waiting
+		SetActivity.Encoded update = new SetActivity.Encoded(core.getGson().toJson(new SetActivity.Args(core.pid, activity)));
+		long fingerprint = fingerprint(update.getJson());
+
+		List<Consumer<Result>> skipped = null;
+		synchronized(updateLock)
+		{
+			if(pendingUpdate != null)
+				coalescedUpdates.increment();
+
+			if(!force && hasFingerprint && lastFingerprint == fingerprint)
+			{
+				// Discord already has this activity, so a waiting update is not needed anymore either
+				skipped = new ArrayList<>(pendingCallbacks);
+				skipped.add(callback);
+				pendingCallbacks.clear();
+				pendingUpdate = null;
+				updatePending = false;
+
+				// if it is still on its way, wait for Discord's answer to it
+				if(sentCallbacks != null)
+				{
+					sentCallbacks.addAll(skipped);
+					skipped = null;
+				}
+				skippedUpdates.increment();
+			}
+			else
+			{
+				pendingUpdate = update;
+				pendingFingerprint = fingerprint;
+				pendingCallbacks.add(callback);
+				List<Consumer<Result>> callbacks = takePendingUpdate();
+				if(callbacks != null)
+					sendUpdate(update, fingerprint, callbacks);
+			}
+		}
+
+		if(skipped != null)
+		{
+			List<Consumer<Result>> accepted = skipped;
+			core.post(()->{
+				for(Consumer<Result> c : accepted)
+					c.accept(Result.OK);
+			});
+		}
+	}
+
+	/**
+	 * Sends the pending update if it had to wait and the rate limit allows it now.
+	 * Called regularly by the thread owning the I/O.
+	 */
+	void sendCoalescedUpdate()
+	{
+		if(!updatePending)
+			return;
+
+		synchronized(updateLock)
+		{
+			SetActivity.Encoded update = pendingUpdate;
+			long fingerprint = pendingFingerprint;
+			List<Consumer<Result>> callbacks = takePendingUpdate();
+			if(callbacks != null)
+				sendUpdate(update, fingerprint, callbacks);
+		}
+	}
+
+	/**
+	 * Takes the pending update if it may be sent now. Must hold {@link #updateLock}.
+	 * @return The callbacks of the pending update or {@code null} if it has to wait
+	 */
+	private List<Consumer<Result>> takePendingUpdate()
+	{
+		if(pendingUpdate == null || (updateLimiter != null && !updateLimiter.tryAcquire(System.nanoTime())))
+		{
+			updatePending = pendingUpdate != null;
+			return null;
+		}
+		List<Consumer<Result>> callbacks = new ArrayList<>(pendingCallbacks);
+		pendingCallbacks.clear();
+		sentCallbacks = callbacks;
+		pendingUpdate = null;
+		updatePending = false;
+		lastFingerprint = pendingFingerprint;
+		hasFingerprint = true;
+		return callbacks;
+	}
+
+	/**
+	 * Sends an update taken by {@link #takePendingUpdate()}. Must hold {@link #updateLock}, so that updates
+	 * are submitted in the same order their fingerprints are recorded. Submitting does not block.
+	 * @param callbacks Callbacks of the update, identical updates skipped while it is sent are added to it
+	 */
+	private void sendUpdate(SetActivity.Encoded update, long fingerprint, List<Consumer<Result>> callbacks)
+	{
+		core.sendCommand(Command.Type.SET_ACTIVITY, update, c->{
+			Result result = core.checkError(c);
+			List<Consumer<Result>> answered;
+			synchronized(updateLock)
+			{
+				// make sure the next update is sent even if it is identical, because Discord did not accept this one
+				if(result != Result.OK && lastFingerprint == fingerprint)
+					hasFingerprint = false;
+				if(sentCallbacks == callbacks)
+					sentCallbacks = null;
+				answered = List.copyOf(callbacks);
+			}
+			for(Consumer<Result> callback : answered)
+				callback.accept(result);
+		});
+	}
+
+	/**
+	 * 64-bit FNV-1a hash of the update's JSON, exactly as it is sent. The fields are always in the same order.
+	 */
+	private static long fingerprint(String json)
+	{
+		long hash = 0xcbf29ce484222325L;
+		for(int i = 0; i < json.length(); i++)
+		{
+			hash ^= json.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	/**
+	 * Tells you how many activity updates were replaced by a newer one before they could be sent.
+	 * @return Number of coalesced updates, always {@code 0} if coalescing is disabled
+	 * @see CreateParams#setCoalesceActivityUpdates(boolean)
+	 */
+	public long getCoalescedUpdateCount()
+	{
+		return coalescedUpdates.sum();
+	}
+
+	/**
+	 * Tells you how many activity updates were not sent because they were identical to the last one sent.
+	 * @return Number of skipped updates
+	 * @see #updateActivity(Activity, boolean, Consumer)
+	 */
+	public long getSkippedUpdateCount()
+	{
+		return skippedUpdates.sum();
+	}
+
+	/**
+	 * <p>Updates the user's current presence to a new activity.</p>
+	 * <p>The returned future completes once Discord has accepted the activity
+	 * or exceptionally with a {@link GameSDKException} if it has not.
+	 * Just like {@link #updateActivity(Activity, Consumer)}, nothing is sent
+	 * if the activity is identical to the last one sent.</p>
+	 * @param activity New activity for the user.
+	 * @return A future for the completion of the operation
+	 * @see <a href="https://discordapp.com/developers/docs/game-sdk/activities#updateactivity">
+	 *     https://discordapp.com/developers/docs/game-sdk/activities#updateactivity</a>
+	 */
+	public CompletableFuture<Void> updateActivityAsync(Activity activity)
+	{
+		return updateActivityAsync(activity, false);
+	}
+
+	/**
+	 * <p>Updates the user's current presence to a new activity.</p>
+	 * <p>Works like {@link #updateActivityAsync(Activity)}, but can send the activity
+	 * even if it is identical to the last one sent.</p>
+	 * @param activity New activity for the user.
+	 * @param force {@code true} to send the activity even if it is identical to the last one sent
+	 * @return A future for the completion of the operation
+	 * @see <a href="https://discordapp.com/developers/docs/game-sdk/activities#updateactivity">
+	 *     https://discordapp.com/developers/docs/game-sdk/activities#updateactivity</a>
+	 */
+	public CompletableFuture<Void> updateActivityAsync(Activity activity, boolean force)
+	{
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		updateActivity(activity, force, result->{
+			if(result == Result.OK)
+				future.complete(null);
+			else
+				future.completeExceptionally(new GameSDKException(result));
 		});
+		return future;
 	}
 
 	/**
@@ -96,7 +321,20 @@ public class ActivityManager
 	 */
 	public void clearActivity(Consumer<Result> callback)
 	{
-		updateActivity(null);
+		updateActivity(null, callback);
+	}
+
+	/**
+	 * <p>Clears the user's current presence.</p>
+	 * <p>The returned future completes once Discord has cleared the activity
+	 * or exceptionally with a {@link GameSDKException} if it has not.</p>
+	 * @return A future for the completion of the operation
+	 * @see <a href="https://discordapp.com/developers/docs/game-sdk/activities#clearactivity">
+	 *     https://discordapp.com/developers/docs/game-sdk/activities#clearactivity</a>
+	 */
+	public CompletableFuture<Void> clearActivityAsync()
+	{
+		return updateActivityAsync(null);
 	}
 
 	/**
@@ -123,18 +361,30 @@ public class ActivityManager
 	 */
 	public void sendRequestReply(long userId, ActivityJoinRequestReply reply, Consumer<Result> callback)
 	{
-		if(reply == ActivityJoinRequestReply.YES)
-		{
-			core.sendCommand(Command.Type.SEND_ACTIVITY_JOIN_INVITE, new SendActivityJoinInvite.Args(Long.toString(userId)), c->{
-				callback.accept(core.checkError(c));
-			});
-		}
-		else
-		{
-			core.sendCommand(Command.Type.CLOSE_ACTIVITY_JOIN_REQUEST, new SendActivityJoinInvite.Args(Long.toString(userId)), c->{
-				callback.accept(core.checkError(c));
-			});
-		}
+		core.sendCommand(requestReplyType(reply), new SendActivityJoinInvite.Args(Long.toString(userId)), c->{
+			callback.accept(core.checkError(c));
+		});
+	}
+
+	/**
+	 * <p>Replies to an "Ask to join" request.</p>
+	 * <p>The returned future completes once Discord has sent the reply
+	 * or exceptionally with a {@link GameSDKException} if it has not.</p>
+	 * @param userId ID of user who asked to join
+	 * @param reply Type of reply to send
+	 * @return A future for the completion of the operation
+	 * @see <a href="https://discordapp.com/developers/docs/game-sdk/activities#sendrequestreply">
+	 *     https://discordapp.com/developers/docs/game-sdk/activities#sendrequestreply</a>
+	 */
+	public CompletableFuture<Void> sendRequestReplyAsync(long userId, ActivityJoinRequestReply reply)
+	{
+		return core.sendCommandAsync(requestReplyType(reply), new SendActivityJoinInvite.Args(Long.toString(userId)), null, c->null);
+	}
+
+	private static Command.Type requestReplyType(ActivityJoinRequestReply reply)
+	{
+		return reply == ActivityJoinRequestReply.YES ?
+				Command.Type.SEND_ACTIVITY_JOIN_INVITE : Command.Type.CLOSE_ACTIVITY_JOIN_REQUEST;
 	}
 
 	/**
@@ -168,6 +418,23 @@ public class ActivityManager
 		});
 	}
 
+	/**
+	 * <p>Invites a user to join your game.</p>
+	 * <p>The returned future completes once Discord has sent the invitation
+	 * or exceptionally with a {@link GameSDKException} if it has not.</p>
+	 * @param userId ID of user to invite
+	 * @param type Type of invitation to send
+	 * @param content Content/message of the invitation
+	 * @return A future for the completion of the operation
+	 * @see <a href="https://discordapp.com/developers/docs/game-sdk/activities#sendinvite">
+	 *     https://discordapp.com/developers/docs/game-sdk/activities#sendinvite</a>
+	 */
+	public CompletableFuture<Void> sendInviteAsync(long userId, ActivityActionType type, String content)
+	{
+		return core.sendCommandAsync(Command.Type.ACTIVITY_INVITE_USER,
+				new ActivityInviteUser.Args(type.nativeValue(), Long.toString(userId), content, core.pid), null, c->null);
+	}
+
 	/**
 	 * <p>Accepts a game invitation from another user.</p>
 	 * <p>The {@link Core#DEFAULT_CALLBACK} is used to handle the returned {@link Result}.</p>
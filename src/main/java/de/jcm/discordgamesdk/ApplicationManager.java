@@ -4,8 +4,10 @@ import de.jcm.discordgamesdk.impl.Command;
 import de.jcm.discordgamesdk.impl.commands.Authenticate;
 import de.jcm.discordgamesdk.user.DiscordUser;
 
+import java.time.Duration;
 import java.util.Date;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 
 public class ApplicationManager
@@ -56,40 +58,95 @@ public class ApplicationManager
     /**
      * Requests authorization from the user (if not obtained already) and returns
      * the OAuth2 token in the callback.
+     * <p>
+     * As the user might take a while to decide, this waits for Discord's response
+     * without a timeout.
      * @param callback Callback to process the returned {@link Result} and {@link DiscordOAuth2Token}.
      */
     public void getOAuth2Token(BiConsumer<Result, DiscordOAuth2Token> callback) {
-        core.sendCommand(Command.Type.AUTHENTICATE, new Object(), c->{
+        getOAuth2Token(null, callback);
+    }
+
+    /**
+     * Requests authorization from the user (if not obtained already) and returns
+     * the OAuth2 token in the callback.
+     * @param timeout Time to wait for the user's decision, or {@code null} to wait forever.
+     *                If it passes, the callback receives {@link Result#TRANSACTION_ABORTED}.
+     * @param callback Callback to process the returned {@link Result} and {@link DiscordOAuth2Token}.
+     */
+    public void getOAuth2Token(Duration timeout, BiConsumer<Result, DiscordOAuth2Token> callback) {
+        core.sendCommand(Command.Type.AUTHENTICATE, new Object(), Authenticate.Response.class, timeout, c->{
             Result r = core.checkError(c);
             if(r != Result.OK)
             {
                 callback.accept(r, null);
                 return;
             }
-            Authenticate.Response response = core.getGson().fromJson(c.getData(), Authenticate.Response.class);
+            Authenticate.Response response = c.getPayload(Authenticate.Response.class);
             callback.accept(r, response.toDiscordOAuth2Token());
         });
     }
 
+    /**
+     * Requests authorization from the user (if not obtained already) and returns
+     * a future for the OAuth2 token.
+     * <p>
+     * The future waits for the user's decision without a timeout.
+     * Use e.g. {@link CompletableFuture#orTimeout} to give up waiting.
+     * @return A future for the token, completed exceptionally with a {@link GameSDKException}
+     *         if authorization fails
+     */
+    public CompletableFuture<DiscordOAuth2Token> getOAuth2TokenAsync() {
+        return core.sendCommandAsync(Command.Type.AUTHENTICATE, new Object(), Authenticate.Response.class, null,
+                c->c.getPayload(Authenticate.Response.class).toDiscordOAuth2Token());
+    }
+
     /**
      * Requests authorization from the user (if not obtained already) and returns
      * the OAuth2 token and some additional information about user and application in a callback.
+     * <p>
+     * As the user might take a while to decide, this waits for Discord's response
+     * without a timeout.
      * @param callback Callback to process the returned {@link Result} and {@link AuthenticationData}.
      */
     public void authenticate(BiConsumer<Result, AuthenticationData> callback) {
-        core.sendCommand(Command.Type.AUTHENTICATE, new Object(), c->{
+        authenticate(null, callback);
+    }
+
+    /**
+     * Requests authorization from the user (if not obtained already) and returns
+     * the OAuth2 token and some additional information about user and application in a callback.
+     * @param timeout Time to wait for the user's decision, or {@code null} to wait forever.
+     *                If it passes, the callback receives {@link Result#TRANSACTION_ABORTED}.
+     * @param callback Callback to process the returned {@link Result} and {@link AuthenticationData}.
+     */
+    public void authenticate(Duration timeout, BiConsumer<Result, AuthenticationData> callback) {
+        core.sendCommand(Command.Type.AUTHENTICATE, new Object(), Authenticate.Response.class, timeout, c->{
             Result r = core.checkError(c);
             if(r != Result.OK)
             {
                 callback.accept(r, null);
                 return;
             }
-            Authenticate.Response response = core.getGson().fromJson(c.getData(), Authenticate.Response.class);
-            DiscordOAuth2Token token = response.toDiscordOAuth2Token();
-            DiscordUser user = response.user;
-            Application application = response.application.toApplication();
-
-            callback.accept(r, new AuthenticationData(token, application, user));
+            callback.accept(r, toAuthenticationData(c.getPayload(Authenticate.Response.class)));
         });
     }
+
+    /**
+     * Requests authorization from the user (if not obtained already) and returns a future for
+     * the OAuth2 token and some additional information about user and application.
+     * <p>
+     * The future waits for the user's decision without a timeout.
+     * Use e.g. {@link CompletableFuture#orTimeout} to give up waiting.
+     * @return A future for the {@link AuthenticationData}, completed exceptionally with a {@link GameSDKException}
+     *         if authorization fails
+     */
+    public CompletableFuture<AuthenticationData> authenticateAsync() {
+        return core.sendCommandAsync(Command.Type.AUTHENTICATE, new Object(), Authenticate.Response.class, null,
+                c->toAuthenticationData(c.getPayload(Authenticate.Response.class)));
+    }
+
+    private static AuthenticationData toAuthenticationData(Authenticate.Response response) {
+        return new AuthenticationData(response.toDiscordOAuth2Token(), response.application.toApplication(), response.user);
+    }
 }
@@ -0,0 +1,102 @@
+package de.jcm.discordgamesdk;
+
+import java.time.Duration;
+
+/**
+ * Statistics about a single call to {@link Core#runCallbacks(int, Duration)}.
+ * <p>
+ * Each {@link Core} owns exactly one instance of this class, which is reset and
+ * refilled by every call to {@link Core#runCallbacks(int, Duration)}.
+ * Copy the values you are interested in, if you need them after the next call.
+ * @see Core#runCallbacks(int, Duration)
+ */
+public class CallbackStats
+{
+	int framesProcessed;
+	int tasksRun;
+	long elapsedNanos;
+	int remainingTasks;
+	boolean backlogged;
+
+	CallbackStats()
+	{
+	}
+
+	void reset()
+	{
+		framesProcessed = 0;
+		tasksRun = 0;
+		elapsedNanos = 0;
+		remainingTasks = 0;
+		backlogged = false;
+	}
+
+	/**
+	 * Gets the number of frames that were received from Discord and handled.
+	 * @return Number of handled frames
+	 */
+	public int getFramesProcessed()
+	{
+		return framesProcessed;
+	}
+
+	/**
+	 * Gets the number of queued tasks (e.g. callbacks) that were run.
+	 * @return Number of tasks run
+	 */
+	public int getTasksRun()
+	{
+		return tasksRun;
+	}
+
+	/**
+	 * Gets the time spent in {@link Core#runCallbacks(int, Duration)} in nanoseconds.
+	 * @return Elapsed time in nanoseconds
+	 * @see #getElapsed()
+	 */
+	public long getElapsedNanos()
+	{
+		return elapsedNanos;
+	}
+
+	/**
+	 * Gets the time spent in {@link Core#runCallbacks(int, Duration)}.
+	 * @return Elapsed time
+	 * @see #getElapsedNanos()
+	 */
+	public Duration getElapsed()
+	{
+		return Duration.ofNanos(elapsedNanos);
+	}
+
+	/**
+	 * Gets the number of queued tasks that were left for the next call.
+	 * @return Number of remaining tasks
+	 */
+	public int getRemainingTasks()
+	{
+		return remainingTasks;
+	}
+
+	/**
+	 * Tells you if there might be more work pending, i.e. if the call stopped because
+	 * the frame or time budget ran out instead of because there was nothing left to do.
+	 * @return {@code true} if the budget ran out before all work was done
+	 */
+	public boolean isBacklogged()
+	{
+		return backlogged || remainingTasks > 0;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "CallbackStats{" +
+				"framesProcessed=" + framesProcessed +
+				", tasksRun=" + tasksRun +
+				", elapsedNanos=" + elapsedNanos +
+				", remainingTasks=" + remainingTasks +
+				", backlogged=" + backlogged +
+				'}';
+	}
+}
@@ -1,9 +1,16 @@
 package de.jcm.discordgamesdk;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import de.jcm.discordgamesdk.impl.Error;
 import de.jcm.discordgamesdk.impl.*;
+import de.jcm.discordgamesdk.impl.channel.BlockingReader;
+import de.jcm.discordgamesdk.impl.channel.BufferPool;
 import de.jcm.discordgamesdk.impl.channel.DiscordChannel;
+import de.jcm.discordgamesdk.impl.channel.FrameDecoder;
+import de.jcm.discordgamesdk.impl.channel.FrameWriter;
+import de.jcm.discordgamesdk.impl.channel.OutboundQueue;
+import de.jcm.discordgamesdk.impl.channel.SelectorLoop;
 import de.jcm.discordgamesdk.impl.channel.UnixDiscordChannel;
 import de.jcm.discordgamesdk.impl.channel.WindowsDiscordChannel;
 import de.jcm.discordgamesdk.impl.commands.Subscribe;
@@ -12,13 +19,25 @@ import de.jcm.discordgamesdk.impl.events.VoiceSettingsUpdate2Event;
 import de.jcm.discordgamesdk.user.DiscordUser;
 import de.jcm.discordgamesdk.user.Relationship;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.nio.channels.SelectableChannel;
+import java.nio.charset.*;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
 
 /**
  * The main component for accessing Discord's game SDK.
@@ -60,19 +79,43 @@ public class Core implements AutoCloseable
 		}
 	}
 
+	/**
+	 * Precision of request timeouts, also the interval at which the selector I/O thread checks them.
+	 */
+	private static final long TIMEOUT_TICK_MILLIS = 100;
+
 	private DiscordChannel channel;
-	private ConnectionState state;
+	private final FrameDecoder frameDecoder;
+	private final OutboundQueue outbound;
+	private final FrameWriter frameWriter;
+	private final CommandEncoder commandEncoder;
+	private final CommandDecoder commandDecoder;
+	private volatile ConnectionState state;
 	private final Gson gson;
-	private long nonce;
-	private final Map<String, Consumer<Command>> handlers;
+	private final AtomicLong nonce = new AtomicLong();
+	private final Queue<Submission> submissions = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean draining = new AtomicBoolean();
+	private final PendingRequests<PendingResponse> pendingRequests;
+	private final SingleFlight flights = new SingleFlight(64);
+	private final TimeoutWheel requestTimeouts;
+	private final LongConsumer expireAction = this::expireRequest;
+	private final LongConsumer cancelAction = this::cancelRequest;
 	private final Events events;
+	/** Events we are subscribed to, guarded by itself */
+	private final Set<Command.Event> subscribedEvents = EnumSet.noneOf(Command.Event.class);
+	private final Runnable subscriptionUpdater = this::updateSubscriptions;
 	private final DiscordEventAdapter eventAdapter;
-	private BiConsumer<LogLevel, String> logHook = DEFAULT_LOG_HOOK;
-	private LogLevel minLogLevel = LogLevel.VERBOSE;
+	private volatile BiConsumer<LogLevel, String> logHook = DEFAULT_LOG_HOOK;
+	private volatile LogLevel minLogLevel = LogLevel.VERBOSE;
 	private boolean suppressExceptions;
 	private final CorePrivate corePrivate;
+	private final CallbackStats callbackStats = new CallbackStats();
 
 	private final CreateParams createParams;
+	private Closeable backgroundReader;
+	private volatile IOException ioFailure;
+	/** Whether the frame decoder holds a complete frame that has not been received yet, see {@link #hasFrame()} */
+	private boolean frameReady;
 	private final AtomicBoolean open = new AtomicBoolean(true);
 
 	private final ActivityManager activityManager;
@@ -104,23 +147,41 @@ public class Core implements AutoCloseable
 	 *     https://discordapp.com/developers/docs/game-sdk/discord#create</a>
 	 */
 	public Core(CreateParams params)
+	{
+		this(params, null);
+	}
+
+	/**
+	 * Creates an instance of the SDK that talks to Discord over the given channel
+	 * instead of looking up Discord's IPC socket.
+	 * @param params Parameters to create Core from.
+	 * @param channel Channel to use, or {@code null} to use {@link #getDiscordChannel()}
+	 */
+	Core(CreateParams params, DiscordChannel channel)
 	{
         this.createParams = params;
 		this.suppressExceptions = (this.createParams.flags & 1) != 0 || (this.createParams.flags & 2) != 0;
 
 		this.state = ConnectionState.HANDSHAKE;
-		this.gson = new Gson();
-		this.nonce = 0;
-		this.handlers = new HashMap<>();
+		this.gson = new GsonBuilder().registerTypeAdapterFactory(new WireAdapters()).create();
+		this.frameDecoder = new FrameDecoder(createParams.maxFrameLength);
+		this.outbound = new OutboundQueue(new BufferPool(16));
+		this.frameWriter = new FrameWriter(outbound);
+		this.commandEncoder = new CommandEncoder(gson);
+		this.commandDecoder = new CommandDecoder(gson);
+		this.pendingRequests = new PendingRequests<>(64);
+		this.requestTimeouts = new TimeoutWheel(TimeUnit.MILLISECONDS.toNanos(TIMEOUT_TICK_MILLIS), 512, System.nanoTime());
 		this.corePrivate = new CorePrivate();
 		this.events = new Events(corePrivate);
 		this.eventAdapter = createParams.eventAdapter;
+		if(eventAdapter instanceof DiscordEventHandler handler)
+			handler.addChangeListener(subscriptionUpdater);
 
 		try
 		{
-			this.channel = Core.getDiscordChannel();
+			this.channel = channel != null ? channel : Core.getDiscordChannel();
 			this.sendHandshake();
-			runCallbacks();
+			receiveHandshake();
 			this.channel.configureBlocking(false);
 		}
 		catch(IOException e)
@@ -139,20 +200,243 @@ public class Core implements AutoCloseable
 		this.voiceManager = new VoiceManager(corePrivate);
 
 		this.suppressExceptions = (this.createParams.flags & 2) != 0;
+
+		try
+		{
+			if(this.channel != null)
+				startIo();
+		}
+		catch(IOException e)
+		{
+			if(!suppressExceptions) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	private void startIo() throws IOException
+	{
+		if(createParams.ioMode == CreateParams.IoMode.POLLING)
+			return;
+
+		SelectableChannel selectable = channel.getSelectableChannel();
+		if(selectable == null)
+		{
+			corePrivate.log(LogLevel.WARN, "I/O mode "+createParams.ioMode+" is not supported by "
+					+channel.getClass().getSimpleName()+", falling back to "+CreateParams.IoMode.POLLING);
+			return;
+		}
+
+		if(createParams.ioMode == CreateParams.IoMode.SELECTOR)
+		{
+			SelectorLoop selectorLoop = new SelectorLoop(selectable, new SelectorLoop.Handler()
+			{
+				@Override
+				public boolean onReadable() throws IOException
+				{
+					Command c;
+					while((c = receiveCommand()) != null)
+					{
+						dispatchCommand(c);
+					}
+					return checkEndOfStream();
+				}
+
+				@Override
+				public boolean onWritable() throws IOException
+				{
+					return writeSubmissions();
+				}
+
+				@Override
+				public void onTick()
+				{
+					tick();
+				}
+
+				@Override
+				public void onError(IOException e)
+				{
+					onIoFailure(e);
+				}
+			}, TIMEOUT_TICK_MILLIS, "discord-game-sdk4j I/O");
+			backgroundReader = selectorLoop;
+			selectorLoop.start();
+		}
+		else if(createParams.ioMode == CreateParams.IoMode.VIRTUAL_THREAD)
+		{
+			BlockingReader reader = new BlockingReader(channel, new BlockingReader.Handler()
+			{
+				@Override
+				public boolean read() throws IOException
+				{
+					Command c = receiveCommand();
+					if(c != null)
+					{
+						dispatchCommand(c);
+					}
+					return checkEndOfStream();
+				}
+
+				@Override
+				public void onError(IOException e)
+				{
+					onIoFailure(e);
+				}
+			}, "discord-game-sdk4j reader");
+			backgroundReader = reader;
+			reader.start();
+		}
+
+		// send what has been queued before the background reader was there
+		requestFlush();
+	}
+
+	/**
+	 * Makes sure submitted frames get written: by the I/O thread in {@link CreateParams.IoMode#SELECTOR} mode,
+	 * right away by the calling thread otherwise (unless another thread is already writing).
+	 */
+	private void requestFlush() throws IOException
+	{
+		if(backgroundReader instanceof SelectorLoop selectorLoop)
+		{
+			selectorLoop.requestWrite();
+		}
+		else
+		{
+			drain(false);
+		}
+	}
+
+	/**
+	 * Does the work of the thread owning the write side of the channel, the outbound queue and the
+	 * timeout wheel, unless another thread is doing it right now. That thread then also handles
+	 * whatever has been submitted in the meantime.
+	 * <p>
+	 * Not used in {@link CreateParams.IoMode#SELECTOR} mode, where the I/O thread is the only owner.
+	 * @param expire {@code true} to also do the periodic work of {@link #tick()}
+	 */
+	private void drain(boolean expire) throws IOException
+	{
+		do
+		{
+			if(!draining.compareAndSet(false, true))
+				return;
+			try
+			{
+				if(expire)
+				{
+					tick();
+					expire = false;
+				}
+				writeSubmissions();
+			}
+			finally
+			{
+				draining.set(false);
+			}
+		}
+		// someone might have given up on the flag just before we released it
+		while(!submissions.isEmpty());
+	}
+
+	/**
+	 * Encodes all submitted messages and writes as much as the channel takes. Only called by the owner.
+	 * @return {@code true} if everything has been written
+	 */
+	private boolean writeSubmissions() throws IOException
+	{
+		Submission submission;
+		while((submission = submissions.poll()) != null)
+		{
+			if(submission.nonce() != Command.NO_NONCE)
+			{
+				requestTimeouts.schedule(submission.nonce(), submission.deadline());
+			}
+			if(submission.message() != null)
+				encode(submission.message());
+		}
+		return outbound.flush(channel);
+	}
+
+	private void dispatchCommand(Command command)
+	{
+		dispatch(()->handleCommand(command));
+	}
+
+	private boolean checkEndOfStream()
+	{
+		if(frameDecoder.isEndOfStream())
+		{
+			corePrivate.log(LogLevel.WARN, "Discord closed the connection");
+			return false;
+		}
+		return true;
+	}
+
+	private void onIoFailure(IOException e)
+	{
+		ioFailure = e;
+		corePrivate.log(LogLevel.ERROR, "Background reader failed: "+e);
+	}
+
+	/**
+	 * Runs a task received by a background thread on the callback executor
+	 * or queues it for {@link #runCallbacks()} if there is none.
+	 */
+	private void dispatch(Runnable task)
+	{
+		Executor executor = createParams.callbackExecutor;
+		if(executor != null)
+			executor.execute(task);
+		else
+			corePrivate.workQueue.add(task);
+	}
+
+	/**
+	 * Runs a task from any thread where callbacks are run: like a task received by the background thread
+	 * if there is one, otherwise queued for {@link #runCallbacks()}.
+	 */
+	private void post(Runnable task)
+	{
+		if(backgroundReader != null)
+			dispatch(task);
+		else
+			corePrivate.workQueue.add(task);
 	}
 
 	public class CorePrivate
 	{
 		private CorePrivate() {}
 
-		public Queue<Runnable> workQueue = new ArrayDeque<>();
+		public Queue<Runnable> workQueue = new ConcurrentLinkedQueue<>();
 
 		public int pid = (int) ProcessHandle.current().pid();
 		public DiscordUser currentUser;
-		public Map<Long, Relationship> relationships = new HashMap<>();
+		public Map<Long, Relationship> relationships = new ConcurrentHashMap<>();
 		public OverlayUpdateEvent.Data overlayData = new OverlayUpdateEvent.Data();
 		public VoiceSettingsUpdate2Event.Data voiceData = new VoiceSettingsUpdate2Event.Data();
 
+		public final EventPublisher<Relationship> relationshipUpdates = newPublisher();
+		public final EventPublisher<DiscordUser> activityJoinRequests = newPublisher();
+		public final EventPublisher<String> activityJoins = newPublisher();
+		public final EventPublisher<DiscordUser> currentUserUpdates = newPublisher();
+
+		private <T> EventPublisher<T> newPublisher()
+		{
+			return new EventPublisher<>(createParams.eventExecutor, createParams.eventBufferSize,
+			                            createParams.eventOverflowPolicy, subscriptionUpdater,
+			                            t->log(LogLevel.ERROR, "Event subscriber failed and was cancelled: "+t));
+		}
+
+		private void closePublishers()
+		{
+			relationshipUpdates.close();
+			activityJoinRequests.close();
+			activityJoins.close();
+			currentUserUpdates.close();
+		}
+
 		private static final DiscordEventAdapter NULL_ADAPTER = new DiscordEventAdapter(){};
 		public DiscordEventAdapter getEventAdapter()
 		{
@@ -162,7 +446,26 @@ public class Core implements AutoCloseable
 		public void ready()
 		{
 			state = ConnectionState.CONNECTED;
-			registerEvents();
+			updateSubscriptions();
+		}
+
+		/**
+		 * Tells if the registered {@link DiscordEventAdapter} does anything for an event.
+		 * @param event The event
+		 * @return {@code true} if the adapter overrides the method called for the event
+		 */
+		public boolean hasListener(Command.Event event)
+		{
+			return eventAdapter != null && eventAdapter.listensTo(event);
+		}
+
+		/**
+		 * Subscribes to the events that are {@linkplain EventHandler#isWanted() wanted} and unsubscribes from the others.
+		 * Can be called from any thread, does nothing before READY.
+		 */
+		public void updateSubscriptions()
+		{
+			Core.this.updateSubscriptions();
 		}
 
 		public Core getCore()
@@ -170,20 +473,208 @@ public class Core implements AutoCloseable
 			return Core.this;
 		}
 
+		/**
+		 * Runs a task finished by another thread where callbacks are run, i.e. on the
+		 * {@linkplain CreateParams#setCallbackExecutor(Executor) callback executor} if it is used
+		 * or in {@link Core#runCallbacks()} otherwise.
+		 * @param task The task, e.g. calling a callback
+		 */
+		public void post(Runnable task)
+		{
+			Core.this.post(task);
+		}
+
 		public void sendCommand(Command.Type type, Object args, Consumer<Command> responseHandler)
+		{
+			sendCommand(type, args, null, responseHandler);
+		}
+
+		/**
+		 * Sends a command and decodes the data of its response to the given class.
+		 * @param type Type of the command
+		 * @param args Arguments of the command
+		 * @param dataClass Class to decode the response's data to, see {@link Command#getPayload(Class)},
+		 *                  or {@code null} if the data is not needed
+		 * @param responseHandler Handler for the response
+		 */
+		public void sendCommand(Command.Type type, Object args, Class<?> dataClass, Consumer<Command> responseHandler)
+		{
+			sendCommand(type, args, dataClass, getRequestTimeout(), responseHandler);
+		}
+
+		/**
+		 * Gets the default timeout for requests.
+		 * @return The timeout or {@code null} if requests wait forever
+		 * @see CreateParams#setRequestTimeout(Duration)
+		 */
+		public Duration getRequestTimeout()
+		{
+			return createParams.requestTimeout;
+		}
+
+		public CreateParams getCreateParams()
+		{
+			return createParams;
+		}
+
+		/**
+		 * Sends a command with its own timeout instead of the one from {@link CreateParams#getRequestTimeout()}.
+		 * @param type Type of the command
+		 * @param args Arguments of the command
+		 * @param dataClass Class to decode the response's data to, see {@link Command#getPayload(Class)},
+		 *                  or {@code null} if the data is not needed
+		 * @param timeout Time to wait for the response, or {@code null} to wait forever
+		 * @param responseHandler Handler for the response, receives an error with
+		 *                        {@link Result#TRANSACTION_ABORTED} if there is none in time
+		 * @return The nonce of the sent command or {@link Command#NO_NONCE} if it could not be sent
+		 *         and exceptions are suppressed
+		 */
+		public long sendCommand(Command.Type type, Object args, Class<?> dataClass, Duration timeout,
+		                        Consumer<Command> responseHandler)
 		{
 			Command command = new Command();
 			command.setCmd(type);
-			command.setArgs(gson.toJsonTree(args).getAsJsonObject());
-			command.setNonce(Long.toString(++nonce));
-			Core.this.sendCommand(command, responseHandler);
+			command.setArgs(args);
+			command.setNonceId(nonce.incrementAndGet());
+			PendingResponse pending = new PendingResponse(type, dataClass, responseHandler);
+
+			if(!type.isReadOnly())
+			{
+				boolean sent = Core.this.sendCommand(command, pending, timeout);
+				return sent ? command.getNonceId() : Command.NO_NONCE;
+			}
+
+			// identical read-only commands in flight at the same time share one response
+			long id = command.getNonceId();
+			byte[] key = commandEncoder.encodeArgs(args);
+			if(!checkRunning())
+				return Command.NO_NONCE;
+			// register first, the flight might land as soon as it has been joined
+			pendingRequests.put(id, pending);
+			SingleFlight.Flight flight = flights.join(type, dataClass, key, id);
+			pending.flight = flight;
+			if(flight.getNonce() != id)
+			{
+				// only the response is shared, the deadline stays our own
+				return submitRequest(null, id, timeout) ? id : Command.NO_NONCE;
+			}
+
+			boolean sent = false;
+			try
+			{
+				sent = submitRequest(command, id, timeout);
+			}
+			finally
+			{
+				if(!sent)
+					abortFlight(type, flight);
+			}
+			return sent ? id : Command.NO_NONCE;
+		}
+
+		/**
+		 * Sends a command and returns a future for its result.
+		 * @see #sendCommandAsync(Command.Type, Object, Class, Duration, Function)
+		 */
+		public <T> CompletableFuture<T> sendCommandAsync(Command.Type type, Object args, Class<?> dataClass,
+		                                                 Function<Command, T> result)
+		{
+			return sendCommandAsync(type, args, dataClass, getRequestTimeout(), result);
+		}
+
+		/**
+		 * Sends a command and returns a future for its result.
+		 * <p>
+		 * The future is completed right where the response is handled, without running another callback first.
+		 * If the response is an error or there is none in time, it completes exceptionally with a {@link GameSDKException}.
+		 * Cancelling the future (or letting e.g. {@link CompletableFuture#orTimeout} complete it) gives up waiting
+		 * for the response.
+		 * @param type Type of the command
+		 * @param args Arguments of the command
+		 * @param dataClass Class to decode the response's data to, see {@link Command#getPayload(Class)},
+		 *                  or {@code null} if the data is not needed
+		 * @param timeout Time to wait for the response, or {@code null} to wait forever
+		 * @param result Creates the result from a successful response, may throw a {@link RuntimeException}
+		 *               to complete the future exceptionally
+		 * @return A future for the result
+		 */
+		public <T> CompletableFuture<T> sendCommandAsync(Command.Type type, Object args, Class<?> dataClass,
+		                                                 Duration timeout, Function<Command, T> result)
+		{
+			RequestFuture<T> future = new RequestFuture<>(cancelAction);
+			long sent;
+			try
+			{
+				sent = sendCommand(type, args, dataClass, timeout, c->{
+					Result r = checkError(c);
+					if(r != Result.OK)
+					{
+						future.fail(new GameSDKException(r));
+						return;
+					}
+					try
+					{
+						future.succeed(result.apply(c));
+					}
+					catch(RuntimeException e)
+					{
+						future.fail(e);
+					}
+				});
+			}
+			catch(RuntimeException e)
+			{
+				future.fail(e);
+				return future;
+			}
+
+			if(sent == Command.NO_NONCE)
+				future.fail(new GameSDKException(Result.NOT_RUNNING));
+			else
+				future.setNonce(sent);
+			return future;
 		}
 
 		public void sendCommandNoResponse(Command.Type type, Object args, Consumer<Command> responseHandler)
+		{
+			if(!sendCommandNoResponse(type, args))
+				return;
+
+			post(()->{
+				Command c = new Command();
+				c.setEvt(null);
+				c.setNonceId(0);
+				c.setCmd(type);
+				c.setData(null);
+				responseHandler.accept(c);
+			});
+		}
+
+		/**
+		 * Sends a command that Discord does not answer and returns a future that is completed
+		 * as soon as the command is queued for sending.
+		 * @param type Type of the command
+		 * @param args Arguments of the command
+		 * @return A completed future, or a failed one if the command could not be sent
+		 */
+		public CompletableFuture<Void> sendCommandNoResponseAsync(Command.Type type, Object args)
+		{
+			try
+			{
+				return sendCommandNoResponse(type, args) ? CompletableFuture.completedFuture(null)
+						: CompletableFuture.failedFuture(new GameSDKException(Result.NOT_RUNNING));
+			}
+			catch(RuntimeException e)
+			{
+				return CompletableFuture.failedFuture(e);
+			}
+		}
+
+		private boolean sendCommandNoResponse(Command.Type type, Object args)
 		{
 			if(channel == null) {
 				if(suppressExceptions) {
-					return;
+					return false;
 				} else {
 					throw new GameSDKException(Result.NOT_RUNNING);
 				}
@@ -191,29 +682,22 @@ public class Core implements AutoCloseable
 
 			Command command = new Command();
 			command.setCmd(type);
-			command.setArgs(gson.toJsonTree(args).getAsJsonObject());
-			command.setNonce(Long.toString(0));
+			command.setArgs(args);
+			command.setNonceId(0);
 
 			try
 			{
-				sendString(gson.toJson(command));
+				submit(new Submission(command, Command.NO_NONCE, 0));
 			}
 			catch(IOException e)
 			{
 				if(suppressExceptions) {
-					return;
+					return false;
 				} else {
 					throw new RuntimeException(e);
 				}
 			}
-			corePrivate.workQueue.add(()->{
-				Command c = new Command();
-				c.setEvt(null);
-				c.setNonce(Long.toString(0));
-				c.setCmd(type);
-				c.setData(null);
-				responseHandler.accept(c);
-			});
+			return true;
 		}
 
 		public Gson getGson()
@@ -221,9 +705,14 @@ public class Core implements AutoCloseable
 			return gson;
 		}
 
+		public boolean isLoggable(LogLevel level)
+		{
+			return level.compareTo(minLogLevel) <= 0;
+		}
+
 		public void log(LogLevel level, String message)
 		{
-			if(level.compareTo(minLogLevel) <= 0)
+			if(isLoggable(level))
 			{
 				logHook.accept(level, message);
 			}
@@ -233,142 +722,408 @@ public class Core implements AutoCloseable
 		{
 			if(c.getEvent() == Command.Event.ERROR)
 			{
-				Error error = gson.fromJson(c.getData(), Error.class);
+				Error error = c.getPayload(Error.class);
+				if(error == null)
+					return Result.INTERNAL_ERROR;
 				log(LogLevel.ERROR, error.getMessage());
 
-				return Result.fromCode(error.getCode());
+				return error.getResult();
 			}
 			return Result.OK;
 		}
 	}
 
-	private void sendString(String message) throws IOException
-	{
-		byte[] bytes = message.getBytes();
-		ByteBuffer buf = ByteBuffer.allocate(bytes.length + 8);
-		buf.order(ByteOrder.LITTLE_ENDIAN);
-		buf.putInt(state.ordinal());
-		buf.putInt(bytes.length);
-		buf.put(bytes);
+	/**
+	 * A message waiting to be encoded and sent by the thread owning the I/O.
+	 * @param message Object to send as JSON, or {@code null} to only schedule the timeout
+	 * @param nonce Nonce of the request to schedule a timeout for, or {@link Command#NO_NONCE}
+	 * @param deadline Deadline of the request as of {@link System#nanoTime()}
+	 */
+	private record Submission(Object message, long nonce, long deadline) {}
 
-		channel.write(buf.flip());
-		corePrivate.log(LogLevel.VERBOSE, "Sent string \""+message+"\" at state "+state);
+	/**
+	 * Sends a message, can be called from any thread.
+	 */
+	private void submit(Submission submission) throws IOException
+	{
+		submissions.add(submission);
+		requestFlush();
 	}
 
-	private static class Res
+	/**
+	 * Encodes a message straight into a frame of the outbound queue. Only called by the owner.
+	 */
+	private void encode(Object message) throws IOException
 	{
-		public ConnectionState result;
-		public String data;
+		frameWriter.begin(state.ordinal());
+		ByteBuffer frame;
+		try
+		{
+			commandEncoder.encode(message, frameWriter);
+			frame = frameWriter.finish();
+		}
+		catch(IOException | RuntimeException e)
+		{
+			frameWriter.abort();
+			throw e;
+		}
+		outbound.enqueue(frame);
 
-		public Res(ConnectionState result, String data)
+		if(corePrivate.isLoggable(LogLevel.VERBOSE))
 		{
-			this.result = result;
-			this.data = data;
+			corePrivate.log(LogLevel.VERBOSE, "Queued string \""+StandardCharsets.UTF_8.decode(frame.duplicate().position(8))
+					+"\" at state "+state);
 		}
 	}
 
-	private Res receiveString() throws IOException
+	private static final class PendingResponse
 	{
-		ByteBuffer header = ByteBuffer.allocate(8);
-		channel.read(header);
-		header.flip();
-		header.order(ByteOrder.LITTLE_ENDIAN);
-		if(header.remaining() == 0)
+		private final Command.Type type;
+		private final Class<?> dataClass;
+		private final Consumer<Command> handler;
+		/** Flight the request started or joined, {@code null} unless it is a read-only request */
+		private volatile SingleFlight.Flight flight;
+
+		PendingResponse(Command.Type type, Class<?> dataClass, Consumer<Command> handler)
 		{
-			return null;
+			this.type = type;
+			this.dataClass = dataClass;
+			this.handler = handler;
 		}
 
-		int status = header.getInt(); // ignored for now?
-		int length = header.getInt();
+		Command.Type type()
+		{
+			return type;
+		}
 
-		ByteBuffer data = ByteBuffer.allocate(length);
-		int read = 0;
-		do
+		Class<?> dataClass()
 		{
-			read += (int) channel.read(new ByteBuffer[]{data}, 0, 1);
+			return dataClass;
 		}
-		while(read < length);
-		String s = new String(data.flip().array());
-		ConnectionState state1 = ConnectionState.values()[status];
 
-		corePrivate.log(LogLevel.VERBOSE, "Received string \""+s+"\" at state "+state1);
+		Consumer<Command> handler()
+		{
+			return handler;
+		}
+	}
 
-		return new Res(state1, s);
+	/**
+	 * Gives the requests that joined the flight of a request that could not be sent the same error.
+	 */
+	private void abortFlight(Command.Type type, SingleFlight.Flight flight)
+	{
+		long[] joiners = flights.land(flight);
+		if(joiners.length == 0)
+			return;
+
+		Command command = errorResponse(type, flight.getNonce(), new Error(Result.NOT_RUNNING, "Request could not be sent"));
+		post(() -> answerJoiners(joiners, command));
 	}
 
-	private void sendCommand(Command command, Consumer<Command> responseHandler)
+	/**
+	 * Hands the response of a flight's request to the requests that joined it, unless they gave up waiting.
+	 */
+	private void answerJoiners(long[] joiners, Command response)
+	{
+		for(long joiner : joiners)
+		{
+			PendingResponse pending = pendingRequests.cancel(joiner);
+			if(pending != null)
+				pending.handler().accept(response);
+		}
+	}
+
+	private static Command errorResponse(Command.Type type, long nonce, Error error)
+	{
+		Command command = new Command();
+		command.setCmd(type);
+		command.setEvt(Command.Event.ERROR);
+		command.setNonceId(nonce);
+		command.setPayload(error);
+		return command;
+	}
+
+	/**
+	 * @return {@code true} if the command has been sent, {@code false} if it failed with suppressed exceptions
+	 */
+	private boolean sendCommand(Command command, PendingResponse responseHandler, Duration timeout)
+	{
+		if(!checkRunning())
+			return false;
+
+		// register first, the response might be received by the I/O thread before submit returns
+		pendingRequests.put(command.getNonceId(), responseHandler);
+		return submitRequest(command, command.getNonceId(), timeout);
+	}
+
+	/**
+	 * @return {@code true} if there is a connection, {@code false} if there is none and exceptions are suppressed
+	 */
+	private boolean checkRunning()
 	{
 		if(channel == null) {
 			if(suppressExceptions) {
-				return;
+				return false;
 			} else {
 				throw new GameSDKException(Result.NOT_RUNNING);
 			}
 		}
+		return true;
+	}
 
+	/**
+	 * Submits a registered request together with its deadline.
+	 * @param command The command to send, or {@code null} to only schedule the deadline of a request that is not sent
+	 * @return {@code true} if it has been submitted, {@code false} if it failed with suppressed exceptions
+	 */
+	private boolean submitRequest(Command command, long nonce, Duration timeout)
+	{
 		try
 		{
-			sendString(gson.toJson(command));
+			if(timeout != null)
+				submit(new Submission(command, nonce, System.nanoTime() + saturatedNanos(timeout)));
+			else if(command != null)
+				submit(new Submission(command, Command.NO_NONCE, 0));
 		}
 		catch(IOException e)
 		{
+			pendingRequests.cancel(nonce);
 			if(suppressExceptions) {
-				return;
+				return false;
 			} else {
 				throw new RuntimeException(e);
 			}
 		}
-		handlers.put(command.getNonce(), responseHandler);
+		return true;
 	}
 
 	private void sendHandshake() throws IOException
 	{
 		HandshakeMessage handshakeMessage = new HandshakeMessage(Long.toString(createParams.getClientID()));
-		sendString(gson.toJson(handshakeMessage));
+		submit(new Submission(handshakeMessage, Command.NO_NONCE, 0));
 	}
 
-	private void registerEvents()
+	/**
+	 * Handles Discord's answer to the handshake, while the channel is still blocking.
+	 * Unlike {@link #runCallbacks(int, Duration)}, this does not check for another frame afterwards,
+	 * which would block until Discord sends something else.
+	 */
+	private void receiveHandshake() throws IOException
 	{
-		for(Map.Entry<Command.Event, EventHandler<?>> e : events.getEventTypes())
+		Command c = receiveCommand();
+		if(c != null)
+			handleCommand(c);
+		runTasks(callbackStats, System.nanoTime(), Long.MAX_VALUE);
+	}
+
+	private void updateSubscriptions()
+	{
+		if(state != ConnectionState.CONNECTED || !open.get())
+			return;
+
+		synchronized(subscribedEvents)
 		{
-			Command.Event event = e.getKey();
-			EventHandler<?> handler = e.getValue();
-			if(!handler.shouldRegister()) continue;
+			for(Map.Entry<Command.Event, EventHandler<?>> e : events.getEventTypes())
+			{
+				Command.Event event = e.getKey();
+				EventHandler<?> handler = e.getValue();
+				if(!handler.shouldRegister()) continue;
 
-			Command command = new Command();
-			command.setCmd(Command.Type.SUBSCRIBE);
-			command.setEvt(event);
-			command.setArgs(gson.toJsonTree(handler.getRegisterArgs()));
-			command.setNonce(Long.toString(++nonce));
-			sendCommand(command, o->
-					corePrivate.log(LogLevel.DEBUG, "Registered event "+gson.fromJson(o.getData(), Subscribe.Response.class).getEvent()));
+				boolean wanted = handler.isWanted();
+				if(wanted == subscribedEvents.contains(event)) continue;
+
+				Command.Type type = wanted ? Command.Type.SUBSCRIBE : Command.Type.UNSUBSCRIBE;
+				Command command = new Command();
+				command.setCmd(type);
+				command.setEvt(event);
+				command.setArgs(handler.getRegisterArgs());
+				command.setNonceId(nonce.incrementAndGet());
+				if(!sendCommand(command, new PendingResponse(type, Subscribe.Response.class, o->{
+					if(corePrivate.checkError(o) == Result.OK)
+						corePrivate.log(LogLevel.DEBUG, (wanted ? "Registered event " : "Unregistered event ")
+								+o.getPayload(Subscribe.Response.class).getEvent());
+				}), createParams.requestTimeout))
+					continue;
+
+				if(wanted)
+					subscribedEvents.add(event);
+				else
+					subscribedEvents.remove(event);
+			}
+		}
+	}
+
+	private static long saturatedNanos(Duration duration)
+	{
+		try
+		{
+			return duration.toNanos();
+		}
+		catch(ArithmeticException e)
+		{
+			return Long.MAX_VALUE / 2; // "forever" without overflowing the deadline
+		}
+	}
+
+	/**
+	 * Periodic work of the thread owning the I/O: aborts requests whose timeout has passed
+	 * and sends activity updates that had to wait for the rate limit.
+	 */
+	private void tick()
+	{
+		expireRequests();
+		// not created yet while connecting
+		if(activityManager != null)
+			activityManager.sendCoalescedUpdate();
+	}
+
+	/**
+	 * Aborts all requests whose timeout has passed.
+	 */
+	private void expireRequests()
+	{
+		requestTimeouts.advance(System.nanoTime(), expireAction);
+	}
+
+	private void expireRequest(long nonce)
+	{
+		PendingResponse pending = giveUp(nonce);
+		if(pending == null)
+			return; // answered in time
+
+		corePrivate.log(LogLevel.WARN, "Request "+pending.type()+" (nonce "+nonce+") timed out");
+
+		Command command = errorResponse(pending.type(), nonce,
+				new Error(Result.TRANSACTION_ABORTED, "No response from Discord in time"));
+		post(() -> pending.handler().accept(command));
+	}
+
+	/**
+	 * Gives up waiting for the response to a request, because it was cancelled.
+	 */
+	private void cancelRequest(long nonce)
+	{
+		giveUp(nonce);
+	}
+
+	/**
+	 * Stops waiting for the response to a request. A request that was sent for a flight stays registered
+	 * as long as requests that joined the flight still wait for the response, so they can get it.
+	 * @return The request, which has to be told that it gave up, or {@code null} if it has been answered already
+	 */
+	private PendingResponse giveUp(long nonce)
+	{
+		PendingResponse pending = pendingRequests.get(nonce);
+		if(pending == null)
+			return null;
+
+		SingleFlight.Flight flight = pending.flight;
+		if(flight == null)
+			return pendingRequests.cancel(nonce);
+		if(flight.getNonce() == nonce)
+		{
+			if(flights.detach(flight))
+				return flights.answerLeader(flight) ? pending : null;
+			return pendingRequests.cancel(nonce);
 		}
+
+		pending = pendingRequests.cancel(nonce);
+		if(pending != null && flights.leave(flight, nonce))
+			pendingRequests.cancel(flight.getNonce()); // nobody waits for the response anymore
+		return pending;
+	}
+
+	/**
+	 * Checks if a complete frame is available without handling it, so that the next
+	 * {@link #receiveCommand()} returns it. Only used by the polling thread.
+	 */
+	private boolean hasFrame() throws IOException
+	{
+		if(!frameReady)
+			frameReady = frameDecoder.read(channel);
+		return frameReady;
 	}
 
 	private Command receiveCommand() throws IOException
 	{
-		Res r = receiveString();
-		if(r == null)
+		if(frameReady)
+		{
+			frameReady = false;
+		}
+		else if(!frameDecoder.read(channel))
+		{
 			return null;
-		return gson.fromJson(r.data, Command.class);
+		}
+
+		ByteBuffer body = frameDecoder.getBody();
+		if(corePrivate.isLoggable(LogLevel.VERBOSE))
+		{
+			int status = frameDecoder.getOpcode();
+			ConnectionState state1 = status >= 0 && status < ConnectionState.values().length ?
+					ConnectionState.values()[status] : ConnectionState.ERROR;
+			corePrivate.log(LogLevel.VERBOSE, "Received string \""+StandardCharsets.UTF_8.decode(body.duplicate())
+					+"\" at state "+state1);
+		}
+		return commandDecoder.decode(body, this::dataClassFor);
+	}
+
+	/**
+	 * Finds the class that the handler of a received command expects its data to be.
+	 */
+	private Class<?> dataClassFor(Command command)
+	{
+		if(command.hasNonce())
+		{
+			PendingResponse pending = pendingRequests.get(command.getNonceId());
+			return pending != null ? pending.dataClass() : null;
+		}
+		else if(command.getEvent() != null)
+		{
+			EventHandler<?> handler = events.wantedForEvent(command.getEvent());
+			return handler != null ? handler.getDataClass() : null;
+		}
+		return null;
 	}
 
 	private void handleCommand(Command command)
 	{
 		if(command.isError()) {
-			corePrivate.log(LogLevel.ERROR, command.getCmd().toString()+": "
-					+corePrivate.getGson().fromJson(command.getData(), Error.class));
+			corePrivate.log(LogLevel.ERROR, command.getCmd()+": "+command.getPayload(Error.class));
 		}
 
-		if(command.getNonce() != null)
+		if(command.hasNonce())
 		{
-			handlers.remove(command.getNonce()).accept(command);
+			if(command.getNonceId() == 0)
+				return; // response to a command sent by sendCommandNoResponse
+
+			PendingResponse pending = pendingRequests.remove(command.getNonceId());
+			if(pending == null)
+			{
+				corePrivate.log(LogLevel.DEBUG, "Dropped response to unknown request: "+command);
+				return;
+			}
+
+			SingleFlight.Flight flight = pending.flight;
+			if(flight == null)
+			{
+				pending.handler().accept(command);
+				return;
+			}
+			// the request that was sent might have given up while others still waited for the response
+			long[] joiners = flights.land(flight);
+			if(flights.answerLeader(flight))
+				pending.handler().accept(command);
+			answerJoiners(joiners, command);
 		}
 		else if(command.getEvent() != null)
 		{
+			// without payload nobody wanted the event when it arrived, so its data was not even decoded
+			Object payload = command.getPayload(Object.class);
 			EventHandler<?> handler = events.forEvent(command.getEvent());
-			Object data = gson.fromJson(command.getData(), handler.getDataClass());
-			handler.handleObject(command, data);
+			if(handler != null && payload != null)
+			{
+				handler.handleObject(command, payload);
+			}
 		}
 	}
 
@@ -461,33 +1216,190 @@ public class Core implements AutoCloseable
 		return voiceManager;
 	}
 
+	/**
+	 * <p>Publishes every relationship update, just like {@link DiscordEventAdapter#onRelationshipUpdate(Relationship)}.</p>
+	 * <p>Subscribers are called on the {@linkplain CreateParams#setEventExecutor(Executor) event executor}
+	 * and buffer events as set in the {@link CreateParams}. They are completed when the Core is closed.</p>
+	 * @return A publisher of relationship updates
+	 * @see #relationshipUpdates(int, OverflowPolicy)
+	 */
+	public Flow.Publisher<Relationship> relationshipUpdates()
+	{
+		return corePrivate.relationshipUpdates.publisher();
+	}
+
+	/**
+	 * Publishes every relationship update to subscribers with the given buffer.
+	 * @param bufferSize Number of events to buffer per subscriber
+	 * @param policy What to do when the buffer of a subscriber is full
+	 * @return A publisher of relationship updates
+	 * @see #relationshipUpdates()
+	 */
+	public Flow.Publisher<Relationship> relationshipUpdates(int bufferSize, OverflowPolicy policy)
+	{
+		return corePrivate.relationshipUpdates.publisher(bufferSize, policy);
+	}
+
+	/**
+	 * <p>Publishes the users asking to join, just like {@link DiscordEventAdapter#onActivityJoinRequest(DiscordUser)}.</p>
+	 * <p>Subscribers are handled like those of {@link #relationshipUpdates()}.</p>
+	 * <p>Discord is only asked to send the event while there is a subscriber or a listener for it.</p>
+	 * @return A publisher of join requests
+	 */
+	public Flow.Publisher<DiscordUser> activityJoinRequests()
+	{
+		return corePrivate.activityJoinRequests.publisher();
+	}
+
+	/**
+	 * Publishes the users asking to join to subscribers with the given buffer.
+	 * @param bufferSize Number of events to buffer per subscriber
+	 * @param policy What to do when the buffer of a subscriber is full
+	 * @return A publisher of join requests
+	 * @see #activityJoinRequests()
+	 */
+	public Flow.Publisher<DiscordUser> activityJoinRequests(int bufferSize, OverflowPolicy policy)
+	{
+		return corePrivate.activityJoinRequests.publisher(bufferSize, policy);
+	}
+
+	/**
+	 * <p>Publishes the secrets of accepted invites, just like {@link DiscordEventAdapter#onActivityJoin(String)}.</p>
+	 * <p>Discord is only asked to send the event while there is a subscriber or a listener for it.</p>
+	 * <p>Subscribers are handled like those of {@link #relationshipUpdates()}.</p>
+	 * @return A publisher of join secrets
+	 */
+	public Flow.Publisher<String> activityJoins()
+	{
+		return corePrivate.activityJoins.publisher();
+	}
+
+	/**
+	 * Publishes the secrets of accepted invites to subscribers with the given buffer.
+	 * @param bufferSize Number of events to buffer per subscriber
+	 * @param policy What to do when the buffer of a subscriber is full
+	 * @return A publisher of join secrets
+	 * @see #activityJoins()
+	 */
+	public Flow.Publisher<String> activityJoins(int bufferSize, OverflowPolicy policy)
+	{
+		return corePrivate.activityJoins.publisher(bufferSize, policy);
+	}
+
+	/**
+	 * <p>Publishes the current user whenever it changes, just like {@link DiscordEventAdapter#onCurrentUserUpdate()}.</p>
+	 * <p>Subscribers are handled like those of {@link #relationshipUpdates()}.
+	 * As only the latest user is of interest, {@link OverflowPolicy#CONFLATE} is a good fit for them.</p>
+	 * @return A publisher of the current user
+	 */
+	public Flow.Publisher<DiscordUser> currentUserUpdates()
+	{
+		return corePrivate.currentUserUpdates.publisher();
+	}
+
+	/**
+	 * Publishes the current user whenever it changes to subscribers with the given buffer.
+	 * @param bufferSize Number of events to buffer per subscriber
+	 * @param policy What to do when the buffer of a subscriber is full
+	 * @return A publisher of the current user
+	 * @see #currentUserUpdates()
+	 */
+	public Flow.Publisher<DiscordUser> currentUserUpdates(int bufferSize, OverflowPolicy policy)
+	{
+		return corePrivate.currentUserUpdates.publisher(bufferSize, policy);
+	}
+
 	/**
 	 * <p>Listens for new events and runs pending callbacks.</p>
 	 * <p>This method should be called in a main loop every few millis.</p>
+	 * <p>All frames that are currently available are handled, use
+	 * {@link #runCallbacks(int, Duration)} to limit the work done in a single call.</p>
 	 * @see <a href="https://discordapp.com/developers/docs/game-sdk/discord#setloghook">
 	 *     https://discordapp.com/developers/docs/game-sdk/discord#runcallbacks</a>
 	 */
 	public void runCallbacks()
 	{
-		Runnable r;
-		while((r = corePrivate.workQueue.poll()) != null)
-			r.run();
+		runCallbacks(Integer.MAX_VALUE, null);
+	}
+
+	/**
+	 * <p>Listens for new events and runs pending callbacks, but stops as soon as
+	 * the given frame or time budget is used up.</p>
+	 * <p>Frames are received and handled until there are no more frames available,
+	 * {@code maxFrames} frames have been handled or {@code budget} has passed.
+	 * Pending tasks that do not fit into the budget are kept for the next call.</p>
+	 * <p>The returned {@link CallbackStats} are owned by this Core and overwritten
+	 * by the next call to this method.</p>
+	 * <p>If frames are received by a background thread (see {@link CreateParams.IoMode}),
+	 * this method only runs the tasks queued by it.</p>
+	 * @param maxFrames Maximum number of frames to handle
+	 * @param budget Maximum time to spend, or {@code null} for no time limit
+	 * @return Statistics about the work done in this call
+	 * @see #runCallbacks()
+	 */
+	public CallbackStats runCallbacks(int maxFrames, Duration budget)
+	{
+		long start = System.nanoTime();
+		long budgetNanos = budget == null ? Long.MAX_VALUE : budget.toNanos();
+		CallbackStats stats = callbackStats;
+		stats.reset();
+
+		runTasks(stats, start, budgetNanos);
 
 		if(channel == null) {
 			if(suppressExceptions) {
-				return;
+				return finishStats(stats, start);
 			} else {
 				throw new GameSDKException(Result.NOT_RUNNING);
 			}
 		}
 
+		if(backgroundReader != null)
+		{
+			if(backgroundReader instanceof BlockingReader)
+			{
+				// in SELECTOR mode the I/O thread does this by itself
+				try
+				{
+					drain(true);
+				}
+				catch(IOException e)
+				{
+					onIoFailure(e);
+				}
+			}
+
+			// frames are received by the background reader and queued as tasks
+			IOException failure = ioFailure;
+			if(failure != null && !suppressExceptions) {
+				ioFailure = null;
+				throw new RuntimeException(failure);
+			}
+			return finishStats(stats, start);
+		}
+
 		try
 		{
-			Command c = receiveCommand();
-			if(c != null)
+			drain(true);
+			while(true)
 			{
+				if(stats.framesProcessed >= maxFrames || System.nanoTime() - start >= budgetNanos)
+				{
+					// only backlogged if there actually is another frame, which is kept for the next call
+					stats.backlogged = hasFrame();
+					break;
+				}
+
+				Command c = receiveCommand();
+				if(c == null)
+					break;
 				handleCommand(c);
+				stats.framesProcessed++;
 			}
+
+			runTasks(stats, start, budgetNanos);
+			// whatever the channel does not take now is sent next time
+			drain(false);
 		}
 		catch(IOException e)
 		{
@@ -495,6 +1407,62 @@ public class Core implements AutoCloseable
 				throw new RuntimeException(e);
 			}
 		}
+		return finishStats(stats, start);
+	}
+
+	/**
+	 * Runs the tasks that are in the work queue right now, but not those added
+	 * by them, so that a task re-queuing itself cannot keep us here forever.
+	 */
+	private void runTasks(CallbackStats stats, long start, long budgetNanos)
+	{
+		int count = corePrivate.workQueue.size();
+		Runnable r;
+		while(count-- > 0 && System.nanoTime() - start < budgetNanos && (r = corePrivate.workQueue.poll()) != null)
+		{
+			r.run();
+			stats.tasksRun++;
+		}
+	}
+
+	private CallbackStats finishStats(CallbackStats stats, long start)
+	{
+		stats.remainingTasks = corePrivate.workQueue.size();
+		stats.elapsedNanos = System.nanoTime() - start;
+		return stats;
+	}
+
+	/**
+	 * Tells you how many requests sent to Discord are still waiting for their response.
+	 * @return Number of pending requests
+	 * @see CreateParams#setRequestTimeout(Duration)
+	 */
+	public int getPendingRequestCount()
+	{
+		return pendingRequests.size();
+	}
+
+	/**
+	 * Tells you how many responses have been dropped because they did not belong to any pending request,
+	 * e.g. because they arrived too late or their nonce is unknown.
+	 * @return Number of dropped responses since this Core was created
+	 */
+	public long getDroppedResponseCount()
+	{
+		return pendingRequests.getUnknownResponses();
+	}
+
+	/**
+	 * Tells you how many requests were not sent to Discord because an identical one was still waiting for its response.
+	 * <p>
+	 * This applies to commands that only read data, i.e. fetching images, users and relationships.
+	 * Such a request shares the response of the identical request that was sent,
+	 * but keeps its own timeout and can still be cancelled on its own.
+	 * @return Number of shared requests since this Core was created
+	 */
+	public long getSharedRequestCount()
+	{
+		return flights.getJoinedCount();
 	}
 
 	public boolean isDiscordRunning() {
@@ -536,8 +1504,15 @@ public class Core implements AutoCloseable
 	@Override
 	public void close()
 	{
+		open.set(false);
 		try
 		{
+			if(channel != null && !(backgroundReader instanceof SelectorLoop)) {
+				drain(false); // best effort
+			}
+			if(backgroundReader != null) {
+				backgroundReader.close();
+			}
 			if(channel != null) {
 				channel.close();
 			}
@@ -548,5 +1523,12 @@ public class Core implements AutoCloseable
 				throw new RuntimeException(e);
 			}
 		}
+		finally
+		{
+			if(eventAdapter instanceof DiscordEventHandler handler)
+				handler.removeChangeListener(subscriptionUpdater);
+			corePrivate.closePublishers();
+			imageManager.close();
+		}
 	}
 }
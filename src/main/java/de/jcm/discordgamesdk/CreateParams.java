@@ -1,5 +1,10 @@
 package de.jcm.discordgamesdk;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
 
 /**
@@ -82,9 +87,102 @@ public class CreateParams implements AutoCloseable
 		}
 	}
 
+	/**
+	 * Enum representing the ways a {@link Core} can receive data from Discord.
+	 * @see #setIoMode(IoMode)
+	 */
+	public enum IoMode
+	{
+		/**
+		 * Data is only received when {@link Core#runCallbacks()} is called.
+		 * <p>
+		 * This is the default and requires calling {@link Core#runCallbacks()} regularly,
+		 * e.g. once per frame of your game.
+		 */
+		POLLING,
+		/**
+		 * A background I/O thread waits for data using a {@link java.nio.channels.Selector}
+		 * and decodes it as soon as it arrives.
+		 * <p>
+		 * Callbacks and events are passed to the executor set with {@link #setCallbackExecutor(Executor)}.
+		 * If no executor is set, they are queued and run by the next call to {@link Core#runCallbacks()}.
+		 * <p>
+		 * This mode is only available on platforms where Discord's IPC uses sockets (i.e. not on Windows).
+		 * {@link #POLLING} is used instead where it is not available.
+		 */
+		SELECTOR,
+		/**
+		 * A background thread reads from Discord in blocking mode and decodes data as soon as it arrives.
+		 * <p>
+		 * On Java 21 and newer this is a virtual thread, so several Cores in one JVM do not
+		 * need a platform thread each. On older versions a platform daemon thread is used.
+		 * <p>
+		 * Callbacks and events are handled just like in {@link #SELECTOR} mode and this mode
+		 * has the same platform restrictions.
+		 */
+		VIRTUAL_THREAD
+	}
+
+	/**
+	 * Default maximum length of a single frame received from Discord (16 MiB).
+	 * @see #setMaxFrameLength(int)
+	 */
+	public static final int DEFAULT_MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+
+	/**
+	 * Default time to wait for Discord to respond to a request (30 seconds).
+	 * @see #setRequestTimeout(Duration)
+	 */
+	public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+	/**
+	 * Default number of events buffered per subscriber of an event publisher (256).
+	 * @see #setEventBufferSize(int)
+	 */
+	public static final int DEFAULT_EVENT_BUFFER_SIZE = 256;
+
+	/**
+	 * Default number of activity updates Discord accepts per {@link #DEFAULT_ACTIVITY_UPDATE_PERIOD} (5).
+	 * @see #setActivityUpdateRateLimit(int, Duration)
+	 */
+	public static final int DEFAULT_ACTIVITY_UPDATE_LIMIT = 5;
+
+	/**
+	 * Default period of the activity update rate limit (20 seconds).
+	 * @see #setActivityUpdateRateLimit(int, Duration)
+	 */
+	public static final Duration DEFAULT_ACTIVITY_UPDATE_PERIOD = Duration.ofSeconds(20);
+
+	/**
+	 * Default maximum number of bytes taken up by the images cached by the {@link ImageManager} (64 MiB).
+	 * @see #setImageCacheSize(long)
+	 */
+	public static final long DEFAULT_IMAGE_CACHE_SIZE = 64L * 1024 * 1024;
+
+	/**
+	 * Default maximum size of the persistent image cache (64 MiB).
+	 * @see #setImageDiskCacheMaxSize(long)
+	 */
+	public static final long DEFAULT_IMAGE_DISK_CACHE_MAX_SIZE = 64L * 1024 * 1024;
+
 	long flags;
 	long clientID;
 	DiscordEventAdapter eventAdapter;
+	int maxFrameLength = DEFAULT_MAX_FRAME_LENGTH;
+	IoMode ioMode = IoMode.POLLING;
+	Executor callbackExecutor;
+	Duration requestTimeout = DEFAULT_REQUEST_TIMEOUT;
+	Executor eventExecutor = ForkJoinPool.commonPool();
+	int eventBufferSize = DEFAULT_EVENT_BUFFER_SIZE;
+	OverflowPolicy eventOverflowPolicy = OverflowPolicy.DROP_OLDEST;
+	boolean coalesceActivityUpdates;
+	int activityUpdateLimit = DEFAULT_ACTIVITY_UPDATE_LIMIT;
+	Duration activityUpdatePeriod = DEFAULT_ACTIVITY_UPDATE_PERIOD;
+	long imageCacheSize = DEFAULT_IMAGE_CACHE_SIZE;
+	boolean imageCacheSoftSpill;
+	Path imageDiskCacheDirectory;
+	long imageDiskCacheMaxSize = DEFAULT_IMAGE_DISK_CACHE_MAX_SIZE;
+	Executor imageDecodeExecutor;
 
 	/**
 	 * Create the CreateParams.
@@ -159,6 +257,368 @@ public class CreateParams implements AutoCloseable
 	{
 		eventAdapter = eventHandler;
 	}
+
+	/**
+	 * Sets the maximum length of a single frame received from Discord.
+	 * <p>
+	 * Frames announcing a longer body are treated as a protocol error, so that
+	 * a corrupt length field cannot cause huge allocations.
+	 * @param maxFrameLength Maximum body length in bytes
+	 * @see #DEFAULT_MAX_FRAME_LENGTH
+	 */
+	public void setMaxFrameLength(int maxFrameLength)
+	{
+		if(maxFrameLength <= 0)
+			throw new IllegalArgumentException("maxFrameLength must be positive: "+maxFrameLength);
+		this.maxFrameLength = maxFrameLength;
+	}
+
+	/**
+	 * Gets the maximum length of a single frame received from Discord.
+	 * @return Maximum body length in bytes
+	 * @see #setMaxFrameLength(int)
+	 */
+	public int getMaxFrameLength()
+	{
+		return maxFrameLength;
+	}
+
+	/**
+	 * Sets how the Core receives data from Discord.
+	 * @param ioMode The I/O mode to use
+	 * @see IoMode
+	 */
+	public void setIoMode(IoMode ioMode)
+	{
+		this.ioMode = Objects.requireNonNull(ioMode);
+	}
+
+	/**
+	 * Gets how the Core receives data from Discord.
+	 * @return The I/O mode
+	 * @see #setIoMode(IoMode)
+	 */
+	public IoMode getIoMode()
+	{
+		return ioMode;
+	}
+
+	/**
+	 * Sets the executor to run callbacks and events on, when data is received by a background thread.
+	 * <p>
+	 * The executor is <b>not</b> used in {@link IoMode#POLLING} mode.
+	 * Callbacks and events are run one after another in the order they arrived
+	 * only if the executor guarantees this (e.g. a single-threaded executor).
+	 * @param callbackExecutor Executor for callbacks, or {@code null} to run them in {@link Core#runCallbacks()}
+	 * @see IoMode
+	 */
+	public void setCallbackExecutor(Executor callbackExecutor)
+	{
+		this.callbackExecutor = callbackExecutor;
+	}
+
+	/**
+	 * Gets the executor to run callbacks and events on.
+	 * @return The executor or {@code null} if none is set
+	 * @see #setCallbackExecutor(Executor)
+	 */
+	public Executor getCallbackExecutor()
+	{
+		return callbackExecutor;
+	}
+
+	/**
+	 * Sets how long to wait for Discord to respond to a request.
+	 * <p>
+	 * If there is no response in time, the callback of the request receives {@link Result#TRANSACTION_ABORTED}
+	 * and a response arriving later is dropped. Some methods accept a timeout of their own, which overrides this one.
+	 * <p>
+	 * Timeouts are checked by {@link Core#runCallbacks()} and, in {@link IoMode#SELECTOR} mode,
+	 * by the I/O thread. They are only as precise as these checks are frequent.
+	 * @param requestTimeout Timeout for requests, or {@code null} to wait forever
+	 * @see #DEFAULT_REQUEST_TIMEOUT
+	 */
+	public void setRequestTimeout(Duration requestTimeout)
+	{
+		if(requestTimeout != null && (requestTimeout.isNegative() || requestTimeout.isZero()))
+			throw new IllegalArgumentException("requestTimeout must be positive: "+requestTimeout);
+		this.requestTimeout = requestTimeout;
+	}
+
+	/**
+	 * Gets how long to wait for Discord to respond to a request.
+	 * @return The timeout or {@code null} if requests wait forever
+	 * @see #setRequestTimeout(Duration)
+	 */
+	public Duration getRequestTimeout()
+	{
+		return requestTimeout;
+	}
+
+	/**
+	 * Sets the executor to call subscribers of event publishers (e.g. {@link Core#relationshipUpdates()}) on.
+	 * <p>
+	 * Events are passed to the executor in every {@link IoMode}, so subscribers never delay
+	 * {@link Core#runCallbacks()} or the background thread. Each subscriber is only called by one task at a time.
+	 * @param eventExecutor Executor for subscribers, by default the {@link ForkJoinPool#commonPool() common pool}
+	 */
+	public void setEventExecutor(Executor eventExecutor)
+	{
+		this.eventExecutor = Objects.requireNonNull(eventExecutor);
+	}
+
+	/**
+	 * Gets the executor to call subscribers of event publishers on.
+	 * @return The executor
+	 * @see #setEventExecutor(Executor)
+	 */
+	public Executor getEventExecutor()
+	{
+		return eventExecutor;
+	}
+
+	/**
+	 * Sets how many events are buffered for each subscriber of an event publisher,
+	 * unless the publisher is obtained with a buffer size of its own.
+	 * @param eventBufferSize Number of events per subscriber
+	 * @see #DEFAULT_EVENT_BUFFER_SIZE
+	 * @see #setEventOverflowPolicy(OverflowPolicy)
+	 */
+	public void setEventBufferSize(int eventBufferSize)
+	{
+		if(eventBufferSize <= 0)
+			throw new IllegalArgumentException("eventBufferSize must be positive: "+eventBufferSize);
+		this.eventBufferSize = eventBufferSize;
+	}
+
+	/**
+	 * Gets how many events are buffered for each subscriber of an event publisher.
+	 * @return Number of events per subscriber
+	 * @see #setEventBufferSize(int)
+	 */
+	public int getEventBufferSize()
+	{
+		return eventBufferSize;
+	}
+
+	/**
+	 * Sets what happens when the buffer of a subscriber of an event publisher is full,
+	 * unless the publisher is obtained with a policy of its own.
+	 * @param eventOverflowPolicy The policy, {@link OverflowPolicy#DROP_OLDEST} by default
+	 */
+	public void setEventOverflowPolicy(OverflowPolicy eventOverflowPolicy)
+	{
+		this.eventOverflowPolicy = Objects.requireNonNull(eventOverflowPolicy);
+	}
+
+	/**
+	 * Gets what happens when the buffer of a subscriber of an event publisher is full.
+	 * @return The policy
+	 * @see #setEventOverflowPolicy(OverflowPolicy)
+	 */
+	public OverflowPolicy getEventOverflowPolicy()
+	{
+		return eventOverflowPolicy;
+	}
+
+	/**
+	 * Sets whether {@link ActivityManager#updateActivity(de.jcm.discordgamesdk.activity.Activity, java.util.function.Consumer)}
+	 * keeps to the rate limit of Discord by coalescing updates.
+	 * <p>
+	 * If enabled, an update is only sent when the rate limit allows it. Until then, every newer update replaces the
+	 * waiting one (last writer wins) and only the newest activity is sent. The callbacks of all replaced updates receive
+	 * the result of the one that is finally sent.
+	 * <p>
+	 * Delayed updates are sent by {@link Core#runCallbacks()} or, in {@link IoMode#SELECTOR} mode, by the I/O thread.
+	 * @param coalesceActivityUpdates {@code true} to coalesce updates, by default every update is sent right away
+	 * @see #setActivityUpdateRateLimit(int, Duration)
+	 * @see ActivityManager#getCoalescedUpdateCount()
+	 */
+	public void setCoalesceActivityUpdates(boolean coalesceActivityUpdates)
+	{
+		this.coalesceActivityUpdates = coalesceActivityUpdates;
+	}
+
+	/**
+	 * Tells you whether activity updates are coalesced.
+	 * @return {@code true} if updates are coalesced
+	 * @see #setCoalesceActivityUpdates(boolean)
+	 */
+	public boolean isCoalesceActivityUpdates()
+	{
+		return coalesceActivityUpdates;
+	}
+
+	/**
+	 * Sets the rate limit for coalesced activity updates.
+	 * <p>
+	 * Up to {@code limit} updates are sent at once, after that one more every {@code period / limit}.
+	 * @param limit Number of updates per period
+	 * @param period Length of the period
+	 * @see #DEFAULT_ACTIVITY_UPDATE_LIMIT
+	 * @see #DEFAULT_ACTIVITY_UPDATE_PERIOD
+	 * @see #setCoalesceActivityUpdates(boolean)
+	 */
+	public void setActivityUpdateRateLimit(int limit, Duration period)
+	{
+		if(limit <= 0)
+			throw new IllegalArgumentException("limit must be positive: "+limit);
+		if(period.isNegative() || period.isZero())
+			throw new IllegalArgumentException("period must be positive: "+period);
+		this.activityUpdateLimit = limit;
+		this.activityUpdatePeriod = period;
+	}
+
+	/**
+	 * Gets the number of coalesced activity updates sent per period.
+	 * @return Number of updates per period
+	 * @see #setActivityUpdateRateLimit(int, Duration)
+	 */
+	public int getActivityUpdateLimit()
+	{
+		return activityUpdateLimit;
+	}
+
+	/**
+	 * Gets the period of the rate limit for coalesced activity updates.
+	 * @return Length of the period
+	 * @see #setActivityUpdateRateLimit(int, Duration)
+	 */
+	public Duration getActivityUpdatePeriod()
+	{
+		return activityUpdatePeriod;
+	}
+
+	/**
+	 * Sets the maximum number of bytes the decoded images cached by the {@link ImageManager} may take up.
+	 * <p>
+	 * An image takes up about {@code width*height*4} bytes, i.e. 256 KiB for a 256 px avatar.
+	 * When the cache grows larger, the least recently used images are evicted
+	 * and have to be {@linkplain ImageManager#fetch(de.jcm.discordgamesdk.image.ImageHandle, boolean, java.util.function.BiConsumer) fetched}
+	 * again before their data can be retrieved.
+	 * @param imageCacheSize Maximum size of the cache in bytes
+	 * @see #DEFAULT_IMAGE_CACHE_SIZE
+	 * @see ImageManager#trimTo(long)
+	 */
+	public void setImageCacheSize(long imageCacheSize)
+	{
+		if(imageCacheSize < 0)
+			throw new IllegalArgumentException("imageCacheSize must not be negative: "+imageCacheSize);
+		this.imageCacheSize = imageCacheSize;
+	}
+
+	/**
+	 * Gets the maximum number of bytes the images cached by the {@link ImageManager} may take up.
+	 * @return Maximum size of the cache in bytes
+	 * @see #setImageCacheSize(long)
+	 */
+	public long getImageCacheSize()
+	{
+		return imageCacheSize;
+	}
+
+	/**
+	 * Sets whether images evicted from the cache of the {@link ImageManager} are still kept through soft references.
+	 * <p>
+	 * If enabled, an evicted image stays available until the garbage collector needs the memory.
+	 * Images evicted with {@link ImageManager#evict(de.jcm.discordgamesdk.image.ImageHandle)} are always gone.
+	 * @param imageCacheSoftSpill {@code true} to keep evicted images softly reachable, disabled by default
+	 */
+	public void setImageCacheSoftSpill(boolean imageCacheSoftSpill)
+	{
+		this.imageCacheSoftSpill = imageCacheSoftSpill;
+	}
+
+	/**
+	 * Tells you whether images evicted from the cache of the {@link ImageManager} are kept through soft references.
+	 * @return {@code true} if evicted images are kept softly reachable
+	 * @see #setImageCacheSoftSpill(boolean)
+	 */
+	public boolean isImageCacheSoftSpill()
+	{
+		return imageCacheSoftSpill;
+	}
+
+	/**
+	 * Sets the directory of a persistent cache for the images of users' avatars.
+	 * <p>
+	 * Images fetched for the current user or a user in a relationship are stored there as raw RGBA data,
+	 * together with the hash of their avatar. Fetching them again (without refresh) loads them from disk,
+	 * without asking Discord or decoding the image, as long as the user still has the same avatar.
+	 * <p>
+	 * The directory must not be used by two Cores at the same time. If it is, only the first one uses it.
+	 * @param imageDiskCacheDirectory Directory of the cache, {@code null} (the default) to not use one
+	 * @see #setImageDiskCacheMaxSize(long)
+	 * @see ImageManager#getDiskCacheHitCount()
+	 */
+	public void setImageDiskCacheDirectory(Path imageDiskCacheDirectory)
+	{
+		this.imageDiskCacheDirectory = imageDiskCacheDirectory;
+	}
+
+	/**
+	 * Gets the directory of the persistent cache for the images of users' avatars.
+	 * @return Directory of the cache or {@code null} if none is used
+	 * @see #setImageDiskCacheDirectory(Path)
+	 */
+	public Path getImageDiskCacheDirectory()
+	{
+		return imageDiskCacheDirectory;
+	}
+
+	/**
+	 * Sets the maximum size of the file of the persistent image cache.
+	 * <p>
+	 * When storing another image would make the file larger, the least recently used images are
+	 * removed from it and the space they took up is reused.
+	 * @param imageDiskCacheMaxSize Maximum size of the file in bytes, at most {@link Integer#MAX_VALUE}
+	 * @see #DEFAULT_IMAGE_DISK_CACHE_MAX_SIZE
+	 * @see #setImageDiskCacheDirectory(Path)
+	 */
+	public void setImageDiskCacheMaxSize(long imageDiskCacheMaxSize)
+	{
+		if(imageDiskCacheMaxSize < 0 || imageDiskCacheMaxSize > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("imageDiskCacheMaxSize out of range: "+imageDiskCacheMaxSize);
+		this.imageDiskCacheMaxSize = imageDiskCacheMaxSize;
+	}
+
+	/**
+	 * Gets the maximum size of the file of the persistent image cache.
+	 * @return Maximum size of the file in bytes
+	 * @see #setImageDiskCacheMaxSize(long)
+	 */
+	public long getImageDiskCacheMaxSize()
+	{
+		return imageDiskCacheMaxSize;
+	}
+
+	/**
+	 * Sets the executor to decode fetched images on.
+	 * <p>
+	 * Decoding an image takes a few milliseconds, so it is not done on the thread handling Discord's response
+	 * (usually the one calling {@link Core#runCallbacks()}). Once an image is decoded, the callback of
+	 * {@link ImageManager#fetch} is run like any other callback, so it never sees an image that is not ready yet.
+	 * <p>
+	 * By default, every image is decoded on a virtual thread of its own if the runtime supports them,
+	 * otherwise on a pool of a few daemon threads. The default executor is shut down when the Core is closed,
+	 * one set here is not.
+	 * @param imageDecodeExecutor Executor for decoding images, or {@code null} to use the default one
+	 */
+	public void setImageDecodeExecutor(Executor imageDecodeExecutor)
+	{
+		this.imageDecodeExecutor = imageDecodeExecutor;
+	}
+
+	/**
+	 * Gets the executor to decode fetched images on.
+	 * @return The executor or {@code null} if the default one is used
+	 * @see #setImageDecodeExecutor(Executor)
+	 */
+	public Executor getImageDecodeExecutor()
+	{
+		return imageDecodeExecutor;
+	}
+
 	/**
 	 * Gets the default flags for new Cores.
 	 * @return The default flags.
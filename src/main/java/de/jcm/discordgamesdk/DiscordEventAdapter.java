@@ -1,10 +1,13 @@
 package de.jcm.discordgamesdk;
 
+import de.jcm.discordgamesdk.impl.Command;
 import de.jcm.discordgamesdk.user.DiscordUser;
 import de.jcm.discordgamesdk.user.Relationship;
 
 /**
  * Adapter class for Discord events.
+ * <p>
+ * Only the events whose methods are overridden are subscribed to, so Discord does not send the others at all.
  */
 public abstract class DiscordEventAdapter
 {
@@ -88,4 +91,35 @@ public abstract class DiscordEventAdapter
 	{
 
 	}
+
+	/**
+	 * Tells if this adapter does anything for an event, i.e. if it overrides the method called for it.
+	 * @param event The event
+	 * @return {@code true} if the event should be subscribed to for this adapter
+	 */
+	boolean listensTo(Command.Event event)
+	{
+		return switch(event)
+		{
+			case ACTIVITY_JOIN -> overrides("onActivityJoin", String.class);
+			case ACTIVITY_SPECTATE -> overrides("onActivitySpectate", String.class);
+			case ACTIVITY_JOIN_REQUEST -> overrides("onActivityJoinRequest", DiscordUser.class);
+			case CURRENT_USER_UPDATE -> overrides("onCurrentUserUpdate");
+			case OVERLAY_UPDATE -> overrides("onOverlayToggle", boolean.class);
+			case RELATIONSHIP_UPDATE -> overrides("onRelationshipUpdate", Relationship.class);
+			default -> false;
+		};
+	}
+
+	private boolean overrides(String name, Class<?>... parameterTypes)
+	{
+		try
+		{
+			return getClass().getMethod(name, parameterTypes).getDeclaringClass() != DiscordEventAdapter.class;
+		}
+		catch(NoSuchMethodException e)
+		{
+			throw new AssertionError(e);
+		}
+	}
 }
@@ -1,5 +1,6 @@
 package de.jcm.discordgamesdk;
 
+import de.jcm.discordgamesdk.impl.Command;
 import de.jcm.discordgamesdk.user.DiscordUser;
 import de.jcm.discordgamesdk.user.Relationship;
 
@@ -13,6 +14,9 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * that can be registered and unregistered dynamically.
  * <p>
  * A {@link CopyOnWriteArrayList} is used for increased thread-safety.
+ * <p>
+ * Events are subscribed to as long as at least one of the adapters listens to them.
+ * When the last one is removed, they are unsubscribed from again.
  * @see DiscordEventAdapter
  * @see #addListener(DiscordEventAdapter)
  * @see #removeListener(DiscordEventAdapter)
@@ -21,6 +25,9 @@ import java.util.concurrent.CopyOnWriteArrayList;
 public class DiscordEventHandler extends DiscordEventAdapter
 {
 	private final List<DiscordEventAdapter> listeners = new CopyOnWriteArrayList<>();
+	/** Notified when the listeners change, so that the subscriptions can be updated */
+	private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+	private final Runnable notifyChange = this::listenersChanged;
 
 	/**
 	 * Registers a new event adapter to forward Discord events to.
@@ -31,6 +38,9 @@ public class DiscordEventHandler extends DiscordEventAdapter
 	public void addListener(DiscordEventAdapter listener)
 	{
 		this.listeners.add(listener);
+		if(listener instanceof DiscordEventHandler handler)
+			handler.addChangeListener(notifyChange);
+		listenersChanged();
 	}
 
 	/**
@@ -42,7 +52,12 @@ public class DiscordEventHandler extends DiscordEventAdapter
 	 */
 	public boolean removeListener(DiscordEventAdapter listener)
 	{
-		return this.listeners.remove(listener);
+		if(!this.listeners.remove(listener))
+			return false;
+		if(listener instanceof DiscordEventHandler handler)
+			handler.removeChangeListener(notifyChange);
+		listenersChanged();
+		return true;
 	}
 
 	/**
@@ -53,7 +68,39 @@ public class DiscordEventHandler extends DiscordEventAdapter
 	 */
 	public void removeAllListeners()
 	{
+		for(DiscordEventAdapter listener : listeners)
+		{
+			if(listener instanceof DiscordEventHandler handler)
+				handler.removeChangeListener(notifyChange);
+		}
 		this.listeners.clear();
+		listenersChanged();
+	}
+
+	void addChangeListener(Runnable changeListener)
+	{
+		changeListeners.add(changeListener);
+	}
+
+	void removeChangeListener(Runnable changeListener)
+	{
+		changeListeners.remove(changeListener);
+	}
+
+	private void listenersChanged()
+	{
+		changeListeners.forEach(Runnable::run);
+	}
+
+	@Override
+	boolean listensTo(Command.Event event)
+	{
+		for(DiscordEventAdapter listener : listeners)
+		{
+			if(listener.listensTo(event))
+				return true;
+		}
+		return false;
 	}
 
 	@Override
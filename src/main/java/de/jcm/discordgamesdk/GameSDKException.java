@@ -10,6 +10,7 @@ public class GameSDKException extends RuntimeException
 	public GameSDKException(Result result)
 	{
 		super("Game SDK operation failed: "+result);
+		this.result = result;
 	}
 
 	/**
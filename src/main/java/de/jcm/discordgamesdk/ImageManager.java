@@ -2,16 +2,35 @@ package de.jcm.discordgamesdk;
 
 import de.jcm.discordgamesdk.image.ImageDimensions;
 import de.jcm.discordgamesdk.image.ImageHandle;
+import de.jcm.discordgamesdk.image.ImageType;
 import de.jcm.discordgamesdk.impl.Command;
+import de.jcm.discordgamesdk.impl.DiskImageCache;
+import de.jcm.discordgamesdk.impl.ImageData;
+import de.jcm.discordgamesdk.impl.ImageCache;
 import de.jcm.discordgamesdk.impl.commands.GetImage;
+import de.jcm.discordgamesdk.user.DiscordUser;
+import de.jcm.discordgamesdk.user.Relationship;
 
 import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Manager to receive information about images and the image data itself.
@@ -21,15 +40,67 @@ import java.util.function.BiConsumer;
 public class ImageManager
 {
 	private final Core.CorePrivate core;
-	private final Map<ImageHandle, BufferedImage> imageCache = new HashMap<>();
+	private final ImageCache imageCache;
+	private final DiskImageCache diskCache;
+	private final Executor decodeExecutor;
+	/** The default executor, which we have to shut down, or {@code null} if one was set */
+	private final ExecutorService ownDecodeExecutor;
 
 	ImageManager(Core.CorePrivate core)
 	{
 		this.core = core;
+
+		CreateParams params = core.getCreateParams();
+		this.imageCache = new ImageCache(params.imageCacheSize, params.imageCacheSoftSpill);
+		this.diskCache = params.imageDiskCacheDirectory != null ?
+				openDiskCache(params.imageDiskCacheDirectory, params.imageDiskCacheMaxSize) : null;
+		this.ownDecodeExecutor = params.imageDecodeExecutor == null ? newDecodeExecutor() : null;
+		this.decodeExecutor = params.imageDecodeExecutor != null ? params.imageDecodeExecutor : ownDecodeExecutor;
+	}
+
+	/**
+	 * Creates an executor running every task on a virtual thread if the runtime supports them,
+	 * a pool of up to four daemon threads otherwise.
+	 */
+	private static ExecutorService newDecodeExecutor()
+	{
+		try
+		{
+			// Executors.newVirtualThreadPerTaskExecutor(), but we compile against Java 16
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch(NoSuchMethodException | IllegalAccessException | InvocationTargetException e)
+		{
+			int threads = Math.min(4, Runtime.getRuntime().availableProcessors());
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(), task->{
+				Thread thread = new Thread(task, "Image decoder");
+				thread.setDaemon(true);
+				return thread;
+			});
+			pool.allowCoreThreadTimeOut(true);
+			return pool;
+		}
+	}
+
+	private DiskImageCache openDiskCache(Path directory, long maxSize)
+	{
+		try
+		{
+			return DiskImageCache.open(directory, maxSize);
+		}
+		catch(IOException e)
+		{
+			core.log(LogLevel.WARN, "Not using image disk cache: "+e);
+			return null;
+		}
 	}
 
 	/**
 	 * Prepares an image to later retrieve it.
+	 * <p>
+	 * The fetched image is decoded on the {@linkplain CreateParams#setImageDecodeExecutor(Executor) decode executor}.
+	 * The callback is run afterwards like any other callback, usually by a later call to {@link Core#runCallbacks()}.
 	 * @param handle Handle identifying the image
 	 * @param refresh whether to refresh the (possibly) cached image
 	 * @param callback Callback to handle result and returned handle
@@ -38,33 +109,278 @@ public class ImageManager
 	 */
 	public void fetch(ImageHandle handle, boolean refresh, BiConsumer<Result, ImageHandle> callback)
 	{
-		if(!refresh && imageCache.containsKey(handle))
+		fetch(handle, refresh, core.getRequestTimeout(), callback);
+	}
+
+	/**
+	 * Prepares an image to later retrieve it, but waits for the given time
+	 * instead of the {@linkplain CreateParams#setRequestTimeout(Duration) default timeout}.
+	 * @param handle Handle identifying the image
+	 * @param refresh whether to refresh the (possibly) cached image
+	 * @param timeout Time to wait for Discord's response, or {@code null} to wait forever.
+	 *                If it passes, the callback receives {@link Result#TRANSACTION_ABORTED}.
+	 * @param callback Callback to handle result and returned handle
+	 * @see #fetch(ImageHandle, boolean, BiConsumer)
+	 */
+	public void fetch(ImageHandle handle, boolean refresh, Duration timeout, BiConsumer<Result, ImageHandle> callback)
+	{
+		if(!refresh && isCachedInMemory(handle))
 		{
 			callback.accept(Result.OK, handle);
 		}
+		else if(!refresh && mayBeOnDisk(handle))
+		{
+			runOnDecodeExecutor(()->{
+				if(loadFromDisk(handle))
+					core.post(()->callback.accept(Result.OK, handle));
+				else
+					request(handle, timeout, callback);
+			});
+		}
 		else
 		{
-			core.sendCommand(Command.Type.GET_IMAGE, new GetImage.Args(handle), c->{
-				Result r = core.checkError(c);
-				if(r != Result.OK)
-				{
-					callback.accept(r, null);
+			request(handle, timeout, callback);
+		}
+	}
+
+	/**
+	 * Asks Discord for an image and decodes it.
+	 * @return The nonce of the request or {@link Command#NO_NONCE} if it could not be sent
+	 *         and exceptions are suppressed, in that case the callback is never called
+	 */
+	long request(ImageHandle handle, Duration timeout, BiConsumer<Result, ImageHandle> callback)
+	{
+		String avatarHash = avatarHash(handle);
+		return core.sendCommand(Command.Type.GET_IMAGE, new GetImage.Args(handle), GetImage.Response.class, timeout, c->{
+			Result r = core.checkError(c);
+			if(r != Result.OK)
+			{
+				callback.accept(r, null);
+				return;
+			}
+			decode(handle, avatarHash, c.getPayload(GetImage.Response.class), result->callback.accept(result, handle));
+		});
+	}
+
+	/**
+	 * Prepares many images to later retrieve them, e.g. the avatars of all users in a friends list,
+	 * without sending a request for every one of them at once.
+	 * <p>
+	 * At most {@code maxInFlight} images are fetched at the same time. Whenever one of them is done,
+	 * the next one is fetched, in the order of the collection. Images that are already cached are skipped.
+	 * Use {@link ImagePrefetch#prioritize(Collection)} to fetch the images that are visible first,
+	 * and the counts of the returned {@link ImagePrefetch} to show the progress.
+	 * <p>
+	 * Like the callback of {@link #fetch(ImageHandle, boolean, BiConsumer)}, the callback is run
+	 * where callbacks are run, but never before this method returns.
+	 * @param handles Handles identifying the images, handles equal to an earlier one are ignored
+	 * @param maxInFlight Maximum number of images to fetch at the same time, at least {@code 1}
+	 * @param callback Callback to handle the result of every fetched image (but not of skipped ones)
+	 *                 together with its handle
+	 * @return The prefetch, to prioritize images, see its progress or cancel it
+	 * @throws IllegalArgumentException if {@code maxInFlight} is less than {@code 1}
+	 */
+	public ImagePrefetch prefetch(Collection<ImageHandle> handles, int maxInFlight, BiConsumer<Result, ImageHandle> callback)
+	{
+		if(maxInFlight < 1)
+			throw new IllegalArgumentException("maxInFlight must be positive: "+maxInFlight);
+		ImagePrefetch prefetch = new ImagePrefetch(this, core, handles, maxInFlight, callback);
+		prefetch.start();
+		return prefetch;
+	}
+
+	/**
+	 * Prepares an image to later retrieve it.
+	 * <p>
+	 * The returned future completes with the handle once the image is decoded and available
+	 * or exceptionally with a {@link GameSDKException} if it could not be fetched.
+	 * Like the callback of {@link #fetch(ImageHandle, boolean, BiConsumer)}, it is completed where callbacks are run.
+	 * @param handle Handle identifying the image
+	 * @param refresh whether to refresh the (possibly) cached image
+	 * @return A future for the handle
+	 * @see <a href="https://discordapp.com/developers/docs/game-sdk/images#fetch">
+	 *     https://discordapp.com/developers/docs/game-sdk/images#fetch</a>
+	 */
+	public CompletableFuture<ImageHandle> fetchAsync(ImageHandle handle, boolean refresh)
+	{
+		if(!refresh && isCachedInMemory(handle))
+		{
+			return CompletableFuture.completedFuture(handle);
+		}
+		CompletableFuture<ImageHandle> future = new CompletableFuture<>();
+		if(!refresh && mayBeOnDisk(handle))
+		{
+			runOnDecodeExecutor(()->{
+				if(future.isDone())
 					return;
-				}
-				try
-				{
-					GetImage.Response response = core.getGson().fromJson(c.getData(), GetImage.Response.class);
-					byte[] data = response.getData();
-					BufferedImage img = ImageIO.read(new ByteArrayInputStream(data));
-					imageCache.put(handle, img);
-					callback.accept(r, handle);
-				}
-				catch(IOException e)
-				{
-					core.log(LogLevel.ERROR, e.toString());
-					callback.accept(Result.INTERNAL_ERROR, handle);
-				}
+				if(loadFromDisk(handle))
+					core.post(()->future.complete(handle));
+				else
+					requestAsync(handle, future);
+			});
+		}
+		else
+		{
+			requestAsync(handle, future);
+		}
+		return future;
+	}
+
+	/**
+	 * Asks Discord for an image and decodes it, completing the given future.
+	 */
+	private void requestAsync(ImageHandle handle, CompletableFuture<ImageHandle> future)
+	{
+		String avatarHash = avatarHash(handle);
+		CompletableFuture<GetImage.Response> request = core.sendCommandAsync(Command.Type.GET_IMAGE,
+				new GetImage.Args(handle), GetImage.Response.class, c->c.getPayload(GetImage.Response.class));
+		request.whenComplete((response, failure)->{
+			if(failure != null)
+			{
+				future.completeExceptionally(failure);
+				return;
+			}
+			decode(handle, avatarHash, response, result->{
+				if(result == Result.OK)
+					future.complete(handle);
+				else
+					future.completeExceptionally(new GameSDKException(result));
 			});
+		});
+		// gives up waiting for the response if the future is cancelled (or completed otherwise) before
+		future.whenComplete((h, failure)->request.cancel(false));
+	}
+
+	/**
+	 * Tells if an image is in the memory cache, without looking at the disk cache.
+	 */
+	boolean isCachedInMemory(ImageHandle handle)
+	{
+		return imageCache.get(handle) != null;
+	}
+
+	/**
+	 * Tells if an image might be stored in the disk cache, without looking at it.
+	 */
+	boolean mayBeOnDisk(ImageHandle handle)
+	{
+		return avatarHash(handle) != null;
+	}
+
+	/**
+	 * Loads an image from the disk cache into the memory cache, if it is stored there for the current avatar.
+	 * This reads the disk, so it is better done on the decode executor.
+	 * @return {@code true} if the image has been loaded
+	 */
+	boolean loadFromDisk(ImageHandle handle)
+	{
+		String avatarHash = avatarHash(handle);
+		if(avatarHash == null)
+			return false;
+		try
+		{
+			BufferedImage img = diskCache.load(handle, avatarHash);
+			if(img == null)
+				return false;
+			imageCache.put(handle, img);
+			return true;
+		}
+		catch(IOException e)
+		{
+			core.log(LogLevel.WARN, "Failed to load image from disk cache: "+e);
+			return false;
+		}
+	}
+
+	/**
+	 * Finds the hash of the avatar shown by a user image, if the user is the current user or in a relationship.
+	 * Images of other users are not stored in the disk cache, because we cannot tell when their avatar changes.
+	 * @return The avatar hash or {@code null} if it is not known (or the user has the default avatar)
+	 */
+	private String avatarHash(ImageHandle handle)
+	{
+		if(diskCache == null || handle.getType() != ImageType.USER)
+			return null;
+
+		DiscordUser user = core.currentUser;
+		if(user == null || user.getUserId() != handle.getId())
+		{
+			Relationship relationship = core.relationships.get(handle.getId());
+			user = relationship != null ? relationship.getUser() : null;
+		}
+		return user != null ? user.getAvatar() : null;
+	}
+
+	/**
+	 * Decodes and stores a fetched image on the decode executor, then posts the result to where callbacks are run.
+	 * @param done Receives {@link Result#OK} or {@link Result#INTERNAL_ERROR} if the image could not be decoded
+	 */
+	private void decode(ImageHandle handle, String avatarHash, GetImage.Response response, Consumer<Result> done)
+	{
+		runOnDecodeExecutor(()->{
+			Result result = Result.OK;
+			try
+			{
+				store(handle, avatarHash, response);
+			}
+			catch(IOException | RuntimeException e)
+			{
+				core.log(LogLevel.ERROR, e.toString());
+				result = Result.INTERNAL_ERROR;
+			}
+			Result r = result;
+			core.post(()->done.accept(r));
+		});
+	}
+
+	/**
+	 * Runs a task on the decode executor, or right away if it does not take any more tasks
+	 * (e.g. because it was closed while a response was on its way).
+	 */
+	void runOnDecodeExecutor(Runnable task)
+	{
+		try
+		{
+			decodeExecutor.execute(task);
+		}
+		catch(RejectedExecutionException e)
+		{
+			task.run();
+		}
+	}
+
+	private void store(ImageHandle handle, String avatarHash, GetImage.Response response) throws IOException
+	{
+		synchronized(response)
+		{
+			if(!response.isStored())
+			{
+				store(handle, avatarHash, response.openData());
+				response.setStored();
+			}
+		}
+	}
+
+	private void store(ImageHandle handle, String avatarHash, ImageInputStream data) throws IOException
+	{
+		// the PNG is decoded from the base64 in the data URL wherever the reader seeks, neither is copied
+		BufferedImage decoded = ImageIO.read(data);
+		if(decoded == null)
+			throw new IOException("Unsupported image format");
+		// kept as RGBA, so the data can be handed out without converting it every time
+		BufferedImage img = ImageData.toRgbaImage(decoded);
+		imageCache.put(handle, img);
+
+		if(avatarHash != null)
+		{
+			try
+			{
+				diskCache.store(handle, avatarHash, img);
+			}
+			catch(IOException e)
+			{
+				core.log(LogLevel.WARN, "Failed to store image in disk cache: "+e);
+			}
 		}
 	}
 
@@ -72,15 +388,14 @@ public class ImageManager
 	 * Fetches the dimensions (size) of an image.
 	 * @param handle Handle identifying the image
 	 * @return The fetches dimensions
-	 * @throws GameSDKException if something went wrong fetching the image dimensions
+	 * @throws GameSDKException if something went wrong fetching the image dimensions,
+	 *                          e.g. {@link Result#NOT_FETCHED} if the image has not been fetched or has been evicted since
 	 * @see <a href="https://discordapp.com/developers/docs/game-sdk/images#getdimensions">
 	 *     https://discordapp.com/developers/docs/game-sdk/images#getdimensions</a>
 	 */
 	public ImageDimensions getDimensions(ImageHandle handle)
 	{
-		if(!imageCache.containsKey(handle))
-			throw new GameSDKException(Result.NOT_FETCHED);
-		BufferedImage img = imageCache.get(handle);
+		BufferedImage img = cached(handle);
 		return new ImageDimensions(img.getWidth(), img.getHeight());
 	}
 
@@ -107,7 +422,8 @@ public class ImageManager
 	 * <p>Prefer {@link #getData(ImageHandle, ImageDimensions)} and retrieve the dimensions
 	 * with {@link #getDimensions(ImageHandle)}.</p>
 	 * @param handle Handle identifying the image
-	 * @param length Length of the image data, should be {@code width*height*4}
+	 * @param length Length of the image data, should be {@code width*height*4}.
+	 *               The data is cut off or padded with zeros if it is not.
 	 * @return The image data
 	 * @throws GameSDKException if something went wrong fetching the image data
 	 * @see <a href="https://discordapp.com/developers/docs/game-sdk/images#getdata">
@@ -115,11 +431,37 @@ public class ImageManager
 	 */
 	public byte[] getData(ImageHandle handle, int length)
 	{
-		if(!imageCache.containsKey(handle))
-			throw new GameSDKException(Result.NOT_FETCHED);
-		BufferedImage img = imageCache.get(handle);
-		byte[] data = new byte[length];
-		return (byte[]) img.getRaster().getDataElements(0, 0, data);
+		return Arrays.copyOf(ImageData.rgba(cached(handle)), length);
+	}
+
+	/**
+	 * <p>Copies the image data for a given image into a buffer, e.g. to upload it as a texture.</p>
+	 * <p>The data is written at the buffer's position, which is advanced by {@code width*height*4}.
+	 * The buffer can be direct or not and its byte order does not matter.</p>
+	 * @param handle Handle identifying the image
+	 * @param buffer Buffer to copy the data into
+	 * @throws GameSDKException if something went wrong fetching the image data
+	 * @throws java.nio.BufferOverflowException if the buffer has not enough space remaining,
+	 *                                          in that case nothing is written
+	 * @see #getDataView(ImageHandle)
+	 */
+	public void getData(ImageHandle handle, ByteBuffer buffer)
+	{
+		buffer.put(ImageData.rgba(cached(handle)));
+	}
+
+	/**
+	 * <p>Gets a read-only view of the image data for a given image, without copying it.</p>
+	 * <p>The view covers {@code width*height*4} bytes of RGBA data, from position zero to its limit.
+	 * It is backed by the image kept in the cache, so it stays valid even after the image has been evicted.
+	 * It is a heap buffer, use {@link #getData(ImageHandle, ByteBuffer)} for APIs that need a direct buffer.</p>
+	 * @param handle Handle identifying the image
+	 * @return A read-only buffer with the image data
+	 * @throws GameSDKException if something went wrong fetching the image data
+	 */
+	public ByteBuffer getDataView(ImageHandle handle)
+	{
+		return ByteBuffer.wrap(ImageData.rgba(cached(handle))).asReadOnlyBuffer();
 	}
 
 	/**
@@ -145,8 +487,100 @@ public class ImageManager
 	 */
 	public BufferedImage getAsBufferedImage(ImageHandle handle)
 	{
-		if(!imageCache.containsKey(handle))
+		return cached(handle);
+	}
+
+	private BufferedImage cached(ImageHandle handle)
+	{
+		BufferedImage img = imageCache.get(handle);
+		if(img == null)
 			throw new GameSDKException(Result.NOT_FETCHED);
-		return imageCache.get(handle);
+		return img;
+	}
+
+	/**
+	 * Removes an image from the cache. It has to be fetched again before it can be retrieved.
+	 * @param handle Handle identifying the image
+	 * @return {@code true} if the image was cached
+	 */
+	public boolean evict(ImageHandle handle)
+	{
+		return imageCache.evict(handle);
+	}
+
+	/**
+	 * Evicts the least recently used images until the cached images take up at most the given number of bytes.
+	 * @param bytes Number of bytes to trim the cache to, {@code 0} to empty it
+	 * @see CreateParams#setImageCacheSize(long)
+	 */
+	public void trimTo(long bytes)
+	{
+		imageCache.trimTo(bytes);
+	}
+
+	/**
+	 * Gets the number of bytes the cached images take up.
+	 * @return Size of the cache in bytes
+	 * @see CreateParams#setImageCacheSize(long)
+	 */
+	public long getCacheSize()
+	{
+		return imageCache.getBytes();
+	}
+
+	/**
+	 * Tells you how many times a cached image was found, by fetching it without refresh or by retrieving it.
+	 * @return Number of cache hits
+	 */
+	public long getCacheHitCount()
+	{
+		return imageCache.getHitCount();
+	}
+
+	/**
+	 * Tells you how many times an image was looked up in the cache but not found.
+	 * @return Number of cache misses
+	 */
+	public long getCacheMissCount()
+	{
+		return imageCache.getMissCount();
+	}
+
+	/**
+	 * Tells you how many images were evicted from the cache, because it grew too large or explicitly.
+	 * @return Number of evicted images
+	 * @see #evict(ImageHandle)
+	 * @see #trimTo(long)
+	 */
+	public long getCacheEvictionCount()
+	{
+		return imageCache.getEvictionCount();
+	}
+
+	/**
+	 * Tells you how many images were loaded from the disk cache instead of being fetched from Discord.
+	 * @return Number of images loaded from disk, {@code 0} if there is no disk cache
+	 * @see CreateParams#setImageDiskCacheDirectory(Path)
+	 */
+	public long getDiskCacheHitCount()
+	{
+		return diskCache != null ? diskCache.getHitCount() : 0;
+	}
+
+	void close()
+	{
+		if(ownDecodeExecutor != null)
+			ownDecodeExecutor.shutdown();
+		if(diskCache != null)
+		{
+			try
+			{
+				diskCache.close();
+			}
+			catch(IOException e)
+			{
+				core.log(LogLevel.WARN, "Failed to close image disk cache: "+e);
+			}
+		}
 	}
 }
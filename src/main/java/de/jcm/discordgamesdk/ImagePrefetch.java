@@ -0,0 +1,267 @@
+package de.jcm.discordgamesdk;
+
+import de.jcm.discordgamesdk.image.ImageHandle;
+import de.jcm.discordgamesdk.impl.Command;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * Images being fetched by {@link ImageManager#prefetch(Collection, int, BiConsumer)}.
+ * <p>
+ * Only a limited number of images are fetched at the same time, the others wait in a queue.
+ * The queue can be reordered with {@link #prioritize(Collection)}, e.g. when the user scrolls through a list,
+ * and the images that have not been fetched yet can be dropped with {@link #cancel()}.
+ * <p>
+ * The methods of this class can be called from any thread.
+ */
+public class ImagePrefetch
+{
+	private final ImageManager imageManager;
+	private final Core.CorePrivate core;
+	private final int maxInFlight;
+	private final BiConsumer<Result, ImageHandle> callback;
+
+	private final Deque<ImageHandle> queue;
+	private final int total;
+	private final CompletableFuture<Void> future = new CompletableFuture<>();
+	private int inFlight;
+	private int fetched;
+	private int failed;
+	private int skipped;
+	private boolean cancelled;
+
+	ImagePrefetch(ImageManager imageManager, Core.CorePrivate core, Collection<ImageHandle> handles,
+	              int maxInFlight, BiConsumer<Result, ImageHandle> callback)
+	{
+		this.imageManager = imageManager;
+		this.core = core;
+		this.maxInFlight = maxInFlight;
+		this.callback = callback;
+		this.queue = new ArrayDeque<>(new LinkedHashSet<>(handles));
+		this.total = queue.size();
+	}
+
+	void start()
+	{
+		fetchNext();
+	}
+
+	/**
+	 * Fetches queued images until the window of images in flight is full, skipping those that are cached by now.
+	 * Images that might be in the disk cache are looked up there on the decode executor first,
+	 * so neither the caller nor whoever runs the callbacks waits for the disk.
+	 */
+	private void fetchNext()
+	{
+		List<ImageHandle> next = new ArrayList<>();
+		boolean done;
+		synchronized(this)
+		{
+			while(!cancelled && inFlight < maxInFlight && !queue.isEmpty())
+			{
+				ImageHandle handle = queue.poll();
+				if(imageManager.isCachedInMemory(handle))
+				{
+					skipped++;
+				}
+				else
+				{
+					inFlight++;
+					next.add(handle);
+				}
+			}
+			done = inFlight == 0 && (cancelled || queue.isEmpty());
+		}
+		if(done)
+			future.complete(null);
+
+		for(ImageHandle handle : next)
+		{
+			if(imageManager.mayBeOnDisk(handle))
+			{
+				imageManager.runOnDecodeExecutor(()->{
+					if(imageManager.loadFromDisk(handle))
+						core.post(()->onLoaded(handle));
+					else
+						request(handle);
+				});
+			}
+			else
+			{
+				request(handle);
+			}
+		}
+	}
+
+	private void request(ImageHandle handle)
+	{
+		Result failure;
+		try
+		{
+			long nonce = imageManager.request(handle, core.getRequestTimeout(), (result, h)->onFetched(result, handle));
+			failure = nonce == Command.NO_NONCE ? Result.NOT_RUNNING : null;
+		}
+		catch(GameSDKException e)
+		{
+			failure = e.getResult();
+		}
+		catch(RuntimeException e)
+		{
+			core.log(LogLevel.ERROR, e.toString());
+			failure = Result.INTERNAL_ERROR;
+		}
+
+		// reported like a response, so the callback is never called before prefetch returns
+		if(failure != null)
+		{
+			Result result = failure;
+			core.post(()->onFetched(result, handle));
+		}
+	}
+
+	/**
+	 * Counts an image that was loaded from the disk cache as skipped, like one found in the memory cache.
+	 */
+	private void onLoaded(ImageHandle handle)
+	{
+		synchronized(this)
+		{
+			inFlight--;
+			skipped++;
+		}
+		fetchNext();
+	}
+
+	private void onFetched(Result result, ImageHandle handle)
+	{
+		synchronized(this)
+		{
+			inFlight--;
+			if(result == Result.OK)
+				fetched++;
+			else
+				failed++;
+		}
+
+		try
+		{
+			callback.accept(result, handle);
+		}
+		finally
+		{
+			fetchNext();
+		}
+	}
+
+	/**
+	 * Moves images to the front of the queue, so they are fetched before all others,
+	 * e.g. because they have become visible. Images that are fetched already or not part of this prefetch are ignored.
+	 * @param handles Handles identifying the images, in the order they should be fetched in
+	 */
+	public synchronized void prioritize(Collection<ImageHandle> handles)
+	{
+		List<ImageHandle> list = new ArrayList<>(handles);
+		// backwards, so the first handle ends up first
+		for(ListIterator<ImageHandle> it = list.listIterator(list.size()); it.hasPrevious(); )
+		{
+			ImageHandle handle = it.previous();
+			for(Iterator<ImageHandle> queued = queue.iterator(); queued.hasNext(); )
+			{
+				ImageHandle candidate = queued.next();
+				if(candidate.equals(handle))
+				{
+					queued.remove();
+					queue.addFirst(candidate);
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stops fetching images that are still queued. Images already in flight are still fetched and reported.
+	 */
+	public void cancel()
+	{
+		synchronized(this)
+		{
+			cancelled = true;
+		}
+		fetchNext();
+	}
+
+	/**
+	 * Gets the number of distinct images of this prefetch.
+	 * @return Number of images
+	 */
+	public int getTotalCount()
+	{
+		return total;
+	}
+
+	/**
+	 * Gets the number of images that have been fetched successfully.
+	 * @return Number of fetched images
+	 */
+	public synchronized int getFetchedCount()
+	{
+		return fetched;
+	}
+
+	/**
+	 * Gets the number of images that could not be fetched.
+	 * @return Number of failed images
+	 */
+	public synchronized int getFailedCount()
+	{
+		return failed;
+	}
+
+	/**
+	 * Gets the number of images that were not fetched because they were cached already.
+	 * @return Number of skipped images
+	 */
+	public synchronized int getSkippedCount()
+	{
+		return skipped;
+	}
+
+	/**
+	 * Gets the number of images that are being fetched right now.
+	 * @return Number of images in flight
+	 */
+	public synchronized int getInFlightCount()
+	{
+		return inFlight;
+	}
+
+	/**
+	 * Gets the number of images that are done, because they were fetched, failed or skipped.
+	 * @return Number of done images, {@link #getTotalCount()} once the prefetch is complete
+	 *         (unless it was cancelled)
+	 */
+	public synchronized int getCompletedCount()
+	{
+		return fetched + failed + skipped;
+	}
+
+	/**
+	 * Gets a future that completes when no more images are fetched,
+	 * i.e. when all are done or it was cancelled and the ones in flight are done.
+	 * It completes right after the callback for the last image.
+	 * @return A future for the end of the prefetch
+	 */
+	public CompletableFuture<Void> getFuture()
+	{
+		return future;
+	}
+}
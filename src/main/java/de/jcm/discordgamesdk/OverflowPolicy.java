@@ -0,0 +1,31 @@
+package de.jcm.discordgamesdk;
+
+import java.util.concurrent.Flow;
+
+/**
+ * <p>What happens when an event arrives while the buffer of a {@link Flow.Subscriber} is full.</p>
+ * <p>Every subscriber of an event publisher (e.g. {@link Core#relationshipUpdates()}) has a buffer of its own,
+ * so a slow subscriber only loses its own events and never delays the others.</p>
+ * @see CreateParams#setEventOverflowPolicy(OverflowPolicy)
+ */
+public enum OverflowPolicy
+{
+	/**
+	 * Drop the oldest buffered event to make room for the new one.
+	 */
+	DROP_OLDEST,
+	/**
+	 * Drop all buffered events and only keep the new one.
+	 * <p>
+	 * Useful for streams where only the latest state matters, like the current user.
+	 */
+	CONFLATE,
+	/**
+	 * Wait until the subscriber has made room for the new event.
+	 * <p>
+	 * <b>This stalls the thread receiving events</b>, i.e. {@link Core#runCallbacks()} or the background thread,
+	 * and with it all other callbacks and events. Use it only if no event may be lost and
+	 * the subscriber is run by an executor that is not blocked by this.
+	 */
+	BLOCK
+}
@@ -7,6 +7,7 @@ import de.jcm.discordgamesdk.impl.commands.OpenOverlayGuildInvite;
 import de.jcm.discordgamesdk.impl.commands.OpenOverlayVoiceSettings;
 import de.jcm.discordgamesdk.impl.commands.SetOverlayLocked;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 /**
@@ -72,6 +73,20 @@ public class OverlayManager
 		});
 	}
 
+	/**
+	 * <p>Changes the locked status of the overlay.</p>
+	 * <p>The returned future completes once Discord has changed the status
+	 * or exceptionally with a {@link GameSDKException} if it has not.</p>
+	 * @param locked New locked status
+	 * @return A future for the completion of the operation
+	 * @see <a href="https://discordapp.com/developers/docs/game-sdk/overlay#setlocked">
+	 *     https://discordapp.com/developers/docs/game-sdk/overlay#setlocked</a>
+	 */
+	public CompletableFuture<Void> setLockedAsync(boolean locked)
+	{
+		return core.sendCommandAsync(Command.Type.SET_OVERLAY_LOCKED, new SetOverlayLocked.Args(locked, core.pid), null, c->null);
+	}
+
 	/**
 	 * <p>Opens the overlay and prepares a join/spectate invitation to send.</p>
 	 * <p>The {@link Core#DEFAULT_CALLBACK} is used to handle the returned {@link Result}.</p>
@@ -99,6 +114,21 @@ public class OverlayManager
 		});
 	}
 
+	/**
+	 * <p>Opens the overlay and prepares a join/spectate invitation to send.</p>
+	 * <p>The returned future completes once Discord has opened the overlay
+	 * or exceptionally with a {@link GameSDKException} if it has not.</p>
+	 * @param type Type of the invitation
+	 * @return A future for the completion of the operation
+	 * @see <a href="https://discordapp.com/developers/docs/game-sdk/overlay#openactivityinvite">
+	 *     https://discordapp.com/developers/docs/game-sdk/overlay#openactivityinvite</a>
+	 */
+	public CompletableFuture<Void> openActivityInviteAsync(ActivityActionType type)
+	{
+		return core.sendCommandAsync(Command.Type.OPEN_OVERLAY_ACTIVITY_INVITE,
+				new OpenOverlayActivityInvite.Args(type.nativeValue(), core.pid), null, c->null);
+	}
+
 	/**
 	 * <p>Opens the overlay and attempts to join a guild with an invite code.</p>
 	 * <p>The {@link Core#DEFAULT_CALLBACK} is used to handle the returned {@link Result}.</p>
@@ -126,6 +156,19 @@ public class OverlayManager
 		});
 	}
 
+	/**
+	 * <p>Opens the overlay and attempts to join a guild with an invite code.</p>
+	 * <p>Discord does not answer this request, so the returned future completes as soon as it has been sent.</p>
+	 * @param code Invite code for a guild
+	 * @return A future for the completion of the operation
+	 * @see <a href="https://discordapp.com/developers/docs/game-sdk/overlay#openguildinvite">
+	 *     https://discordapp.com/developers/docs/game-sdk/overlay#openguildinvite</a>
+	 */
+	public CompletableFuture<Void> openGuildInviteAsync(String code)
+	{
+		return core.sendCommandNoResponseAsync(Command.Type.OPEN_OVERLAY_GUILD_INVITE, new OpenOverlayGuildInvite.Args(code, core.pid));
+	}
+
 	/**
 	 * <p>Opens the overlay and shows a widget to adjust the user's application specific voice settings.</p>
 	 * <p>The {@link Core#DEFAULT_CALLBACK} is used to handle the returned {@link Result}.</p>
@@ -150,4 +193,16 @@ public class OverlayManager
 			callback.accept(core.checkError(c));
 		});
 	}
+
+	/**
+	 * <p>Opens the overlay and shows a widget to adjust the user's application specific voice settings.</p>
+	 * <p>Discord does not answer this request, so the returned future completes as soon as it has been sent.</p>
+	 * @return A future for the completion of the operation
+	 * @see <a href="https://discordapp.com/developers/docs/game-sdk/overlay#openvoicesettings">
+	 *     https://discordapp.com/developers/docs/game-sdk/overlay#openvoicesettings</a>
+	 */
+	public CompletableFuture<Void> openVoiceSettingsAsync()
+	{
+		return core.sendCommandNoResponseAsync(Command.Type.OPEN_OVERLAY_VOICE_SETTINGS, new OpenOverlayVoiceSettings.Args(core.pid));
+	}
 }
@@ -9,6 +9,7 @@ import de.jcm.discordgamesdk.user.Relationship;
 import de.jcm.discordgamesdk.user.RelationshipType;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Predicate;
 
 /**
@@ -48,19 +49,40 @@ public class RelationshipManager
 	RelationshipManager(Core.CorePrivate core)
 	{
 		this.core = core;
-		this.core.sendCommand(Command.Type.GET_RELATIONSHIPS, new Object(), o->{
+		this.core.sendCommand(Command.Type.GET_RELATIONSHIPS, new Object(), GetRelationships.Response.class, o->{
 			if(o.isError()) {
 				return;
 			}
-			GetRelationships.Response r = core.getGson().fromJson(o.getData(), GetRelationships.Response.class);
-			for(DataProxies.RelationshipImpl rel : r.getRelationships())
-			{
-				core.relationships.put(rel.user.getUserId(), rel.toRelationship());
-			}
-			core.getEventAdapter().onRelationshipRefresh();
+			refresh(o.getPayload(GetRelationships.Response.class));
+		});
+	}
+
+	/**
+	 * Fetches the user's relationships from Discord again.
+	 * <p>
+	 * This is done automatically when the Core is created, and relationships are kept up to date
+	 * by events afterwards. Once the relationships have been fetched,
+	 * {@link DiscordEventAdapter#onRelationshipRefresh()} is called and the returned future completes
+	 * with all relationships, or exceptionally with a {@link GameSDKException} if they could not be fetched.
+	 * @return A future for the relationships, which are not filtered
+	 */
+	public CompletableFuture<List<Relationship>> refreshAsync()
+	{
+		return core.sendCommandAsync(Command.Type.GET_RELATIONSHIPS, new Object(), GetRelationships.Response.class, c->{
+			refresh(c.getPayload(GetRelationships.Response.class));
+			return List.copyOf(core.relationships.values());
 		});
 	}
 
+	private void refresh(GetRelationships.Response r)
+	{
+		for(DataProxies.RelationshipImpl rel : r.getRelationships())
+		{
+			core.relationships.put(rel.user.getUserId(), rel.toRelationship());
+		}
+		core.getEventAdapter().onRelationshipRefresh();
+	}
+
 	/**
 	 * Fetches the relationship with another user.
 	 * @param userId ID to identifier the other user
@@ -4,6 +4,8 @@ import de.jcm.discordgamesdk.impl.Command;
 import de.jcm.discordgamesdk.user.DiscordUser;
 import de.jcm.discordgamesdk.user.PremiumType;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 
 /**
@@ -87,12 +89,41 @@ public class UserManager
 	 */
 	public void getUser(long userId, BiConsumer<Result, DiscordUser> callback)
 	{
-		core.sendCommand(Command.Type.GET_USER, new DiscordUser(userId), c->{
-			DiscordUser user = core.getGson().fromJson(c.getData(), DiscordUser.class);
+		getUser(userId, core.getRequestTimeout(), callback);
+	}
+
+	/**
+	 * <p>Fetches information about a Discord user, but waits for the given time
+	 * instead of the {@linkplain CreateParams#setRequestTimeout(java.time.Duration) default timeout}.</p>
+	 * @param userId ID of the user to fetch information of
+	 * @param timeout Time to wait for Discord's response, or {@code null} to wait forever.
+	 *                If it passes, the callback receives {@link Result#TRANSACTION_ABORTED}.
+	 * @param callback Callback to provide the result to
+	 * @see #getUser(long, BiConsumer)
+	 */
+	public void getUser(long userId, Duration timeout, BiConsumer<Result, DiscordUser> callback)
+	{
+		core.sendCommand(Command.Type.GET_USER, new DiscordUser(userId), DiscordUser.class, timeout, c->{
+			DiscordUser user = c.getPayload(DiscordUser.class);
 			callback.accept(core.checkError(c), user);
 		});
 	}
 
+	/**
+	 * <p>Fetches information about a Discord user.</p>
+	 * <p>The returned future completes with the user or exceptionally
+	 * with a {@link GameSDKException} if the user could not be fetched.</p>
+	 * @param userId ID of the user to fetch information of
+	 * @return A future for the user
+	 * @see <a href="https://discordapp.com/developers/docs/game-sdk/users#getuser">
+	 *     https://discordapp.com/developers/docs/game-sdk/users#getuser</a>
+	 */
+	public CompletableFuture<DiscordUser> getUserAsync(long userId)
+	{
+		return core.sendCommandAsync(Command.Type.GET_USER, new DiscordUser(userId), DiscordUser.class,
+				c->c.getPayload(DiscordUser.class));
+	}
+
 	/**
 	 * <p>Fetches the type of premium subscription the current user has.</p>
 	 * @return The PremiumType
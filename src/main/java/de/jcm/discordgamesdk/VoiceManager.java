@@ -5,6 +5,7 @@ import de.jcm.discordgamesdk.impl.commands.SetUserVoiceSettings;
 import de.jcm.discordgamesdk.impl.commands.SetVoiceSettings2;
 import de.jcm.discordgamesdk.voice.VoiceInputMode;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 /**
@@ -55,10 +56,12 @@ public class VoiceManager
 	 */
 	public void setInputMode(VoiceInputMode inputMode, Consumer<Result> callback)
 	{
-		core.sendCommand(Command.Type.SET_VOICE_SETTINGS_2, new SetVoiceSettings2.InputMode(inputMode), c->{
+		// arguments are encoded later by the I/O, so do not let changes to the caller's object slip in
+		VoiceInputMode copy = new VoiceInputMode(inputMode.getType(), inputMode.getShortcut());
+		core.sendCommand(Command.Type.SET_VOICE_SETTINGS_2, new SetVoiceSettings2.InputMode(copy), c->{
 			callback.accept(core.checkError(c));
 		});
-		core.voiceData.input_mode = inputMode;
+		core.voiceData.input_mode = copy;
 	}
 
 	/**
@@ -76,6 +79,27 @@ public class VoiceManager
 		setInputMode(inputMode, Core.DEFAULT_CALLBACK);
 	}
 
+	/**
+	 * Sets a new voice input mode for the current user.
+	 * <p>
+	 * The returned future completes once Discord has changed the input mode
+	 * or exceptionally with a {@link GameSDKException} if it has not.
+	 * @param inputMode The new voice input mode
+	 * @return A future for the completion of the operation
+	 * @see #setInputMode(VoiceInputMode, Consumer)
+	 * @see <a href="https://discord.com/developers/docs/game-sdk/discord-voice#setinputmode">
+	 *     https://discord.com/developers/docs/game-sdk/discord-voice#setinputmode</a>
+	 */
+	public CompletableFuture<Void> setInputModeAsync(VoiceInputMode inputMode)
+	{
+		// see setInputMode(VoiceInputMode, Consumer)
+		VoiceInputMode copy = new VoiceInputMode(inputMode.getType(), inputMode.getShortcut());
+		CompletableFuture<Void> future = core.sendCommandAsync(Command.Type.SET_VOICE_SETTINGS_2,
+				new SetVoiceSettings2.InputMode(copy), null, c->null);
+		core.voiceData.input_mode = copy;
+		return future;
+	}
+
 	/**
 	 * Gets whether the current user has muted themselves.
 	 * @return {@code true} if the current user is currently muted
@@ -105,6 +129,23 @@ public class VoiceManager
 		core.voiceData.self_mute = selfMute;
 	}
 
+	/**
+	 * Mutes or unmutes the current user (self mute).
+	 * <p>
+	 * The returned future completes once Discord has (un)muted the user
+	 * or exceptionally with a {@link GameSDKException} if it has not.
+	 * @param selfMute {@code true} to mute, {@code false} to unmute
+	 * @return A future for the completion of the operation
+	 * @see #setSelfMute(boolean)
+	 */
+	public CompletableFuture<Void> setSelfMuteAsync(boolean selfMute)
+	{
+		CompletableFuture<Void> future = core.sendCommandAsync(Command.Type.SET_VOICE_SETTINGS_2,
+				new SetVoiceSettings2.SelfMute(selfMute), null, c->null);
+		core.voiceData.self_mute = selfMute;
+		return future;
+	}
+
 	/**
 	 * Gets whether the current user has deafened themselves.
 	 * @return {@code true} if the current user is currently deafened
@@ -134,6 +175,23 @@ public class VoiceManager
 		core.voiceData.self_deaf = selfDeaf;
 	}
 
+	/**
+	 * Deafens or undeafens the current user (self deaf).
+	 * <p>
+	 * The returned future completes once Discord has (un)deafened the user
+	 * or exceptionally with a {@link GameSDKException} if it has not.
+	 * @param selfDeaf {@code true} to deafen, {@code false} to undeafen
+	 * @return A future for the completion of the operation
+	 * @see #setSelfDeaf(boolean)
+	 */
+	public CompletableFuture<Void> setSelfDeafAsync(boolean selfDeaf)
+	{
+		CompletableFuture<Void> future = core.sendCommandAsync(Command.Type.SET_VOICE_SETTINGS_2,
+				new SetVoiceSettings2.SelfDeaf(selfDeaf), null, c->null);
+		core.voiceData.self_deaf = selfDeaf;
+		return future;
+	}
+
 	/**
 	 * Checks if a user with a given ID is locally muted by the current user.
 	 * @param userId ID of the user to check
@@ -163,7 +221,30 @@ public class VoiceManager
 		core.sendCommand(Command.Type.SET_USER_VOICE_SETTINGS_2, new SetUserVoiceSettings.Mute(user_id, mute), c->{
 			Core.DEFAULT_CALLBACK.accept(core.checkError(c));
 		});
+		updateLocalMute(user_id, mute);
+	}
 
+	/**
+	 * Locally mutes or unmutes the user with the given ID.
+	 * <p>
+	 * The returned future completes once Discord has (un)muted the user
+	 * or exceptionally with a {@link GameSDKException} if it has not.
+	 * @param userId ID of the user to (un)mute
+	 * @param mute {@code true} to mute the user, {@code false} to unmute the user
+	 * @return A future for the completion of the operation
+	 * @see #setLocalMute(long, boolean)
+	 */
+	public CompletableFuture<Void> setLocalMuteAsync(long userId, boolean mute)
+	{
+		String user_id = Long.toString(userId);
+		CompletableFuture<Void> future = core.sendCommandAsync(Command.Type.SET_USER_VOICE_SETTINGS_2,
+				new SetUserVoiceSettings.Mute(user_id, mute), null, c->null);
+		updateLocalMute(user_id, mute);
+		return future;
+	}
+
+	private void updateLocalMute(String user_id, boolean mute)
+	{
 		boolean old = core.voiceData.local_mutes.contains(user_id);
 		if(old && !mute) {
 			core.voiceData.local_mutes.remove(user_id);
@@ -218,4 +299,26 @@ public class VoiceManager
 		});
 		core.voiceData.getLocalVolumes().put(user_id, volume);
 	}
+
+	/**
+	 * Adjust the volume for a given user id locally.
+	 * <p>
+	 * The returned future completes once Discord has adjusted the volume
+	 * or exceptionally with a {@link GameSDKException} if it has not.
+	 * @param userId ID of the user to adjust the volume for
+	 * @param volume New volume adjustment in percent, an integer from 0 to 200
+	 * @return A future for the completion of the operation
+	 * @see #setLocalVolume(long, int)
+	 */
+	public CompletableFuture<Void> setLocalVolumeAsync(long userId, int volume)
+	{
+		if(volume < 0 || volume > 200)
+			throw new IllegalArgumentException("volume out of range: "+volume);
+
+		String user_id = Long.toString(userId);
+		CompletableFuture<Void> future = core.sendCommandAsync(Command.Type.SET_USER_VOICE_SETTINGS_2,
+				new SetUserVoiceSettings.Volume(user_id, volume), null, c->null);
+		core.voiceData.getLocalVolumes().put(user_id, volume);
+		return future;
+	}
 }
@@ -1,7 +1,12 @@
 package de.jcm.discordgamesdk.activity;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+import de.jcm.discordgamesdk.impl.WireAdapters;
 import de.jcm.discordgamesdk.user.Presence;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -277,4 +282,60 @@ public class Activity implements AutoCloseable
 				", secrets=" + secrets +
 				'}';
 	}
+
+	/**
+	 * Writes the activity for {@link WireAdapters}.
+	 */
+	public static class Adapter extends WireAdapters.Writer<Activity>
+	{
+		private final TypeAdapter<ActivityButton> buttonAdapter;
+		private final TypeAdapter<ActivityTimestamps> timestampsAdapter;
+		private final TypeAdapter<ActivityAssets> assetsAdapter;
+		private final TypeAdapter<ActivityParty> partyAdapter;
+		private final TypeAdapter<ActivitySecrets> secretsAdapter;
+
+		public Adapter(Gson gson)
+		{
+			this.buttonAdapter = gson.getAdapter(ActivityButton.class);
+			this.timestampsAdapter = gson.getAdapter(ActivityTimestamps.class);
+			this.assetsAdapter = gson.getAdapter(ActivityAssets.class);
+			this.partyAdapter = gson.getAdapter(ActivityParty.class);
+			this.secretsAdapter = gson.getAdapter(ActivitySecrets.class);
+		}
+
+		@Override
+		public void write(JsonWriter out, Activity activity) throws IOException
+		{
+			out.beginObject();
+			if(activity.applicationId != null)
+				out.name("applicationId").value(activity.applicationId.longValue());
+			if(activity.name != null)
+				out.name("name").value(activity.name);
+			out.name("type").value(activity.type);
+			if(activity.state != null)
+				out.name("state").value(activity.state);
+			if(activity.details != null)
+				out.name("details").value(activity.details);
+			out.name("instance").value(activity.instance);
+			if(activity.buttons != null)
+			{
+				out.name("buttons").beginArray();
+				for(ActivityButton button : activity.buttons)
+					buttonAdapter.write(out, button);
+				out.endArray();
+			}
+			out.name("timestamps");
+			timestampsAdapter.write(out, activity.timestamps);
+			out.name("assets");
+			assetsAdapter.write(out, activity.assets);
+			out.name("party");
+			partyAdapter.write(out, activity.party);
+			if(activity.secrets != null)
+			{
+				out.name("secrets");
+				secretsAdapter.write(out, activity.secrets);
+			}
+			out.endObject();
+		}
+	}
 }
@@ -1,5 +1,10 @@
 package de.jcm.discordgamesdk.activity;
 
+import com.google.gson.stream.JsonWriter;
+import de.jcm.discordgamesdk.impl.WireAdapters;
+
+import java.io.IOException;
+
 /**
  * <p>A structure used for images (assets) attached to activities.</p>
  * <p>Have a look at Discord's Rich Presence Visualizer for more clues:<br>
@@ -100,4 +105,25 @@ public class ActivityAssets
 				", small_text='" + small_text + '\'' +
 				'}';
 	}
+
+	/**
+	 * Writes the assets for {@link WireAdapters}.
+	 */
+	public static class Adapter extends WireAdapters.Writer<ActivityAssets>
+	{
+		@Override
+		public void write(JsonWriter out, ActivityAssets assets) throws IOException
+		{
+			out.beginObject();
+			if(assets.large_image != null)
+				out.name("large_image").value(assets.large_image);
+			if(assets.large_text != null)
+				out.name("large_text").value(assets.large_text);
+			if(assets.small_image != null)
+				out.name("small_image").value(assets.small_image);
+			if(assets.small_text != null)
+				out.name("small_text").value(assets.small_text);
+			out.endObject();
+		}
+	}
 }
@@ -1,5 +1,10 @@
 package de.jcm.discordgamesdk.activity;
 
+import com.google.gson.stream.JsonWriter;
+import de.jcm.discordgamesdk.impl.WireAdapters;
+
+import java.io.IOException;
+
 /**
  * <p>A structure used for custom buttons</p>
  * <p>This structure is not documented in the Game SDK, but is documented in the Gateway API</p>
@@ -60,4 +65,21 @@ public class ActivityButton {
     {
         this.url = url;
     }
+
+    /**
+     * Writes the button for {@link WireAdapters}.
+     */
+    public static class Adapter extends WireAdapters.Writer<ActivityButton>
+    {
+        @Override
+        public void write(JsonWriter out, ActivityButton button) throws IOException
+        {
+            out.beginObject();
+            if(button.label != null)
+                out.name("label").value(button.label);
+            if(button.url != null)
+                out.name("url").value(button.url);
+            out.endObject();
+        }
+    }
 }
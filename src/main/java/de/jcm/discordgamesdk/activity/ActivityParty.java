@@ -1,5 +1,10 @@
 package de.jcm.discordgamesdk.activity;
 
+import com.google.gson.stream.JsonWriter;
+import de.jcm.discordgamesdk.impl.WireAdapters;
+
+import java.io.IOException;
+
 /**
  * A structure used show information about the player's party.
  * @see <a href="https://discordapp.com/developers/docs/game-sdk/activities#data-models-activityparty-struct">
@@ -54,4 +59,26 @@ public class ActivityParty
 				", size=" + size() +
 				'}';
 	}
+
+	/**
+	 * Writes the party for {@link WireAdapters}.
+	 */
+	public static class Adapter extends WireAdapters.Writer<ActivityParty>
+	{
+		@Override
+		public void write(JsonWriter out, ActivityParty party) throws IOException
+		{
+			out.beginObject();
+			if(party.id != null)
+				out.name("id").value(party.id);
+			if(party.size != null)
+			{
+				out.name("size").beginArray();
+				for(int s : party.size)
+					out.value(s);
+				out.endArray();
+			}
+			out.endObject();
+		}
+	}
 }
@@ -1,5 +1,10 @@
 package de.jcm.discordgamesdk.activity;
 
+import com.google.gson.stream.JsonWriter;
+import de.jcm.discordgamesdk.impl.WireAdapters;
+
+import java.io.IOException;
+
 /**
  * A structure containing secrets used to handle and display join and spectate options.
  * @see <a href="https://discordapp.com/developers/docs/game-sdk/activities#data-models-activitysecrets-struct">
@@ -63,4 +68,23 @@ public class ActivitySecrets
 	{
 		return spectate;
 	}
+
+	/**
+	 * Writes the secrets for {@link WireAdapters}.
+	 */
+	public static class Adapter extends WireAdapters.Writer<ActivitySecrets>
+	{
+		@Override
+		public void write(JsonWriter out, ActivitySecrets secrets) throws IOException
+		{
+			out.beginObject();
+			if(secrets.match != null)
+				out.name("match").value(secrets.match);
+			if(secrets.join != null)
+				out.name("join").value(secrets.join);
+			if(secrets.spectate != null)
+				out.name("spectate").value(secrets.spectate);
+			out.endObject();
+		}
+	}
 }
@@ -1,5 +1,9 @@
 package de.jcm.discordgamesdk.activity;
 
+import com.google.gson.stream.JsonWriter;
+import de.jcm.discordgamesdk.impl.WireAdapters;
+
+import java.io.IOException;
 import java.time.Instant;
 
 /**
@@ -90,4 +94,21 @@ public class ActivityTimestamps
 		this.start = null;
 		this.end = null;
 	}
+
+	/**
+	 * Writes the timestamps for {@link WireAdapters}.
+	 */
+	public static class Adapter extends WireAdapters.Writer<ActivityTimestamps>
+	{
+		@Override
+		public void write(JsonWriter out, ActivityTimestamps timestamps) throws IOException
+		{
+			out.beginObject();
+			if(timestamps.start != null)
+				out.name("start").value(timestamps.start.longValue());
+			if(timestamps.end != null)
+				out.name("end").value(timestamps.end.longValue());
+			out.endObject();
+		}
+	}
 }
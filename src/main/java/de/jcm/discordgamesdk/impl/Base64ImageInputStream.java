@@ -0,0 +1,125 @@
+package de.jcm.discordgamesdk.impl;
+
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageInputStreamImpl;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * {@link ImageInputStream} of base64 in a {@link CharSequence}, which decodes the bytes right out of the characters
+ * whenever they are read.
+ * <p>
+ * Readers of ImageIO seek back in their input, e.g. the PNG reader returns to the image data after reading the
+ * metadata, so a {@link MemoryCacheImageInputStream} has to keep every byte read until the stream is closed.
+ * Every four characters of base64 decode to three bytes on their own, so this stream can decode any position
+ * again instead and keeps nothing but the characters.
+ */
+public class Base64ImageInputStream extends ImageInputStreamImpl
+{
+	private static final byte[] VALUES = new byte[128];
+
+	static
+	{
+		Arrays.fill(VALUES, (byte) -1);
+		String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+		for(int i = 0; i < alphabet.length(); i++)
+			VALUES[alphabet.charAt(i)] = (byte) i;
+	}
+
+	private final CharSequence text;
+	private final int start;
+	private final int end;
+	private final long length;
+
+	/**
+	 * Creates a stream over the base64 in a part of the text.
+	 * @param text Text to read from
+	 * @param start Index of the first character of the base64
+	 * @param end Index after the last character of the base64, including padding
+	 * @throws IllegalArgumentException if the base64 cannot be of any length of bytes
+	 */
+	public Base64ImageInputStream(CharSequence text, int start, int end)
+	{
+		if(start < 0 || start > end || end > text.length())
+			throw new IndexOutOfBoundsException("start "+start+", end "+end+", length "+text.length());
+		for(int i = 0; i < 2 && end > start && text.charAt(end - 1) == '='; i++)
+			end--;
+		int count = end - start;
+		if(count % 4 == 1)
+			throw new IllegalArgumentException("invalid length of base64: "+count);
+		this.text = text;
+		this.start = start;
+		this.end = end;
+		this.length = count / 4 * 3L + Math.max(count % 4 - 1, 0);
+	}
+
+	/**
+	 * Decodes the three bytes of a group of four characters.
+	 */
+	private int group(long group) throws IOException
+	{
+		int index = (int) (start + group * 4);
+		int bits = 0;
+		for(int i = index; i < index + 4; i++)
+		{
+			bits <<= 6;
+			if(i >= end)
+				continue;
+			char c = text.charAt(i);
+			int value = c < VALUES.length ? VALUES[c] : -1;
+			if(value < 0)
+				throw new IOException("invalid base64 at index "+i+": "+c);
+			bits |= value;
+		}
+		return bits;
+	}
+
+	private static int byteOf(int group, long position)
+	{
+		return (group >> (16 - 8 * (int) (position % 3))) & 0xFF;
+	}
+
+	@Override
+	public int read() throws IOException
+	{
+		checkClosed();
+		bitOffset = 0;
+		if(streamPos >= length)
+			return -1;
+		int b = byteOf(group(streamPos / 3), streamPos);
+		streamPos++;
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException
+	{
+		checkClosed();
+		if(off < 0 || len < 0 || off + len > b.length || off + len < 0)
+			throw new IndexOutOfBoundsException("off "+off+", len "+len+", length "+b.length);
+		bitOffset = 0;
+		if(len == 0)
+			return 0;
+		if(streamPos >= length)
+			return -1;
+
+		int count = (int) Math.min(len, length - streamPos);
+		int group = group(streamPos / 3);
+		for(int i = 0; i < count; i++)
+		{
+			long position = streamPos + i;
+			if(i > 0 && position % 3 == 0)
+				group = group(position / 3);
+			b[off + i] = (byte) byteOf(group, position);
+		}
+		streamPos += count;
+		return count;
+	}
+
+	@Override
+	public long length()
+	{
+		return length;
+	}
+}
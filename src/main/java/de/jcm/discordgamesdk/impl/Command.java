@@ -20,9 +20,19 @@ public class Command
 		SET_ACTIVITY,
 		SET_OVERLAY_LOCKED,
 		SUBSCRIBE,
+		UNSUBSCRIBE,
 		AUTHENTICATE,
 		SET_VOICE_SETTINGS_2,
-		SET_USER_VOICE_SETTINGS_2,
+		SET_USER_VOICE_SETTINGS_2;
+
+		/**
+		 * Tells if the command only reads data, so that identical commands sent at the same time can share a response.
+		 * @return {@code true} for commands without side effects
+		 */
+		public boolean isReadOnly()
+		{
+			return this == GET_IMAGE || this == GET_RELATIONSHIPS || this == GET_USER;
+		}
 	}
 
 	public enum Event
@@ -47,12 +57,19 @@ public class Command
 		VOICE_SETTINGS_UPDATE_2,
 	}
 
+	/**
+	 * Value of {@link #getNonceId()} for commands without a numeric nonce.
+	 */
+	public static final long NO_NONCE = -1;
+
 	private Type cmd;
 	private JsonElement data;
+	private transient Object payload;
 
-	private JsonElement args;
+	private Object args;
 	private Event evt;
 	private String nonce;
+	private transient long nonceId = NO_NONCE;
 
 	public Type getCmd()
 	{
@@ -74,14 +91,35 @@ public class Command
 		this.data = data;
 	}
 
-	public JsonElement getArgs()
+	/**
+	 * Gets the data of a received command, already decoded to the class its handler expects.
+	 * @param type Expected class of the data
+	 * @return The data or {@code null} if there is none or it is not an instance of {@code type}
+	 *         (e.g. because the command is an {@linkplain #isError() error})
+	 */
+	public <T> T getPayload(Class<T> type)
+	{
+		return type.isInstance(payload) ? type.cast(payload) : null;
+	}
+
+	public void setPayload(Object payload)
+	{
+		this.payload = payload;
+	}
+
+	public Object getArgs()
 	{
 		return args;
 	}
 
-	public void setArgs(JsonElement arg)
+	/**
+	 * Sets the arguments of a command to send.
+	 * They are only encoded by {@link CommandEncoder} when the command is written, so they must not be changed afterwards.
+	 * @param args Arguments to encode with Gson, can also be a {@link JsonElement}
+	 */
+	public void setArgs(Object args)
 	{
-		this.args = arg;
+		this.args = args;
 	}
 
 	public Event getEvent()
@@ -98,14 +136,55 @@ public class Command
 		return getEvent() == Event.ERROR;
 	}
 
+	public boolean hasNonce()
+	{
+		return nonce != null || nonceId != NO_NONCE;
+	}
+
 	public String getNonce()
 	{
+		if(nonce == null && nonceId != NO_NONCE)
+			nonce = Long.toString(nonceId);
 		return nonce;
 	}
 
 	public void setNonce(String nonce)
 	{
 		this.nonce = nonce;
+		this.nonceId = parseNonce(nonce);
+	}
+
+	private static long parseNonce(String nonce)
+	{
+		if(nonce == null)
+			return NO_NONCE;
+		try
+		{
+			return Math.max(Long.parseLong(nonce), NO_NONCE);
+		}
+		catch(NumberFormatException e)
+		{
+			return NO_NONCE;
+		}
+	}
+
+	/**
+	 * Gets the nonce as a number, as used for requests sent by us.
+	 * @return The nonce or {@link #NO_NONCE} if there is none or it is not a non-negative number
+	 */
+	public long getNonceId()
+	{
+		return nonceId;
+	}
+
+	/**
+	 * Sets a numeric nonce. Its string form is only created when needed.
+	 * @param nonceId The nonce, must not be negative
+	 */
+	public void setNonceId(long nonceId)
+	{
+		this.nonce = null;
+		this.nonceId = nonceId;
 	}
 
 	@Override
@@ -113,10 +192,10 @@ public class Command
 	{
 		return "Command{" +
 				"cmd=" + cmd +
-				", data=" + data +
+				", data=" + (data != null ? data : payload) +
 				", args=" + args +
 				", evt=" + evt +
-				", nonce='" + nonce + '\'' +
+				", nonce='" + getNonce() + '\'' +
 				'}';
 	}
 }
@@ -0,0 +1,134 @@
+package de.jcm.discordgamesdk.impl;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import de.jcm.discordgamesdk.impl.channel.ByteBufferInputStream;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * Decodes {@link Command}s directly from the UTF-8 body of a received frame.
+ * <p>
+ * The envelope ({@code cmd}, {@code evt} and {@code nonce}) is read first, skipping over {@code data}.
+ * Then {@code data} is bound straight to the class that whoever handles the command expects,
+ * without building an intermediate {@link String} or {@link com.google.gson.JsonElement} tree.
+ */
+public class CommandDecoder
+{
+	private final Gson gson;
+
+	public CommandDecoder(Gson gson)
+	{
+		this.gson = gson;
+	}
+
+	/**
+	 * Decodes a command.
+	 * @param body Frame body, its position is not changed
+	 * @param dataClass Gives the class to bind {@code data} to for a command with decoded envelope,
+	 *                  or {@code null} to not decode {@code data} at all.
+	 *                  It is not consulted for errors, whose data is always bound to {@link Error}.
+	 * @return The decoded command with its data as {@linkplain Command#getPayload(Class) payload}
+	 * @throws IOException if the body is not valid JSON
+	 */
+	public Command decode(ByteBuffer body, Function<Command, Class<?>> dataClass) throws IOException
+	{
+		Command command = new Command();
+		boolean hasData = false;
+
+		try(JsonReader reader = reader(body))
+		{
+			reader.beginObject();
+			while(reader.hasNext())
+			{
+				String name = reader.nextName();
+				if(reader.peek() == JsonToken.NULL)
+				{
+					reader.nextNull();
+					continue;
+				}
+				switch(name)
+				{
+					case "cmd" -> command.setCmd(enumValue(Command.Type.class, reader.nextString()));
+					case "evt" -> command.setEvt(enumValue(Command.Event.class, reader.nextString()));
+					case "nonce" -> readNonce(reader, command);
+					case "data" -> {
+						hasData = true;
+						reader.skipValue();
+					}
+					default -> reader.skipValue();
+				}
+			}
+		}
+
+		if(!hasData)
+			return command;
+
+		Class<?> type = command.isError() ? Error.class : dataClass.apply(command);
+		if(type == null)
+			return command;
+
+		try(JsonReader reader = reader(body))
+		{
+			reader.beginObject();
+			while(reader.hasNext())
+			{
+				if(reader.nextName().equals("data"))
+				{
+					command.setPayload(gson.getAdapter(type).read(reader));
+					break;
+				}
+				reader.skipValue();
+			}
+		}
+		return command;
+	}
+
+	/**
+	 * Reads our numeric nonces without creating a {@link String}, but still accepts any other nonce.
+	 */
+	private static void readNonce(JsonReader reader, Command command) throws IOException
+	{
+		long id;
+		try
+		{
+			id = reader.nextLong();
+		}
+		catch(NumberFormatException e)
+		{
+			// the reader keeps the value when it cannot be parsed
+			command.setNonce(reader.nextString());
+			return;
+		}
+
+		if(id >= 0)
+			command.setNonceId(id);
+		else
+			command.setNonce(Long.toString(id));
+	}
+
+	private static JsonReader reader(ByteBuffer body)
+	{
+		JsonReader reader = new JsonReader(new InputStreamReader(
+				new ByteBufferInputStream(body.duplicate()), StandardCharsets.UTF_8));
+		reader.setLenient(true);
+		return reader;
+	}
+
+	private static <E extends Enum<E>> E enumValue(Class<E> type, String name)
+	{
+		try
+		{
+			return Enum.valueOf(type, name);
+		}
+		catch(IllegalArgumentException e)
+		{
+			return null; // just like Gson does for unknown constants
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package de.jcm.discordgamesdk.impl;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes messages to send straight into a {@link Writer}, usually a {@link de.jcm.discordgamesdk.impl.channel.FrameWriter}.
+ * <p>
+ * For {@link Command}s, the envelope and the arguments are written with a single {@link JsonWriter},
+ * without building an intermediate {@link JsonElement} tree or {@link String}.
+ * The JSON is the same as the one {@link Gson#toJson(Object)} writes for a command whose arguments
+ * have been converted with {@link Gson#toJsonTree(Object)} first.
+ */
+public class CommandEncoder
+{
+	private final Gson gson;
+	private final TypeAdapter<JsonElement> elementAdapter;
+
+	public CommandEncoder(Gson gson)
+	{
+		this.gson = gson;
+		this.elementAdapter = gson.getAdapter(JsonElement.class);
+	}
+
+	/**
+	 * Encodes a message.
+	 * @param message A {@link Command} or any other object to encode with Gson
+	 * @param out Writer to write the JSON to
+	 * @throws IOException if writing fails
+	 */
+	public void encode(Object message, Writer out) throws IOException
+	{
+		JsonWriter writer = gson.newJsonWriter(out);
+		writer.setLenient(true); // like Gson#toJson
+		if(message instanceof Command command)
+			writeCommand(writer, command);
+		else
+			writeObject(writer, message);
+	}
+
+	/**
+	 * Encodes the arguments of a command on their own, exactly like {@link #encode(Object, Writer)} writes them.
+	 * @param args The arguments
+	 * @return The JSON as UTF-8
+	 */
+	public byte[] encodeArgs(Object args)
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try(Writer out = new OutputStreamWriter(bytes, StandardCharsets.UTF_8))
+		{
+			JsonWriter writer = gson.newJsonWriter(out);
+			writer.setLenient(true);
+			writeObject(writer, args);
+		}
+		catch(IOException e)
+		{
+			throw new UncheckedIOException(e); // not thrown by a ByteArrayOutputStream
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Writes the fields in the order of their declaration, like Gson's reflective adapter.
+	 */
+	private void writeCommand(JsonWriter writer, Command command) throws IOException
+	{
+		writer.beginObject();
+		writer.name("cmd").value(command.getCmd() != null ? command.getCmd().name() : null);
+		writer.name("data");
+		elementAdapter.write(writer, command.getData());
+		writer.name("args");
+		writeObject(writer, command.getArgs());
+		writer.name("evt").value(command.getEvent() != null ? command.getEvent().name() : null);
+		writer.name("nonce").value(command.getNonce());
+		writer.endObject();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void writeObject(JsonWriter writer, Object value) throws IOException
+	{
+		if(value == null)
+		{
+			writer.nullValue();
+			return;
+		}
+		// the runtime class, just like Gson#toJson(Object) uses
+		TypeAdapter<Object> adapter = (TypeAdapter<Object>) gson.getAdapter(value.getClass());
+		adapter.write(writer, value);
+	}
+}
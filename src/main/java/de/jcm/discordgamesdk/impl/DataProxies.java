@@ -1,9 +1,13 @@
 package de.jcm.discordgamesdk.impl;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
 import de.jcm.discordgamesdk.activity.Activity;
 import de.jcm.discordgamesdk.activity.ActivityType;
 import de.jcm.discordgamesdk.user.*;
 
+import java.io.IOException;
 import java.util.Optional;
 
 public class DataProxies
@@ -11,6 +15,26 @@ public class DataProxies
 	public static class EmojiImpl
 	{
 		private String name;
+
+		static class Adapter extends WireAdapters.Reader<EmojiImpl>
+		{
+			@Override
+			public EmojiImpl read(JsonReader in) throws IOException
+			{
+				EmojiImpl emoji = new EmojiImpl();
+				in.beginObject();
+				while(in.hasNext())
+				{
+					switch(in.nextName())
+					{
+						case "name" -> emoji.name = WireAdapters.readString(in);
+						default -> in.skipValue();
+					}
+				}
+				in.endObject();
+				return emoji;
+			}
+		}
 	}
 
 	public static class ActivityImpl
@@ -29,6 +53,38 @@ public class DataProxies
 			activity.setType(ActivityType.values()[type]);
 			return activity;
 		}
+
+		static class Adapter extends WireAdapters.Reader<ActivityImpl>
+		{
+			private final TypeAdapter<EmojiImpl> emojiAdapter;
+
+			Adapter(Gson gson)
+			{
+				this.emojiAdapter = gson.getAdapter(EmojiImpl.class);
+			}
+
+			@Override
+			public ActivityImpl read(JsonReader in) throws IOException
+			{
+				ActivityImpl activity = new ActivityImpl();
+				in.beginObject();
+				while(in.hasNext())
+				{
+					switch(in.nextName())
+					{
+						case "created_at" -> activity.created_at = WireAdapters.readString(in);
+						case "emoji" -> activity.emoji = emojiAdapter.read(in);
+						case "id" -> activity.id = WireAdapters.readString(in);
+						case "name" -> activity.name = WireAdapters.readString(in);
+						case "state" -> activity.state = WireAdapters.readString(in);
+						case "type" -> activity.type = WireAdapters.readInt(in, activity.type);
+						default -> in.skipValue();
+					}
+				}
+				in.endObject();
+				return activity;
+			}
+		}
 	}
 
 	public static class PresenceImpl
@@ -47,6 +103,34 @@ public class DataProxies
 
             return new Presence(s, Optional.ofNullable(activity).map(ActivityImpl::toActivity).orElse(null));
 		}
+
+		static class Adapter extends WireAdapters.Reader<PresenceImpl>
+		{
+			private final TypeAdapter<ActivityImpl> activityAdapter;
+
+			Adapter(Gson gson)
+			{
+				this.activityAdapter = gson.getAdapter(ActivityImpl.class);
+			}
+
+			@Override
+			public PresenceImpl read(JsonReader in) throws IOException
+			{
+				PresenceImpl presence = new PresenceImpl();
+				in.beginObject();
+				while(in.hasNext())
+				{
+					switch(in.nextName())
+					{
+						case "status" -> presence.status = WireAdapters.readString(in);
+						case "activity" -> presence.activity = activityAdapter.read(in);
+						default -> in.skipValue();
+					}
+				}
+				in.endObject();
+				return presence;
+			}
+		}
 	}
 
 	public static class RelationshipImpl
@@ -63,5 +147,36 @@ public class DataProxies
 					presence.toPresence()
 			);
 		}
+
+		static class Adapter extends WireAdapters.Reader<RelationshipImpl>
+		{
+			private final TypeAdapter<DiscordUser> userAdapter;
+			private final TypeAdapter<PresenceImpl> presenceAdapter;
+
+			Adapter(Gson gson)
+			{
+				this.userAdapter = gson.getAdapter(DiscordUser.class);
+				this.presenceAdapter = gson.getAdapter(PresenceImpl.class);
+			}
+
+			@Override
+			public RelationshipImpl read(JsonReader in) throws IOException
+			{
+				RelationshipImpl relationship = new RelationshipImpl();
+				in.beginObject();
+				while(in.hasNext())
+				{
+					switch(in.nextName())
+					{
+						case "type" -> relationship.type = WireAdapters.readInt(in, relationship.type);
+						case "user" -> relationship.user = userAdapter.read(in);
+						case "presence" -> relationship.presence = presenceAdapter.read(in);
+						default -> in.skipValue();
+					}
+				}
+				in.endObject();
+				return relationship;
+			}
+		}
 	}
 }
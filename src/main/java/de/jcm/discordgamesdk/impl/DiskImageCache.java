@@ -0,0 +1,499 @@
+package de.jcm.discordgamesdk.impl;
+
+import de.jcm.discordgamesdk.image.ImageHandle;
+import de.jcm.discordgamesdk.image.ImageType;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Persistent cache of images as raw RGBA data, so they can be loaded without asking Discord or decoding a PNG.
+ * <p>
+ * Each image is stored together with the hash of the avatar it was fetched for. When the avatar changes,
+ * the stored image no longer matches and is not loaded anymore.
+ * <p>
+ * All images are appended to a single pack file, which is memory-mapped for reading. Only the part of the file
+ * written since it was last mapped is mapped when a new record is loaded.
+ * An image stored again for the same handle supersedes the old one. The space of superseded images is
+ * reclaimed when the cache is opened and they take up more than half of the file.
+ * <p>
+ * The pack file never grows beyond a maximum size. When storing an image would exceed it, the least recently
+ * used images are evicted until a quarter of the file is free, and the remaining records are moved together
+ * in place. A record is only marked valid once it is completely written, so a record that was not
+ * (e.g. because the game crashed) is cut off when the cache is opened, together with everything after it.
+ * <p>
+ * The cache holds a lock on a file next to the pack file while it is open, so the pack file cannot be corrupted
+ * by another game using the same directory. If the lock cannot be acquired, {@link #open(Path, long)} fails.
+ * <p>
+ * The cache is thread-safe.
+ */
+public class DiskImageCache implements Closeable
+{
+	/**
+	 * Name of the pack file in the directory of the cache.
+	 */
+	public static final String PACK_FILE = "images.pack";
+	/**
+	 * Name of the lock file in the directory of the cache.
+	 */
+	public static final String LOCK_FILE = "images.lock";
+
+	private static final int MAGIC = 0x44494D47; // "DIMG"
+	/** Magic and length of the rest of the record */
+	private static final int RECORD_HEADER = 8;
+	/** Enough to read everything but the pixels of a record */
+	private static final int MAX_METADATA = 512;
+	/** Number of separately mapped parts of the file after which it is mapped as a whole again */
+	private static final int MAX_MAPPINGS = 64;
+	/** Size of the buffer records are moved with when compacting in place */
+	private static final int COPY_BUFFER = 64 * 1024;
+
+	private record Entry(String avatarHash, long position, int length, int width, int height)
+	{
+		long pixelPosition()
+		{
+			return position + RECORD_HEADER + length - width * height * 4L;
+		}
+
+		Entry movedTo(long position)
+		{
+			return new Entry(avatarHash, position, length, width, height);
+		}
+	}
+
+	private final Path file;
+	private final FileChannel lockChannel;
+	private final FileLock lock;
+	private final long maxSize;
+	/** In access order, so the least recently used image comes first */
+	private final LinkedHashMap<ImageHandle, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private FileChannel channel;
+	private long end;
+	/** Bytes taken up by the records in {@link #entries} */
+	private long live;
+	private long fileSize;
+
+	/** Start positions of the mapped parts of the file, in ascending order */
+	private long[] mapStarts = new long[MAX_MAPPINGS];
+	private MappedByteBuffer[] maps = new MappedByteBuffer[MAX_MAPPINGS];
+	private int mapCount;
+	private long mappedEnd;
+
+	private long hits;
+
+	private DiskImageCache(Path file, FileChannel lockChannel, FileLock lock, long maxSize)
+	{
+		this.file = file;
+		this.lockChannel = lockChannel;
+		this.lock = lock;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Opens the cache in a directory, creating the directory and pack file if needed.
+	 * @param directory Directory of the cache
+	 * @param maxSize Maximum size of the pack file in bytes, at most {@link Integer#MAX_VALUE}
+	 * @return The opened cache
+	 * @throws IOException if the pack file cannot be opened, e.g. because it is in use by another cache
+	 */
+	public static DiskImageCache open(Path directory, long maxSize) throws IOException
+	{
+		if(maxSize < 0 || maxSize > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("maxSize out of range: "+maxSize);
+		Files.createDirectories(directory);
+		FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK_FILE),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		try
+		{
+			FileLock lock;
+			try
+			{
+				lock = lockChannel.tryLock();
+			}
+			catch(OverlappingFileLockException e)
+			{
+				lock = null; // locked by another cache in this JVM
+			}
+			if(lock == null)
+				throw new IOException("image cache is in use: "+directory);
+
+			DiskImageCache cache = new DiskImageCache(directory.resolve(PACK_FILE), lockChannel, lock, maxSize);
+			try
+			{
+				cache.load();
+			}
+			catch(IOException | RuntimeException e)
+			{
+				cache.close();
+				throw e;
+			}
+			return cache;
+		}
+		catch(IOException | RuntimeException e)
+		{
+			lockChannel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the index of the pack file, cuts off an incomplete record and compacts the file if worthwhile
+	 * or if it is larger than allowed.
+	 * This happens before the file is mapped, because a mapped file cannot be truncated or replaced on every platform.
+	 */
+	private void load() throws IOException
+	{
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		long size = channel.size();
+		long position = 0;
+		ByteBuffer metadata = ByteBuffer.allocate(RECORD_HEADER + MAX_METADATA);
+		while(position + RECORD_HEADER <= size)
+		{
+			metadata.clear().limit((int) Math.min(metadata.capacity(), size - position));
+			while(metadata.hasRemaining())
+				channel.read(metadata, position + metadata.position());
+			metadata.flip();
+
+			int length = metadata.getInt(4);
+			if(metadata.getInt(0) != MAGIC || length < 0 || position + RECORD_HEADER + length > size
+					|| position + RECORD_HEADER + length > Integer.MAX_VALUE)
+				break;
+
+			Map.Entry<ImageHandle, Entry> record = readRecord(metadata.position(RECORD_HEADER), position, length);
+			if(record != null)
+			{
+				Entry old = entries.put(record.getKey(), record.getValue());
+				if(old != null)
+					live -= RECORD_HEADER + old.length();
+				live += RECORD_HEADER + length;
+			}
+			position += RECORD_HEADER + length;
+		}
+		end = position;
+		if(end < size)
+			channel.truncate(end);
+		fileSize = end;
+
+		// images are in the order they were stored, which is the best guess at how recently they were used
+		evict(maxSize);
+		if(end - live > live || end > maxSize)
+			compact();
+	}
+
+	/**
+	 * Reads the metadata of a record.
+	 * @return The handle and entry of the record, or {@code null} if the record is of an unknown image type or invalid
+	 */
+	private static Map.Entry<ImageHandle, Entry> readRecord(ByteBuffer metadata, long position, int length)
+	{
+		try
+		{
+			ImageType type = ImageType.valueOf(readString(metadata));
+			ImageHandle handle = new ImageHandle(type, metadata.getLong(), metadata.getInt());
+			String avatarHash = readString(metadata);
+			int width = metadata.getInt();
+			int height = metadata.getInt();
+			if(width < 0 || height < 0 || metadata.position() - RECORD_HEADER + width * 4L * height != length)
+				return null;
+			return Map.entry(handle, new Entry(avatarHash, position, length, width, height));
+		}
+		catch(IllegalArgumentException | BufferUnderflowException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Removes the least recently used images from the index until the rest takes up at most the given number of bytes.
+	 * The space of their records is only reclaimed by compacting.
+	 */
+	private void evict(long target)
+	{
+		Iterator<Entry> iterator = entries.values().iterator();
+		while(live > target && iterator.hasNext())
+		{
+			live -= RECORD_HEADER + iterator.next().length();
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * Rewrites the pack file with only the records in the index. Must not be called once the file is mapped.
+	 */
+	private void compact() throws IOException
+	{
+		Path temp = file.resolveSibling(file.getFileName()+".tmp");
+		long position = 0;
+		try(FileChannel out = FileChannel.open(temp,
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			for(Map.Entry<ImageHandle, Entry> e : entries.entrySet())
+			{
+				Entry entry = e.getValue();
+				long length = RECORD_HEADER + entry.length();
+				long copied = 0;
+				while(copied < length)
+					copied += channel.transferTo(entry.position() + copied, length - copied, out);
+				// setting the value keeps the access order
+				e.setValue(entry.movedTo(position));
+				position += length;
+			}
+			out.force(false);
+		}
+
+		channel.close();
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		end = position;
+		fileSize = position;
+	}
+
+	/**
+	 * Moves all records in the index to the start of the pack file, keeping their order.
+	 * <p>
+	 * The file stays the same size, because it may be mapped. Superseded and evicted records are invalidated first,
+	 * each record is marked valid only after it has been moved and the end of the records is marked as well,
+	 * so the file can still be read if this is interrupted, losing at most the records that were not moved yet.
+	 */
+	private void compactInPlace() throws IOException
+	{
+		List<Map.Entry<ImageHandle, Entry>> records = new ArrayList<>(entries.entrySet());
+		records.sort(Comparator.comparingLong(e -> e.getValue().position()));
+
+		ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER);
+		int next = 0;
+		for(long position = 0; position < end; )
+		{
+			buffer.clear().limit(RECORD_HEADER);
+			while(buffer.hasRemaining())
+				channel.read(buffer, position + buffer.position());
+			if(next < records.size() && records.get(next).getValue().position() == position)
+				next++;
+			else
+				writeInt(position, 0);
+			position += RECORD_HEADER + buffer.getInt(4);
+		}
+
+		long position = 0;
+		for(Map.Entry<ImageHandle, Entry> e : records)
+		{
+			Entry entry = e.getValue();
+			long length = RECORD_HEADER + entry.length();
+			if(entry.position() != position)
+			{
+				// moving to a lower position, so copying front to back never overwrites what is still to be copied
+				writeInt(position, 0);
+				for(long copied = 4; copied < length; )
+				{
+					buffer.clear().limit((int) Math.min(buffer.capacity(), length - copied));
+					while(buffer.hasRemaining())
+						channel.read(buffer, entry.position() + copied + buffer.position());
+					buffer.flip();
+					while(buffer.hasRemaining())
+						channel.write(buffer, position + copied + buffer.position());
+					copied += buffer.limit();
+				}
+				writeInt(position, MAGIC);
+				e.setValue(entry.movedTo(position));
+			}
+			position += length;
+		}
+		end = position;
+		markEnd(end);
+
+		// the mapped parts no longer line up with the records
+		Arrays.fill(maps, 0, mapCount, null);
+		mapCount = 0;
+		mappedEnd = 0;
+	}
+
+	/**
+	 * Marks the end of the records, unless it is the end of the file.
+	 */
+	private void markEnd(long position) throws IOException
+	{
+		if(position + 4 <= fileSize)
+			writeInt(position, 0);
+	}
+
+	private void writeInt(long position, int value) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(4).putInt(0, value);
+		while(buffer.hasRemaining())
+			channel.write(buffer, position + buffer.position());
+	}
+
+	private static String readString(ByteBuffer buffer)
+	{
+		byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeString(ByteBuffer buffer, byte[] bytes)
+	{
+		buffer.putShort((short) bytes.length);
+		buffer.put(bytes);
+	}
+
+	/**
+	 * Loads an image, if it has been stored for the same avatar.
+	 * @param handle Handle identifying the image
+	 * @param avatarHash Hash of the avatar the image is wanted for
+	 * @return The image, backed by a copy of its stored data, or {@code null} if there is none for the avatar
+	 * @throws IOException if mapping the pack file fails
+	 */
+	public synchronized BufferedImage load(ImageHandle handle, String avatarHash) throws IOException
+	{
+		Entry entry = entries.get(handle);
+		if(entry == null || !entry.avatarHash().equals(avatarHash))
+			return null;
+
+		// records stored since the file was last mapped are mapped once they are needed
+		if(entry.position() >= mappedEnd)
+			mapTail();
+		int index = Arrays.binarySearch(mapStarts, 0, mapCount, entry.position());
+		if(index < 0)
+			index = -index - 2;
+
+		byte[] rgba = new byte[entry.width() * entry.height() * 4];
+		maps[index].get((int) (entry.pixelPosition() - mapStarts[index]), rgba);
+		hits++;
+		return ImageData.fromRgba(entry.width(), entry.height(), rgba);
+	}
+
+	/**
+	 * Maps the part of the file written since it was last mapped. Every mapped part ends at the end of a record,
+	 * so every record lies within one of them. If there are too many parts, the file is mapped as a whole again.
+	 */
+	private void mapTail() throws IOException
+	{
+		if(mapCount == MAX_MAPPINGS)
+		{
+			Arrays.fill(maps, 0, mapCount, null);
+			mapCount = 0;
+			mappedEnd = 0;
+		}
+		mapStarts[mapCount] = mappedEnd;
+		maps[mapCount] = channel.map(FileChannel.MapMode.READ_ONLY, mappedEnd, end - mappedEnd);
+		mapCount++;
+		mappedEnd = end;
+	}
+
+	/**
+	 * Gets the number of bytes mapped so far, for tests.
+	 */
+	synchronized long getMappedBytes()
+	{
+		long mapped = 0;
+		for(int i = 0; i < mapCount; i++)
+			mapped += maps[i].capacity();
+		return mapped;
+	}
+
+	/**
+	 * Stores an image, superseding the image stored for the same handle.
+	 * If the pack file would grow beyond its maximum size, the least recently used images are evicted first.
+	 * @param handle Handle identifying the image
+	 * @param avatarHash Hash of the avatar the image was fetched for
+	 * @param image The image
+	 * @throws IOException if writing the pack file fails or the image is larger than the maximum size of the file
+	 */
+	public synchronized void store(ImageHandle handle, String avatarHash, BufferedImage image) throws IOException
+	{
+		Objects.requireNonNull(avatarHash);
+		byte[] type = handle.getType().name().getBytes(StandardCharsets.UTF_8);
+		byte[] hash = avatarHash.getBytes(StandardCharsets.UTF_8);
+		byte[] rgba = ImageData.rgba(image);
+		int metadataLength = 2 + type.length + 8 + 4 + 2 + hash.length + 4 + 4;
+		if(metadataLength > MAX_METADATA)
+			throw new IllegalArgumentException("avatar hash too long: "+avatarHash);
+		int length = metadataLength + rgba.length;
+		if(RECORD_HEADER + (long) length > maxSize)
+			throw new IOException("image too large for cache: "+file);
+
+		ImageHandle key = new ImageHandle(handle.getType(), handle.getId(), handle.getSize());
+		if(end + RECORD_HEADER + length > maxSize)
+		{
+			Entry old = entries.remove(key);
+			if(old != null)
+				live -= RECORD_HEADER + old.length();
+			evict(Math.max(0, maxSize - maxSize / 4 - RECORD_HEADER - length));
+			compactInPlace();
+		}
+
+		// the magic is written last, so the record only counts once it is complete
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + length);
+		record.putInt(0).putInt(length);
+		writeString(record, type);
+		record.putLong(handle.getId()).putInt(handle.getSize());
+		writeString(record, hash);
+		record.putInt(image.getWidth()).putInt(image.getHeight());
+		record.put(rgba);
+		record.flip();
+
+		long position = end;
+		markEnd(position + record.limit());
+		while(record.hasRemaining())
+			channel.write(record, position + record.position());
+		writeInt(position, MAGIC);
+		end = position + record.limit();
+		fileSize = Math.max(fileSize, end);
+
+		Entry old = entries.put(key, new Entry(avatarHash, position, length, image.getWidth(), image.getHeight()));
+		if(old != null)
+			live -= RECORD_HEADER + old.length();
+		live += RECORD_HEADER + length;
+	}
+
+	/**
+	 * Gets the number of images that were loaded.
+	 * @return Number of hits
+	 */
+	public synchronized long getHitCount()
+	{
+		return hits;
+	}
+
+	@Override
+	public synchronized void close() throws IOException
+	{
+		try
+		{
+			if(channel != null)
+				channel.close();
+		}
+		finally
+		{
+			try
+			{
+				lock.release();
+			}
+			finally
+			{
+				lockChannel.close();
+			}
+		}
+	}
+}
@@ -1,9 +1,30 @@
 package de.jcm.discordgamesdk.impl;
 
+import com.google.gson.stream.JsonReader;
+import de.jcm.discordgamesdk.Result;
+
+import java.io.IOException;
+
 public class Error
 {
 	private int code;
 	private String message;
+	private transient Result result;
+
+	public Error()
+	{
+	}
+
+	/**
+	 * Creates an error that did not come from Discord, but from the SDK itself.
+	 * @param result Result to report for this error
+	 * @param message Message describing the error
+	 */
+	public Error(Result result, String message)
+	{
+		this.result = result;
+		this.message = message;
+	}
 
 	public int getCode()
 	{
@@ -15,8 +36,38 @@ public class Error
 		return message;
 	}
 
+	/**
+	 * Gets the {@link Result} corresponding to this error.
+	 * @return The result given when creating this error or the one matching Discord's error code
+	 */
+	public Result getResult()
+	{
+		return result != null ? result : Result.fromCode(code);
+	}
+
 	@Override
 	public String toString() {
-		return "Error "+getCode()+": "+getMessage();
+		return result != null ? "Error "+result+": "+getMessage() : "Error "+getCode()+": "+getMessage();
+	}
+
+	static class Adapter extends WireAdapters.Reader<Error>
+	{
+		@Override
+		public Error read(JsonReader in) throws IOException
+		{
+			Error error = new Error();
+			in.beginObject();
+			while(in.hasNext())
+			{
+				switch(in.nextName())
+				{
+					case "code" -> error.code = WireAdapters.readInt(in, error.code);
+					case "message" -> error.message = WireAdapters.readString(in);
+					default -> in.skipValue();
+				}
+			}
+			in.endObject();
+			return error;
+		}
 	}
 }
@@ -20,5 +20,13 @@ public abstract class EventHandler<Data>
 	public abstract Class<?> getDataClass();
 
 	public boolean shouldRegister() { return true; }
+
+	/**
+	 * Tells if anyone is interested in the event right now. Only then is it subscribed to.
+	 * <p>
+	 * {@link Core.CorePrivate#updateSubscriptions()} has to be called whenever the answer might have changed.
+	 * @return {@code true} by default, e.g. for handlers keeping state that is always needed
+	 */
+	public boolean isWanted() { return true; }
 	public Object getRegisterArgs() { return null; }
 }
@@ -0,0 +1,372 @@
+package de.jcm.discordgamesdk.impl;
+
+import de.jcm.discordgamesdk.OverflowPolicy;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Source of a stream of events that any number of {@link Flow.Subscriber}s can subscribe to.
+ * <p>
+ * Every subscriber gets a bounded buffer of its own and is called by the given executor,
+ * never by the thread calling {@link #publish(Object)}. What happens when a buffer is full
+ * is decided per subscriber by its {@link OverflowPolicy}.
+ *
+ * @param <T> Type of the events
+ */
+public class EventPublisher<T>
+{
+	private final Executor executor;
+	private final int defaultBufferSize;
+	private final OverflowPolicy defaultPolicy;
+	private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+	private final LongAdder dropped = new LongAdder();
+	private final Runnable subscribersChanged;
+	private final Consumer<Throwable> subscriberFailed;
+	private volatile boolean closed;
+
+	/**
+	 * Creates a publisher.
+	 * @param executor Executor to call the subscribers on
+	 * @param defaultBufferSize Buffer size of subscribers of {@link #publisher()}
+	 * @param defaultPolicy Overflow policy of subscribers of {@link #publisher()}
+	 */
+	public EventPublisher(Executor executor, int defaultBufferSize, OverflowPolicy defaultPolicy)
+	{
+		this(executor, defaultBufferSize, defaultPolicy, ()->{}, t->{
+			Thread thread = Thread.currentThread();
+			thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+		});
+	}
+
+	/**
+	 * Creates a publisher that tells you when subscribers come and go.
+	 * <p>
+	 * A subscriber throwing from {@link Flow.Subscriber#onNext(Object)} is treated as if it cancelled its subscription,
+	 * as the Reactive Streams specification (§2.13) asks. It does not get {@link Flow.Subscriber#onError(Throwable)}.
+	 * @param executor Executor to call the subscribers on
+	 * @param defaultBufferSize Buffer size of subscribers of {@link #publisher()}
+	 * @param defaultPolicy Overflow policy of subscribers of {@link #publisher()}
+	 * @param subscribersChanged Called by whichever thread added or removed a subscriber, see {@link #hasSubscribers()}
+	 * @param subscriberFailed Called with what a subscriber threw from {@code onNext}, e.g. to log it
+	 */
+	public EventPublisher(Executor executor, int defaultBufferSize, OverflowPolicy defaultPolicy, Runnable subscribersChanged,
+	                      Consumer<Throwable> subscriberFailed)
+	{
+		this.executor = Objects.requireNonNull(executor);
+		this.defaultBufferSize = defaultBufferSize;
+		this.defaultPolicy = Objects.requireNonNull(defaultPolicy);
+		this.subscribersChanged = Objects.requireNonNull(subscribersChanged);
+		this.subscriberFailed = Objects.requireNonNull(subscriberFailed);
+	}
+
+	/**
+	 * Gets a view to subscribe to with the default buffer size and overflow policy.
+	 * @return A publisher
+	 */
+	public Flow.Publisher<T> publisher()
+	{
+		return publisher(defaultBufferSize, defaultPolicy);
+	}
+
+	/**
+	 * Gets a view to subscribe to with the given buffer size and overflow policy.
+	 * @param bufferSize Number of events to buffer per subscriber
+	 * @param policy What to do when the buffer of a subscriber is full
+	 * @return A publisher
+	 */
+	public Flow.Publisher<T> publisher(int bufferSize, OverflowPolicy policy)
+	{
+		if(bufferSize <= 0)
+			throw new IllegalArgumentException("bufferSize must be positive: "+bufferSize);
+		Objects.requireNonNull(policy);
+		return subscriber -> subscribe(subscriber, bufferSize, policy);
+	}
+
+	private void subscribe(Flow.Subscriber<? super T> subscriber, int bufferSize, OverflowPolicy policy)
+	{
+		Objects.requireNonNull(subscriber);
+		Subscription subscription = new Subscription(subscriber, bufferSize, policy);
+		subscriber.onSubscribe(subscription);
+		// only now, so that no event is delivered while onSubscribe is still running
+		subscriptions.add(subscription);
+		subscribersChanged.run();
+		if(closed)
+			subscription.complete();
+	}
+
+	private void unsubscribe(Subscription subscription)
+	{
+		if(subscriptions.remove(subscription))
+			subscribersChanged.run();
+	}
+
+	/**
+	 * Tells you if anyone is interested in the events.
+	 * @return {@code true} if there is at least one subscriber
+	 */
+	public boolean hasSubscribers()
+	{
+		return !subscriptions.isEmpty();
+	}
+
+	/**
+	 * Passes an event to all subscribers.
+	 * <p>
+	 * This only returns before the event is buffered by every subscriber if none uses {@link OverflowPolicy#BLOCK}.
+	 * @param event The event
+	 */
+	public void publish(T event)
+	{
+		for(Subscription subscription : subscriptions)
+		{
+			subscription.offer(event);
+		}
+	}
+
+	/**
+	 * Tells you how many events were dropped because the buffer of a subscriber was full.
+	 * @return Number of dropped events, counted once per subscriber
+	 */
+	public long getDroppedEvents()
+	{
+		return dropped.sum();
+	}
+
+	/**
+	 * Completes all subscribers after they received their buffered events. Later subscribers are completed immediately.
+	 */
+	public void close()
+	{
+		closed = true;
+		for(Subscription subscription : subscriptions)
+		{
+			subscription.complete();
+		}
+	}
+
+	private class Subscription implements Flow.Subscription, Runnable
+	{
+		private final Flow.Subscriber<? super T> subscriber;
+		private final int bufferSize;
+		private final OverflowPolicy policy;
+		private final ArrayDeque<T> buffer = new ArrayDeque<>();
+		private final ReentrantLock lock = new ReentrantLock();
+		private final Condition notFull = lock.newCondition();
+		/** Number of pending calls to {@link #run()}, only the first one schedules it */
+		private final AtomicInteger work = new AtomicInteger();
+		private long demand;
+		private boolean completed;
+		private boolean cancelled;
+		private Throwable error;
+
+		Subscription(Flow.Subscriber<? super T> subscriber, int bufferSize, OverflowPolicy policy)
+		{
+			this.subscriber = subscriber;
+			this.bufferSize = bufferSize;
+			this.policy = policy;
+		}
+
+		void offer(T event)
+		{
+			lock.lock();
+			try
+			{
+				if(cancelled || completed)
+					return;
+				if(buffer.size() >= bufferSize)
+				{
+					switch(policy)
+					{
+						case DROP_OLDEST -> {
+							buffer.pollFirst();
+							dropped.increment();
+						}
+						case CONFLATE -> {
+							dropped.add(buffer.size());
+							buffer.clear();
+						}
+						case BLOCK -> {
+							while(buffer.size() >= bufferSize && !cancelled && !completed)
+							{
+								try
+								{
+									notFull.await();
+								}
+								catch(InterruptedException e)
+								{
+									Thread.currentThread().interrupt();
+									dropped.increment();
+									return;
+								}
+							}
+							if(cancelled || completed)
+								return;
+						}
+					}
+				}
+				buffer.addLast(event);
+			}
+			finally
+			{
+				lock.unlock();
+			}
+			schedule();
+		}
+
+		void complete()
+		{
+			lock.lock();
+			try
+			{
+				completed = true;
+				notFull.signalAll();
+			}
+			finally
+			{
+				lock.unlock();
+			}
+			schedule();
+		}
+
+		@Override
+		public void request(long n)
+		{
+			lock.lock();
+			try
+			{
+				if(cancelled)
+					return;
+				if(n <= 0)
+				{
+					// rule 3.9 of the Reactive Streams specification
+					error = new IllegalArgumentException("non-positive request: "+n);
+					buffer.clear();
+					notFull.signalAll();
+				}
+				else
+				{
+					demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+				}
+			}
+			finally
+			{
+				lock.unlock();
+			}
+			schedule();
+		}
+
+		@Override
+		public void cancel()
+		{
+			lock.lock();
+			try
+			{
+				cancelled = true;
+				buffer.clear();
+				notFull.signalAll();
+			}
+			finally
+			{
+				lock.unlock();
+			}
+			unsubscribe(this);
+		}
+
+		private void schedule()
+		{
+			if(work.getAndIncrement() == 0)
+			{
+				try
+				{
+					executor.execute(this);
+				}
+				catch(RejectedExecutionException e)
+				{
+					cancel();
+				}
+			}
+		}
+
+		/**
+		 * Delivers buffered events as far as there is demand. Never runs concurrently with itself.
+		 */
+		@Override
+		public void run()
+		{
+			int missed = 1;
+			do
+			{
+				while(true)
+				{
+					T event;
+					boolean done = false;
+					Throwable failure;
+					lock.lock();
+					try
+					{
+						if(cancelled)
+							return;
+						failure = error;
+						event = demand > 0 ? buffer.pollFirst() : null;
+						if(failure != null)
+						{
+							cancelled = true;
+						}
+						else if(event != null)
+						{
+							demand--;
+							notFull.signal();
+						}
+						else if(completed && buffer.isEmpty())
+						{
+							cancelled = done = true;
+						}
+					}
+					finally
+					{
+						lock.unlock();
+					}
+
+					if(failure != null)
+					{
+						unsubscribe(this);
+						subscriber.onError(failure);
+						return;
+					}
+					if(done)
+					{
+						unsubscribe(this);
+						subscriber.onComplete();
+						return;
+					}
+					if(event == null)
+						break;
+
+					try
+					{
+						subscriber.onNext(event);
+					}
+					catch(Throwable t)
+					{
+						// the subscriber is broken, so it does not get onError either
+						cancel();
+						subscriberFailed.accept(t);
+						return;
+					}
+				}
+				missed = work.addAndGet(-missed);
+			}
+			while(missed != 0);
+		}
+	}
+}
@@ -3,7 +3,7 @@ package de.jcm.discordgamesdk.impl;
 import de.jcm.discordgamesdk.Core;
 import de.jcm.discordgamesdk.impl.events.*;
 
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
@@ -28,12 +28,24 @@ public class Events
 		handlers.put(Command.Event.VOICE_SETTINGS_UPDATE_2, new VoiceSettingsUpdate2Event.Handler(core));
 	}
 
-	private final Map<Command.Event, EventHandler<?>> handlers = new HashMap<>();
+	private final Map<Command.Event, EventHandler<?>> handlers = new EnumMap<>(Command.Event.class);
 	public EventHandler<?> forEvent(Command.Event e)
 	{
 		return handlers.get(e);
 	}
 
+	/**
+	 * Gets the handler for an event, but only if anyone is interested in the event right now.
+	 * @param e The event
+	 * @return The handler or {@code null} if the event can be dropped without even decoding its data
+	 * @see EventHandler#isWanted()
+	 */
+	public EventHandler<?> wantedForEvent(Command.Event e)
+	{
+		EventHandler<?> handler = handlers.get(e);
+		return handler != null && handler.isWanted() ? handler : null;
+	}
+
 	public <T> void register(Command.Event event, Class<T> clazz, Consumer<T> consumer)
 	{
 		handlers.put(event, new EventHandler<T>(core)
@@ -1,5 +1,9 @@
 package de.jcm.discordgamesdk.impl;
 
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
 public class HandshakeMessage
 {
 	private final int v;
@@ -26,4 +30,16 @@ public class HandshakeMessage
 		this.v = version;
 		this.client_id = client_id;
 	}
+
+	static class Adapter extends WireAdapters.Writer<HandshakeMessage>
+	{
+		@Override
+		public void write(JsonWriter out, HandshakeMessage message) throws IOException
+		{
+			out.beginObject();
+			out.name("v").value(message.v);
+			out.name("client_id").value(message.client_id);
+			out.endObject();
+		}
+	}
 }
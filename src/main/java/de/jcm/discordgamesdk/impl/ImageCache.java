@@ -0,0 +1,221 @@
+package de.jcm.discordgamesdk.impl;
+
+import de.jcm.discordgamesdk.image.ImageHandle;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of decoded images, bounded by the number of bytes their pixels take up.
+ * <p>
+ * When the cache grows beyond its maximum size, the least recently used images are evicted.
+ * The most recently added image is always kept, even if it is larger than the maximum on its own,
+ * so that an image that has just been fetched can be retrieved at least once.
+ * <p>
+ * With soft spill enabled, evicted images are still kept through {@link SoftReference}s
+ * and come back into the cache when they are asked for again, unless the garbage collector has cleared them.
+ * Images removed with {@link #evict(ImageHandle)} are gone for good.
+ * <p>
+ * The cache is thread-safe.
+ */
+public class ImageCache
+{
+	private static class SpilledImage extends SoftReference<BufferedImage>
+	{
+		final ImageHandle handle;
+
+		SpilledImage(ImageHandle handle, BufferedImage image, ReferenceQueue<BufferedImage> queue)
+		{
+			super(image, queue);
+			this.handle = handle;
+		}
+	}
+
+	private final long maxBytes;
+	private final boolean softSpill;
+
+	/** In access order, so the eldest entry is the least recently used one */
+	private final LinkedHashMap<ImageHandle, BufferedImage> images = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<ImageHandle, SpilledImage> spilled = new HashMap<>();
+	private final ReferenceQueue<BufferedImage> clearedImages = new ReferenceQueue<>();
+	private long bytes;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Creates an empty cache.
+	 * @param maxBytes Maximum number of bytes the images in the cache may take up
+	 * @param softSpill Whether to keep evicted images through soft references
+	 */
+	public ImageCache(long maxBytes, boolean softSpill)
+	{
+		if(maxBytes < 0)
+			throw new IllegalArgumentException("maxBytes must not be negative: "+maxBytes);
+		this.maxBytes = maxBytes;
+		this.softSpill = softSpill;
+	}
+
+	/**
+	 * Calculates how many bytes the pixels of an image take up.
+	 * @param image The image
+	 * @return Size of its data buffer in bytes
+	 */
+	public static long weigh(BufferedImage image)
+	{
+		DataBuffer buffer = image.getRaster().getDataBuffer();
+		return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+	}
+
+	/**
+	 * Gets an image and marks it as recently used.
+	 * @param handle Handle identifying the image
+	 * @return The image or {@code null} if it is not cached
+	 */
+	public synchronized BufferedImage get(ImageHandle handle)
+	{
+		BufferedImage image = images.get(handle);
+		if(image == null && softSpill)
+		{
+			expungeCleared();
+			SpilledImage reference = spilled.remove(handle);
+			if(reference != null && (image = reference.get()) != null)
+			{
+				add(reference.handle, image);
+				trim(maxBytes, true);
+			}
+		}
+
+		if(image != null)
+			hits++;
+		else
+			misses++;
+		return image;
+	}
+
+	/**
+	 * Adds an image, replacing any image cached for the same handle, and evicts others if the cache gets too large.
+	 * @param handle Handle identifying the image, a copy of it is used as key
+	 * @param image The image
+	 */
+	public synchronized void put(ImageHandle handle, BufferedImage image)
+	{
+		ImageHandle key = new ImageHandle(handle.getType(), handle.getId(), handle.getSize());
+		remove(key);
+		add(key, image);
+		trim(maxBytes, true);
+	}
+
+	/**
+	 * Removes an image from the cache, including a spilled one.
+	 * @param handle Handle identifying the image
+	 * @return {@code true} if the image was cached
+	 */
+	public synchronized boolean evict(ImageHandle handle)
+	{
+		boolean removed = remove(handle);
+		if(removed)
+			evictions++;
+		return removed;
+	}
+
+	/**
+	 * Evicts the least recently used images until the cache takes up at most the given number of bytes.
+	 * @param bytes Number of bytes to trim the cache to
+	 */
+	public synchronized void trimTo(long bytes)
+	{
+		trim(bytes, false);
+	}
+
+	private void add(ImageHandle key, BufferedImage image)
+	{
+		images.put(key, image);
+		bytes += weigh(image);
+	}
+
+	private boolean remove(ImageHandle handle)
+	{
+		BufferedImage image = images.remove(handle);
+		if(image != null)
+			bytes -= weigh(image);
+		return spilled.remove(handle) != null | image != null;
+	}
+
+	private void trim(long targetBytes, boolean keepNewest)
+	{
+		Iterator<Map.Entry<ImageHandle, BufferedImage>> it = images.entrySet().iterator();
+		while(bytes > targetBytes && it.hasNext() && (!keepNewest || images.size() > 1))
+		{
+			Map.Entry<ImageHandle, BufferedImage> eldest = it.next();
+			it.remove();
+			bytes -= weigh(eldest.getValue());
+			evictions++;
+			if(softSpill)
+				spilled.put(eldest.getKey(), new SpilledImage(eldest.getKey(), eldest.getValue(), clearedImages));
+		}
+		if(softSpill)
+			expungeCleared();
+	}
+
+	private void expungeCleared()
+	{
+		SpilledImage cleared;
+		while((cleared = (SpilledImage) clearedImages.poll()) != null)
+		{
+			spilled.remove(cleared.handle, cleared);
+		}
+	}
+
+	/**
+	 * Gets the number of bytes the cached images take up, not counting spilled ones.
+	 * @return Size of the cache in bytes
+	 */
+	public synchronized long getBytes()
+	{
+		return bytes;
+	}
+
+	/**
+	 * Gets the maximum number of bytes the cached images may take up.
+	 * @return Maximum size of the cache in bytes
+	 */
+	public long getMaxBytes()
+	{
+		return maxBytes;
+	}
+
+	/**
+	 * Gets the number of lookups that found their image, including those that brought back a spilled one.
+	 * @return Number of hits
+	 */
+	public synchronized long getHitCount()
+	{
+		return hits;
+	}
+
+	/**
+	 * Gets the number of lookups that did not find their image.
+	 * @return Number of misses
+	 */
+	public synchronized long getMissCount()
+	{
+		return misses;
+	}
+
+	/**
+	 * Gets the number of images that were evicted, either because the cache got too large or explicitly.
+	 * @return Number of evictions
+	 */
+	public synchronized long getEvictionCount()
+	{
+		return evictions;
+	}
+}
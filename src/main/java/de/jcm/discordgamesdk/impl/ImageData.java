@@ -0,0 +1,126 @@
+package de.jcm.discordgamesdk.impl;
+
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+
+/**
+ * Converts between {@link BufferedImage}s and the raw RGBA data the Game SDK uses, i.e. 4 bytes per pixel
+ * in the order red, green, blue, alpha, row by row.
+ */
+public class ImageData
+{
+	private static final ColorModel RGBA = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB),
+			true, false, Transparency.TRANSLUCENT, DataBuffer.TYPE_BYTE);
+
+	private ImageData()
+	{
+	}
+
+	/**
+	 * Wraps RGBA data in an image without copying it.
+	 * @param width Width of the image
+	 * @param height Height of the image
+	 * @param rgba Data of the image, at least {@code width*height*4} bytes
+	 * @return An image backed by the array
+	 */
+	public static BufferedImage fromRgba(int width, int height, byte[] rgba)
+	{
+		WritableRaster raster = Raster.createWritableRaster(
+				new PixelInterleavedSampleModel(DataBuffer.TYPE_BYTE, width, height, 4, width * 4, new int[]{0, 1, 2, 3}),
+				new DataBufferByte(rgba, width * height * 4), null);
+		return new BufferedImage(RGBA, raster, false, null);
+	}
+
+	/**
+	 * Tells if an image is backed by RGBA data, i.e. if it was created by {@link #fromRgba(int, int, byte[])}.
+	 * @param image The image
+	 * @return {@code true} if {@link #rgba(BufferedImage)} returns the array backing the image
+	 */
+	public static boolean isRgba(BufferedImage image)
+	{
+		return image.getColorModel() == RGBA && image.getRaster().getDataBuffer() instanceof DataBufferByte buffer
+				&& buffer.getNumBanks() == 1 && buffer.getOffset() == 0 && buffer.getSize() == image.getWidth() * image.getHeight() * 4;
+	}
+
+	/**
+	 * Converts an image to one backed by RGBA data.
+	 * @param image The image
+	 * @return The image itself if it is {@linkplain #isRgba(BufferedImage) backed by RGBA data}, otherwise a converted copy
+	 */
+	public static BufferedImage toRgbaImage(BufferedImage image)
+	{
+		return isRgba(image) ? image : fromRgba(image.getWidth(), image.getHeight(), toRgba(image));
+	}
+
+	/**
+	 * Gets the pixels of an image as RGBA data, without copying them if possible.
+	 * @param image The image
+	 * @return The array backing the image if it is {@linkplain #isRgba(BufferedImage) backed by RGBA data},
+	 *         which must not be modified, otherwise a copy as returned by {@link #toRgba(BufferedImage)}
+	 */
+	public static byte[] rgba(BufferedImage image)
+	{
+		return isRgba(image) ? ((DataBufferByte) image.getRaster().getDataBuffer()).getData() : toRgba(image);
+	}
+
+	/**
+	 * Copies the pixels of an image as RGBA data.
+	 * @param image The image
+	 * @return A new array with {@code width*height*4} bytes
+	 */
+	public static byte[] toRgba(BufferedImage image)
+	{
+		int width = image.getWidth();
+		int height = image.getHeight();
+		byte[] rgba = new byte[width * height * 4];
+		if(image.getType() == BufferedImage.TYPE_4BYTE_ABGR && isPacked(image.getRaster()))
+		{
+			// what ImageIO returns for PNGs with alpha, swizzled without converting every pixel through the color model
+			byte[] abgr = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+			for(int i = 0; i < rgba.length; i += 4)
+			{
+				rgba[i] = abgr[i + 3];
+				rgba[i + 1] = abgr[i + 2];
+				rgba[i + 2] = abgr[i + 1];
+				rgba[i + 3] = abgr[i];
+			}
+			return rgba;
+		}
+
+		int[] row = new int[width];
+		int i = 0;
+		for(int y = 0; y < height; y++)
+		{
+			image.getRGB(0, y, width, 1, row, 0, width);
+			for(int argb : row)
+			{
+				rgba[i++] = (byte) (argb >> 16);
+				rgba[i++] = (byte) (argb >> 8);
+				rgba[i++] = (byte) argb;
+				rgba[i++] = (byte) (argb >> 24);
+			}
+		}
+		return rgba;
+	}
+
+	/**
+	 * Tells if the raster's data buffer holds exactly its pixels, row by row without gaps.
+	 */
+	private static boolean isPacked(Raster raster)
+	{
+		DataBuffer buffer = raster.getDataBuffer();
+		return raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0
+				&& buffer.getNumBanks() == 1 && buffer.getOffset() == 0
+				&& buffer.getSize() == raster.getWidth() * raster.getHeight() * raster.getNumDataElements()
+				&& raster.getSampleModel() instanceof PixelInterleavedSampleModel model
+				&& model.getScanlineStride() == raster.getWidth() * model.getPixelStride();
+	}
+}
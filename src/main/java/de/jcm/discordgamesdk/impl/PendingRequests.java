@@ -0,0 +1,250 @@
+package de.jcm.discordgamesdk.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Table of requests waiting for their response, keyed by their numeric nonce.
+ * <p>
+ * Nonces are handed out in sequence, so the table is a ring indexed by the low bits of the nonce.
+ * As long as fewer requests than the capacity are pending, every nonce has its own slot,
+ * so that lookups neither box the nonce nor hash or compare any strings.
+ * If a slot is still taken by an older request, the new request goes to an overflow table instead,
+ * an open-addressing table keyed by a {@code long[]} that grows as needed.
+ * <p>
+ * The table can be used from any number of threads. Slots are claimed and released with
+ * compare-and-set, there is no lock. Only the overflow table, which is empty unless requests
+ * stay pending for a long time, is guarded by a lock.
+ *
+ * @param <V> Type of the value stored for a pending request
+ */
+public class PendingRequests<V>
+{
+	private record Entry<V>(long nonce, V value) {}
+
+	/** Marks a free entry of the overflow table, no pending request has a negative nonce */
+	private static final long FREE = -1;
+
+	private final AtomicReferenceArray<Entry<V>> slots;
+	private final int mask;
+	private final Object overflowLock = new Object();
+	private long[] overflowNonces = emptyNonces(8);
+	private Object[] overflowValues = new Object[8];
+	private volatile int overflowSize;
+	private final AtomicInteger size = new AtomicInteger();
+	private final LongAdder unknownResponses = new LongAdder();
+
+	/**
+	 * Creates a table.
+	 * @param capacity Number of slots, rounded up to a power of two
+	 */
+	public PendingRequests(int capacity)
+	{
+		int slotCount = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		this.slots = new AtomicReferenceArray<>(slotCount);
+		this.mask = slotCount - 1;
+	}
+
+	/**
+	 * Adds a pending request.
+	 * @param nonce Nonce of the request, not negative and not pending already
+	 * @param value Value to store for the request
+	 */
+	public void put(long nonce, V value)
+	{
+		if(nonce < 0)
+			throw new IllegalArgumentException("invalid nonce: "+nonce);
+
+		int index = (int) nonce & mask;
+		if(!slots.compareAndSet(index, null, new Entry<>(nonce, value)))
+		{
+			Entry<V> taken = slots.get(index);
+			if((taken != null && taken.nonce() == nonce) || !putOverflow(nonce, value))
+				throw new IllegalStateException("nonce "+nonce+" is already pending");
+		}
+		size.incrementAndGet();
+	}
+
+	/**
+	 * Gets the value of a pending request without removing it.
+	 * @param nonce Nonce of the request
+	 * @return The value or {@code null} if no request with this nonce is pending
+	 */
+	public V get(long nonce)
+	{
+		Entry<V> entry = slots.get((int) nonce & mask);
+		if(entry != null && entry.nonce() == nonce)
+			return entry.value();
+		return overflowSize == 0 ? null : getOverflow(nonce);
+	}
+
+	/**
+	 * Removes a pending request, usually because its response arrived.
+	 * <p>
+	 * If no request with this nonce is pending, e.g. because the response is late or not meant
+	 * for us, this is counted in {@link #getUnknownResponses()}.
+	 * @param nonce Nonce of the request, a negative nonce is never pending
+	 * @return The value or {@code null} if no request with this nonce was pending
+	 */
+	public V remove(long nonce)
+	{
+		V value = take(nonce);
+		if(value == null)
+			unknownResponses.increment();
+		return value;
+	}
+
+	/**
+	 * Removes a pending request that will not get a response, e.g. because sending it failed or it timed out.
+	 * Unlike {@link #remove(long)}, this is never counted as an unknown response.
+	 * @param nonce Nonce of the request
+	 * @return The value or {@code null} if no request with this nonce was pending
+	 */
+	public V cancel(long nonce)
+	{
+		return take(nonce);
+	}
+
+	private V take(long nonce)
+	{
+		int index = (int) nonce & mask;
+		Entry<V> entry = slots.get(index);
+		if(entry != null && entry.nonce() == nonce && slots.compareAndSet(index, entry, null))
+		{
+			size.decrementAndGet();
+			return entry.value();
+		}
+		if(overflowSize != 0)
+		{
+			V value = removeOverflow(nonce);
+			if(value != null)
+			{
+				size.decrementAndGet();
+				return value;
+			}
+		}
+		return null;
+	}
+
+	private static long[] emptyNonces(int length)
+	{
+		long[] nonces = new long[length];
+		Arrays.fill(nonces, FREE);
+		return nonces;
+	}
+
+	private static int home(long nonce, int mask)
+	{
+		// the nonces in here share their low bits with an older one, so mix in the higher bits
+		return (int) ((nonce * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+	}
+
+	/**
+	 * Finds the index of a nonce in the overflow table, or of the free entry where it would go.
+	 * Must be called with the overflow lock held.
+	 */
+	private int overflowIndex(long nonce)
+	{
+		int mask = overflowNonces.length - 1;
+		int index = home(nonce, mask);
+		while(overflowNonces[index] != FREE && overflowNonces[index] != nonce)
+			index = (index + 1) & mask;
+		return index;
+	}
+
+	private boolean putOverflow(long nonce, V value)
+	{
+		synchronized(overflowLock)
+		{
+			if(overflowNonces[overflowIndex(nonce)] == nonce)
+				return false;
+
+			if((overflowSize + 1) * 2 > overflowNonces.length)
+			{
+				long[] nonces = overflowNonces;
+				Object[] values = overflowValues;
+				overflowNonces = emptyNonces(nonces.length * 2);
+				overflowValues = new Object[nonces.length * 2];
+				for(int i = 0; i < nonces.length; i++)
+				{
+					if(nonces[i] != FREE)
+					{
+						int index = overflowIndex(nonces[i]);
+						overflowNonces[index] = nonces[i];
+						overflowValues[index] = values[i];
+					}
+				}
+			}
+
+			int index = overflowIndex(nonce);
+			overflowNonces[index] = nonce;
+			overflowValues[index] = value;
+			overflowSize++;
+			return true;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private V getOverflow(long nonce)
+	{
+		if(nonce < 0)
+			return null;
+		synchronized(overflowLock)
+		{
+			int index = overflowIndex(nonce);
+			return overflowNonces[index] == nonce ? (V) overflowValues[index] : null;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private V removeOverflow(long nonce)
+	{
+		if(nonce < 0)
+			return null;
+		synchronized(overflowLock)
+		{
+			int index = overflowIndex(nonce);
+			if(overflowNonces[index] != nonce)
+				return null;
+			V value = (V) overflowValues[index];
+
+			// move later entries of the same probe sequence up, so that lookups never stop at the hole
+			int mask = overflowNonces.length - 1;
+			int hole = index;
+			for(int i = (index + 1) & mask; overflowNonces[i] != FREE; i = (i + 1) & mask)
+			{
+				// the entry may fill the hole unless its home lies cyclically within (hole, i]
+				if(((i - home(overflowNonces[i], mask)) & mask) >= ((i - hole) & mask))
+				{
+					overflowNonces[hole] = overflowNonces[i];
+					overflowValues[hole] = overflowValues[i];
+					hole = i;
+				}
+			}
+			overflowNonces[hole] = FREE;
+			overflowValues[hole] = null;
+			overflowSize--;
+			return value;
+		}
+	}
+
+	/**
+	 * Tells you how many requests are waiting for their response.
+	 * @return Number of pending requests
+	 */
+	public int size()
+	{
+		return size.get();
+	}
+
+	/**
+	 * Tells you how many responses did not match any pending request.
+	 * @return Number of unknown responses since this table was created
+	 */
+	public long getUnknownResponses()
+	{
+		return unknownResponses.sum();
+	}
+}
@@ -0,0 +1,46 @@
+package de.jcm.discordgamesdk.impl;
+
+/**
+ * Token bucket allowing a burst of operations, refilled at a steady rate.
+ * <p>
+ * Instead of counting tokens, only the time at which the bucket would be full again is kept
+ * (generic cell rate algorithm), so that there is nothing to refill on a timer.
+ * <p>
+ * The limiter is not thread-safe.
+ */
+public class RateLimiter
+{
+	private final long interval;
+	private final long tolerance;
+	/** Time at which all tokens are available again */
+	private long fullAt;
+
+	/**
+	 * Creates a limiter with all tokens available.
+	 * @param permits Number of operations allowed per period, which is also the size of a burst
+	 * @param periodNanos Length of the period in nanoseconds
+	 * @param now Current time as of {@link System#nanoTime()}
+	 */
+	public RateLimiter(int permits, long periodNanos, long now)
+	{
+		if(permits <= 0 || periodNanos <= 0)
+			throw new IllegalArgumentException("invalid rate: "+permits+" per "+periodNanos+" ns");
+		this.interval = periodNanos / permits;
+		this.tolerance = periodNanos - interval;
+		this.fullAt = now;
+	}
+
+	/**
+	 * Takes a token if one is available.
+	 * @param now Current time as of {@link System#nanoTime()}
+	 * @return {@code true} if a token was taken, {@code false} if the operation has to wait
+	 */
+	public boolean tryAcquire(long now)
+	{
+		long start = fullAt - now > 0 ? fullAt : now;
+		if(start - now > tolerance)
+			return false;
+		fullAt = start + interval;
+		return true;
+	}
+}
@@ -0,0 +1,104 @@
+package de.jcm.discordgamesdk.impl;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongConsumer;
+
+/**
+ * Future for the response to a request sent to Discord.
+ * <p>
+ * Cancelling the future or completing it from the outside (e.g. by {@link #orTimeout(long, java.util.concurrent.TimeUnit)})
+ * gives up waiting for the response, so that a response arriving later is dropped.
+ * The response itself completes the future with {@link #succeed(Object)} or {@link #fail(Throwable)}.
+ * <p>
+ * Dependent futures (e.g. from {@link #thenApply(java.util.function.Function)}) are plain {@link CompletableFuture}s.
+ *
+ * @param <T> Type of the result
+ */
+public class RequestFuture<T> extends CompletableFuture<T>
+{
+	private final LongConsumer cancelRequest;
+	private volatile long nonce = Command.NO_NONCE;
+
+	/**
+	 * Creates a future.
+	 * @param cancelRequest Gives up waiting for the response to the request with the given nonce,
+	 *                      e.g. by removing it from the {@link PendingRequests}
+	 */
+	public RequestFuture(LongConsumer cancelRequest)
+	{
+		this.cancelRequest = cancelRequest;
+	}
+
+	/**
+	 * Tells the future which request it belongs to, after the request has been sent.
+	 * @param nonce Nonce of the request
+	 */
+	public void setNonce(long nonce)
+	{
+		this.nonce = nonce;
+		if(isDone())
+		{
+			forget(); // cancelled while sending
+		}
+	}
+
+	/**
+	 * Completes the future with the result decoded from the response.
+	 * @param value The result
+	 */
+	public void succeed(T value)
+	{
+		super.complete(value);
+	}
+
+	/**
+	 * Completes the future because the response reported an error.
+	 * @param failure The error
+	 */
+	public void fail(Throwable failure)
+	{
+		super.completeExceptionally(failure);
+	}
+
+	@Override
+	public boolean complete(T value)
+	{
+		boolean completed = super.complete(value);
+		if(completed)
+			forget();
+		return completed;
+	}
+
+	@Override
+	public boolean completeExceptionally(Throwable ex)
+	{
+		boolean completed = super.completeExceptionally(ex);
+		if(completed)
+			forget();
+		return completed;
+	}
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning)
+	{
+		boolean cancelled = super.cancel(mayInterruptIfRunning);
+		if(cancelled)
+			forget();
+		return cancelled;
+	}
+
+	@Override
+	public <U> CompletableFuture<U> newIncompleteFuture()
+	{
+		return new CompletableFuture<>();
+	}
+
+	private void forget()
+	{
+		long n = nonce;
+		if(n != Command.NO_NONCE)
+		{
+			cancelRequest.accept(n);
+		}
+	}
+}
@@ -0,0 +1,253 @@
+package de.jcm.discordgamesdk.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps track of requests in flight, so that identical requests can share a single one instead of being sent again.
+ * <p>
+ * The first request for a key is sent and starts a flight. Identical requests made while it is in flight
+ * join the flight with a nonce of their own, which is never sent. When the response to the flight's request
+ * arrives (or it fails), the flight lands and all joined nonces are answered with the same response.
+ * <p>
+ * Only the response is shared: every request that joined keeps its own deadline and can be cancelled on its own.
+ * If the request that was sent gives up, the flight is detached and no longer takes new requests,
+ * but the requests that joined it still get the response if it arrives before their own deadline.
+ * Joined nonces are registered by whoever joins, e.g. in {@link PendingRequests}, so they can be answered.
+ * <p>
+ * Flights are found in a table indexed by a hash of the key, so looking one up neither boxes anything nor takes
+ * a lock. If the slot of a key is taken by the flight of a different key, the request is just not shared.
+ * Every flight is only locked by the few requests that use it.
+ * <p>
+ * The tracker can be used from any number of threads.
+ */
+public class SingleFlight
+{
+	private static final long[] NO_JOINERS = new long[0];
+
+	private static final int OPEN = 0;
+	private static final int DETACHED = 1;
+	private static final int LANDED = 2;
+
+	/**
+	 * The requests sharing the response to a single request.
+	 */
+	public static final class Flight
+	{
+		/** Slot of the flight in the table, {@code -1} if it is not in the table */
+		private final int index;
+		private final long hash;
+		private final Command.Type type;
+		private final Class<?> dataClass;
+		private final byte[] args;
+		private final long nonce;
+
+		private long[] joiners = NO_JOINERS;
+		private int joinerCount;
+		private int state = OPEN;
+		private boolean leaderAnswered;
+
+		private Flight(int index, long hash, Command.Type type, Class<?> dataClass, byte[] args, long nonce)
+		{
+			this.index = index;
+			this.hash = hash;
+			this.type = type;
+			this.dataClass = dataClass;
+			this.args = args;
+			this.nonce = nonce;
+		}
+
+		/**
+		 * Gets the nonce of the request that was sent for this flight.
+		 * @return The nonce
+		 */
+		public long getNonce()
+		{
+			return nonce;
+		}
+
+		private boolean matches(long hash, Command.Type type, Class<?> dataClass, byte[] args)
+		{
+			return this.hash == hash && this.type == type && this.dataClass == dataClass && Arrays.equals(this.args, args);
+		}
+
+		private synchronized boolean isOpen()
+		{
+			return state == OPEN;
+		}
+
+		private synchronized boolean add(long nonce)
+		{
+			if(state != OPEN)
+				return false;
+			if(joinerCount == joiners.length)
+				joiners = Arrays.copyOf(joiners, Math.max(4, joinerCount * 2));
+			joiners[joinerCount++] = nonce;
+			return true;
+		}
+	}
+
+	private final AtomicReferenceArray<Flight> slots;
+	private final int mask;
+	private final LongAdder joined = new LongAdder();
+
+	/**
+	 * Creates a tracker.
+	 * @param capacity Number of slots, rounded up to a power of two
+	 */
+	public SingleFlight(int capacity)
+	{
+		int slotCount = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		this.slots = new AtomicReferenceArray<>(slotCount);
+		this.mask = slotCount - 1;
+	}
+
+	/**
+	 * Joins the flight of an identical request, or starts a new flight if there is none.
+	 * <p>
+	 * The request has to be registered before, because the flight can land as soon as it has been joined.
+	 * @param type Type of the command
+	 * @param dataClass Class the data of the response is decoded to
+	 * @param args Arguments of the command as they are encoded, must not be changed afterwards
+	 * @param nonce Nonce of the new request
+	 * @return The flight the request joined, or the one it started if the nonce of the flight is its own.
+	 *         In that case the request has to be sent.
+	 */
+	public Flight join(Command.Type type, Class<?> dataClass, byte[] args, long nonce)
+	{
+		long hash = hash(type, dataClass, args);
+		int index = (int) (hash ^ (hash >>> 32)) & mask;
+		while(true)
+		{
+			Flight flight = slots.get(index);
+			if(flight == null)
+			{
+				Flight started = new Flight(index, hash, type, dataClass, args, nonce);
+				if(slots.compareAndSet(index, null, started))
+					return started;
+			}
+			else if(!flight.isOpen())
+			{
+				// whoever ended it removes it as well, this only helps
+				slots.compareAndSet(index, flight, null);
+			}
+			else if(!flight.matches(hash, type, dataClass, args))
+			{
+				return new Flight(-1, hash, type, dataClass, args, nonce);
+			}
+			else if(flight.add(nonce))
+			{
+				joined.increment();
+				return flight;
+			}
+		}
+	}
+
+	private static long hash(Command.Type type, Class<?> dataClass, byte[] args)
+	{
+		// FNV-1a
+		long hash = 0xCBF29CE484222325L;
+		for(byte b : args)
+			hash = (hash ^ (b & 0xFF)) * 0x100000001B3L;
+		hash = (hash ^ type.ordinal()) * 0x100000001B3L;
+		return (hash ^ System.identityHashCode(dataClass)) * 0x100000001B3L;
+	}
+
+	private void remove(Flight flight)
+	{
+		if(flight.index >= 0)
+			slots.compareAndSet(flight.index, flight, null);
+	}
+
+	/**
+	 * Ends a flight, because the response to its request arrived or the request could not be sent.
+	 * Identical requests made afterwards start a new flight.
+	 * @param flight The flight
+	 * @return Nonces of the requests that joined the flight and did not leave it,
+	 *         empty if there are none or the flight has landed already
+	 */
+	public long[] land(Flight flight)
+	{
+		long[] joiners;
+		synchronized(flight)
+		{
+			if(flight.state == LANDED)
+				return NO_JOINERS;
+			flight.state = LANDED;
+			joiners = flight.joinerCount == 0 ? NO_JOINERS : Arrays.copyOf(flight.joiners, flight.joinerCount);
+			flight.joiners = NO_JOINERS;
+			flight.joinerCount = 0;
+		}
+		remove(flight);
+		return joiners;
+	}
+
+	/**
+	 * Stops a flight from taking new requests, because its request gave up waiting for the response.
+	 * Identical requests made afterwards start a new flight.
+	 * @param flight The flight
+	 * @return {@code true} if requests that joined the flight still wait for the response
+	 */
+	public boolean detach(Flight flight)
+	{
+		boolean waiting;
+		synchronized(flight)
+		{
+			if(flight.state == OPEN)
+				flight.state = DETACHED;
+			waiting = flight.state == DETACHED && flight.joinerCount > 0;
+		}
+		remove(flight);
+		return waiting;
+	}
+
+	/**
+	 * Removes a request that joined a flight and gave up waiting for the response.
+	 * @param flight The flight the request joined
+	 * @param nonce Nonce of the request
+	 * @return {@code true} if the flight has been detached and nobody waits for its response anymore
+	 */
+	public boolean leave(Flight flight, long nonce)
+	{
+		synchronized(flight)
+		{
+			for(int i = 0; i < flight.joinerCount; i++)
+			{
+				if(flight.joiners[i] == nonce)
+				{
+					System.arraycopy(flight.joiners, i + 1, flight.joiners, i, flight.joinerCount - i - 1);
+					flight.joinerCount--;
+					break;
+				}
+			}
+			return flight.state == DETACHED && flight.joinerCount == 0;
+		}
+	}
+
+	/**
+	 * Claims the right to answer the request that was sent for a flight, which is answered either
+	 * by its response or because it gave up while requests that joined still wait for the response.
+	 * @param flight The flight
+	 * @return {@code true} the first time it is called for the flight
+	 */
+	public boolean answerLeader(Flight flight)
+	{
+		synchronized(flight)
+		{
+			if(flight.leaderAnswered)
+				return false;
+			flight.leaderAnswered = true;
+			return true;
+		}
+	}
+
+	/**
+	 * Tells you how many requests joined a flight instead of being sent.
+	 * @return Number of joined requests
+	 */
+	public long getJoinedCount()
+	{
+		return joined.sum();
+	}
+}
@@ -0,0 +1,135 @@
+package de.jcm.discordgamesdk.impl;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Hashed timing wheel for the deadlines of pending requests.
+ * <p>
+ * Time is divided into ticks and every deadline is put into the slot of its tick,
+ * so scheduling and advancing by one tick are both O(1) (plus the number of due entries).
+ * Deadlines further away than one turn of the wheel simply stay in their slot for more turns.
+ * <p>
+ * Entries are never removed when a request is answered in time. Whoever receives the expired
+ * nonces has to check if they are still pending. There is no timer thread, the wheel only
+ * moves when {@link #advance(long, LongConsumer)} is called.
+ * <p>
+ * The wheel is not thread-safe, it is meant to be used by whichever thread currently owns the I/O.
+ */
+public class TimeoutWheel
+{
+	private final long origin;
+	private final long tickNanos;
+	private final int mask;
+	/** Pairs of nonce and deadline per slot */
+	private final long[][] slots;
+	private final int[] counts;
+	private long nextTick;
+	private int scheduled;
+
+	/**
+	 * Creates a wheel.
+	 * @param tickNanos Length of a tick in nanoseconds, which is the precision of the deadlines
+	 * @param slotCount Number of slots, rounded up to a power of two
+	 * @param now Current time as of {@link System#nanoTime()}
+	 */
+	public TimeoutWheel(long tickNanos, int slotCount, long now)
+	{
+		int capacity = Integer.highestOneBit(Math.max(slotCount, 2) - 1) << 1;
+		this.origin = now;
+		this.tickNanos = tickNanos;
+		this.mask = capacity - 1;
+		this.slots = new long[capacity][];
+		this.counts = new int[capacity];
+	}
+
+	private long tickOf(long time)
+	{
+		return Math.max(0, time - origin) / tickNanos;
+	}
+
+	/**
+	 * Schedules a deadline.
+	 * @param nonce Nonce of the request
+	 * @param deadline Time as of {@link System#nanoTime()} after which the request expires
+	 */
+	public void schedule(long nonce, long deadline)
+	{
+		// the first tick that starts after the deadline
+		int slot = (int) (Math.max(tickOf(deadline) + 1, nextTick) & mask);
+		long[] entries = slots[slot];
+		int count = counts[slot];
+		if(entries == null)
+		{
+			entries = slots[slot] = new long[8];
+		}
+		else if(count * 2 == entries.length)
+		{
+			entries = slots[slot] = Arrays.copyOf(entries, entries.length * 2);
+		}
+		entries[count * 2] = nonce;
+		entries[count * 2 + 1] = deadline;
+		counts[slot] = count + 1;
+		scheduled++;
+	}
+
+	/**
+	 * Moves the wheel to the current time and reports all deadlines that have passed.
+	 * <p>
+	 * The consumer must not schedule anything itself.
+	 * @param now Current time as of {@link System#nanoTime()}
+	 * @param expired Receives the nonces of all requests whose deadline has passed
+	 */
+	public void advance(long now, LongConsumer expired)
+	{
+		long tick = tickOf(now);
+		if(tick < nextTick)
+			return;
+		if(scheduled == 0)
+		{
+			nextTick = tick + 1;
+			return;
+		}
+
+		// after a long pause, every slot only needs to be looked at once
+		for(long t = Math.max(nextTick, tick - mask); t <= tick; t++)
+		{
+			expireSlot((int) (t & mask), now, expired);
+		}
+		nextTick = tick + 1;
+	}
+
+	private void expireSlot(int slot, long now, LongConsumer expired)
+	{
+		long[] entries = slots[slot];
+		int count = counts[slot];
+		int kept = 0;
+		for(int i = 0; i < count; i++)
+		{
+			long nonce = entries[i * 2];
+			long deadline = entries[i * 2 + 1];
+			if(deadline - now <= 0)
+			{
+				scheduled--;
+				expired.accept(nonce);
+			}
+			else
+			{
+				// due in a later turn of the wheel
+				entries[kept * 2] = nonce;
+				entries[kept * 2 + 1] = deadline;
+				kept++;
+			}
+		}
+		counts[slot] = kept;
+	}
+
+	/**
+	 * Tells you how many deadlines are in the wheel, including those of requests that have been answered already.
+	 * @return Number of scheduled deadlines
+	 */
+	public int size()
+	{
+		return scheduled;
+	}
+}
@@ -0,0 +1,243 @@
+package de.jcm.discordgamesdk.impl;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import de.jcm.discordgamesdk.activity.*;
+import de.jcm.discordgamesdk.impl.commands.*;
+import de.jcm.discordgamesdk.impl.events.ActivityJoinEvent;
+import de.jcm.discordgamesdk.impl.events.ActivityJoinRequestEvent;
+import de.jcm.discordgamesdk.impl.events.OverlayUpdateEvent;
+import de.jcm.discordgamesdk.impl.events.ReadyEvent;
+import de.jcm.discordgamesdk.impl.events.VoiceSettingsUpdate2Event;
+import de.jcm.discordgamesdk.user.DiscordUser;
+import de.jcm.discordgamesdk.voice.VoiceInputMode;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.Function;
+
+import static java.util.Map.entry;
+
+/**
+ * Provides hand-written {@link TypeAdapter}s for the messages we exchange with Discord.
+ * <p>
+ * Gson's reflective adapters look up every field by name and get or set it through reflection.
+ * The adapters provided here access the fields directly instead. They write the fields in declaration order
+ * (fields of subclasses first) and leave out {@code null}s, so the JSON is the same as the one Gson writes.
+ * They read values just as leniently as Gson does.
+ * <p>
+ * Every adapter is a nested class of the type it handles, so it can access private fields.
+ * Messages that only ever go one way have a {@link Writer} or a {@link Reader}, and Gson's reflective adapter
+ * handles the other direction, should it ever be needed.
+ */
+public class WireAdapters implements TypeAdapterFactory
+{
+	private static final Map<Class<?>, Function<Gson, ?>> ADAPTERS = Map.ofEntries(
+			entry(HandshakeMessage.class, gson -> new HandshakeMessage.Adapter()),
+			entry(Error.class, gson -> new Error.Adapter()),
+			entry(DataProxies.EmojiImpl.class, gson -> new DataProxies.EmojiImpl.Adapter()),
+			entry(DataProxies.ActivityImpl.class, DataProxies.ActivityImpl.Adapter::new),
+			entry(DataProxies.PresenceImpl.class, DataProxies.PresenceImpl.Adapter::new),
+			entry(DataProxies.RelationshipImpl.class, DataProxies.RelationshipImpl.Adapter::new),
+
+			entry(ActivityInviteUser.Args.class, gson -> new ActivityInviteUser.Args.Adapter()),
+			entry(Authenticate.Response.class, Authenticate.Response.Adapter::new),
+			entry(Authenticate.Response.Application.class, gson -> new Authenticate.Response.Application.Adapter()),
+			entry(GetImage.Args.class, gson -> new GetImage.Args.Adapter()),
+			entry(GetImage.Response.class, gson -> new GetImage.Response.Adapter()),
+			entry(GetRelationships.Response.class, GetRelationships.Response.Adapter::new),
+			entry(OpenOverlayActivityInvite.Args.class, gson -> new OpenOverlayActivityInvite.Args.Adapter()),
+			entry(OpenOverlayGuildInvite.Args.class, gson -> new OpenOverlayGuildInvite.Args.Adapter()),
+			entry(OpenOverlayVoiceSettings.Args.class, gson -> new OpenOverlayVoiceSettings.Args.Adapter()),
+			entry(SendActivityJoinInvite.Args.class, gson -> new SendActivityJoinInvite.Args.Adapter()),
+			entry(SetActivity.Args.class, SetActivity.Args.Adapter::new),
+			entry(SetActivity.Encoded.class, gson -> new SetActivity.Encoded.Adapter()),
+			entry(SetOverlayLocked.Args.class, gson -> new SetOverlayLocked.Args.Adapter()),
+			entry(SetUserVoiceSettings.Args.class, gson -> new SetUserVoiceSettings.Args.Adapter()),
+			entry(SetUserVoiceSettings.Mute.class, gson -> new SetUserVoiceSettings.Mute.Adapter()),
+			entry(SetUserVoiceSettings.Volume.class, gson -> new SetUserVoiceSettings.Volume.Adapter()),
+			entry(SetVoiceSettings2.InputMode.class, SetVoiceSettings2.InputMode.Adapter::new),
+			entry(SetVoiceSettings2.SelfMute.class, gson -> new SetVoiceSettings2.SelfMute.Adapter()),
+			entry(SetVoiceSettings2.SelfDeaf.class, gson -> new SetVoiceSettings2.SelfDeaf.Adapter()),
+			entry(Subscribe.Response.class, Subscribe.Response.Adapter::new),
+
+			entry(ActivityJoinEvent.Data.class, gson -> new ActivityJoinEvent.Data.Adapter()),
+			entry(ActivityJoinRequestEvent.Data.class, gson -> new ActivityJoinRequestEvent.Data.Adapter()),
+			entry(OverlayUpdateEvent.Data.class, gson -> new OverlayUpdateEvent.Data.Adapter()),
+			entry(OverlayUpdateEvent.Handler.Args.class, gson -> new OverlayUpdateEvent.Handler.Args.Adapter()),
+			entry(ReadyEvent.Data.class, ReadyEvent.Data.Adapter::new),
+			entry(ReadyEvent.Data.Config.class, gson -> new ReadyEvent.Data.Config.Adapter()),
+			entry(VoiceSettingsUpdate2Event.Data.class, VoiceSettingsUpdate2Event.Data.Adapter::new),
+
+			entry(Activity.class, Activity.Adapter::new),
+			entry(ActivityAssets.class, gson -> new ActivityAssets.Adapter()),
+			entry(ActivityButton.class, gson -> new ActivityButton.Adapter()),
+			entry(ActivityParty.class, gson -> new ActivityParty.Adapter()),
+			entry(ActivitySecrets.class, gson -> new ActivitySecrets.Adapter()),
+			entry(ActivityTimestamps.class, gson -> new ActivityTimestamps.Adapter()),
+			entry(DiscordUser.class, gson -> new DiscordUser.Adapter()),
+			entry(VoiceInputMode.class, gson -> new VoiceInputMode.Adapter())
+	);
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type)
+	{
+		Function<Gson, ?> factory = ADAPTERS.get(type.getRawType());
+		if(factory == null)
+			return null;
+
+		Object adapter = factory.apply(gson);
+		if(adapter instanceof Writer<?> writer)
+			return new OneWay<>((Writer<T>) writer, null, gson.getDelegateAdapter(this, type)).nullSafe();
+		if(adapter instanceof Reader<?> reader)
+			return new OneWay<>(null, (Reader<T>) reader, gson.getDelegateAdapter(this, type)).nullSafe();
+		return ((TypeAdapter<T>) adapter).nullSafe();
+	}
+
+	/**
+	 * Base class of adapters for messages that are only ever sent.
+	 * @param <T> Type of the message
+	 */
+	public abstract static class Writer<T>
+	{
+		public abstract void write(JsonWriter out, T value) throws IOException;
+	}
+
+	/**
+	 * Base class of adapters for messages that are only ever received.
+	 * @param <T> Type of the message
+	 */
+	public abstract static class Reader<T>
+	{
+		public abstract T read(JsonReader in) throws IOException;
+	}
+
+	/**
+	 * Uses a {@link Writer} or a {@link Reader}, and Gson's reflective adapter for the other direction.
+	 */
+	private static class OneWay<T> extends TypeAdapter<T>
+	{
+		private final Writer<T> writer;
+		private final Reader<T> reader;
+		private final TypeAdapter<T> reflective;
+
+		private OneWay(Writer<T> writer, Reader<T> reader, TypeAdapter<T> reflective)
+		{
+			this.writer = writer;
+			this.reader = reader;
+			this.reflective = reflective;
+		}
+
+		@Override
+		public void write(JsonWriter out, T value) throws IOException
+		{
+			if(writer != null)
+				writer.write(out, value);
+			else
+				reflective.write(out, value);
+		}
+
+		@Override
+		public T read(JsonReader in) throws IOException
+		{
+			return reader != null ? reader.read(in) : reflective.read(in);
+		}
+	}
+
+	/**
+	 * Reads a string like Gson does, i.e. also accepting numbers and booleans.
+	 * @param in Reader positioned at the value
+	 * @return The string or {@code null} if the value is {@code null}
+	 */
+	public static String readString(JsonReader in) throws IOException
+	{
+		JsonToken token = in.peek();
+		if(token == JsonToken.NULL)
+		{
+			in.nextNull();
+			return null;
+		}
+		if(token == JsonToken.BOOLEAN)
+			return Boolean.toString(in.nextBoolean());
+		return in.nextString();
+	}
+
+	/**
+	 * Reads an {@code int} like Gson does, i.e. also accepting strings.
+	 * @param in Reader positioned at the value
+	 * @param fallback Value to return for {@code null}, which Gson does not assign to primitive fields
+	 * @return The value or {@code fallback}
+	 */
+	public static int readInt(JsonReader in, int fallback) throws IOException
+	{
+		if(in.peek() == JsonToken.NULL)
+		{
+			in.nextNull();
+			return fallback;
+		}
+		try
+		{
+			return in.nextInt();
+		}
+		catch(NumberFormatException e)
+		{
+			throw new JsonSyntaxException(e);
+		}
+	}
+
+	/**
+	 * Reads a {@code boolean} like Gson does, i.e. also accepting strings.
+	 * @param in Reader positioned at the value
+	 * @param fallback Value to return for {@code null}, which Gson does not assign to primitive fields
+	 * @return The value or {@code fallback}
+	 */
+	public static boolean readBoolean(JsonReader in, boolean fallback) throws IOException
+	{
+		JsonToken token = in.peek();
+		if(token == JsonToken.NULL)
+		{
+			in.nextNull();
+			return fallback;
+		}
+		if(token == JsonToken.STRING)
+			return Boolean.parseBoolean(in.nextString());
+		return in.nextBoolean();
+	}
+
+	/**
+	 * Reads an {@link Integer} like Gson does, i.e. also accepting strings.
+	 * @param in Reader positioned at the value
+	 * @return The value or {@code null} if the value is {@code null}
+	 */
+	public static Integer readInteger(JsonReader in) throws IOException
+	{
+		if(in.peek() == JsonToken.NULL)
+		{
+			in.nextNull();
+			return null;
+		}
+		return readInt(in, 0);
+	}
+
+	/**
+	 * Reads a {@link Boolean} like Gson does, i.e. also accepting strings.
+	 * @param in Reader positioned at the value
+	 * @return The value or {@code null} if the value is {@code null}
+	 */
+	public static Boolean readBooleanObject(JsonReader in) throws IOException
+	{
+		if(in.peek() == JsonToken.NULL)
+		{
+			in.nextNull();
+			return null;
+		}
+		return readBoolean(in, false);
+	}
+}
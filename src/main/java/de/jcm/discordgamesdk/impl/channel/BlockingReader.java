@@ -0,0 +1,132 @@
+package de.jcm.discordgamesdk.impl.channel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.channels.AsynchronousCloseException;
+
+/**
+ * Thread reading from a {@link DiscordChannel} in blocking mode.
+ * <p>
+ * On Java 21 and newer the reader runs on a virtual thread, so that it does not occupy a
+ * platform thread while waiting for Discord. On older versions a platform daemon thread is used.
+ */
+public class BlockingReader implements Closeable
+{
+	public interface Handler
+	{
+		/**
+		 * Called on the reader thread to read (and block for) the next frame.
+		 * @return {@code false} to stop the reader, e.g. because the channel reached end-of-stream
+		 * @throws IOException if reading fails, which stops the reader
+		 */
+		boolean read() throws IOException;
+
+		/**
+		 * Called on the reader thread if it stopped because of an error.
+		 * @param e The error
+		 */
+		void onError(IOException e);
+	}
+
+	private final DiscordChannel channel;
+	private final Handler handler;
+	private final Thread thread;
+	private volatile boolean running = true;
+
+	public BlockingReader(DiscordChannel channel, Handler handler, String threadName) throws IOException
+	{
+		this.channel = channel;
+		this.handler = handler;
+		channel.configureBlocking(true);
+		this.thread = newThread(this::run, threadName);
+	}
+
+	/**
+	 * Creates a virtual thread if the runtime supports them, a platform daemon thread otherwise.
+	 * @param task Task for the thread to run
+	 * @param name Name of the thread
+	 * @return A new, unstarted thread
+	 */
+	public static Thread newThread(Runnable task, String name)
+	{
+		try
+		{
+			// Thread.ofVirtual().name(name).unstarted(task), but we compile against Java 16
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			builder = builderClass.getMethod("name", String.class).invoke(builder, name);
+			Method unstarted = builderClass.getMethod("unstarted", Runnable.class);
+			return (Thread) unstarted.invoke(builder, task);
+		}
+		catch(ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException e)
+		{
+			// no (or only preview) support for virtual threads
+			Thread thread = new Thread(task, name);
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+	public void start()
+	{
+		thread.start();
+	}
+
+	private void run()
+	{
+		try
+		{
+			while(running)
+			{
+				if(!handler.read())
+				{
+					running = false;
+				}
+			}
+		}
+		catch(AsynchronousCloseException e)
+		{
+			// channel closed while reading
+		}
+		catch(IOException e)
+		{
+			if(running)
+			{
+				running = false;
+				handler.onError(e);
+			}
+		}
+	}
+
+	/**
+	 * Tells you if the reader is still running.
+	 * @return {@code true} if the reader thread has not stopped yet
+	 */
+	public boolean isRunning()
+	{
+		return running;
+	}
+
+	/**
+	 * Stops the reader. As the reader might be blocked in a read, this also closes the channel.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		running = false;
+		channel.close();
+		if(Thread.currentThread() != thread)
+		{
+			try
+			{
+				thread.join(1000);
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package de.jcm.discordgamesdk.impl.channel;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+
+/**
+ * Small pool of reusable, growable direct {@link ByteBuffer}s used for framing.
+ * <p>
+ * Buffers handed out by {@link #acquire(int)} are cleared and in little endian byte order.
+ * Buffers that turn out to be too small are replaced by larger ones, so after a short
+ * warm-up the pool serves all requests without allocating.
+ * <p>
+ * This class is <b>not</b> thread-safe, each pool must only be used by one thread at a time.
+ */
+public class BufferPool
+{
+	private static final int MIN_CAPACITY = 1024;
+
+	private final ArrayDeque<ByteBuffer> buffers;
+	private final int maxPooled;
+
+	public BufferPool(int maxPooled)
+	{
+		this.maxPooled = maxPooled;
+		this.buffers = new ArrayDeque<>(maxPooled);
+	}
+
+	/**
+	 * Gets a buffer with at least the given capacity.
+	 * @param minCapacity Minimum capacity of the buffer
+	 * @return A cleared buffer, which should be given back with {@link #release(ByteBuffer)}
+	 */
+	public ByteBuffer acquire(int minCapacity)
+	{
+		ByteBuffer buffer = buffers.pollLast();
+		if(buffer == null || buffer.capacity() < minCapacity)
+		{
+			buffer = allocate(minCapacity);
+		}
+		buffer.clear();
+		return buffer;
+	}
+
+	/**
+	 * Gets a buffer with at least the given capacity, containing the data of {@code buffer}
+	 * between position zero and its current position. The old buffer is released.
+	 * @param buffer Buffer to grow, in write mode
+	 * @param minCapacity Minimum capacity of the new buffer
+	 * @return A buffer in write mode with the old data
+	 */
+	public ByteBuffer grow(ByteBuffer buffer, int minCapacity)
+	{
+		if(buffer.capacity() >= minCapacity)
+			return buffer;
+
+		ByteBuffer grown = allocate(Math.max(minCapacity, buffer.capacity() * 2));
+		grown.put(buffer.flip());
+		release(buffer);
+		return grown;
+	}
+
+	/**
+	 * Gives a buffer back to the pool.
+	 * @param buffer Buffer obtained from {@link #acquire(int)} or {@link #grow(ByteBuffer, int)}
+	 */
+	public void release(ByteBuffer buffer)
+	{
+		if(buffers.size() < maxPooled)
+		{
+			buffers.addLast(buffer);
+		}
+	}
+
+	private static ByteBuffer allocate(int minCapacity)
+	{
+		int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, minCapacity - 1)) << 1);
+		if(capacity < minCapacity) // overflow for huge requests
+			capacity = minCapacity;
+		return ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+	}
+}
@@ -2,6 +2,7 @@ package de.jcm.discordgamesdk.impl.channel;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
 
 public interface DiscordChannel {
 	public void close() throws IOException;
@@ -9,5 +10,11 @@ public interface DiscordChannel {
 	public int read(ByteBuffer dst) throws IOException;
 	public long read(ByteBuffer[] dsts, int offset, int length) throws IOException;
 	public int write(ByteBuffer src) throws IOException;
+	public long write(ByteBuffer[] srcs, int offset, int length) throws IOException;
 	public boolean isAvailable();
+	/**
+	 * Returns the underlying channel if it can be used with a {@link java.nio.channels.Selector}.
+	 * @return The selectable channel or {@code null} if this channel cannot be selected
+	 */
+	public SelectableChannel getSelectableChannel();
 }
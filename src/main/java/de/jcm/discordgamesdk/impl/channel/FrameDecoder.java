@@ -0,0 +1,176 @@
+package de.jcm.discordgamesdk.impl.channel;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Resumable decoder for the frames of Discord's IPC protocol.
+ * <p>
+ * A frame consists of an 8 byte header (opcode and body length, both little endian)
+ * followed by the body. Partially received headers and bodies are kept across calls
+ * to {@link #read(DiscordChannel)}, so the decoder never has to wait for the rest of
+ * a frame on a non-blocking channel.
+ * <p>
+ * The header and body are read into direct buffers that are reused for all frames.
+ * The body buffer only grows when a frame does not fit, so receiving usual frames does not allocate.
+ * A body buffer grown beyond {@link #RETAINED_BODY_CAPACITY} for a single large frame (e.g. an image)
+ * is dropped again once the frame has been handled.
+ * <p>
+ * A frame with an invalid length cannot be skipped, as the rest of the stream can no longer be split into frames.
+ * The decoder then closes the channel and behaves as if it reached end-of-stream.
+ */
+public class FrameDecoder
+{
+	private enum State
+	{
+		HEADER,
+		BODY,
+		COMPLETE
+	}
+
+	/**
+	 * Largest body buffer kept between frames.
+	 */
+	public static final int RETAINED_BODY_CAPACITY = 64 * 1024;
+
+	private final int maxFrameLength;
+	private final ByteBuffer header = ByteBuffer.allocateDirect(8).order(ByteOrder.LITTLE_ENDIAN);
+	private final BufferPool bodyPool = new BufferPool(1);
+	private ByteBuffer body = bodyPool.acquire(0);
+	private State state = State.HEADER;
+	private int opcode;
+	private boolean endOfStream;
+	private boolean failed;
+
+	public FrameDecoder(int maxFrameLength)
+	{
+		this.maxFrameLength = maxFrameLength;
+	}
+
+	/**
+	 * Reads as much of the current frame as the channel has available.
+	 * <p>
+	 * If the previous call returned {@code true}, its frame is discarded and a new one is started.
+	 * @param channel Channel to read from
+	 * @return {@code true} if a complete frame is available, {@code false} if more data is needed
+	 *         or the decoder failed before
+	 * @throws ProtocolException if the frame is longer than the maximum frame length, the channel is closed then
+	 * @throws IOException if reading from the channel fails
+	 */
+	public boolean read(DiscordChannel channel) throws IOException
+	{
+		if(failed)
+			return false;
+
+		if(state == State.COMPLETE)
+		{
+			header.clear();
+			if(body.capacity() > RETAINED_BODY_CAPACITY)
+				body = bodyPool.acquire(0);
+			state = State.HEADER;
+		}
+
+		if(state == State.HEADER)
+		{
+			if(!fill(channel, header))
+				return false;
+
+			header.flip();
+			opcode = header.getInt();
+			int length = header.getInt();
+			if(length < 0 || length > maxFrameLength)
+			{
+				failed = true;
+				endOfStream = true;
+				channel.close();
+				throw new ProtocolException("frame length "+Integer.toUnsignedString(length)
+						                            +" exceeds maximum of "+maxFrameLength);
+			}
+			if(body.capacity() < length)
+			{
+				body = bodyPool.acquire(length);
+			}
+			body.clear().limit(length);
+			state = State.BODY;
+		}
+
+		if(!fill(channel, body))
+			return false;
+
+		body.flip();
+		state = State.COMPLETE;
+		return true;
+	}
+
+	private boolean fill(DiscordChannel channel, ByteBuffer buffer) throws IOException
+	{
+		while(buffer.hasRemaining())
+		{
+			int read = channel.read(buffer);
+			if(read < 0)
+				endOfStream = true;
+			if(read <= 0)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the opcode of the last complete frame.
+	 * @return The frame's opcode
+	 */
+	public int getOpcode()
+	{
+		return opcode;
+	}
+
+	/**
+	 * Gets the body of the last complete frame, ready to be read.
+	 * <p>
+	 * The buffer is reused for the next frame, so it must not be used after
+	 * the next call to {@link #read(DiscordChannel)}.
+	 * @return The frame's body
+	 */
+	public ByteBuffer getBody()
+	{
+		return body;
+	}
+
+	/**
+	 * Tells you if the channel reached its end, i.e. Discord closed the connection.
+	 * @return {@code true} if a read returned end-of-stream or the decoder closed the channel after an invalid frame
+	 */
+	public boolean isEndOfStream()
+	{
+		return endOfStream;
+	}
+
+	/**
+	 * Tells you if a frame has been started, but not completed yet.
+	 * @return {@code true} if there is partial frame data
+	 */
+	public boolean hasPartialFrame()
+	{
+		return !failed && (state == State.BODY || (state == State.HEADER && header.position() > 0));
+	}
+
+	/**
+	 * Tells you if the decoder gave up because of a frame with an invalid length.
+	 * @return {@code true} if {@link #read(DiscordChannel)} threw a {@link ProtocolException}
+	 */
+	public boolean isFailed()
+	{
+		return failed;
+	}
+
+	/**
+	 * Gets the capacity of the buffer bodies are read into.
+	 * @return Capacity of the body buffer in bytes
+	 */
+	public int getBodyCapacity()
+	{
+		return body.capacity();
+	}
+}
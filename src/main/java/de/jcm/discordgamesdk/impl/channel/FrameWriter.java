@@ -0,0 +1,153 @@
+package de.jcm.discordgamesdk.impl.channel;
+
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link Writer} encoding the body of a frame as UTF-8 straight into a buffer of an {@link OutboundQueue}.
+ * <p>
+ * Call {@link #begin(int)}, write the body and then call {@link #finish()} to get the complete frame.
+ * The buffer is grown as needed, so the length of the body does not need to be known in advance.
+ * Characters are staged in a small array of their own, so writing single characters is cheap as well.
+ * <p>
+ * The writer is not thread-safe, it is meant to be used by whichever thread currently owns the I/O.
+ */
+public class FrameWriter extends Writer
+{
+	private static final int HEADER_LENGTH = 8;
+
+	private final OutboundQueue queue;
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private final CharBuffer chars = CharBuffer.allocate(1024);
+	private ByteBuffer frame;
+	private int opcode;
+
+	public FrameWriter(OutboundQueue queue)
+	{
+		this.queue = queue;
+	}
+
+	/**
+	 * Starts a new frame.
+	 * @param opcode Opcode of the frame
+	 */
+	public void begin(int opcode)
+	{
+		if(frame != null)
+			throw new IllegalStateException("frame not finished");
+		this.opcode = opcode;
+		this.frame = queue.acquire(HEADER_LENGTH + chars.capacity());
+		this.frame.position(HEADER_LENGTH);
+		this.encoder.reset();
+		this.chars.clear();
+	}
+
+	/**
+	 * Completes the frame started by {@link #begin(int)}.
+	 * @return The frame, ready to be passed to {@link OutboundQueue#enqueue(ByteBuffer)}
+	 */
+	public ByteBuffer finish()
+	{
+		encodeChars(true);
+		while(encoder.flush(frame).isOverflow())
+			grow();
+
+		ByteBuffer finished = frame;
+		frame = null;
+		finished.putInt(0, opcode);
+		finished.putInt(4, finished.position() - HEADER_LENGTH);
+		return finished.flip();
+	}
+
+	/**
+	 * Gives back the buffer of a frame that will not be finished, e.g. because writing its body failed.
+	 */
+	public void abort()
+	{
+		if(frame != null)
+		{
+			queue.release(frame);
+			frame = null;
+		}
+	}
+
+	@Override
+	public void write(int c)
+	{
+		if(!chars.hasRemaining())
+			encodeChars(false);
+		chars.put((char) c);
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len)
+	{
+		while(len > 0)
+		{
+			if(!chars.hasRemaining())
+				encodeChars(false);
+			int n = Math.min(len, chars.remaining());
+			chars.put(cbuf, off, n);
+			off += n;
+			len -= n;
+		}
+	}
+
+	@Override
+	public void write(String str)
+	{
+		write(str, 0, str.length());
+	}
+
+	@Override
+	public void write(String str, int off, int len)
+	{
+		while(len > 0)
+		{
+			if(!chars.hasRemaining())
+				encodeChars(false);
+			int n = Math.min(len, chars.remaining());
+			int position = chars.position();
+			str.getChars(off, off + n, chars.array(), position);
+			chars.position(position + n);
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * Encodes the staged characters. A high surrogate at the end stays staged until its low surrogate arrives.
+	 */
+	private void encodeChars(boolean endOfInput)
+	{
+		chars.flip();
+		CoderResult result;
+		while((result = encoder.encode(chars, frame, endOfInput)).isOverflow())
+			grow();
+		chars.compact();
+		if(result.isError())
+			throw new IllegalStateException(result.toString()); // cannot happen with REPLACE
+	}
+
+	private void grow()
+	{
+		frame = queue.grow(frame, frame.capacity() * 2);
+	}
+
+	@Override
+	public void flush()
+	{
+	}
+
+	@Override
+	public void close()
+	{
+	}
+}
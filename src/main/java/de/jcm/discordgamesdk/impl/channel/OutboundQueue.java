@@ -0,0 +1,118 @@
+package de.jcm.discordgamesdk.impl.channel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Queue of encoded frames waiting to be written to a {@link DiscordChannel}.
+ * <p>
+ * Frames are written with gathering writes, so that all frames queued since the last
+ * {@link #flush(DiscordChannel)} usually go out with a single system call.
+ * If the channel does not accept everything, the rest stays queued for the next flush.
+ * <p>
+ * Frame buffers come from and go back to a {@link BufferPool}.
+ * <p>
+ * The queue is not thread-safe, it is meant to be used by whichever thread currently owns the I/O.
+ */
+public class OutboundQueue
+{
+	private static final int MAX_GATHER = 64;
+
+	private final BufferPool pool;
+	private final ArrayDeque<ByteBuffer> frames = new ArrayDeque<>();
+	private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+
+	public OutboundQueue(BufferPool pool)
+	{
+		this.pool = pool;
+	}
+
+	/**
+	 * Gets a buffer to encode a frame into.
+	 * @param minCapacity Minimum capacity of the buffer
+	 * @return A cleared buffer, to be passed to {@link #enqueue(ByteBuffer)} or {@link #release(ByteBuffer)}
+	 */
+	public ByteBuffer acquire(int minCapacity)
+	{
+		return pool.acquire(minCapacity);
+	}
+
+	/**
+	 * Replaces a buffer obtained from {@link #acquire(int)} that turned out to be too small.
+	 * @see BufferPool#grow(ByteBuffer, int)
+	 */
+	public ByteBuffer grow(ByteBuffer buffer, int minCapacity)
+	{
+		return pool.grow(buffer, minCapacity);
+	}
+
+	/**
+	 * Gives back a buffer obtained from {@link #acquire(int)} or {@link #grow(ByteBuffer, int)} that will not be sent.
+	 * @param buffer The buffer
+	 */
+	public void release(ByteBuffer buffer)
+	{
+		pool.release(buffer);
+	}
+
+	/**
+	 * Queues a frame to be written by the next {@link #flush(DiscordChannel)}.
+	 * @param frame Buffer obtained from {@link #acquire(int)}, ready to be read
+	 */
+	public void enqueue(ByteBuffer frame)
+	{
+		frames.addLast(frame);
+	}
+
+	/**
+	 * Writes as many queued frames as the channel accepts.
+	 * @param channel Channel to write to
+	 * @return {@code true} if the queue is empty now
+	 * @throws IOException if writing fails
+	 */
+	public boolean flush(DiscordChannel channel) throws IOException
+	{
+		while(!frames.isEmpty())
+		{
+			int count = 0;
+			for(ByteBuffer frame : frames)
+			{
+				if(count == MAX_GATHER)
+					break;
+				gather[count++] = frame;
+			}
+
+			ByteBuffer last = gather[count - 1];
+			try
+			{
+				channel.write(gather, 0, count);
+			}
+			finally
+			{
+				Arrays.fill(gather, 0, count, null);
+			}
+
+			ByteBuffer first;
+			while((first = frames.peekFirst()) != null && !first.hasRemaining())
+			{
+				pool.release(frames.pollFirst());
+			}
+			if(last.hasRemaining())
+			{
+				return false; // the channel is full, try again later
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Tells you if there are frames waiting to be written.
+	 * @return {@code true} if the queue is empty
+	 */
+	public boolean isEmpty()
+	{
+		return frames.isEmpty();
+	}
+}
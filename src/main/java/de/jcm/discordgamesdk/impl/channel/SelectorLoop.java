@@ -0,0 +1,199 @@
+package de.jcm.discordgamesdk.impl.channel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Background thread waiting for a {@link SelectableChannel} to become readable or writable.
+ * <p>
+ * The channel is switched to non-blocking mode and registered with its own {@link Selector}.
+ * Whenever data arrives, {@link Handler#onReadable()} is called on the I/O thread.
+ * After {@link #requestWrite()}, {@link Handler#onWritable()} is called on the I/O thread, and again
+ * whenever the channel can take more data, until it reports that everything was written.
+ * <p>
+ * The thread also wakes up regularly to call {@link Handler#onTick()}, e.g. to check timeouts.
+ * <p>
+ * Only the I/O thread touches the selection key, so {@link #requestWrite()} can be called
+ * from any thread without locking.
+ */
+public class SelectorLoop implements Closeable
+{
+	public interface Handler
+	{
+		/**
+		 * Called on the I/O thread when the channel has data to read.
+		 * @return {@code false} to stop the loop, e.g. because the channel reached end-of-stream
+		 * @throws IOException if reading fails, which stops the loop
+		 */
+		boolean onReadable() throws IOException;
+
+		/**
+		 * Called on the I/O thread after {@link #requestWrite()} and when the channel can take more data.
+		 * @return {@code true} if everything was written and the loop should stop waiting for writability
+		 * @throws IOException if writing fails, which stops the loop
+		 */
+		boolean onWritable() throws IOException;
+
+		/**
+		 * Called on the I/O thread after every wakeup, but at least once per tick.
+		 */
+		void onTick();
+
+		/**
+		 * Called on the I/O thread if the loop stopped because of an error.
+		 * @param e The error
+		 */
+		void onError(IOException e);
+	}
+
+	private final Selector selector;
+	private final SelectionKey key;
+	private final Handler handler;
+	private final Thread thread;
+	private final long tickMillis;
+	private final Consumer<SelectionKey> selectAction = this::onSelected;
+	private final AtomicBoolean writeRequested = new AtomicBoolean();
+	private volatile boolean running = true;
+
+	/**
+	 * Creates the loop, but does not start it yet.
+	 * @param channel Channel to wait for
+	 * @param handler Handler for the channel's events
+	 * @param tickMillis Maximum time between two calls to {@link Handler#onTick()} in milliseconds
+	 * @param threadName Name of the I/O thread
+	 * @throws IOException if the channel cannot be registered
+	 */
+	public SelectorLoop(SelectableChannel channel, Handler handler, long tickMillis, String threadName) throws IOException
+	{
+		this.handler = handler;
+		this.tickMillis = tickMillis;
+		this.selector = Selector.open();
+		channel.configureBlocking(false);
+		this.key = channel.register(selector, SelectionKey.OP_READ);
+
+		this.thread = new Thread(this::run, threadName);
+		this.thread.setDaemon(true);
+	}
+
+	public void start()
+	{
+		thread.start();
+	}
+
+	private void run()
+	{
+		try
+		{
+			while(running)
+			{
+				selector.select(selectAction, tickMillis);
+				if(!running)
+					break;
+
+				if(writeRequested.getAndSet(false))
+					write();
+				handler.onTick();
+			}
+		}
+		catch(IOException e)
+		{
+			if(running)
+			{
+				running = false;
+				handler.onError(e);
+			}
+		}
+		catch(ClosedSelectorException e)
+		{
+			// closed while selecting
+		}
+	}
+
+	private void onSelected(SelectionKey selected)
+	{
+		if(!running || !selected.isValid())
+			return;
+
+		try
+		{
+			if(selected.isWritable())
+			{
+				write();
+			}
+			if(selected.isReadable() && !handler.onReadable())
+			{
+				running = false;
+				selected.cancel();
+			}
+		}
+		catch(IOException e)
+		{
+			running = false;
+			handler.onError(e);
+		}
+	}
+
+	private void write() throws IOException
+	{
+		boolean done = handler.onWritable();
+		if(key.isValid())
+			key.interestOps(done ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+	}
+
+	/**
+	 * Makes the I/O thread call {@link Handler#onWritable()} as soon as possible.
+	 * Can be called from any thread.
+	 */
+	public void requestWrite()
+	{
+		// only the first request wakes up the selector, the others are handled by the same wakeup
+		if(!writeRequested.getAndSet(true))
+			selector.wakeup();
+	}
+
+	/**
+	 * Wakes up the I/O thread, e.g. because there is new work for it.
+	 */
+	public void wakeup()
+	{
+		selector.wakeup();
+	}
+
+	/**
+	 * Tells you if the loop is still running.
+	 * @return {@code true} if the I/O thread has not stopped yet
+	 */
+	public boolean isRunning()
+	{
+		return running;
+	}
+
+	/**
+	 * Stops the I/O thread and closes the selector. The channel itself stays open.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		running = false;
+		selector.wakeup();
+		if(Thread.currentThread() != thread)
+		{
+			try
+			{
+				thread.join(1000);
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+		key.cancel();
+		selector.close();
+	}
+}
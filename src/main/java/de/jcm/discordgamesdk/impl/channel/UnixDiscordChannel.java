@@ -3,6 +3,7 @@ package de.jcm.discordgamesdk.impl.channel;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
 import java.nio.channels.SocketChannel;
 import java.net.UnixDomainSocketAddress;
 import java.util.*;
@@ -87,4 +88,12 @@ public class UnixDiscordChannel implements DiscordChannel {
 	public int write(ByteBuffer src) throws IOException {
 		return channel.write(src);
 	}
+
+	public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+		return channel.write(srcs, offset, length);
+	}
+
+	public SelectableChannel getSelectableChannel() {
+		return channel;
+	}
 }
@@ -5,6 +5,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.SelectableChannel;
 
 public class WindowsDiscordChannel implements DiscordChannel {
 	private final FileChannel channel;
@@ -65,4 +66,14 @@ public class WindowsDiscordChannel implements DiscordChannel {
 		channel.force(false); // ensure that data is actually written to file
 		return res;
 	}
+
+	public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+		long res = channel.write(srcs, offset, length);
+		channel.force(false); // ensure that data is actually written to file
+		return res;
+	}
+
+	public SelectableChannel getSelectableChannel() {
+		return null; // named pipes cannot be used with a Selector
+	}
 }
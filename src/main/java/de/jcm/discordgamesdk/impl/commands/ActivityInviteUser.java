@@ -1,5 +1,10 @@
 package de.jcm.discordgamesdk.impl.commands;
 
+import com.google.gson.stream.JsonWriter;
+import de.jcm.discordgamesdk.impl.WireAdapters;
+
+import java.io.IOException;
+
 public class ActivityInviteUser
 {
 	private ActivityInviteUser() {}
@@ -18,5 +23,19 @@ public class ActivityInviteUser
 			this.content = content;
 			this.pid = pid;
 		}
+
+		public static class Adapter extends WireAdapters.Writer<Args>
+		{
+			@Override
+			public void write(JsonWriter out, Args args) throws IOException
+			{
+				out.beginObject();
+				out.name("type").value(args.type);
+				out.name("user_id").value(args.user_id);
+				out.name("content").value(args.content);
+				out.name("pid").value(args.pid);
+				out.endObject();
+			}
+		}
 	}
 }
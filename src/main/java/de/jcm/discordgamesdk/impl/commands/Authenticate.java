@@ -1,8 +1,14 @@
 package de.jcm.discordgamesdk.impl.commands;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 import de.jcm.discordgamesdk.ApplicationManager;
+import de.jcm.discordgamesdk.impl.WireAdapters;
 import de.jcm.discordgamesdk.user.DiscordUser;
 
+import java.io.IOException;
 import java.util.Date;
 import java.util.Set;
 
@@ -33,6 +39,34 @@ public class Authenticate
                         summary, is_monetized, is_verified, verify_key, flags, hook, storefront_available
                 );
             }
+
+            public static class Adapter extends WireAdapters.Reader<Application> {
+                @Override
+                public Application read(JsonReader in) throws IOException {
+                    Application application = new Application();
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        switch (in.nextName()) {
+                            case "id" -> application.id = WireAdapters.readString(in);
+                            case "name" -> application.name = WireAdapters.readString(in);
+                            case "icon" -> application.icon = WireAdapters.readString(in);
+                            case "description" -> application.description = WireAdapters.readString(in);
+                            case "type" -> application.type = WireAdapters.readString(in);
+                            case "cover_image" -> application.cover_image = WireAdapters.readString(in);
+                            case "summary" -> application.summary = WireAdapters.readString(in);
+                            case "is_monetized" -> application.is_monetized = WireAdapters.readBoolean(in, application.is_monetized);
+                            case "is_verified" -> application.is_verified = WireAdapters.readBoolean(in, application.is_verified);
+                            case "verify_key" -> application.verify_key = WireAdapters.readString(in);
+                            case "flags" -> application.flags = WireAdapters.readInt(in, application.flags);
+                            case "hook" -> application.hook = WireAdapters.readBoolean(in, application.hook);
+                            case "storefront_available" -> application.storefront_available = WireAdapters.readBoolean(in, application.storefront_available);
+                            default -> in.skipValue();
+                        }
+                    }
+                    in.endObject();
+                    return application;
+                }
+            }
         };
 
         public String access_token;
@@ -45,5 +79,37 @@ public class Authenticate
         public ApplicationManager.DiscordOAuth2Token toDiscordOAuth2Token() {
             return new ApplicationManager.DiscordOAuth2Token(access_token, scopes, expires);
         }
+
+        public static class Adapter extends WireAdapters.Reader<Response> {
+            private final TypeAdapter<Set<String>> scopesAdapter;
+            private final TypeAdapter<Date> dateAdapter;
+            private final TypeAdapter<DiscordUser> userAdapter;
+            private final TypeAdapter<Application> applicationAdapter;
+
+            public Adapter(Gson gson) {
+                this.scopesAdapter = gson.getAdapter(new TypeToken<Set<String>>(){});
+                this.dateAdapter = gson.getAdapter(Date.class);
+                this.userAdapter = gson.getAdapter(DiscordUser.class);
+                this.applicationAdapter = gson.getAdapter(Application.class);
+            }
+
+            @Override
+            public Response read(JsonReader in) throws IOException {
+                Response response = new Response();
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "access_token" -> response.access_token = WireAdapters.readString(in);
+                        case "scopes" -> response.scopes = scopesAdapter.read(in);
+                        case "expires" -> response.expires = dateAdapter.read(in);
+                        case "user" -> response.user = userAdapter.read(in);
+                        case "application" -> response.application = applicationAdapter.read(in);
+                        default -> in.skipValue();
+                    }
+                }
+                in.endObject();
+                return response;
+            }
+        }
     }
 }
@@ -1,7 +1,13 @@
 package de.jcm.discordgamesdk.impl.commands;
 
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import de.jcm.discordgamesdk.image.ImageHandle;
+import de.jcm.discordgamesdk.impl.Base64ImageInputStream;
+import de.jcm.discordgamesdk.impl.WireAdapters;
 
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
 import java.util.Base64;
 
 public class GetImage
@@ -27,22 +33,88 @@ public class GetImage
 			this.format = format;
 			this.size = size;
 		}
+
+		public static class Adapter extends WireAdapters.Writer<Args>
+		{
+			@Override
+			public void write(JsonWriter out, Args args) throws IOException
+			{
+				out.beginObject();
+				out.name("type").value(args.type);
+				out.name("id").value(args.id);
+				out.name("format").value(args.format);
+				out.name("size").value(args.size);
+				out.endObject();
+			}
+		}
 	}
 
 	public static class Response
 	{
+		private static final String DATA_URL_PREFIX = "data:image/png;base64,";
+
 		private String data_url;
+		/** Whether the image has been stored, see {@link #isStored()} */
+		private transient boolean stored;
 
 		public String getDataURL()
 		{
 			return data_url;
 		}
 
+		/**
+		 * Tells if the image of this response has been stored already.
+		 * A response shared by several identical requests is handled for each of them, but only needs to be stored once.
+		 * @return {@code true} if {@link #setStored()} has been called
+		 */
+		public boolean isStored()
+		{
+			return stored;
+		}
+
+		public void setStored()
+		{
+			this.stored = true;
+		}
+
 		public byte[] getData()
 		{
-			if(!data_url.startsWith("data:image/png;base64,"))
+			if(!data_url.startsWith(DATA_URL_PREFIX))
+				throw new IllegalArgumentException("not a data url");
+			return Base64.getDecoder().decode(data_url.substring(DATA_URL_PREFIX.length()));
+		}
+
+		/**
+		 * Opens a stream of the PNG in the data URL, which decodes the base64 right out of the URL whenever it is read.
+		 * Unlike {@link #getData()}, neither the base64 part of the URL nor the decoded PNG are copied.
+		 * @return A stream of the PNG, throwing an {@link IOException} when it reaches invalid base64
+		 * @throws IllegalArgumentException if the URL is not a base64 data URL of a PNG
+		 */
+		public ImageInputStream openData()
+		{
+			if(!data_url.startsWith(DATA_URL_PREFIX))
 				throw new IllegalArgumentException("not a data url");
-			return Base64.getDecoder().decode(data_url.substring("data:image/png;base64,".length()));
+			return new Base64ImageInputStream(data_url, DATA_URL_PREFIX.length(), data_url.length());
+		}
+
+		public static class Adapter extends WireAdapters.Reader<Response>
+		{
+			@Override
+			public Response read(JsonReader in) throws IOException
+			{
+				Response response = new Response();
+				in.beginObject();
+				while(in.hasNext())
+				{
+					switch(in.nextName())
+					{
+						case "data_url" -> response.data_url = WireAdapters.readString(in);
+						default -> in.skipValue();
+					}
+				}
+				in.endObject();
+				return response;
+			}
 		}
 	}
 }
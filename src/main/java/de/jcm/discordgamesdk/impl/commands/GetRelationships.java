@@ -1,7 +1,13 @@
 package de.jcm.discordgamesdk.impl.commands;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 import de.jcm.discordgamesdk.impl.DataProxies;
+import de.jcm.discordgamesdk.impl.WireAdapters;
 
+import java.io.IOException;
 import java.util.List;
 
 public class GetRelationships
@@ -16,5 +22,32 @@ public class GetRelationships
 		{
 			return relationships;
 		}
+
+		public static class Adapter extends WireAdapters.Reader<Response>
+		{
+			private final TypeAdapter<List<DataProxies.RelationshipImpl>> relationshipsAdapter;
+
+			public Adapter(Gson gson)
+			{
+				this.relationshipsAdapter = gson.getAdapter(new TypeToken<List<DataProxies.RelationshipImpl>>(){});
+			}
+
+			@Override
+			public Response read(JsonReader in) throws IOException
+			{
+				Response response = new Response();
+				in.beginObject();
+				while(in.hasNext())
+				{
+					switch(in.nextName())
+					{
+						case "relationships" -> response.relationships = relationshipsAdapter.read(in);
+						default -> in.skipValue();
+					}
+				}
+				in.endObject();
+				return response;
+			}
+		}
 	}
 }
@@ -1,5 +1,10 @@
 package de.jcm.discordgamesdk.impl.commands;
 
+import com.google.gson.stream.JsonWriter;
+import de.jcm.discordgamesdk.impl.WireAdapters;
+
+import java.io.IOException;
+
 public class OpenOverlayActivityInvite
 {
 	private OpenOverlayActivityInvite() {}
@@ -14,5 +19,17 @@ public class OpenOverlayActivityInvite
 			this.type = type;
 			this.pid = pid;
 		}
+
+		public static class Adapter extends WireAdapters.Writer<Args>
+		{
+			@Override
+			public void write(JsonWriter out, Args args) throws IOException
+			{
+				out.beginObject();
+				out.name("type").value(args.type);
+				out.name("pid").value(args.pid);
+				out.endObject();
+			}
+		}
 	}
 }
@@ -1,5 +1,10 @@
 package de.jcm.discordgamesdk.impl.commands;
 
+import com.google.gson.stream.JsonWriter;
+import de.jcm.discordgamesdk.impl.WireAdapters;
+
+import java.io.IOException;
+
 public class OpenOverlayGuildInvite
 {
 	private OpenOverlayGuildInvite() {}
@@ -14,5 +19,17 @@ public class OpenOverlayGuildInvite
 			this.code = code;
 			this.pid = pid;
 		}
+
+		public static class Adapter extends WireAdapters.Writer<Args>
+		{
+			@Override
+			public void write(JsonWriter out, Args args) throws IOException
+			{
+				out.beginObject();
+				out.name("code").value(args.code);
+				out.name("pid").value(args.pid);
+				out.endObject();
+			}
+		}
 	}
 }
@@ -1,5 +1,10 @@
 package de.jcm.discordgamesdk.impl.commands;
 
+import com.google.gson.stream.JsonWriter;
+import de.jcm.discordgamesdk.impl.WireAdapters;
+
+import java.io.IOException;
+
 public class OpenOverlayVoiceSettings
 {
 	private OpenOverlayVoiceSettings() {}
@@ -12,5 +17,16 @@ public class OpenOverlayVoiceSettings
 		{
 			this.pid = pid;
 		}
+
+		public static class Adapter extends WireAdapters.Writer<Args>
+		{
+			@Override
+			public void write(JsonWriter out, Args args) throws IOException
+			{
+				out.beginObject();
+				out.name("pid").value(args.pid);
+				out.endObject();
+			}
+		}
 	}
 }
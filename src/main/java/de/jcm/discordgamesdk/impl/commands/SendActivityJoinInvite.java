@@ -1,5 +1,10 @@
 package de.jcm.discordgamesdk.impl.commands;
 
+import com.google.gson.stream.JsonWriter;
+import de.jcm.discordgamesdk.impl.WireAdapters;
+
+import java.io.IOException;
+
 public class SendActivityJoinInvite
 {
 	private SendActivityJoinInvite() {}
@@ -12,5 +17,16 @@ public class SendActivityJoinInvite
 		{
 			this.user_id = user_id;
 		}
+
+		public static class Adapter extends WireAdapters.Writer<Args>
+		{
+			@Override
+			public void write(JsonWriter out, Args args) throws IOException
+			{
+				out.beginObject();
+				out.name("user_id").value(args.user_id);
+				out.endObject();
+			}
+		}
 	}
 }
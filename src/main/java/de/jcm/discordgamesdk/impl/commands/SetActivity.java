@@ -1,6 +1,12 @@
 package de.jcm.discordgamesdk.impl.commands;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
 import de.jcm.discordgamesdk.activity.Activity;
+import de.jcm.discordgamesdk.impl.WireAdapters;
+
+import java.io.IOException;
 
 public class SetActivity
 {
@@ -15,5 +21,52 @@ public class SetActivity
 			this.pid = pid;
 			this.activity = activity;
 		}
+
+		public static class Adapter extends WireAdapters.Writer<Args>
+		{
+			private final TypeAdapter<Activity> activityAdapter;
+
+			public Adapter(Gson gson)
+			{
+				this.activityAdapter = gson.getAdapter(Activity.class);
+			}
+
+			@Override
+			public void write(JsonWriter out, Args args) throws IOException
+			{
+				out.beginObject();
+				out.name("pid").value(args.pid);
+				out.name("activity");
+				activityAdapter.write(out, args.activity);
+				out.endObject();
+			}
+		}
+	}
+
+	/**
+	 * Arguments that have been encoded already, so that the activity can be changed while they wait to be sent.
+	 */
+	public static class Encoded
+	{
+		private final String json;
+
+		public Encoded(String json)
+		{
+			this.json = json;
+		}
+
+		public String getJson()
+		{
+			return json;
+		}
+
+		public static class Adapter extends WireAdapters.Writer<Encoded>
+		{
+			@Override
+			public void write(JsonWriter out, Encoded encoded) throws IOException
+			{
+				out.jsonValue(encoded.json);
+			}
+		}
 	}
 }
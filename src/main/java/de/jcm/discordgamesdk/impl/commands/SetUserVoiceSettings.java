@@ -1,5 +1,10 @@
 package de.jcm.discordgamesdk.impl.commands;
 
+import com.google.gson.stream.JsonWriter;
+import de.jcm.discordgamesdk.impl.WireAdapters;
+
+import java.io.IOException;
+
 public class SetUserVoiceSettings {
     public static class Args {
         public String user_id;
@@ -7,6 +12,15 @@ public class SetUserVoiceSettings {
         public Args(String user_id) {
             this.user_id = user_id;
         }
+
+        public static class Adapter extends WireAdapters.Writer<Args> {
+            @Override
+            public void write(JsonWriter out, Args args) throws IOException {
+                out.beginObject();
+                out.name("user_id").value(args.user_id);
+                out.endObject();
+            }
+        }
     }
     public static class Mute extends Args {
         public boolean mute;
@@ -15,6 +29,16 @@ public class SetUserVoiceSettings {
             super(user_id);
             this.mute = mute;
         }
+
+        public static class Adapter extends WireAdapters.Writer<Mute> {
+            @Override
+            public void write(JsonWriter out, Mute mute) throws IOException {
+                out.beginObject();
+                out.name("mute").value(mute.mute);
+                out.name("user_id").value(mute.user_id);
+                out.endObject();
+            }
+        }
     }
     public static class Volume extends Args {
         public int volume;
@@ -23,5 +47,15 @@ public class SetUserVoiceSettings {
             super(user_id);
             this.volume = volume;
         }
+
+        public static class Adapter extends WireAdapters.Writer<Volume> {
+            @Override
+            public void write(JsonWriter out, Volume volume) throws IOException {
+                out.beginObject();
+                out.name("volume").value(volume.volume);
+                out.name("user_id").value(volume.user_id);
+                out.endObject();
+            }
+        }
     }
 }
@@ -1,7 +1,13 @@
 package de.jcm.discordgamesdk.impl.commands;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+import de.jcm.discordgamesdk.impl.WireAdapters;
 import de.jcm.discordgamesdk.voice.VoiceInputMode;
 
+import java.io.IOException;
+
 public class SetVoiceSettings2 {
     private SetVoiceSettings2() {}
 
@@ -11,6 +17,22 @@ public class SetVoiceSettings2 {
         public InputMode(VoiceInputMode input_mode) {
             this.input_mode = input_mode;
         }
+
+        public static class Adapter extends WireAdapters.Writer<InputMode> {
+            private final TypeAdapter<VoiceInputMode> inputModeAdapter;
+
+            public Adapter(Gson gson) {
+                this.inputModeAdapter = gson.getAdapter(VoiceInputMode.class);
+            }
+
+            @Override
+            public void write(JsonWriter out, InputMode inputMode) throws IOException {
+                out.beginObject();
+                out.name("input_mode");
+                inputModeAdapter.write(out, inputMode.input_mode);
+                out.endObject();
+            }
+        }
     }
     public static class SelfMute {
         public boolean self_mute;
@@ -18,6 +40,15 @@ public class SetVoiceSettings2 {
         public SelfMute(boolean self_mute) {
             this.self_mute = self_mute;
         }
+
+        public static class Adapter extends WireAdapters.Writer<SelfMute> {
+            @Override
+            public void write(JsonWriter out, SelfMute selfMute) throws IOException {
+                out.beginObject();
+                out.name("self_mute").value(selfMute.self_mute);
+                out.endObject();
+            }
+        }
     }
     public static class SelfDeaf {
         public boolean self_deaf;
@@ -25,5 +56,14 @@ public class SetVoiceSettings2 {
         public SelfDeaf(boolean self_deaf) {
             this.self_deaf = self_deaf;
         }
+
+        public static class Adapter extends WireAdapters.Writer<SelfDeaf> {
+            @Override
+            public void write(JsonWriter out, SelfDeaf selfDeaf) throws IOException {
+                out.beginObject();
+                out.name("self_deaf").value(selfDeaf.self_deaf);
+                out.endObject();
+            }
+        }
     }
 }
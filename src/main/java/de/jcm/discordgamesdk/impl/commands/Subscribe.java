@@ -1,6 +1,12 @@
 package de.jcm.discordgamesdk.impl.commands;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
 import de.jcm.discordgamesdk.impl.Command;
+import de.jcm.discordgamesdk.impl.WireAdapters;
+
+import java.io.IOException;
 
 public class Subscribe
 {
@@ -13,5 +19,32 @@ public class Subscribe
 		{
 			return evt;
 		}
+
+		public static class Adapter extends WireAdapters.Reader<Response>
+		{
+			private final TypeAdapter<Command.Event> eventAdapter;
+
+			public Adapter(Gson gson)
+			{
+				this.eventAdapter = gson.getAdapter(Command.Event.class);
+			}
+
+			@Override
+			public Response read(JsonReader in) throws IOException
+			{
+				Response response = new Response();
+				in.beginObject();
+				while(in.hasNext())
+				{
+					switch(in.nextName())
+					{
+						case "evt" -> response.evt = eventAdapter.read(in);
+						default -> in.skipValue();
+					}
+				}
+				in.endObject();
+				return response;
+			}
+		}
 	}
 }
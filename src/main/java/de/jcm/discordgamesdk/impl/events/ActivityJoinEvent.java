@@ -1,12 +1,32 @@
 package de.jcm.discordgamesdk.impl.events;
 
+import com.google.gson.stream.JsonReader;
 import de.jcm.discordgamesdk.Core;
 import de.jcm.discordgamesdk.impl.Command;
 import de.jcm.discordgamesdk.impl.EventHandler;
+import de.jcm.discordgamesdk.impl.WireAdapters;
+
+import java.io.IOException;
 
 public class ActivityJoinEvent {
     public static class Data {
         String secret;
+
+        public static class Adapter extends WireAdapters.Reader<Data> {
+            @Override
+            public Data read(JsonReader in) throws IOException {
+                Data data = new Data();
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "secret" -> data.secret = WireAdapters.readString(in);
+                        default -> in.skipValue();
+                    }
+                }
+                in.endObject();
+                return data;
+            }
+        }
     }
 
     public static class Handler extends EventHandler<Data> {
@@ -17,11 +37,17 @@ public class ActivityJoinEvent {
         @Override
         public void handle(Command command, Data data) {
             core.getEventAdapter().onActivityJoin(data.secret);
+            core.activityJoins.publish(data.secret);
         }
 
         @Override
         public Class<?> getDataClass() {
             return Data.class;
         }
+
+        @Override
+        public boolean isWanted() {
+            return core.hasListener(Command.Event.ACTIVITY_JOIN) || core.activityJoins.hasSubscribers();
+        }
     }
 }
@@ -1,39 +1,82 @@
 package de.jcm.discordgamesdk.impl.events;
 
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
 import de.jcm.discordgamesdk.Core;
 import de.jcm.discordgamesdk.impl.Command;
 import de.jcm.discordgamesdk.impl.EventHandler;
+import de.jcm.discordgamesdk.impl.WireAdapters;
 import de.jcm.discordgamesdk.user.DiscordUser;
 
+import java.io.IOException;
+
 public class ActivityJoinRequestEvent {
 
-    public static class Handler extends EventHandler<DiscordUser> {
+    public static class Data {
+        DiscordUser user;
+
+        /**
+         * Reads only the fields of the user we pass on, with {@code bot} being {@code false} unless given.
+         */
+        public static class Adapter extends WireAdapters.Reader<Data> {
+            @Override
+            public Data read(JsonReader in) throws IOException {
+                Data data = new Data();
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "user" -> data.user = readUser(in);
+                        default -> in.skipValue();
+                    }
+                }
+                in.endObject();
+                return data;
+            }
+
+            private static DiscordUser readUser(JsonReader in) throws IOException {
+                long userID = 0;
+                String username = null;
+                String discriminator = null;
+                String avatar = null;
+                boolean bot = false;
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "id" -> {
+                            String id = WireAdapters.readString(in);
+                            if (id != null) userID = Long.parseLong(id);
+                        }
+                        case "username" -> username = WireAdapters.readString(in);
+                        case "discriminator" -> discriminator = WireAdapters.readString(in);
+                        case "avatar" -> avatar = WireAdapters.readString(in);
+                        case "bot" -> bot = WireAdapters.readBoolean(in, false);
+                        default -> in.skipValue();
+                    }
+                }
+                in.endObject();
+                return new DiscordUser(userID, username, discriminator, avatar, bot);
+            }
+        }
+    }
+
+    public static class Handler extends EventHandler<Data> {
         public Handler(Core.CorePrivate core) {
             super(core);
         }
 
         @Override
-        public void handle(Command command, DiscordUser discordUser) {
-            JsonObject data = command.getData().getAsJsonObject();
-            JsonObject userData = data.getAsJsonObject("user");
-            long userID = 0;
-            String username = null;
-            String discriminator = null;
-            String avatar = null;
-            boolean bot = false;
-            if (!userData.get("id").isJsonNull()) userID = Long.parseLong(userData.get("id").getAsString());
-            if (!userData.get("username").isJsonNull()) username = userData.get("username").getAsString();
-            if (!userData.get("discriminator").isJsonNull()) discriminator = userData.get("discriminator").getAsString();
-            if (!userData.get("avatar").isJsonNull()) avatar = userData.get("avatar").getAsString();
-            if (!userData.get("bot").isJsonNull()) bot = userData.get("bot").getAsBoolean();
-            DiscordUser user = new DiscordUser(userID, username, discriminator, avatar, bot);
-            core.getEventAdapter().onActivityJoinRequest(user);
+        public void handle(Command command, Data data) {
+            core.getEventAdapter().onActivityJoinRequest(data.user);
+            core.activityJoinRequests.publish(data.user);
         }
 
         @Override
         public Class<?> getDataClass() {
-            return DiscordUser.class;
+            return Data.class;
+        }
+
+        @Override
+        public boolean isWanted() {
+            return core.hasListener(Command.Event.ACTIVITY_JOIN_REQUEST) || core.activityJoinRequests.hasSubscribers();
         }
     }
 
@@ -19,6 +19,7 @@ public class CurrentUserUpdateEvent
 		{
 			core.currentUser = user;
 			core.getEventAdapter().onCurrentUserUpdate();
+			core.currentUserUpdates.publish(user);
 		}
 
 		@Override
@@ -1,8 +1,13 @@
 package de.jcm.discordgamesdk.impl.events;
 
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import de.jcm.discordgamesdk.Core;
 import de.jcm.discordgamesdk.impl.Command;
 import de.jcm.discordgamesdk.impl.EventHandler;
+import de.jcm.discordgamesdk.impl.WireAdapters;
+
+import java.io.IOException;
 
 public class OverlayUpdateEvent
 {
@@ -20,6 +25,27 @@ public class OverlayUpdateEvent
 		{
 			return locked;
 		}
+
+		public static class Adapter extends WireAdapters.Reader<Data>
+		{
+			@Override
+			public Data read(JsonReader in) throws IOException
+			{
+				Data data = new Data();
+				in.beginObject();
+				while(in.hasNext())
+				{
+					switch(in.nextName())
+					{
+						case "enabled" -> data.enabled = WireAdapters.readBoolean(in, data.enabled);
+						case "locked" -> data.locked = WireAdapters.readBoolean(in, data.locked);
+						default -> in.skipValue();
+					}
+				}
+				in.endObject();
+				return data;
+			}
+		}
 	}
 
 	public static class Handler extends EventHandler<Data>
@@ -33,6 +59,7 @@ public class OverlayUpdateEvent
 		public void handle(Command command, Data data)
 		{
 			core.overlayData = data;
+			core.getEventAdapter().onOverlayToggle(data.isLocked());
 		}
 
 		@Override
@@ -41,7 +68,7 @@ public class OverlayUpdateEvent
 			return Data.class;
 		}
 
-		private static class Args
+		public static class Args
 		{
 			private final int pid;
 
@@ -49,6 +76,17 @@ public class OverlayUpdateEvent
 			{
 				this.pid = pid;
 			}
+
+			public static class Adapter extends WireAdapters.Writer<Args>
+			{
+				@Override
+				public void write(JsonWriter out, Args args) throws IOException
+				{
+					out.beginObject();
+					out.name("pid").value(args.pid);
+					out.endObject();
+				}
+			}
 		};
 
 		@Override
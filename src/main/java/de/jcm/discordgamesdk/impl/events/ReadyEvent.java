@@ -1,10 +1,16 @@
 package de.jcm.discordgamesdk.impl.events;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
 import de.jcm.discordgamesdk.Core;
 import de.jcm.discordgamesdk.impl.Command;
 import de.jcm.discordgamesdk.impl.EventHandler;
+import de.jcm.discordgamesdk.impl.WireAdapters;
 import de.jcm.discordgamesdk.user.DiscordUser;
 
+import java.io.IOException;
+
 public class ReadyEvent
 {
 	public static class Data
@@ -13,7 +19,7 @@ public class ReadyEvent
 		Config config;
 		DiscordUser user;
 
-		static class Config
+		public static class Config
 		{
 			String cdn_host;
 			String api_endpoint;
@@ -28,6 +34,28 @@ public class ReadyEvent
 						", environment='" + environment + '\'' +
 						'}';
 			}
+
+			public static class Adapter extends WireAdapters.Reader<Config>
+			{
+				@Override
+				public Config read(JsonReader in) throws IOException
+				{
+					Config config = new Config();
+					in.beginObject();
+					while(in.hasNext())
+					{
+						switch(in.nextName())
+						{
+							case "cdn_host" -> config.cdn_host = WireAdapters.readString(in);
+							case "api_endpoint" -> config.api_endpoint = WireAdapters.readString(in);
+							case "environment" -> config.environment = WireAdapters.readString(in);
+							default -> in.skipValue();
+						}
+					}
+					in.endObject();
+					return config;
+				}
+			}
 		}
 
 		@Override
@@ -39,6 +67,37 @@ public class ReadyEvent
 					", user=" + user +
 					'}';
 		}
+
+		public static class Adapter extends WireAdapters.Reader<Data>
+		{
+			private final TypeAdapter<Config> configAdapter;
+			private final TypeAdapter<DiscordUser> userAdapter;
+
+			public Adapter(Gson gson)
+			{
+				this.configAdapter = gson.getAdapter(Config.class);
+				this.userAdapter = gson.getAdapter(DiscordUser.class);
+			}
+
+			@Override
+			public Data read(JsonReader in) throws IOException
+			{
+				Data data = new Data();
+				in.beginObject();
+				while(in.hasNext())
+				{
+					switch(in.nextName())
+					{
+						case "v" -> data.v = WireAdapters.readInt(in, data.v);
+						case "config" -> data.config = configAdapter.read(in);
+						case "user" -> data.user = userAdapter.read(in);
+						default -> in.skipValue();
+					}
+				}
+				in.endObject();
+				return data;
+			}
+		}
 	}
 
 	public static class Handler extends EventHandler<Data>
@@ -53,7 +112,8 @@ public class ReadyEvent
 		{
 			core.ready();
 			core.currentUser = data.user;
-			core.workQueue.add(()->core.getEventAdapter().onCurrentUserUpdate());
+			core.post(()->core.getEventAdapter().onCurrentUserUpdate());
+			core.currentUserUpdates.publish(data.user);
 		}
 
 		@Override
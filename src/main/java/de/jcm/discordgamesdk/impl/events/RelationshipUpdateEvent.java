@@ -19,6 +19,7 @@ public class RelationshipUpdateEvent
 		{
 			core.relationships.put(data.user.getUserId(), data.toRelationship());
 			core.getEventAdapter().onRelationshipUpdate(data.toRelationship());
+			core.relationshipUpdates.publish(data.toRelationship());
 		}
 
 		@Override
@@ -1,10 +1,16 @@
 package de.jcm.discordgamesdk.impl.events;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 import de.jcm.discordgamesdk.Core;
 import de.jcm.discordgamesdk.impl.Command;
 import de.jcm.discordgamesdk.impl.EventHandler;
+import de.jcm.discordgamesdk.impl.WireAdapters;
 import de.jcm.discordgamesdk.voice.VoiceInputMode;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -44,6 +50,41 @@ public class VoiceSettingsUpdate2Event
 		{
 			return self_deaf;
 		}
+
+		public static class Adapter extends WireAdapters.Reader<Data>
+		{
+			private final TypeAdapter<VoiceInputMode> inputModeAdapter;
+			private final TypeAdapter<List<String>> localMutesAdapter;
+			private final TypeAdapter<Map<String, Integer>> localVolumesAdapter;
+
+			public Adapter(Gson gson)
+			{
+				this.inputModeAdapter = gson.getAdapter(VoiceInputMode.class);
+				this.localMutesAdapter = gson.getAdapter(new TypeToken<List<String>>(){});
+				this.localVolumesAdapter = gson.getAdapter(new TypeToken<Map<String, Integer>>(){});
+			}
+
+			@Override
+			public Data read(JsonReader in) throws IOException
+			{
+				Data data = new Data();
+				in.beginObject();
+				while(in.hasNext())
+				{
+					switch(in.nextName())
+					{
+						case "input_mode" -> data.input_mode = inputModeAdapter.read(in);
+						case "local_mutes" -> data.local_mutes = localMutesAdapter.read(in);
+						case "local_volumes" -> data.local_volumes = localVolumesAdapter.read(in);
+						case "self_mute" -> data.self_mute = WireAdapters.readBoolean(in, data.self_mute);
+						case "self_deaf" -> data.self_deaf = WireAdapters.readBoolean(in, data.self_deaf);
+						default -> in.skipValue();
+					}
+				}
+				in.endObject();
+				return data;
+			}
+		}
 	}
 
 	public static class Handler extends EventHandler<Data>
@@ -1,6 +1,12 @@
 package de.jcm.discordgamesdk.user;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import de.jcm.discordgamesdk.impl.WireAdapters;
+
+import java.io.IOException;
 
 /**
  * <p>Representation of a Discord user.</p>
@@ -45,6 +51,18 @@ public class DiscordUser
 	 * <p>You probably do <b>not</b> want to construct the class, since it is mainly used for output.</p>
 	 * @param userId ID of the user, a Discord snowflake
 	 */
+	private DiscordUser(String userId, String username, String discriminator, String avatar, String avatar_decoration,
+	                    Boolean bot, Integer flags)
+	{
+		this.userId = userId;
+		this.username = username;
+		this.discriminator = discriminator;
+		this.avatar = avatar;
+		this.avatar_decoration = avatar_decoration;
+		this.bot = bot;
+		this.flags = flags;
+	}
+
 	public DiscordUser(long userId)
 	{
 		this(userId, null, null, null, null);
@@ -122,4 +140,60 @@ public class DiscordUser
 				", flags=" + flags +
 				'}';
 	}
+
+	/**
+	 * Reads and writes users for {@link WireAdapters}.
+	 */
+	public static class Adapter extends TypeAdapter<DiscordUser>
+	{
+		@Override
+		public void write(JsonWriter out, DiscordUser user) throws IOException
+		{
+			out.beginObject();
+			if(user.userId != null)
+				out.name("id").value(user.userId);
+			if(user.username != null)
+				out.name("username").value(user.username);
+			if(user.discriminator != null)
+				out.name("discriminator").value(user.discriminator);
+			if(user.avatar != null)
+				out.name("avatar").value(user.avatar);
+			if(user.avatar_decoration != null)
+				out.name("avatar_decoration").value(user.avatar_decoration);
+			if(user.bot != null)
+				out.name("bot").value(user.bot.booleanValue());
+			if(user.flags != null)
+				out.name("flags").value(user.flags.intValue());
+			out.endObject();
+		}
+
+		@Override
+		public DiscordUser read(JsonReader in) throws IOException
+		{
+			String userId = null;
+			String username = null;
+			String discriminator = null;
+			String avatar = null;
+			String avatar_decoration = null;
+			Boolean bot = null;
+			Integer flags = null;
+			in.beginObject();
+			while(in.hasNext())
+			{
+				switch(in.nextName())
+				{
+					case "id" -> userId = WireAdapters.readString(in);
+					case "username" -> username = WireAdapters.readString(in);
+					case "discriminator" -> discriminator = WireAdapters.readString(in);
+					case "avatar" -> avatar = WireAdapters.readString(in);
+					case "avatar_decoration" -> avatar_decoration = WireAdapters.readString(in);
+					case "bot" -> bot = WireAdapters.readBooleanObject(in);
+					case "flags" -> flags = WireAdapters.readInteger(in);
+					default -> in.skipValue();
+				}
+			}
+			in.endObject();
+			return new DiscordUser(userId, username, discriminator, avatar, avatar_decoration, bot, flags);
+		}
+	}
 }
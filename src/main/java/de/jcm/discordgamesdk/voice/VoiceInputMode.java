@@ -1,7 +1,12 @@
 package de.jcm.discordgamesdk.voice;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import de.jcm.discordgamesdk.VoiceManager;
+import de.jcm.discordgamesdk.impl.WireAdapters;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.function.Consumer;
@@ -174,4 +179,54 @@ public class VoiceInputMode
 	{
 		return getType().nativeValue();
 	}
+
+	/**
+	 * Reads and writes input modes for {@link WireAdapters}.
+	 */
+	public static class Adapter extends TypeAdapter<VoiceInputMode>
+	{
+		@Override
+		public void write(JsonWriter out, VoiceInputMode inputMode) throws IOException
+		{
+			out.beginObject();
+			if(inputMode.type != null)
+				out.name("type").value(inputMode.type.name());
+			if(inputMode.shortcut != null)
+				out.name("shortcut").value(inputMode.shortcut);
+			out.endObject();
+		}
+
+		@Override
+		public VoiceInputMode read(JsonReader in) throws IOException
+		{
+			InputModeType type = null;
+			String shortcut = null;
+			in.beginObject();
+			while(in.hasNext())
+			{
+				switch(in.nextName())
+				{
+					case "type" -> type = readType(in);
+					case "shortcut" -> shortcut = WireAdapters.readString(in);
+					default -> in.skipValue();
+				}
+			}
+			in.endObject();
+			return new VoiceInputMode(type, shortcut);
+		}
+
+		/**
+		 * Reads the type like Gson does, i.e. {@code null} for unknown names.
+		 */
+		private static InputModeType readType(JsonReader in) throws IOException
+		{
+			String name = WireAdapters.readString(in);
+			for(InputModeType type : InputModeType.values())
+			{
+				if(type.name().equals(name))
+					return type;
+			}
+			return null;
+		}
+	}
 }
@@ -0,0 +1,63 @@
+package de.jcm.discordgamesdk;
+
+import de.jcm.discordgamesdk.activity.Activity;
+import de.jcm.discordgamesdk.impl.channel.MemoryDiscordChannel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class ActivityCoalescingTest
+{
+	private static Activity activity(String state)
+	{
+		Activity activity = new Activity();
+		activity.setState(state);
+		return activity;
+	}
+
+	private static String written(MemoryDiscordChannel channel)
+	{
+		return new String(channel.written(), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void newestUpdateWinsWithinWindow() throws Exception
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = TestData.connectedCore(channel, params->{
+			params.setCoalesceActivityUpdates(true);
+			params.setActivityUpdateRateLimit(1, Duration.ofMillis(200));
+		}))
+		{
+			List<Result> results = new ArrayList<>();
+			core.activityManager().updateActivity(activity("first"), results::add);
+			core.activityManager().updateActivity(activity("second"), results::add);
+			CompletableFuture<Void> third = core.activityManager().updateActivityAsync(activity("third"));
+			Assertions.assertTrue(written(channel).contains("first"));
+			Assertions.assertFalse(written(channel).contains("third"));
+			Assertions.assertEquals(1, core.activityManager().getCoalescedUpdateCount());
+
+			channel.supply(MemoryDiscordChannel.frame(1,
+					"{\"cmd\":\"SET_ACTIVITY\",\"data\":null,\"evt\":null,\"nonce\":\""+channel.nonce("SET_ACTIVITY")+"\"}"));
+			core.runCallbacks();
+			Assertions.assertEquals(List.of(Result.OK), results);
+
+			Thread.sleep(250);
+			core.runCallbacks();
+			Assertions.assertTrue(written(channel).contains("third"));
+			Assertions.assertFalse(written(channel).contains("second"));
+
+			channel.supply(MemoryDiscordChannel.frame(1,
+					"{\"cmd\":\"SET_ACTIVITY\",\"data\":null,\"evt\":null,\"nonce\":\""+channel.nonce("SET_ACTIVITY")+"\"}"));
+			core.runCallbacks();
+			Assertions.assertEquals(List.of(Result.OK, Result.OK), results);
+			Assertions.assertTrue(third.isDone());
+			third.get();
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package de.jcm.discordgamesdk;
+
+import de.jcm.discordgamesdk.activity.Activity;
+import de.jcm.discordgamesdk.impl.channel.MemoryDiscordChannel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class ActivityFingerprintTest
+{
+	private static final Pattern LAST_STATE = Pattern.compile("(?s).*\"state\":\"([^\"]*)\"");
+
+	private static int sentUpdates(MemoryDiscordChannel channel)
+	{
+		return channel.nonces("SET_ACTIVITY").size();
+	}
+
+	private static String lastSentState(MemoryDiscordChannel channel)
+	{
+		Matcher matcher = LAST_STATE.matcher(new String(channel.written(), StandardCharsets.UTF_8));
+		Assertions.assertTrue(matcher.find());
+		return matcher.group(1);
+	}
+
+	/**
+	 * Answers the last update sent.
+	 */
+	private static void respond(MemoryDiscordChannel channel, boolean error)
+	{
+		String nonce = channel.nonce("SET_ACTIVITY");
+		String body = error ?
+				"{\"cmd\":\"SET_ACTIVITY\",\"data\":{\"code\":4000,\"message\":\"bad\"},\"evt\":\"ERROR\",\"nonce\":\""+nonce+"\"}" :
+				"{\"cmd\":\"SET_ACTIVITY\",\"data\":null,\"evt\":null,\"nonce\":\""+nonce+"\"}";
+		channel.supply(MemoryDiscordChannel.frame(1, body));
+	}
+
+	@Test
+	void identicalUpdateIsSkipped()
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = TestData.connectedCore(channel))
+		{
+			List<Result> results = new ArrayList<>();
+			Activity activity = new Activity();
+			activity.setState("level 1");
+
+			core.activityManager().updateActivity(activity, results::add);
+			respond(channel, false);
+			core.runCallbacks();
+
+			Activity same = new Activity();
+			same.setState("level 1");
+			core.activityManager().updateActivity(same, results::add);
+			core.runCallbacks();
+			Assertions.assertEquals(1, sentUpdates(channel));
+			Assertions.assertEquals(1, core.activityManager().getSkippedUpdateCount());
+			Assertions.assertEquals(List.of(Result.OK, Result.OK), results);
+
+			core.activityManager().updateActivity(same, true, results::add);
+			Assertions.assertEquals(2, sentUpdates(channel));
+			respond(channel, true);
+			core.runCallbacks();
+
+			// Discord did not accept it, so the same activity is sent again
+			core.activityManager().updateActivity(same, results::add);
+			Assertions.assertEquals(3, sentUpdates(channel));
+
+			activity.setState("level 2");
+			core.activityManager().updateActivity(activity, results::add);
+			Assertions.assertEquals(4, sentUpdates(channel));
+		}
+	}
+
+	@Test
+	void skippedUpdateGetsResultOfIdenticalUpdate()
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = TestData.connectedCore(channel))
+		{
+			List<Result> results = new ArrayList<>();
+			Activity activity = new Activity();
+			activity.setState("level 1");
+
+			core.activityManager().updateActivity(activity, results::add);
+			core.activityManager().updateActivity(activity, results::add);
+			core.runCallbacks();
+			Assertions.assertEquals(1, sentUpdates(channel));
+			Assertions.assertEquals(1, core.activityManager().getSkippedUpdateCount());
+			// the update is still on its way, so there is no result for either
+			Assertions.assertEquals(List.of(), results);
+
+			respond(channel, true);
+			core.runCallbacks();
+			Assertions.assertEquals(List.of(Result.INVALID_PAYLOAD, Result.INVALID_PAYLOAD), results);
+		}
+	}
+
+	@Test
+	void lastRecordedUpdateIsLastSent() throws Exception
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = TestData.connectedCore(channel))
+		{
+			int threads = 4;
+			for(int round = 0; round < 200; round++)
+			{
+				CyclicBarrier start = new CyclicBarrier(threads);
+				List<Thread> updaters = new ArrayList<>();
+				for(int t = 0; t < threads; t++)
+				{
+					Activity activity = new Activity();
+					activity.setState(round+"/"+t);
+					Thread updater = new Thread(()->{
+						try
+						{
+							start.await();
+						}
+						catch(Exception e)
+						{
+							throw new RuntimeException(e);
+						}
+						core.activityManager().updateActivity(activity, result->{});
+					});
+					updater.start();
+					updaters.add(updater);
+				}
+				for(Thread updater : updaters)
+					updater.join();
+
+				// whatever was sent last is what Discord has, so sending it again must be skipped
+				int sent = sentUpdates(channel);
+				Activity last = new Activity();
+				last.setState(lastSentState(channel));
+				core.activityManager().updateActivity(last, result->{});
+				Assertions.assertEquals(sent, sentUpdates(channel), "round "+round);
+			}
+		}
+	}
+}
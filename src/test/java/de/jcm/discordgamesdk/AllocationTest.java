@@ -0,0 +1,63 @@
+package de.jcm.discordgamesdk;
+
+import de.jcm.discordgamesdk.impl.channel.MemoryDiscordChannel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+public class AllocationTest
+{
+	private static long allocatedBytes(com.sun.management.ThreadMXBean bean, long threadId)
+	{
+		return bean.getThreadAllocatedBytes(threadId);
+	}
+
+	@Test
+	void idleRunCallbacksDoesNotAllocate()
+	{
+		Assumptions.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+		                       "allocation counters not available");
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		Assumptions.assumeTrue(bean.isThreadAllocatedMemorySupported(), "allocation counters not supported");
+		bean.setThreadAllocatedMemoryEnabled(true);
+
+		CreateParams params = new CreateParams();
+		params.setClientID(Config.CLIENT_ID);
+		Duration budget = Duration.ofMillis(2);
+		try(Core core = new Core(params, new MemoryDiscordChannel()))
+		{
+			long threadId = Thread.currentThread().getId();
+			// only for one-time initialization, so that the first windows still run interpreted
+			for(int i = 0; i < 100; i++)
+			{
+				core.runCallbacks();
+				core.runCallbacks(16, budget);
+			}
+
+			/*
+			 * Anything allocated per call adds up to at least 16 bytes per call in every window,
+			 * including the early ones before the JIT could remove it by escape analysis.
+			 * The JIT itself allocates a few hundred bytes on this thread once, at a point that depends
+			 * on its timing, so a window is allowed less than a byte per call instead of none at all.
+			 */
+			int calls = 2000;
+			allocatedBytes(bean, threadId);
+			for(int window = 0; window < 20; window++)
+			{
+				long before = allocatedBytes(bean, threadId);
+				for(int i = 0; i < calls / 2; i++)
+				{
+					core.runCallbacks();
+					core.runCallbacks(16, budget);
+				}
+				long after = allocatedBytes(bean, threadId);
+
+				Assertions.assertTrue(after - before < calls,
+						"idle runCallbacks() allocated "+(after - before)+" bytes in "+calls+" calls (window "+window+")");
+			}
+		}
+	}
+}
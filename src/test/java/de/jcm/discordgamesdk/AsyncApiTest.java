@@ -0,0 +1,87 @@
+package de.jcm.discordgamesdk;
+
+import de.jcm.discordgamesdk.impl.channel.MemoryDiscordChannel;
+import de.jcm.discordgamesdk.user.DiscordUser;
+import de.jcm.discordgamesdk.voice.VoiceInputMode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class AsyncApiTest
+{
+	@Test
+	void futureCompletesFromResponse() throws Exception
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = TestData.connectedCore(channel))
+		{
+			CompletableFuture<DiscordUser> user = core.userManager().getUserAsync(5);
+			CompletableFuture<Void> activity = core.activityManager().clearActivityAsync();
+			channel.supply(MemoryDiscordChannel.frame(1, "{\"cmd\":\"GET_USER\",\"data\":{\"id\":\"5\",\"username\":\"async\"},"
+					+"\"evt\":null,\"nonce\":\""+channel.nonce("GET_USER")+"\"}"));
+			channel.supply(MemoryDiscordChannel.frame(1, "{\"cmd\":\"SET_ACTIVITY\",\"data\":{\"code\":4000,\"message\":\"bad\"},"
+					+"\"evt\":\"ERROR\",\"nonce\":\""+channel.nonce("SET_ACTIVITY")+"\"}"));
+			core.runCallbacks();
+
+			Assertions.assertEquals("async", user.getNow(null).getUsername());
+			ExecutionException e = Assertions.assertThrows(ExecutionException.class, activity::get);
+			Assertions.assertEquals(Result.INVALID_PAYLOAD, ((GameSDKException) e.getCause()).getResult());
+		}
+	}
+
+	@Test
+	void cancelGivesUpRequest() throws Exception
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = TestData.connectedCore(channel))
+		{
+			int pending = core.getPendingRequestCount();
+			CompletableFuture<DiscordUser> user = core.userManager().getUserAsync(5);
+			CompletableFuture<DiscordUser> timedOut = core.userManager().getUserAsync(6);
+			Assertions.assertEquals(pending + 2, core.getPendingRequestCount());
+			timedOut.orTimeout(1, TimeUnit.MILLISECONDS);
+
+			user.cancel(false);
+			Assertions.assertThrows(ExecutionException.class, timedOut::get);
+			Assertions.assertEquals(pending, core.getPendingRequestCount());
+
+			channel.supply(MemoryDiscordChannel.frame(1, "{\"cmd\":\"GET_USER\",\"data\":{\"id\":\"5\",\"username\":\"late\"},"
+					+"\"evt\":null,\"nonce\":\""+channel.nonces("GET_USER").get(0)+"\"}"));
+			core.runCallbacks();
+			Assertions.assertEquals(1, core.getDroppedResponseCount());
+		}
+	}
+
+	@Test
+	void clearActivityUsesCallback()
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = TestData.connectedCore(channel))
+		{
+			AtomicReference<Result> result = new AtomicReference<>();
+			core.activityManager().clearActivity(result::set);
+			channel.supply(MemoryDiscordChannel.frame(1,
+					"{\"cmd\":\"SET_ACTIVITY\",\"data\":null,\"evt\":null,\"nonce\":\""+channel.nonce("SET_ACTIVITY")+"\"}"));
+			core.runCallbacks();
+			Assertions.assertEquals(Result.OK, result.get());
+		}
+	}
+
+	@Test
+	void inputModeIsCopied()
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = TestData.connectedCore(channel))
+		{
+			VoiceInputMode inputMode = new VoiceInputMode(VoiceInputMode.InputModeType.PUSH_TO_TALK, "ctrl");
+			core.voiceManager().setInputModeAsync(inputMode);
+			inputMode.setShortcut("alt");
+
+			Assertions.assertEquals("ctrl", core.voiceManager().getInputMode().getShortcut());
+		}
+	}
+}
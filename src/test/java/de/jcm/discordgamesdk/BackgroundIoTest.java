@@ -0,0 +1,273 @@
+package de.jcm.discordgamesdk;
+
+import de.jcm.discordgamesdk.impl.channel.MemoryDiscordChannel;
+import de.jcm.discordgamesdk.impl.channel.SocketPairDiscordChannel;
+import de.jcm.discordgamesdk.user.Relationship;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class BackgroundIoTest
+{
+	private static final Pattern REQUEST = Pattern.compile("\"cmd\":\"(\\w+)\".*\"nonce\":\"(\\d+)\"");
+	private static final String RELATIONSHIP_UPDATE = "{\"cmd\":\"DISPATCH\",\"data\":{\"type\":1,\"user\":{\"id\":\"2\",\"username\":\"friend\"},"
+			+"\"presence\":{\"status\":\"online\"}},\"evt\":\"RELATIONSHIP_UPDATE\",\"nonce\":null}";
+
+	/**
+	 * Answers the requests of the Core like Discord would, until the connection is closed.
+	 */
+	private static Thread startPeer(SocketPairDiscordChannel channel)
+	{
+		Thread peer = new Thread(()->{
+			try
+			{
+				String frame;
+				while((frame = channel.receive()) != null)
+				{
+					Matcher matcher = REQUEST.matcher(frame);
+					if(!matcher.find())
+						continue;
+					String data = switch(matcher.group(1))
+					{
+						case "GET_USER" -> "{\"id\":\"5\",\"username\":\"looked-up\"}";
+						case "GET_RELATIONSHIPS" -> "{\"relationships\":[]}";
+						default -> "{}";
+					};
+					channel.send(MemoryDiscordChannel.frame(1, "{\"cmd\":\""+matcher.group(1)+"\",\"data\":"+data
+							+",\"evt\":null,\"nonce\":\""+matcher.group(2)+"\"}"));
+				}
+			}
+			catch(IOException ignored)
+			{
+				// the Core was closed
+			}
+		}, "fake Discord");
+		peer.setDaemon(true);
+		peer.start();
+		return peer;
+	}
+
+	private static CreateParams params(CreateParams.IoMode mode, CompletableFuture<String> currentUser,
+	                                   CompletableFuture<String> relationship)
+	{
+		CreateParams params = new CreateParams();
+		params.setClientID(Config.CLIENT_ID);
+		params.setIoMode(mode);
+		params.registerEventHandler(new DiscordEventAdapter()
+		{
+			@Override
+			public void onCurrentUserUpdate()
+			{
+				currentUser.complete(Thread.currentThread().getName());
+			}
+
+			@Override
+			public void onRelationshipUpdate(Relationship r)
+			{
+				relationship.complete(r.getUser().getUsername()+" "+Thread.currentThread().getName());
+			}
+		});
+		return params;
+	}
+
+	@Test
+	void selectorRunsCallbacksOnExecutor() throws Exception
+	{
+		SocketPairDiscordChannel channel = new SocketPairDiscordChannel();
+		ExecutorService executor = Executors.newSingleThreadExecutor(r->new Thread(r, "callbacks"));
+		CompletableFuture<String> currentUser = new CompletableFuture<>();
+		CompletableFuture<String> relationship = new CompletableFuture<>();
+		CreateParams params = params(CreateParams.IoMode.SELECTOR, currentUser, relationship);
+		params.setCallbackExecutor(executor);
+
+		channel.send(MemoryDiscordChannel.frame(1, TestData.READY));
+		startPeer(channel);
+		try(Core core = new Core(params, channel))
+		{
+			// READY is received by the constructor, before the I/O thread is started
+			Assertions.assertEquals("main", currentUser.get(5, TimeUnit.SECONDS));
+
+			// nothing calls runCallbacks, so all of these have to be run by the executor
+			CompletableFuture<String> user = new CompletableFuture<>();
+			core.userManager().getUser(5, (r, u)->user.complete(r+" "+u.getUsername()+" "+Thread.currentThread().getName()));
+			Assertions.assertEquals("OK looked-up callbacks", user.get(5, TimeUnit.SECONDS));
+
+			CompletableFuture<String> invite = new CompletableFuture<>();
+			core.overlayManager().openGuildInvite("code", r->invite.complete(r+" "+Thread.currentThread().getName()));
+			Assertions.assertEquals("OK callbacks", invite.get(5, TimeUnit.SECONDS));
+
+			channel.send(MemoryDiscordChannel.frame(1, RELATIONSHIP_UPDATE));
+			Assertions.assertEquals("friend callbacks", relationship.get(5, TimeUnit.SECONDS));
+			Assertions.assertEquals("me", core.userManager().getCurrentUser().getUsername());
+		}
+		finally
+		{
+			executor.shutdown();
+			channel.closePeer();
+		}
+	}
+
+	@Test
+	void selectorWithoutExecutorQueuesCallbacks() throws Exception
+	{
+		SocketPairDiscordChannel channel = new SocketPairDiscordChannel();
+		CompletableFuture<String> currentUser = new CompletableFuture<>();
+		CompletableFuture<String> relationship = new CompletableFuture<>();
+		CreateParams params = params(CreateParams.IoMode.SELECTOR, currentUser, relationship);
+
+		channel.send(MemoryDiscordChannel.frame(1, TestData.READY));
+		startPeer(channel);
+		try(Core core = new Core(params, channel))
+		{
+			CompletableFuture<String> user = new CompletableFuture<>();
+			core.userManager().getUser(5, (r, u)->user.complete(r+" "+u.getUsername()));
+
+			// the response is received in the background, but the callback waits for runCallbacks
+			Thread.sleep(200);
+			Assertions.assertFalse(user.isDone());
+
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while(!user.isDone() && System.nanoTime() < deadline)
+			{
+				Assertions.assertEquals(0, core.runCallbacks(Integer.MAX_VALUE, null).getFramesProcessed());
+				Thread.sleep(5);
+			}
+			Assertions.assertEquals("OK looked-up", user.getNow(null));
+		}
+		finally
+		{
+			channel.closePeer();
+		}
+	}
+
+	@Test
+	void blockingReaderRunsCallbacksOnExecutor() throws Exception
+	{
+		SocketPairDiscordChannel channel = new SocketPairDiscordChannel();
+		ExecutorService executor = Executors.newSingleThreadExecutor(r->new Thread(r, "callbacks"));
+		CompletableFuture<String> currentUser = new CompletableFuture<>();
+		CompletableFuture<String> relationship = new CompletableFuture<>();
+		CreateParams params = params(CreateParams.IoMode.VIRTUAL_THREAD, currentUser, relationship);
+		params.setCallbackExecutor(executor);
+
+		channel.send(MemoryDiscordChannel.frame(1, TestData.READY));
+		startPeer(channel);
+		try(Core core = new Core(params, channel))
+		{
+			awaitReaderThread(true);
+
+			// requests are written by the calling thread, responses read by the reader thread
+			CompletableFuture<String> user = new CompletableFuture<>();
+			core.userManager().getUser(5, (r, u)->user.complete(r+" "+u.getUsername()+" "+Thread.currentThread().getName()));
+			Assertions.assertEquals("OK looked-up callbacks", user.get(5, TimeUnit.SECONDS));
+
+			CompletableFuture<String> invite = new CompletableFuture<>();
+			core.overlayManager().openGuildInvite("code", r->invite.complete(r+" "+Thread.currentThread().getName()));
+			Assertions.assertEquals("OK callbacks", invite.get(5, TimeUnit.SECONDS));
+
+			channel.send(MemoryDiscordChannel.frame(1, RELATIONSHIP_UPDATE));
+			Assertions.assertEquals("friend callbacks", relationship.get(5, TimeUnit.SECONDS));
+		}
+		finally
+		{
+			executor.shutdown();
+			channel.closePeer();
+		}
+		// closing the Core unblocks and ends the reader
+		awaitReaderThread(false);
+	}
+
+	@Test
+	void blockingReaderWithoutExecutorQueuesCallbacks() throws Exception
+	{
+		SocketPairDiscordChannel channel = new SocketPairDiscordChannel();
+		CompletableFuture<String> currentUser = new CompletableFuture<>();
+		CompletableFuture<String> relationship = new CompletableFuture<>();
+		CreateParams params = params(CreateParams.IoMode.VIRTUAL_THREAD, currentUser, relationship);
+
+		channel.send(MemoryDiscordChannel.frame(1, TestData.READY));
+		startPeer(channel);
+		try(Core core = new Core(params, channel))
+		{
+			channel.send(MemoryDiscordChannel.frame(1, RELATIONSHIP_UPDATE));
+			Thread.sleep(200);
+			Assertions.assertFalse(relationship.isDone());
+
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while(!relationship.isDone() && System.nanoTime() < deadline)
+			{
+				Assertions.assertEquals(0, core.runCallbacks(Integer.MAX_VALUE, null).getFramesProcessed());
+				Thread.sleep(5);
+			}
+			Assertions.assertEquals("friend main", relationship.getNow(null));
+		}
+		finally
+		{
+			channel.closePeer();
+		}
+	}
+
+	@Test
+	void constructorDoesNotWaitForFrameAfterReady() throws Exception
+	{
+		SocketPairDiscordChannel channel = new SocketPairDiscordChannel();
+		CreateParams params = new CreateParams();
+		params.setClientID(Config.CLIENT_ID);
+
+		// like Discord, which sends nothing after READY until it gets a command, so reading blocks
+		channel.send(MemoryDiscordChannel.frame(1, TestData.READY));
+		Thread peer = new Thread(()->{
+			try
+			{
+				while(channel.receive() != null)
+				{
+					// never answers
+				}
+			}
+			catch(IOException ignored)
+			{
+				// the Core was closed
+			}
+		}, "silent Discord");
+		peer.setDaemon(true);
+		peer.start();
+		try
+		{
+			Core core = Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5), ()->new Core(params, channel));
+			try(core)
+			{
+				Assertions.assertEquals("me", core.userManager().getCurrentUser().getUsername());
+				Assertions.assertEquals(0, core.runCallbacks(Integer.MAX_VALUE, null).getFramesProcessed());
+			}
+		}
+		finally
+		{
+			channel.closePeer();
+		}
+	}
+
+	/**
+	 * Waits until the reader thread of {@link CreateParams.IoMode#VIRTUAL_THREAD} mode is (or is not) running.
+	 * Only platform threads can be found like this, so nothing is checked on Java 21 and newer.
+	 */
+	private static void awaitReaderThread(boolean alive) throws InterruptedException
+	{
+		if(Runtime.version().feature() >= 21)
+			return;
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while(Thread.getAllStackTraces().keySet().stream()
+				.anyMatch(t->t.getName().equals("discord-game-sdk4j reader")) != alive)
+		{
+			Assertions.assertTrue(System.nanoTime() < deadline, alive ? "reader not started" : "reader not stopped");
+			Thread.sleep(5);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package de.jcm.discordgamesdk;
+
+import de.jcm.discordgamesdk.impl.channel.MemoryDiscordChannel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CallbackBudgetTest
+{
+	/**
+	 * Supplies responses to requests that were never sent, which are handled by dropping them.
+	 */
+	private static void supplyFrames(MemoryDiscordChannel channel, int count)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			channel.supply(MemoryDiscordChannel.frame(1,
+					"{\"cmd\":\"GET_USER\",\"data\":{\"id\":\"5\",\"username\":\"x\"},\"evt\":null,\"nonce\":\""+(100 + i)+"\"}"));
+		}
+	}
+
+	@Test
+	void drainsAllAvailableFrames()
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = TestData.connectedCore(channel))
+		{
+			supplyFrames(channel, 5);
+			CallbackStats stats = core.runCallbacks(Integer.MAX_VALUE, null);
+			Assertions.assertEquals(5, stats.getFramesProcessed());
+			Assertions.assertFalse(stats.isBacklogged());
+			Assertions.assertEquals(5, core.getDroppedResponseCount());
+
+			// the stats are owned by the Core and reset by every call
+			Assertions.assertSame(stats, core.runCallbacks(Integer.MAX_VALUE, null));
+			Assertions.assertEquals(0, stats.getFramesProcessed());
+		}
+	}
+
+	@Test
+	void frameBudgetLeavesRestForNextCall()
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = TestData.connectedCore(channel))
+		{
+			supplyFrames(channel, 5);
+			CallbackStats stats = core.runCallbacks(2, null);
+			Assertions.assertEquals(2, stats.getFramesProcessed());
+			Assertions.assertTrue(stats.isBacklogged());
+			Assertions.assertEquals(2, core.getDroppedResponseCount());
+
+			stats = core.runCallbacks(2, null);
+			Assertions.assertEquals(2, stats.getFramesProcessed());
+			Assertions.assertTrue(stats.isBacklogged());
+
+			stats = core.runCallbacks(2, null);
+			Assertions.assertEquals(1, stats.getFramesProcessed());
+			Assertions.assertFalse(stats.isBacklogged());
+			Assertions.assertEquals(5, core.getDroppedResponseCount());
+		}
+	}
+
+	@Test
+	void exactlyUsedUpBudgetIsNotBacklogged()
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = TestData.connectedCore(channel))
+		{
+			supplyFrames(channel, 2);
+			CallbackStats stats = core.runCallbacks(2, null);
+			Assertions.assertEquals(2, stats.getFramesProcessed());
+			Assertions.assertFalse(stats.isBacklogged());
+
+			// a frame arriving afterwards is handled by the next call
+			supplyFrames(channel, 1);
+			Assertions.assertEquals(1, core.runCallbacks(2, null).getFramesProcessed());
+			Assertions.assertEquals(3, core.getDroppedResponseCount());
+		}
+	}
+
+	@Test
+	void timeBudgetLeavesTasksForNextCall()
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = TestData.connectedCore(channel))
+		{
+			AtomicInteger callbacks = new AtomicInteger();
+			for(int i = 0; i < 3; i++)
+				core.overlayManager().openGuildInvite("code", r->callbacks.incrementAndGet());
+			supplyFrames(channel, 1);
+
+			CallbackStats stats = core.runCallbacks(Integer.MAX_VALUE, Duration.ZERO);
+			Assertions.assertEquals(0, stats.getTasksRun());
+			Assertions.assertEquals(0, stats.getFramesProcessed());
+			Assertions.assertEquals(3, stats.getRemainingTasks());
+			Assertions.assertTrue(stats.isBacklogged());
+			Assertions.assertEquals(0, callbacks.get());
+
+			stats = core.runCallbacks(Integer.MAX_VALUE, null);
+			Assertions.assertEquals(3, stats.getTasksRun());
+			Assertions.assertEquals(1, stats.getFramesProcessed());
+			Assertions.assertEquals(0, stats.getRemainingTasks());
+			Assertions.assertFalse(stats.isBacklogged());
+			Assertions.assertEquals(3, callbacks.get());
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package de.jcm.discordgamesdk;
+
+import de.jcm.discordgamesdk.impl.channel.MemoryDiscordChannel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class ConcurrentSubmitTest
+{
+	private static final Pattern GET_USER_NONCE = Pattern.compile("\"cmd\":\"GET_USER\".*\"nonce\":\"(\\d+)\"");
+
+	@Test
+	void commandsFromManyThreads() throws Exception
+	{
+		int threads = 8;
+		int perThread = 200;
+
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = TestData.connectedCore(channel))
+		{
+			int pending = core.getPendingRequestCount();
+			CountDownLatch start = new CountDownLatch(1);
+			Thread[] workers = new Thread[threads];
+			for(int i = 0; i < threads; i++)
+			{
+				int thread = i;
+				workers[i] = new Thread(() -> {
+					try
+					{
+						start.await();
+					}
+					catch(InterruptedException e)
+					{
+						return;
+					}
+					// distinct users, identical requests would share a single frame
+					for(int j = 0; j < perThread; j++)
+						core.userManager().getUserAsync(thread * perThread + j);
+				});
+				workers[i].start();
+			}
+			start.countDown();
+			for(Thread worker : workers)
+				worker.join();
+			core.runCallbacks();
+
+			Assertions.assertEquals(pending + threads * perThread, core.getPendingRequestCount());
+
+			// every request has been written as a complete frame with a nonce of its own
+			Set<Long> nonces = new HashSet<>();
+			ByteBuffer written = ByteBuffer.wrap(channel.written()).order(ByteOrder.LITTLE_ENDIAN);
+			while(written.hasRemaining())
+			{
+				written.getInt();
+				byte[] body = new byte[written.getInt()];
+				written.get(body);
+				Matcher matcher = GET_USER_NONCE.matcher(new String(body, StandardCharsets.UTF_8));
+				if(matcher.find())
+					Assertions.assertTrue(nonces.add(Long.parseLong(matcher.group(1))));
+			}
+			Assertions.assertEquals(threads * perThread, nonces.size());
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package de.jcm.discordgamesdk;
+
+import de.jcm.discordgamesdk.impl.channel.MemoryDiscordChannel;
+import de.jcm.discordgamesdk.user.DiscordUser;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class EventSubscriptionTest
+{
+	private static final Pattern SUBSCRIPTION = Pattern.compile("\"cmd\":\"((?:UN)?SUBSCRIBE)\".*\"evt\":\"(\\w+)\"");
+	private static final List<String> STATE_SUBSCRIPTIONS =
+			List.of("SUBSCRIBE OVERLAY_UPDATE", "SUBSCRIBE RELATIONSHIP_UPDATE", "SUBSCRIBE VOICE_SETTINGS_UPDATE_2");
+
+	/**
+	 * Gets the (un)subscriptions written since the last call, e.g. "SUBSCRIBE RELATIONSHIP_UPDATE".
+	 */
+	private static List<String> subscriptions(MemoryDiscordChannel channel, int[] offset)
+	{
+		byte[] written = channel.written();
+		ByteBuffer frames = ByteBuffer.wrap(written, offset[0], written.length - offset[0]).order(ByteOrder.LITTLE_ENDIAN);
+		List<String> subscriptions = new ArrayList<>();
+		while(frames.hasRemaining())
+		{
+			frames.getInt();
+			byte[] body = new byte[frames.getInt()];
+			frames.get(body);
+			Matcher matcher = SUBSCRIPTION.matcher(new String(body, StandardCharsets.UTF_8));
+			if(matcher.find())
+				subscriptions.add(matcher.group(1)+" "+matcher.group(2));
+		}
+		offset[0] = written.length;
+		return subscriptions;
+	}
+
+	private static class Subscriber implements Flow.Subscriber<DiscordUser>
+	{
+		Flow.Subscription subscription;
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription)
+		{
+			this.subscription = subscription;
+		}
+
+		@Override
+		public void onNext(DiscordUser item)
+		{
+		}
+
+		@Override
+		public void onError(Throwable throwable)
+		{
+		}
+
+		@Override
+		public void onComplete()
+		{
+		}
+	}
+
+	@Test
+	void onlyWantedEventsAreSubscribed()
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		DiscordEventHandler handler = new DiscordEventHandler();
+		try(Core core = TestData.connectedCore(channel, params->params.registerEventHandler(handler)))
+		{
+			int[] offset = {0};
+			channel.supply(MemoryDiscordChannel.frame(1, TestData.READY));
+			core.runCallbacks();
+			// the events keeping state of a manager are always needed
+			Assertions.assertEquals(STATE_SUBSCRIPTIONS, subscriptions(channel, offset).stream().sorted().toList());
+
+			DiscordEventAdapter joins = new DiscordEventAdapter()
+			{
+				@Override
+				public void onActivityJoin(String secret)
+				{
+				}
+			};
+			handler.addListener(joins);
+			handler.addListener(new DiscordEventAdapter(){});
+			Assertions.assertEquals(List.of("SUBSCRIBE ACTIVITY_JOIN"), subscriptions(channel, offset));
+
+			handler.removeListener(joins);
+			Assertions.assertEquals(List.of("UNSUBSCRIBE ACTIVITY_JOIN"), subscriptions(channel, offset));
+
+			Subscriber subscriber = new Subscriber();
+			core.activityJoinRequests().subscribe(subscriber);
+			Assertions.assertEquals(List.of("SUBSCRIBE ACTIVITY_JOIN_REQUEST"), subscriptions(channel, offset));
+			subscriber.subscription.cancel();
+			Assertions.assertEquals(List.of("UNSUBSCRIBE ACTIVITY_JOIN_REQUEST"), subscriptions(channel, offset));
+
+			core.overlayManager();
+			core.voiceManager();
+			Assertions.assertEquals(List.of(), subscriptions(channel, offset));
+		}
+	}
+
+	@Test
+	void nothingIsSubscribedBeforeReady()
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = TestData.connectedCore(channel))
+		{
+			int[] offset = {0};
+			core.voiceManager();
+			Assertions.assertEquals(List.of(), subscriptions(channel, offset));
+
+			channel.supply(MemoryDiscordChannel.frame(1, TestData.READY));
+			core.runCallbacks();
+			Assertions.assertEquals(STATE_SUBSCRIPTIONS, subscriptions(channel, offset).stream().sorted().toList());
+		}
+	}
+
+	@Test
+	void unwantedEventsAreNotDecoded()
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		DiscordEventHandler handler = new DiscordEventHandler();
+		try(Core core = TestData.connectedCore(channel, params->params.registerEventHandler(handler)))
+		{
+			channel.supply(MemoryDiscordChannel.frame(1, TestData.READY));
+			core.runCallbacks();
+
+			// the secret cannot be decoded as a string, which must not matter while nobody listens
+			channel.supply(MemoryDiscordChannel.frame(1,
+					"{\"cmd\":\"DISPATCH\",\"data\":{\"secret\":{\"not\":\"a string\"}},\"evt\":\"ACTIVITY_JOIN\",\"nonce\":null}"));
+			Assertions.assertDoesNotThrow(() -> core.runCallbacks());
+
+			List<String> secrets = new ArrayList<>();
+			handler.addListener(new DiscordEventAdapter()
+			{
+				@Override
+				public void onActivityJoin(String secret)
+				{
+					secrets.add(secret);
+				}
+			});
+			channel.supply(MemoryDiscordChannel.frame(1,
+					"{\"cmd\":\"DISPATCH\",\"data\":{\"secret\":\"s3cr3t\"},\"evt\":\"ACTIVITY_JOIN\",\"nonce\":null}"));
+			core.runCallbacks();
+			Assertions.assertEquals(List.of("s3cr3t"), secrets);
+		}
+	}
+}
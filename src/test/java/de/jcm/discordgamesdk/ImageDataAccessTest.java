@@ -0,0 +1,78 @@
+package de.jcm.discordgamesdk;
+
+import de.jcm.discordgamesdk.image.ImageDimensions;
+import de.jcm.discordgamesdk.image.ImageHandle;
+import de.jcm.discordgamesdk.image.ImageType;
+import de.jcm.discordgamesdk.impl.channel.MemoryDiscordChannel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.util.concurrent.CompletableFuture;
+
+public class ImageDataAccessTest
+{
+	/** Pixels of {@link TestData#PNG} */
+	private static final byte[] RGBA = {
+			(byte) 255, 0, 0, (byte) 255,   0, (byte) 255, 0, (byte) 128,
+			0, 0, (byte) 255, 0,            10, 20, 30, 40
+	};
+	private static final ImageHandle HANDLE = new ImageHandle(ImageType.USER, 1, 16);
+
+	private static Core fetched(MemoryDiscordChannel channel)
+	{
+		Core core = TestData.connectedCore(channel);
+		CompletableFuture<ImageHandle> fetched = core.imageManager().fetchAsync(HANDLE, false);
+		channel.supply(TestData.imageResponse(channel.nonce("GET_IMAGE"), TestData.PNG));
+		ImageDecodeTest.awaitFetch(core, fetched);
+		Assertions.assertTrue(fetched.isDone());
+		return core;
+	}
+
+	@Test
+	void dataIsRgba()
+	{
+		try(Core core = fetched(new MemoryDiscordChannel()))
+		{
+			ImageManager images = core.imageManager();
+			ImageDimensions dimensions = images.getDimensions(HANDLE);
+			Assertions.assertArrayEquals(RGBA, images.getData(HANDLE, dimensions));
+			Assertions.assertNotSame(images.getData(HANDLE, dimensions), images.getData(HANDLE, dimensions));
+			Assertions.assertArrayEquals(new byte[]{(byte) 255, 0, 0, (byte) 255, 0}, images.getData(HANDLE, 5));
+		}
+	}
+
+	@Test
+	void dataIsCopiedIntoBuffer()
+	{
+		try(Core core = fetched(new MemoryDiscordChannel()))
+		{
+			ImageManager images = core.imageManager();
+			ByteBuffer buffer = ByteBuffer.allocateDirect(RGBA.length + 2);
+			buffer.put((byte) 42);
+			images.getData(HANDLE, buffer);
+			Assertions.assertEquals(RGBA.length + 1, buffer.position());
+
+			byte[] copied = new byte[RGBA.length];
+			buffer.get(1, copied);
+			Assertions.assertArrayEquals(RGBA, copied);
+
+			Assertions.assertThrows(BufferOverflowException.class, () -> images.getData(HANDLE, buffer));
+			Assertions.assertEquals(RGBA.length + 1, buffer.position());
+		}
+	}
+
+	@Test
+	void viewIsReadOnly()
+	{
+		try(Core core = fetched(new MemoryDiscordChannel()))
+		{
+			ByteBuffer view = core.imageManager().getDataView(HANDLE);
+			Assertions.assertTrue(view.isReadOnly());
+			Assertions.assertEquals(ByteBuffer.wrap(RGBA), view);
+			Assertions.assertThrows(ReadOnlyBufferException.class, () -> view.put(0, (byte) 1));
+		}
+	}
+}
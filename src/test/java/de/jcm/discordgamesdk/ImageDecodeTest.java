@@ -0,0 +1,121 @@
+package de.jcm.discordgamesdk;
+
+import de.jcm.discordgamesdk.image.ImageHandle;
+import de.jcm.discordgamesdk.image.ImageType;
+import de.jcm.discordgamesdk.impl.channel.MemoryDiscordChannel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ImageDecodeTest
+{
+	private static final ImageHandle HANDLE = new ImageHandle(ImageType.USER, 1, 16);
+
+	/**
+	 * Runs callbacks until the fetched image has been decoded and the future is completed.
+	 */
+	static void awaitFetch(Core core, CompletableFuture<ImageHandle> fetched)
+	{
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while(!fetched.isDone() && System.nanoTime() < deadline)
+		{
+			core.runCallbacks();
+			Thread.onSpinWait();
+		}
+	}
+
+	private static Core newCore(MemoryDiscordChannel channel, Queue<Runnable> decodeTasks)
+	{
+		return TestData.connectedCore(channel, params->params.setImageDecodeExecutor(decodeTasks::add));
+	}
+
+	private static byte[] response(MemoryDiscordChannel channel, String base64)
+	{
+		return TestData.imageResponse(channel.nonce("GET_IMAGE"), base64);
+	}
+
+	@Test
+	void callbackRunsAfterDecodingIsDone()
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		Queue<Runnable> decodeTasks = new ArrayDeque<>();
+		try(Core core = newCore(channel, decodeTasks))
+		{
+			AtomicReference<Result> result = new AtomicReference<>();
+			core.imageManager().fetch(HANDLE, false, (r, h)->result.set(r));
+			channel.supply(response(channel, TestData.PNG));
+			core.runCallbacks();
+
+			// the response is handled, but the image is left to the decode executor
+			Assertions.assertEquals(1, decodeTasks.size());
+			Assertions.assertNull(result.get());
+			Assertions.assertThrows(GameSDKException.class, ()->core.imageManager().getDimensions(HANDLE));
+
+			decodeTasks.remove().run();
+			Assertions.assertNull(result.get());
+			Assertions.assertEquals(2, core.imageManager().getDimensions(HANDLE).getWidth());
+
+			core.runCallbacks();
+			Assertions.assertEquals(Result.OK, result.get());
+		}
+	}
+
+	@Test
+	void futureIsCompletedWhereCallbacksRun() throws InterruptedException, ExecutionException
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		Queue<Runnable> decodeTasks = new ArrayDeque<>();
+		try(Core core = newCore(channel, decodeTasks))
+		{
+			CompletableFuture<ImageHandle> fetched = core.imageManager().fetchAsync(HANDLE, false);
+			channel.supply(response(channel, TestData.PNG));
+			core.runCallbacks();
+			decodeTasks.remove().run();
+			Assertions.assertFalse(fetched.isDone());
+
+			core.runCallbacks();
+			Assertions.assertEquals(HANDLE, fetched.get());
+		}
+	}
+
+	@Test
+	void undecodableImageFails()
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		Queue<Runnable> decodeTasks = new ArrayDeque<>();
+		try(Core core = newCore(channel, decodeTasks))
+		{
+			CompletableFuture<ImageHandle> fetched = core.imageManager().fetchAsync(HANDLE, false);
+			channel.supply(response(channel, "bm90IGFuIGltYWdl"));
+			core.runCallbacks();
+			decodeTasks.remove().run();
+			core.runCallbacks();
+
+			ExecutionException e = Assertions.assertThrows(ExecutionException.class, fetched::get);
+			Assertions.assertEquals(Result.INTERNAL_ERROR, ((GameSDKException) e.getCause()).getResult());
+		}
+	}
+
+	@Test
+	void defaultExecutorDecodesOffTheCallingThread()
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = TestData.connectedCore(channel))
+		{
+			AtomicReference<Thread> callbackThread = new AtomicReference<>();
+			CompletableFuture<ImageHandle> fetched = core.imageManager().fetchAsync(HANDLE, false);
+			fetched.thenRun(()->callbackThread.set(Thread.currentThread()));
+			channel.supply(response(channel, TestData.PNG));
+			awaitFetch(core, fetched);
+
+			Assertions.assertTrue(fetched.isDone());
+			Assertions.assertSame(Thread.currentThread(), callbackThread.get());
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package de.jcm.discordgamesdk;
+
+import de.jcm.discordgamesdk.image.ImageDimensions;
+import de.jcm.discordgamesdk.image.ImageHandle;
+import de.jcm.discordgamesdk.image.ImageType;
+import de.jcm.discordgamesdk.impl.channel.MemoryDiscordChannel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+public class ImageDiskCacheTest
+{
+	private static final ImageHandle HANDLE = new ImageHandle(ImageType.USER, 1, 16);
+
+	@TempDir
+	Path directory;
+
+	private Core newCore(MemoryDiscordChannel channel, String avatar, Executor decodeExecutor)
+	{
+		Core core = TestData.connectedCore(channel, params->{
+			params.setImageDiskCacheDirectory(directory);
+			params.setImageDecodeExecutor(decodeExecutor);
+		});
+		channel.supply(MemoryDiscordChannel.frame(1, "{\"cmd\":\"DISPATCH\",\"data\":{\"v\":1,\"user\":"
+				+"{\"id\":\"1\",\"username\":\"me\",\"avatar\":\""+avatar+"\"}},\"evt\":\"READY\",\"nonce\":null}"));
+		core.runCallbacks();
+		return core;
+	}
+
+	private static boolean sentGetImage(MemoryDiscordChannel channel)
+	{
+		return !channel.nonces("GET_IMAGE").isEmpty();
+	}
+
+	@Test
+	void avatarIsLoadedFromDiskUntilItChanges()
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = newCore(channel, "abc", Runnable::run))
+		{
+			CompletableFuture<ImageHandle> fetched = core.imageManager().fetchAsync(HANDLE, false);
+			channel.supply(TestData.imageResponse(channel.nonce("GET_IMAGE"), TestData.PNG));
+			ImageDecodeTest.awaitFetch(core, fetched);
+			Assertions.assertTrue(fetched.isDone());
+			Assertions.assertEquals(0, core.imageManager().getDiskCacheHitCount());
+		}
+
+		channel = new MemoryDiscordChannel();
+		try(Core core = newCore(channel, "abc", Runnable::run))
+		{
+			CompletableFuture<ImageHandle> fetched = core.imageManager().fetchAsync(HANDLE, false);
+			core.runCallbacks();
+			Assertions.assertTrue(fetched.isDone());
+			Assertions.assertFalse(sentGetImage(channel));
+			Assertions.assertEquals(1, core.imageManager().getDiskCacheHitCount());
+
+			ImageDimensions dimensions = core.imageManager().getDimensions(HANDLE);
+			Assertions.assertEquals(2, dimensions.getWidth());
+			Assertions.assertEquals(2, dimensions.getHeight());
+			Assertions.assertEquals(0x80 << 24 | 0xFF << 8, core.imageManager().getAsBufferedImage(HANDLE).getRGB(1, 0));
+		}
+
+		channel = new MemoryDiscordChannel();
+		try(Core core = newCore(channel, "def", Runnable::run))
+		{
+			Assertions.assertFalse(core.imageManager().fetchAsync(HANDLE, false).isDone());
+			Assertions.assertTrue(sentGetImage(channel));
+			Assertions.assertEquals(0, core.imageManager().getDiskCacheHitCount());
+		}
+	}
+
+	@Test
+	void diskIsLookedUpOnDecodeExecutor()
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = newCore(channel, "abc", Runnable::run))
+		{
+			CompletableFuture<ImageHandle> fetched = core.imageManager().fetchAsync(HANDLE, false);
+			channel.supply(TestData.imageResponse(channel.nonce("GET_IMAGE"), TestData.PNG));
+			ImageDecodeTest.awaitFetch(core, fetched);
+		}
+
+		channel = new MemoryDiscordChannel();
+		Queue<Runnable> decodeTasks = new ArrayDeque<>();
+		try(Core core = newCore(channel, "abc", decodeTasks::add))
+		{
+			List<Result> results = new ArrayList<>();
+			core.imageManager().fetch(HANDLE, false, (r, h)->results.add(r));
+			// the thread calling fetch does not read the disk
+			Assertions.assertEquals(0, core.imageManager().getDiskCacheHitCount());
+			Assertions.assertEquals(List.of(), results);
+			Assertions.assertEquals(1, decodeTasks.size());
+
+			decodeTasks.poll().run();
+			Assertions.assertEquals(1, core.imageManager().getDiskCacheHitCount());
+			core.runCallbacks();
+			Assertions.assertEquals(List.of(Result.OK), results);
+			Assertions.assertFalse(sentGetImage(channel));
+		}
+
+		channel = new MemoryDiscordChannel();
+		try(Core core = newCore(channel, "abc", decodeTasks::add))
+		{
+			CompletableFuture<ImageHandle> fetched = core.imageManager().fetchAsync(HANDLE, false);
+			Assertions.assertEquals(0, core.imageManager().getDiskCacheHitCount());
+			Assertions.assertFalse(fetched.isDone());
+			Assertions.assertEquals(1, decodeTasks.size());
+
+			decodeTasks.poll().run();
+			Assertions.assertEquals(1, core.imageManager().getDiskCacheHitCount());
+			core.runCallbacks();
+			Assertions.assertEquals(HANDLE, fetched.getNow(null));
+			Assertions.assertFalse(sentGetImage(channel));
+		}
+
+		channel = new MemoryDiscordChannel();
+		try(Core core = newCore(channel, "abc", decodeTasks::add))
+		{
+			ImagePrefetch prefetch = core.imageManager().prefetch(List.of(HANDLE), 1, (r, h)->Assertions.fail());
+			Assertions.assertEquals(0, core.imageManager().getDiskCacheHitCount());
+			Assertions.assertEquals(1, prefetch.getInFlightCount());
+			Assertions.assertEquals(1, decodeTasks.size());
+
+			decodeTasks.poll().run();
+			Assertions.assertEquals(1, core.imageManager().getDiskCacheHitCount());
+			core.runCallbacks();
+			Assertions.assertEquals(1, prefetch.getSkippedCount());
+			Assertions.assertEquals(0, prefetch.getInFlightCount());
+			Assertions.assertTrue(prefetch.getFuture().isDone());
+			Assertions.assertFalse(sentGetImage(channel));
+		}
+	}
+
+	@Test
+	void cancelledFetchDoesNotRequestImage()
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		Queue<Runnable> decodeTasks = new ArrayDeque<>();
+		try(Core core = newCore(channel, "abc", decodeTasks::add))
+		{
+			// nothing on the disk, but it is only known once the decode executor looked
+			CompletableFuture<ImageHandle> fetched = core.imageManager().fetchAsync(HANDLE, false);
+			fetched.cancel(false);
+			decodeTasks.poll().run();
+			Assertions.assertFalse(sentGetImage(channel));
+
+			fetched = core.imageManager().fetchAsync(HANDLE, false);
+			decodeTasks.poll().run();
+			Assertions.assertTrue(sentGetImage(channel));
+			Assertions.assertFalse(fetched.isDone());
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package de.jcm.discordgamesdk;
+
+import de.jcm.discordgamesdk.image.ImageHandle;
+import de.jcm.discordgamesdk.image.ImageType;
+import de.jcm.discordgamesdk.impl.channel.MemoryDiscordChannel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class ImagePrefetchTest
+{
+	private static final Pattern IMAGE_ID = Pattern.compile("\"id\":\"(\\d+)\"");
+
+	private static Core newCore(MemoryDiscordChannel channel)
+	{
+		// decode right away, so every response only takes two calls to runCallbacks
+		return TestData.connectedCore(channel, params->params.setImageDecodeExecutor(Runnable::run));
+	}
+
+	private static ImageHandle handle(long id)
+	{
+		return new ImageHandle(ImageType.USER, id, 16);
+	}
+
+	private static List<ImageHandle> handles(long... ids)
+	{
+		List<ImageHandle> handles = new ArrayList<>();
+		for(long id : ids)
+			handles.add(handle(id));
+		return handles;
+	}
+
+	/**
+	 * Gets the ids of the images requested so far, in the order they were requested.
+	 */
+	private static List<Long> requested(MemoryDiscordChannel channel)
+	{
+		List<Long> ids = new ArrayList<>();
+		for(String frame : channel.writtenFrames())
+		{
+			Matcher matcher = IMAGE_ID.matcher(frame);
+			if(frame.contains("\"cmd\":\"GET_IMAGE\"") && matcher.find())
+				ids.add(Long.parseLong(matcher.group(1)));
+		}
+		return ids;
+	}
+
+	/**
+	 * Answers the request for the image with the given id.
+	 */
+	private static void respond(Core core, MemoryDiscordChannel channel, long id)
+	{
+		List<Long> ids = requested(channel);
+		String nonce = channel.nonces("GET_IMAGE").get(ids.lastIndexOf(id));
+		channel.supply(TestData.imageResponse(nonce, TestData.PNG));
+		core.runCallbacks();
+		core.runCallbacks();
+	}
+
+	@Test
+	void fetchesThroughSlidingWindow()
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = newCore(channel))
+		{
+			List<ImageHandle> done = new ArrayList<>();
+			ImagePrefetch prefetch = core.imageManager().prefetch(handles(1, 2, 3, 4, 5, 2), 2, (r, h)->{
+				Assertions.assertEquals(Result.OK, r);
+				done.add(h);
+			});
+			Assertions.assertEquals(5, prefetch.getTotalCount());
+			Assertions.assertEquals(List.of(1L, 2L), requested(channel));
+			Assertions.assertEquals(2, prefetch.getInFlightCount());
+
+			// the list was scrolled down
+			prefetch.prioritize(handles(5, 4));
+
+			respond(core, channel, 2);
+			Assertions.assertEquals(handles(2), done);
+			Assertions.assertEquals(List.of(1L, 2L, 5L), requested(channel));
+
+			respond(core, channel, 1);
+			respond(core, channel, 5);
+			respond(core, channel, 4);
+			Assertions.assertFalse(prefetch.getFuture().isDone());
+			respond(core, channel, 3);
+
+			Assertions.assertEquals(List.of(1L, 2L, 5L, 4L, 3L), requested(channel));
+			Assertions.assertEquals(handles(2, 1, 5, 4, 3), done);
+			Assertions.assertEquals(5, prefetch.getFetchedCount());
+			Assertions.assertEquals(5, prefetch.getCompletedCount());
+			Assertions.assertTrue(prefetch.getFuture().isDone());
+		}
+	}
+
+	@Test
+	void skipsCachedImages()
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = newCore(channel))
+		{
+			CompletableFuture<ImageHandle> fetched = core.imageManager().fetchAsync(handle(2), false);
+			respond(core, channel, 2);
+			Assertions.assertTrue(fetched.isDone());
+
+			ImagePrefetch prefetch = core.imageManager().prefetch(handles(2, 3), 1, (r, h)->{});
+			Assertions.assertEquals(List.of(2L, 3L), requested(channel));
+			Assertions.assertEquals(1, prefetch.getSkippedCount());
+			Assertions.assertEquals(1, prefetch.getCompletedCount());
+
+			respond(core, channel, 3);
+			Assertions.assertEquals(1, prefetch.getFetchedCount());
+			Assertions.assertTrue(prefetch.getFuture().isDone());
+
+			Assertions.assertTrue(core.imageManager().prefetch(handles(2, 3), 1, (r, h)->{}).getFuture().isDone());
+		}
+	}
+
+	@Test
+	void cancelDropsQueuedImages()
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = newCore(channel))
+		{
+			List<Result> results = new ArrayList<>();
+			ImagePrefetch prefetch = core.imageManager().prefetch(handles(1, 2, 3), 1, (r, h)->results.add(r));
+			prefetch.cancel();
+			Assertions.assertFalse(prefetch.getFuture().isDone());
+
+			channel.supply(MemoryDiscordChannel.frame(1, "{\"cmd\":\"GET_IMAGE\",\"data\":{\"code\":4010,\"message\":\"not found\"},"
+					+"\"evt\":\"ERROR\",\"nonce\":\""+channel.nonce("GET_IMAGE")+"\"}"));
+			core.runCallbacks();
+
+			Assertions.assertEquals(List.of(1L), requested(channel));
+			Assertions.assertEquals(List.of(Result.NOT_FOUND), results);
+			Assertions.assertEquals(1, prefetch.getFailedCount());
+			Assertions.assertTrue(prefetch.getFuture().isDone());
+		}
+	}
+
+	@Test
+	void rejectsEmptyWindow()
+	{
+		try(Core core = newCore(new MemoryDiscordChannel()))
+		{
+			Assertions.assertThrows(IllegalArgumentException.class, ()->core.imageManager().prefetch(handles(1), 0, (r, h)->{}));
+		}
+	}
+}
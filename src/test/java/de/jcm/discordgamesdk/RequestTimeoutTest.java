@@ -0,0 +1,61 @@
+package de.jcm.discordgamesdk;
+
+import de.jcm.discordgamesdk.impl.channel.MemoryDiscordChannel;
+import de.jcm.discordgamesdk.user.DiscordUser;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class RequestTimeoutTest
+{
+	@Test
+	void unansweredRequestIsAborted() throws InterruptedException
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = TestData.connectedCore(channel))
+		{
+			// GET_RELATIONSHIPS is sent by the Core itself and never answered here
+			int pending = core.getPendingRequestCount();
+			AtomicReference<Result> result = new AtomicReference<>();
+			core.userManager().getUser(5, Duration.ofMillis(1), (r, u)->result.set(r));
+			Assertions.assertEquals(pending + 1, core.getPendingRequestCount());
+
+			Thread.sleep(300);
+			core.runCallbacks();
+			Assertions.assertEquals(Result.TRANSACTION_ABORTED, result.get());
+			Assertions.assertEquals(pending, core.getPendingRequestCount());
+
+			// the answer arrives too late and is dropped
+			channel.supply(MemoryDiscordChannel.frame(1, "{\"cmd\":\"GET_USER\",\"data\":{\"id\":\"5\",\"username\":\"late\"},"
+					+"\"evt\":null,\"nonce\":\""+channel.nonce("GET_USER")+"\"}"));
+			core.runCallbacks();
+			Assertions.assertEquals(1, core.getDroppedResponseCount());
+		}
+	}
+
+	@Test
+	void answeredRequestIsNotAborted() throws InterruptedException
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = TestData.connectedCore(channel))
+		{
+			int pending = core.getPendingRequestCount();
+			AtomicReference<DiscordUser> user = new AtomicReference<>();
+			core.userManager().getUser(5, Duration.ofMillis(50), (r, u)->{
+				Assertions.assertEquals(Result.OK, r);
+				user.set(u);
+			});
+			channel.supply(MemoryDiscordChannel.frame(1, "{\"cmd\":\"GET_USER\",\"data\":{\"id\":\"5\",\"username\":\"fast\"},"
+					+"\"evt\":null,\"nonce\":\""+channel.nonce("GET_USER")+"\"}"));
+			core.runCallbacks();
+			Assertions.assertEquals("fast", user.get().getUsername());
+
+			Thread.sleep(300);
+			core.runCallbacks();
+			Assertions.assertEquals(pending, core.getPendingRequestCount());
+			Assertions.assertEquals(0, core.getDroppedResponseCount());
+		}
+	}
+}
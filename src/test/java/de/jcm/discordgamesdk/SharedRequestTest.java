@@ -0,0 +1,145 @@
+package de.jcm.discordgamesdk;
+
+import de.jcm.discordgamesdk.impl.channel.MemoryDiscordChannel;
+import de.jcm.discordgamesdk.user.DiscordUser;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class SharedRequestTest
+{
+	/**
+	 * Answers the first GET_USER, which is the one for the user 5 in every test.
+	 */
+	private static byte[] user5(MemoryDiscordChannel channel)
+	{
+		return MemoryDiscordChannel.frame(1, "{\"cmd\":\"GET_USER\",\"data\":{\"id\":\"5\",\"username\":\"shared\"},"
+				+"\"evt\":null,\"nonce\":\""+channel.nonces("GET_USER").get(0)+"\"}");
+	}
+
+	@Test
+	void identicalRequestsShareOneResponse()
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = TestData.connectedCore(channel))
+		{
+			int pending = core.getPendingRequestCount();
+			CompletableFuture<DiscordUser> first = core.userManager().getUserAsync(5);
+			CompletableFuture<DiscordUser> second = core.userManager().getUserAsync(5);
+			AtomicReference<DiscordUser> third = new AtomicReference<>();
+			core.userManager().getUser(5, (r, u)->third.set(u));
+			CompletableFuture<DiscordUser> other = core.userManager().getUserAsync(6);
+
+			Assertions.assertEquals(2, channel.nonces("GET_USER").size());
+			Assertions.assertEquals(2, core.getSharedRequestCount());
+			Assertions.assertEquals(pending + 4, core.getPendingRequestCount());
+
+			channel.supply(user5(channel));
+			core.runCallbacks();
+			Assertions.assertEquals("shared", first.getNow(null).getUsername());
+			Assertions.assertEquals("shared", second.getNow(null).getUsername());
+			Assertions.assertEquals("shared", third.get().getUsername());
+			Assertions.assertFalse(other.isDone());
+			Assertions.assertEquals(pending + 1, core.getPendingRequestCount());
+
+			// the flight has landed, so the next request is sent again
+			core.userManager().getUserAsync(5);
+			Assertions.assertEquals(3, channel.nonces("GET_USER").size());
+		}
+	}
+
+	@Test
+	void requestsCanBeCancelledOnTheirOwn()
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = TestData.connectedCore(channel))
+		{
+			CompletableFuture<DiscordUser> sent = core.userManager().getUserAsync(5);
+			CompletableFuture<DiscordUser> cancelled = core.userManager().getUserAsync(5);
+			CompletableFuture<DiscordUser> joined = core.userManager().getUserAsync(5);
+			sent.cancel(false);
+			cancelled.cancel(false);
+
+			channel.supply(user5(channel));
+			core.runCallbacks();
+			Assertions.assertEquals("shared", joined.getNow(null).getUsername());
+			Assertions.assertEquals(0, core.getDroppedResponseCount());
+		}
+	}
+
+	@Test
+	void sharedRequestsKeepTheirOwnTimeout() throws Exception
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = TestData.connectedCore(channel))
+		{
+			int pending = core.getPendingRequestCount();
+			CompletableFuture<DiscordUser> sent = core.userManager().getUserAsync(5);
+			AtomicReference<Result> joined = new AtomicReference<>();
+			core.userManager().getUser(5, Duration.ofMillis(1), (r, u)->joined.set(r));
+
+			Thread.sleep(300);
+			core.runCallbacks();
+			Assertions.assertEquals(Result.TRANSACTION_ABORTED, joined.get());
+			Assertions.assertFalse(sent.isDone());
+
+			channel.supply(user5(channel));
+			core.runCallbacks();
+			Assertions.assertEquals("shared", sent.get().getUsername());
+			Assertions.assertEquals(pending, core.getPendingRequestCount());
+			Assertions.assertEquals(0, core.getDroppedResponseCount());
+		}
+	}
+
+	@Test
+	void sharedResponseOutlivesTimeoutOfSentRequest() throws Exception
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = TestData.connectedCore(channel))
+		{
+			int pending = core.getPendingRequestCount();
+			AtomicReference<Result> sent = new AtomicReference<>();
+			core.userManager().getUser(5, Duration.ofMillis(1), (r, u)->sent.set(r));
+			CompletableFuture<DiscordUser> joined = core.userManager().getUserAsync(5);
+
+			Thread.sleep(300);
+			core.runCallbacks();
+			Assertions.assertEquals(Result.TRANSACTION_ABORTED, sent.get());
+			Assertions.assertFalse(joined.isDone());
+
+			// the request that was sent gave up, so the next one is sent again
+			CompletableFuture<DiscordUser> resent = core.userManager().getUserAsync(5);
+			Assertions.assertEquals(2, channel.nonces("GET_USER").size());
+
+			channel.supply(user5(channel));
+			core.runCallbacks();
+			Assertions.assertEquals("shared", joined.get().getUsername());
+			Assertions.assertEquals(Result.TRANSACTION_ABORTED, sent.get());
+			Assertions.assertFalse(resent.isDone());
+			Assertions.assertEquals(pending + 1, core.getPendingRequestCount());
+		}
+	}
+
+	@Test
+	void timedOutSentRequestIsForgottenWithoutOthersWaiting() throws Exception
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		try(Core core = TestData.connectedCore(channel))
+		{
+			int pending = core.getPendingRequestCount();
+			AtomicReference<Result> sent = new AtomicReference<>();
+			core.userManager().getUser(5, Duration.ofMillis(1), (r, u)->sent.set(r));
+			AtomicReference<Result> joined = new AtomicReference<>();
+			core.userManager().getUser(5, Duration.ofMillis(1), (r, u)->joined.set(r));
+
+			Thread.sleep(300);
+			core.runCallbacks();
+			Assertions.assertEquals(Result.TRANSACTION_ABORTED, sent.get());
+			Assertions.assertEquals(Result.TRANSACTION_ABORTED, joined.get());
+			Assertions.assertEquals(pending, core.getPendingRequestCount());
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package de.jcm.discordgamesdk;
+
+import de.jcm.discordgamesdk.impl.channel.MemoryDiscordChannel;
+
+import java.util.function.Consumer;
+
+/**
+ * Messages and cores shared by the tests that talk to a {@link MemoryDiscordChannel} instead of Discord.
+ */
+public class TestData
+{
+	/** 2x2 RGBA PNG with the pixels (255, 0, 0, 255), (0, 255, 0, 128), (0, 0, 255, 0) and (10, 20, 30, 40) */
+	public static final String PNG = "iVBORw0KGgoAAAANSUhEUgAAAAIAAAACCAYAAABytg0kAAAAFklEQVR4nGP4z8DwHwgbGEA0l4icBgA2qQThZgcFSQAAAABJRU5ErkJggg==";
+
+	/** READY event for the user "me" with the ID 1 */
+	public static final String READY = "{\"cmd\":\"DISPATCH\",\"data\":{\"v\":1,\"user\":{\"id\":\"1\",\"username\":\"me\"}},\"evt\":\"READY\",\"nonce\":null}";
+
+	/**
+	 * Creates Discord's answer to a GET_IMAGE command.
+	 * @param nonce Nonce of the command, see {@link MemoryDiscordChannel#nonce(String)}
+	 * @param base64 The image, e.g. {@link #PNG}
+	 * @return The frame
+	 */
+	static byte[] imageResponse(String nonce, String base64)
+	{
+		return MemoryDiscordChannel.frame(1, "{\"cmd\":\"GET_IMAGE\",\"data\":{\"data_url\":\"data:image/png;base64,"
+				+base64+"\"},\"evt\":null,\"nonce\":\""+nonce+"\"}");
+	}
+
+	/**
+	 * Creates a core talking to the given channel.
+	 * The core writes its handshake and a GET_RELATIONSHIPS command right away.
+	 * @param channel Channel to talk to
+	 * @return The core
+	 */
+	static Core connectedCore(MemoryDiscordChannel channel)
+	{
+		return connectedCore(channel, params->{});
+	}
+
+	/**
+	 * Creates a core talking to the given channel.
+	 * @param channel Channel to talk to
+	 * @param configure Changes the parameters of the core, which already have the client ID set
+	 * @return The core
+	 */
+	static Core connectedCore(MemoryDiscordChannel channel, Consumer<CreateParams> configure)
+	{
+		CreateParams params = new CreateParams();
+		params.setClientID(Config.CLIENT_ID);
+		configure.accept(params);
+		return new Core(params, channel);
+	}
+}
@@ -0,0 +1,90 @@
+package de.jcm.discordgamesdk.impl;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import de.jcm.discordgamesdk.impl.commands.GetImage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public class Base64ImageInputStreamTest
+{
+	/** 2x2 RGBA PNG */
+	private static final String PNG = "iVBORw0KGgoAAAANSUhEUgAAAAIAAAACCAYAAABytg0kAAAAFklEQVR4nGP4z8DwHwgbGEA0l4icBgA2qQThZgcFSQAAAABJRU5ErkJggg==";
+
+	private final Gson gson = new GsonBuilder().registerTypeAdapterFactory(new WireAdapters()).create();
+
+	@Test
+	void decodesAnyPosition() throws IOException
+	{
+		byte[] bytes = "hello world".getBytes(StandardCharsets.US_ASCII);
+		String base64 = Base64.getEncoder().encodeToString(bytes);
+		ImageInputStream in = new Base64ImageInputStream("xx"+base64+"xx", 2, 2 + base64.length());
+		Assertions.assertEquals(11, in.length());
+		Assertions.assertEquals('h', in.read());
+		in.skipBytes(1);
+		byte[] buffer = new byte[4];
+		Assertions.assertEquals(4, in.read(buffer, 0, 4));
+		Assertions.assertEquals("llo ", new String(buffer, StandardCharsets.US_ASCII));
+
+		// like the PNG reader going back to the image data
+		in.seek(1);
+		Assertions.assertEquals('e', in.read());
+		in.seek(6);
+		Assertions.assertEquals(5, in.read(buffer = new byte[8], 1, 7));
+		Assertions.assertEquals("world", new String(buffer, 1, 5, StandardCharsets.US_ASCII));
+		Assertions.assertEquals(-1, in.read());
+		Assertions.assertEquals(-1, in.read(buffer, 0, 4));
+	}
+
+	@Test
+	void decodesEveryLengthOfPadding() throws IOException
+	{
+		for(int length = 0; length < 8; length++)
+		{
+			byte[] bytes = new byte[length];
+			for(int i = 0; i < length; i++)
+				bytes[i] = (byte) (0xF0 + i);
+			for(Base64.Encoder encoder : new Base64.Encoder[]{Base64.getEncoder(), Base64.getEncoder().withoutPadding()})
+			{
+				String base64 = encoder.encodeToString(bytes);
+				ImageInputStream in = new Base64ImageInputStream(base64, 0, base64.length());
+				Assertions.assertEquals(length, in.length());
+				byte[] read = new byte[length];
+				in.readFully(read);
+				Assertions.assertArrayEquals(bytes, read);
+				Assertions.assertEquals(-1, in.read());
+			}
+		}
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new Base64ImageInputStream("AAAAA", 0, 5));
+	}
+
+	@Test
+	void streamsSameDataAsDecodedAtOnce() throws IOException
+	{
+		GetImage.Response response = gson.fromJson("{\"data_url\":\"data:image/png;base64,"+PNG+"\"}", GetImage.Response.class);
+		try(ImageInputStream in = response.openData())
+		{
+			byte[] data = new byte[(int) in.length()];
+			in.readFully(data);
+			Assertions.assertArrayEquals(response.getData(), data);
+		}
+	}
+
+	@Test
+	void invalidBase64FailsWhileReading() throws IOException
+	{
+		GetImage.Response response = gson.fromJson("{\"data_url\":\"data:image/png;base64,AA*A\"}", GetImage.Response.class);
+		try(ImageInputStream in = response.openData())
+		{
+			Assertions.assertThrows(IOException.class, () -> in.readFully(new byte[3]));
+		}
+
+		GetImage.Response other = gson.fromJson("{\"data_url\":\"https://example.com/a.png\"}", GetImage.Response.class);
+		Assertions.assertThrows(IllegalArgumentException.class, other::openData);
+	}
+}
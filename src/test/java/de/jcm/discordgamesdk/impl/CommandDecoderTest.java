@@ -0,0 +1,74 @@
+package de.jcm.discordgamesdk.impl;
+
+import com.google.gson.Gson;
+import de.jcm.discordgamesdk.user.DiscordUser;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class CommandDecoderTest
+{
+	private final CommandDecoder decoder = new CommandDecoder(new Gson());
+
+	private static ByteBuffer direct(String json)
+	{
+		byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		return ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+	}
+
+	@Test
+	void dataBeforeEnvelope() throws IOException
+	{
+		ByteBuffer body = direct("{\"cmd\":\"GET_USER\",\"data\":{\"id\":\"42\",\"username\":\"Jörg ☃\"},\"evt\":null,\"nonce\":\"7\"}");
+		Command command = decoder.decode(body, c->{
+			Assertions.assertEquals("7", c.getNonce());
+			return DiscordUser.class;
+		});
+
+		Assertions.assertEquals(Command.Type.GET_USER, command.getCmd());
+		Assertions.assertNull(command.getEvent());
+		Assertions.assertEquals("7", command.getNonce());
+		DiscordUser user = command.getPayload(DiscordUser.class);
+		Assertions.assertEquals(42, user.getUserId());
+		Assertions.assertEquals("Jörg ☃", user.getUsername());
+		Assertions.assertEquals(0, body.position());
+	}
+
+	@Test
+	void errorsAreAlwaysDecoded() throws IOException
+	{
+		ByteBuffer body = direct("{\"cmd\":\"SET_ACTIVITY\",\"data\":{\"code\":4000,\"message\":\"bad\"},\"evt\":\"ERROR\",\"nonce\":\"1\"}");
+		Command command = decoder.decode(body, c->Assertions.fail("not consulted for errors"));
+
+		Assertions.assertTrue(command.isError());
+		Assertions.assertEquals(4000, command.getPayload(Error.class).getCode());
+		Assertions.assertNull(command.getPayload(DiscordUser.class));
+	}
+
+	@Test
+	void unwantedDataIsSkipped() throws IOException
+	{
+		ByteBuffer body = direct("{\"cmd\":\"DISPATCH\",\"data\":{\"locked\":true},\"evt\":\"OVERLAY_UPDATE\",\"nonce\":null,\"extra\":[1,2]}");
+		Command command = decoder.decode(body, c->null);
+
+		Assertions.assertEquals(Command.Event.OVERLAY_UPDATE, command.getEvent());
+		Assertions.assertNull(command.getNonce());
+		Assertions.assertNull(command.getPayload(Object.class));
+	}
+
+	@Test
+	void nonces() throws IOException
+	{
+		Command numeric = decoder.decode(direct("{\"cmd\":\"GET_USER\",\"nonce\":\"12\"}"), c->null);
+		Assertions.assertEquals(12, numeric.getNonceId());
+		Assertions.assertEquals("12", numeric.getNonce());
+
+		Command other = decoder.decode(direct("{\"cmd\":\"GET_USER\",\"nonce\":\"abc\"}"), c->null);
+		Assertions.assertTrue(other.hasNonce());
+		Assertions.assertEquals(Command.NO_NONCE, other.getNonceId());
+		Assertions.assertEquals("abc", other.getNonce());
+	}
+}
@@ -0,0 +1,92 @@
+package de.jcm.discordgamesdk.impl;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import de.jcm.discordgamesdk.activity.Activity;
+import de.jcm.discordgamesdk.impl.commands.GetImage;
+import de.jcm.discordgamesdk.impl.commands.SetActivity;
+import de.jcm.discordgamesdk.user.DiscordUser;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+public class CommandEncoderTest
+{
+	private final Gson gson = new GsonBuilder().registerTypeAdapterFactory(new WireAdapters()).create();
+	private final CommandEncoder encoder = new CommandEncoder(gson);
+
+	private static Command command(Command.Type type, Command.Event event, Object args, long nonce)
+	{
+		Command command = new Command();
+		command.setCmd(type);
+		command.setEvt(event);
+		command.setArgs(args);
+		command.setNonceId(nonce);
+		return command;
+	}
+
+	private String encode(Object message) throws IOException
+	{
+		StringWriter out = new StringWriter();
+		encoder.encode(message, out);
+		return out.toString();
+	}
+
+	/**
+	 * Encodes the command like it used to be, with its arguments converted to a tree first.
+	 */
+	private String encodeWithTree(Command command)
+	{
+		command.setArgs(gson.toJsonTree(command.getArgs()));
+		return gson.toJson(command);
+	}
+
+	private void assertSameAsTree(Command command) throws IOException
+	{
+		String streamed = encode(command);
+		Assertions.assertEquals(encodeWithTree(command), streamed);
+	}
+
+	@Test
+	void sameJsonAsTree() throws IOException
+	{
+		Activity activity = new Activity();
+		activity.setState("Jörg's <game> & \"friends\" 😀");
+		activity.party().size().setMaxSize(4);
+
+		assertSameAsTree(command(Command.Type.GET_IMAGE, null, new GetImage.Args("user", "42", "png", 128), 2));
+		assertSameAsTree(command(Command.Type.SET_ACTIVITY, null, gson.toJsonTree(new SetActivity.Args(7, activity)), 3));
+		assertSameAsTree(command(Command.Type.SET_ACTIVITY, null, new SetActivity.Args(7, null), 4));
+		assertSameAsTree(command(Command.Type.GET_USER, null, new DiscordUser(42), 5));
+		assertSameAsTree(command(Command.Type.GET_RELATIONSHIPS, null, new Object(), 6));
+		assertSameAsTree(command(Command.Type.SUBSCRIBE, Command.Event.READY, null, 7));
+		assertSameAsTree(command(Command.Type.OPEN_OVERLAY_VOICE_SETTINGS, null, new Object(), 0));
+	}
+
+	@Test
+	void encodedArgsAreWrittenAsTheyAre() throws IOException
+	{
+		Activity activity = new Activity();
+		activity.setState("Jörg's <game> & \"friends\" 😀");
+		SetActivity.Args args = new SetActivity.Args(7, activity);
+
+		Assertions.assertEquals(encode(command(Command.Type.SET_ACTIVITY, null, args, 3)),
+				encode(command(Command.Type.SET_ACTIVITY, null, new SetActivity.Encoded(gson.toJson(args)), 3)));
+	}
+
+	@Test
+	void envelopeInDeclarationOrder() throws IOException
+	{
+		Assertions.assertEquals("{\"cmd\":\"SUBSCRIBE\",\"args\":{},\"evt\":\"READY\",\"nonce\":\"9\"}",
+				encode(command(Command.Type.SUBSCRIBE, Command.Event.READY, new Object(), 9)));
+	}
+
+	@Test
+	void otherMessagesLikeGson() throws IOException
+	{
+		HandshakeMessage handshake = new HandshakeMessage("1234");
+		Assertions.assertEquals(gson.toJson(handshake), encode(handshake));
+	}
+}
@@ -0,0 +1,243 @@
+package de.jcm.discordgamesdk.impl;
+
+import de.jcm.discordgamesdk.image.ImageHandle;
+import de.jcm.discordgamesdk.image.ImageType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class DiskImageCacheTest
+{
+	private static final long MAX_SIZE = 1024 * 1024;
+
+	@TempDir
+	Path directory;
+
+	private static ImageHandle handle(long id)
+	{
+		return new ImageHandle(ImageType.USER, id, 16);
+	}
+
+	private static BufferedImage image(int argb)
+	{
+		BufferedImage image = new BufferedImage(16, 8, BufferedImage.TYPE_INT_ARGB);
+		for(int y = 0; y < image.getHeight(); y++)
+			for(int x = 0; x < image.getWidth(); x++)
+				image.setRGB(x, y, argb + x + 16 * y);
+		return image;
+	}
+
+	private static void assertSamePixels(BufferedImage expected, BufferedImage actual)
+	{
+		Assertions.assertNotNull(actual);
+		Assertions.assertEquals(expected.getWidth(), actual.getWidth());
+		Assertions.assertEquals(expected.getHeight(), actual.getHeight());
+		Assertions.assertArrayEquals(ImageData.toRgba(expected), ImageData.toRgba(actual));
+	}
+
+	private long packSize() throws IOException
+	{
+		return Files.size(directory.resolve(DiskImageCache.PACK_FILE));
+	}
+
+	@Test
+	void storedImagesSurviveReopening() throws IOException
+	{
+		BufferedImage image = image(0x80102030);
+		try(DiskImageCache cache = DiskImageCache.open(directory, MAX_SIZE))
+		{
+			Assertions.assertNull(cache.load(handle(1), "hash"));
+			cache.store(handle(1), "hash", image);
+			assertSamePixels(image, cache.load(handle(1), "hash"));
+		}
+		try(DiskImageCache cache = DiskImageCache.open(directory, MAX_SIZE))
+		{
+			assertSamePixels(image, cache.load(handle(1), "hash"));
+			Assertions.assertNull(cache.load(handle(2), "hash"));
+			Assertions.assertNull(cache.load(new ImageHandle(ImageType.USER, 1, 32), "hash"));
+			Assertions.assertEquals(1, cache.getHitCount());
+		}
+	}
+
+	@Test
+	void changedAvatarIsNotLoaded() throws IOException
+	{
+		BufferedImage newImage = image(0xFF000000);
+		try(DiskImageCache cache = DiskImageCache.open(directory, MAX_SIZE))
+		{
+			cache.store(handle(1), "old", image(0x80102030));
+			Assertions.assertNull(cache.load(handle(1), "new"));
+
+			cache.store(handle(1), "new", newImage);
+			assertSamePixels(newImage, cache.load(handle(1), "new"));
+			Assertions.assertNull(cache.load(handle(1), "old"));
+		}
+	}
+
+	@Test
+	void supersededImagesAreCompacted() throws IOException
+	{
+		BufferedImage last = image(0x7F000000);
+		long singleSize;
+		try(DiskImageCache cache = DiskImageCache.open(directory, MAX_SIZE))
+		{
+			cache.store(handle(1), "hash", image(0x10000000));
+			singleSize = packSize();
+			cache.store(handle(1), "hash", image(0x20000000));
+			cache.store(handle(1), "hash", last);
+			Assertions.assertEquals(3 * singleSize, packSize());
+		}
+		try(DiskImageCache cache = DiskImageCache.open(directory, MAX_SIZE))
+		{
+			Assertions.assertEquals(singleSize, packSize());
+			assertSamePixels(last, cache.load(handle(1), "hash"));
+		}
+	}
+
+	@Test
+	void incompleteRecordIsCutOff() throws IOException
+	{
+		BufferedImage image = image(0x80102030);
+		long size;
+		try(DiskImageCache cache = DiskImageCache.open(directory, MAX_SIZE))
+		{
+			cache.store(handle(1), "hash", image);
+			size = packSize();
+			cache.store(handle(2), "hash", image);
+		}
+		try(FileChannel channel = FileChannel.open(directory.resolve(DiskImageCache.PACK_FILE), StandardOpenOption.WRITE))
+		{
+			channel.truncate(size + 100);
+		}
+		try(DiskImageCache cache = DiskImageCache.open(directory, MAX_SIZE))
+		{
+			Assertions.assertEquals(size, packSize());
+			assertSamePixels(image, cache.load(handle(1), "hash"));
+			Assertions.assertNull(cache.load(handle(2), "hash"));
+
+			cache.store(handle(2), "hash", image);
+			assertSamePixels(image, cache.load(handle(2), "hash"));
+		}
+	}
+
+	@Test
+	void garbageIsCutOff() throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(directory.resolve(DiskImageCache.PACK_FILE),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE))
+		{
+			channel.write(ByteBuffer.wrap("not an image cache".getBytes()));
+		}
+		try(DiskImageCache cache = DiskImageCache.open(directory, MAX_SIZE))
+		{
+			Assertions.assertEquals(0, packSize());
+			Assertions.assertNull(cache.load(handle(1), "hash"));
+		}
+	}
+
+	@Test
+	void directoryCanOnlyBeUsedOnce() throws IOException
+	{
+		try(DiskImageCache cache = DiskImageCache.open(directory, MAX_SIZE))
+		{
+			Assertions.assertThrows(IOException.class, () -> DiskImageCache.open(directory, MAX_SIZE));
+		}
+		DiskImageCache.open(directory, MAX_SIZE).close();
+	}
+
+	@Test
+	void fileStaysWithinMaximumSize() throws IOException
+	{
+		long singleSize;
+		try(DiskImageCache cache = DiskImageCache.open(directory, MAX_SIZE))
+		{
+			cache.store(handle(0), "hash", image(0));
+			singleSize = packSize();
+		}
+		// room for exactly eight images
+		long maxSize = 8 * singleSize;
+		try(DiskImageCache cache = DiskImageCache.open(directory, maxSize))
+		{
+			for(int i = 1; i < 8; i++)
+				cache.store(handle(i), "hash", image(i));
+			Assertions.assertEquals(maxSize, packSize());
+
+			// using the first image keeps it, the least recently used ones are evicted until a quarter is free
+			Assertions.assertNotNull(cache.load(handle(0), "hash"));
+			cache.store(handle(8), "hash", image(8));
+			Assertions.assertEquals(maxSize, packSize());
+			assertSamePixels(image(0), cache.load(handle(0), "hash"));
+			for(int i = 1; i <= 3; i++)
+				Assertions.assertNull(cache.load(handle(i), "hash"));
+			for(int i = 4; i <= 8; i++)
+				assertSamePixels(image(i), cache.load(handle(i), "hash"));
+
+			// the freed space is reused
+			cache.store(handle(9), "hash", image(9));
+			Assertions.assertEquals(maxSize, packSize());
+			assertSamePixels(image(9), cache.load(handle(9), "hash"));
+		}
+		try(DiskImageCache cache = DiskImageCache.open(directory, maxSize))
+		{
+			Assertions.assertEquals(7 * singleSize, packSize());
+			Assertions.assertNull(cache.load(handle(3), "hash"));
+			for(int i : new int[]{0, 4, 5, 6, 7, 8, 9})
+				assertSamePixels(image(i), cache.load(handle(i), "hash"));
+		}
+	}
+
+	@Test
+	void smallerMaximumSizeEvictsOnOpen() throws IOException
+	{
+		long singleSize;
+		try(DiskImageCache cache = DiskImageCache.open(directory, MAX_SIZE))
+		{
+			cache.store(handle(1), "hash", image(1));
+			singleSize = packSize();
+			cache.store(handle(2), "hash", image(2));
+			cache.store(handle(3), "hash", image(3));
+		}
+		try(DiskImageCache cache = DiskImageCache.open(directory, 2 * singleSize))
+		{
+			Assertions.assertEquals(2 * singleSize, packSize());
+			Assertions.assertNull(cache.load(handle(1), "hash"));
+			assertSamePixels(image(2), cache.load(handle(2), "hash"));
+			assertSamePixels(image(3), cache.load(handle(3), "hash"));
+		}
+	}
+
+	@Test
+	void imageLargerThanMaximumSizeIsRejected() throws IOException
+	{
+		try(DiskImageCache cache = DiskImageCache.open(directory, 100))
+		{
+			Assertions.assertThrows(IOException.class, () -> cache.store(handle(1), "hash", image(1)));
+			Assertions.assertEquals(0, packSize());
+		}
+	}
+
+	@Test
+	void onlyNewRecordsAreMapped() throws IOException
+	{
+		try(DiskImageCache cache = DiskImageCache.open(directory, MAX_SIZE))
+		{
+			cache.store(handle(1), "hash", image(1));
+			Assertions.assertNotNull(cache.load(handle(1), "hash"));
+			Assertions.assertEquals(packSize(), cache.getMappedBytes());
+
+			cache.store(handle(2), "hash", image(2));
+			Assertions.assertNotNull(cache.load(handle(1), "hash"));
+			Assertions.assertEquals(packSize() / 2, cache.getMappedBytes());
+			assertSamePixels(image(2), cache.load(handle(2), "hash"));
+			Assertions.assertEquals(packSize(), cache.getMappedBytes());
+		}
+	}
+}
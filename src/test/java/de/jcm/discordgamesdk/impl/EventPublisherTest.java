@@ -0,0 +1,204 @@
+package de.jcm.discordgamesdk.impl;
+
+import de.jcm.discordgamesdk.OverflowPolicy;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+public class EventPublisherTest
+{
+	/** Runs tasks only when asked to */
+	private static class ManualExecutor implements Executor
+	{
+		private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+		@Override
+		public synchronized void execute(Runnable command)
+		{
+			tasks.add(command);
+		}
+
+		void runAll()
+		{
+			Runnable task;
+			while(true)
+			{
+				synchronized(this)
+				{
+					task = tasks.poll();
+				}
+				if(task == null)
+					break;
+				task.run();
+			}
+		}
+	}
+
+	private static class Recorder<T> implements Flow.Subscriber<T>
+	{
+		final List<T> received = new ArrayList<>();
+		final long initialDemand;
+		Flow.Subscription subscription;
+		boolean completed;
+
+		Recorder(long initialDemand)
+		{
+			this.initialDemand = initialDemand;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription)
+		{
+			this.subscription = subscription;
+			if(initialDemand > 0)
+				subscription.request(initialDemand);
+		}
+
+		@Override
+		public void onNext(T item)
+		{
+			received.add(item);
+		}
+
+		@Override
+		public void onError(Throwable throwable)
+		{
+			Assertions.fail(throwable);
+		}
+
+		@Override
+		public void onComplete()
+		{
+			completed = true;
+		}
+	}
+
+	@Test
+	void slowSubscriberDoesNotLoseOthersEvents()
+	{
+		ManualExecutor executor = new ManualExecutor();
+		EventPublisher<Integer> publisher = new EventPublisher<>(executor, 2, OverflowPolicy.DROP_OLDEST);
+		Recorder<Integer> fast = new Recorder<>(Long.MAX_VALUE);
+		Recorder<Integer> slow = new Recorder<>(0);
+		publisher.publisher().subscribe(fast);
+		publisher.publisher().subscribe(slow);
+
+		for(int i = 0; i < 5; i++)
+		{
+			publisher.publish(i);
+			executor.runAll();
+		}
+		Assertions.assertEquals(List.of(0, 1, 2, 3, 4), fast.received);
+
+		slow.subscription.request(10);
+		executor.runAll();
+		Assertions.assertEquals(List.of(3, 4), slow.received);
+		Assertions.assertEquals(3, publisher.getDroppedEvents());
+	}
+
+	@Test
+	void conflateKeepsNewest()
+	{
+		ManualExecutor executor = new ManualExecutor();
+		EventPublisher<Integer> publisher = new EventPublisher<>(executor, 4, OverflowPolicy.DROP_OLDEST);
+		Recorder<Integer> subscriber = new Recorder<>(0);
+		publisher.publisher(2, OverflowPolicy.CONFLATE).subscribe(subscriber);
+
+		for(int i = 0; i < 5; i++)
+			publisher.publish(i);
+		subscriber.subscription.request(10);
+		executor.runAll();
+		Assertions.assertEquals(List.of(4), subscriber.received);
+	}
+
+	@Test
+	void blockWaitsForRoom() throws Exception
+	{
+		ManualExecutor executor = new ManualExecutor();
+		EventPublisher<Integer> publisher = new EventPublisher<>(executor, 1, OverflowPolicy.BLOCK);
+		Recorder<Integer> subscriber = new Recorder<>(0);
+		publisher.publisher().subscribe(subscriber);
+
+		publisher.publish(0);
+		Thread producer = new Thread(() -> publisher.publish(1));
+		producer.start();
+		producer.join(TimeUnit.MILLISECONDS.toMillis(100));
+		Assertions.assertTrue(producer.isAlive());
+
+		subscriber.subscription.request(1);
+		executor.runAll();
+		producer.join(TimeUnit.SECONDS.toMillis(5));
+		Assertions.assertFalse(producer.isAlive());
+
+		subscriber.subscription.request(1);
+		executor.runAll();
+		Assertions.assertEquals(List.of(0, 1), subscriber.received);
+		Assertions.assertEquals(0, publisher.getDroppedEvents());
+	}
+
+	@Test
+	void closeCompletesAfterBufferedEvents()
+	{
+		ManualExecutor executor = new ManualExecutor();
+		EventPublisher<Integer> publisher = new EventPublisher<>(executor, 4, OverflowPolicy.DROP_OLDEST);
+		Recorder<Integer> subscriber = new Recorder<>(0);
+		publisher.publisher().subscribe(subscriber);
+
+		publisher.publish(0);
+		publisher.close();
+		executor.runAll();
+		Assertions.assertFalse(subscriber.completed);
+
+		subscriber.subscription.request(1);
+		executor.runAll();
+		Assertions.assertEquals(List.of(0), subscriber.received);
+		Assertions.assertTrue(subscriber.completed);
+		Assertions.assertFalse(publisher.hasSubscribers());
+
+		Recorder<Integer> late = new Recorder<>(1);
+		publisher.publisher().subscribe(late);
+		executor.runAll();
+		Assertions.assertTrue(late.completed);
+	}
+
+	@Test
+	void throwingSubscriberIsCancelledWithoutOnError()
+	{
+		ManualExecutor executor = new ManualExecutor();
+		List<Throwable> failures = new ArrayList<>();
+		EventPublisher<Integer> publisher = new EventPublisher<>(executor, 4, OverflowPolicy.DROP_OLDEST, ()->{}, failures::add);
+		RuntimeException thrown = new RuntimeException("broken");
+		Recorder<Integer> broken = new Recorder<>(Long.MAX_VALUE)
+		{
+			@Override
+			public void onNext(Integer item)
+			{
+				super.onNext(item);
+				throw thrown;
+			}
+		};
+		Recorder<Integer> other = new Recorder<>(Long.MAX_VALUE);
+		publisher.publisher().subscribe(broken);
+		publisher.publisher().subscribe(other);
+
+		publisher.publish(0);
+		publisher.publish(1);
+		executor.runAll();
+		publisher.close();
+		executor.runAll();
+
+		// Recorder fails on onError
+		Assertions.assertEquals(List.of(0), broken.received);
+		Assertions.assertFalse(broken.completed);
+		Assertions.assertEquals(List.of(thrown), failures);
+		Assertions.assertEquals(List.of(0, 1), other.received);
+		Assertions.assertTrue(other.completed);
+		Assertions.assertFalse(publisher.hasSubscribers());
+	}
+}
@@ -0,0 +1,122 @@
+package de.jcm.discordgamesdk.impl;
+
+import de.jcm.discordgamesdk.image.ImageHandle;
+import de.jcm.discordgamesdk.image.ImageType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+public class ImageCacheTest
+{
+	/** 16x16 pixels with 4 bytes each */
+	private static final long IMAGE_BYTES = 1024;
+
+	private static ImageHandle handle(long id)
+	{
+		return new ImageHandle(ImageType.USER, id, 16);
+	}
+
+	private static BufferedImage image()
+	{
+		return new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+	}
+
+	@Test
+	void weighsDecodedPixels()
+	{
+		Assertions.assertEquals(IMAGE_BYTES, ImageCache.weigh(image()));
+		Assertions.assertEquals(16*16*3, ImageCache.weigh(new BufferedImage(16, 16, BufferedImage.TYPE_3BYTE_BGR)));
+	}
+
+	@Test
+	void evictsLeastRecentlyUsed()
+	{
+		ImageCache cache = new ImageCache(3 * IMAGE_BYTES, false);
+		cache.put(handle(1), image());
+		cache.put(handle(2), image());
+		cache.put(handle(3), image());
+		Assertions.assertNotNull(cache.get(handle(1)));
+
+		cache.put(handle(4), image());
+		Assertions.assertNull(cache.get(handle(2)));
+		Assertions.assertNotNull(cache.get(handle(1)));
+		Assertions.assertNotNull(cache.get(handle(3)));
+		Assertions.assertNotNull(cache.get(handle(4)));
+		Assertions.assertEquals(3 * IMAGE_BYTES, cache.getBytes());
+
+		Assertions.assertEquals(4, cache.getHitCount());
+		Assertions.assertEquals(1, cache.getMissCount());
+		Assertions.assertEquals(1, cache.getEvictionCount());
+	}
+
+	@Test
+	void replacingDoesNotCountTwice()
+	{
+		ImageCache cache = new ImageCache(3 * IMAGE_BYTES, false);
+		cache.put(handle(1), image());
+		cache.put(handle(1), image());
+		Assertions.assertEquals(IMAGE_BYTES, cache.getBytes());
+		Assertions.assertEquals(0, cache.getEvictionCount());
+	}
+
+	@Test
+	void keepsNewestImageEvenIfTooLarge()
+	{
+		ImageCache cache = new ImageCache(IMAGE_BYTES / 2, false);
+		cache.put(handle(1), image());
+		Assertions.assertNotNull(cache.get(handle(1)));
+		cache.put(handle(2), image());
+		Assertions.assertNull(cache.get(handle(1)));
+		Assertions.assertNotNull(cache.get(handle(2)));
+	}
+
+	@Test
+	void keyIsNotAffectedByChangingTheHandle()
+	{
+		ImageCache cache = new ImageCache(3 * IMAGE_BYTES, false);
+		ImageHandle handle = handle(1);
+		cache.put(handle, image());
+		handle.setId(2);
+		Assertions.assertNotNull(cache.get(handle(1)));
+		Assertions.assertNull(cache.get(handle(2)));
+	}
+
+	@Test
+	void explicitEviction()
+	{
+		ImageCache cache = new ImageCache(3 * IMAGE_BYTES, true);
+		cache.put(handle(1), image());
+		cache.put(handle(2), image());
+		cache.put(handle(3), image());
+
+		Assertions.assertTrue(cache.evict(handle(2)));
+		Assertions.assertFalse(cache.evict(handle(2)));
+		Assertions.assertNull(cache.get(handle(2)));
+
+		cache.trimTo(IMAGE_BYTES);
+		Assertions.assertEquals(IMAGE_BYTES, cache.getBytes());
+		cache.trimTo(0);
+		Assertions.assertEquals(0, cache.getBytes());
+		Assertions.assertEquals(3, cache.getEvictionCount());
+	}
+
+	@Test
+	void spilledImagesComeBack()
+	{
+		ImageCache cache = new ImageCache(IMAGE_BYTES, true);
+		BufferedImage first = image();
+		cache.put(handle(1), first);
+		cache.put(handle(2), image());
+		Assertions.assertEquals(IMAGE_BYTES, cache.getBytes());
+
+		// still strongly reachable through first, so the soft reference cannot have been cleared
+		Assertions.assertSame(first, cache.get(handle(1)));
+		Assertions.assertEquals(IMAGE_BYTES, cache.getBytes());
+		Assertions.assertEquals(2, cache.getEvictionCount());
+		Assertions.assertNotNull(cache.get(handle(2)));
+
+		Assertions.assertTrue(cache.evict(handle(1)));
+		Assertions.assertNull(cache.get(handle(1)));
+	}
+}
@@ -0,0 +1,54 @@
+package de.jcm.discordgamesdk.impl;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+public class ImageDataTest
+{
+	private static BufferedImage image(int type)
+	{
+		BufferedImage image = new BufferedImage(5, 3, type);
+		for(int y = 0; y < image.getHeight(); y++)
+			for(int x = 0; x < image.getWidth(); x++)
+				image.setRGB(x, y, 0x80000000 | (x * 40) << 16 | (y * 70) << 8 | (x * y * 10));
+		return image;
+	}
+
+	@Test
+	void convertsEveryPixel()
+	{
+		BufferedImage argb = image(BufferedImage.TYPE_INT_ARGB);
+		byte[] rgba = ImageData.toRgba(argb);
+		Assertions.assertEquals(5 * 3 * 4, rgba.length);
+		for(int y = 0; y < 3; y++)
+		{
+			for(int x = 0; x < 5; x++)
+			{
+				int i = (y * 5 + x) * 4;
+				int pixel = argb.getRGB(x, y);
+				Assertions.assertArrayEquals(new byte[]{(byte) (pixel >> 16), (byte) (pixel >> 8), (byte) pixel, (byte) (pixel >> 24)},
+						new byte[]{rgba[i], rgba[i + 1], rgba[i + 2], rgba[i + 3]});
+			}
+		}
+
+		// swizzled directly instead of going through the color model
+		Assertions.assertArrayEquals(rgba, ImageData.toRgba(image(BufferedImage.TYPE_4BYTE_ABGR)));
+		Assertions.assertArrayEquals(rgba, ImageData.toRgba(image(BufferedImage.TYPE_4BYTE_ABGR).getSubimage(0, 0, 5, 3)));
+	}
+
+	@Test
+	void rgbaImagesAreNotCopied()
+	{
+		BufferedImage argb = image(BufferedImage.TYPE_INT_ARGB);
+		Assertions.assertFalse(ImageData.isRgba(argb));
+
+		BufferedImage rgbaImage = ImageData.toRgbaImage(argb);
+		Assertions.assertTrue(ImageData.isRgba(rgbaImage));
+		Assertions.assertSame(rgbaImage, ImageData.toRgbaImage(rgbaImage));
+		Assertions.assertSame(ImageData.rgba(rgbaImage), ImageData.rgba(rgbaImage));
+		Assertions.assertArrayEquals(ImageData.toRgba(argb), ImageData.rgba(rgbaImage));
+		Assertions.assertEquals(argb.getRGB(4, 2), rgbaImage.getRGB(4, 2));
+	}
+}
@@ -0,0 +1,88 @@
+package de.jcm.discordgamesdk.impl;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PendingRequestsTest
+{
+	@Test
+	void putAndRemove()
+	{
+		PendingRequests<String> pending = new PendingRequests<>(4);
+		pending.put(1, "a");
+		pending.put(2, "b");
+
+		Assertions.assertEquals("a", pending.get(1));
+		Assertions.assertEquals("b", pending.remove(2));
+		Assertions.assertNull(pending.get(2));
+		Assertions.assertEquals(1, pending.size());
+		Assertions.assertEquals(0, pending.getUnknownResponses());
+	}
+
+	@Test
+	void unknownAndLateResponses()
+	{
+		PendingRequests<String> pending = new PendingRequests<>(4);
+		pending.put(1, "a");
+
+		Assertions.assertEquals("a", pending.remove(1));
+		Assertions.assertNull(pending.remove(1)); // late duplicate
+		Assertions.assertNull(pending.remove(5)); // same slot, never sent
+		Assertions.assertNull(pending.remove(-1));
+		Assertions.assertEquals(3, pending.getUnknownResponses());
+
+		pending.put(2, "b");
+		pending.cancel(2);
+		Assertions.assertEquals(0, pending.size());
+		Assertions.assertEquals(3, pending.getUnknownResponses());
+	}
+
+	@Test
+	void overflowHoldsRequestsWhoseSlotIsTaken()
+	{
+		PendingRequests<Long> pending = new PendingRequests<>(4);
+		pending.put(1, 1L); // never answered
+
+		for(long nonce = 2; nonce < 100; nonce++)
+		{
+			pending.put(nonce, nonce);
+			Assertions.assertEquals(nonce, pending.remove(nonce));
+		}
+		for(long nonce = 100; nonce < 120; nonce++)
+		{
+			pending.put(nonce, nonce);
+		}
+
+		Assertions.assertEquals(1L, pending.get(1));
+		for(long nonce = 100; nonce < 120; nonce++)
+		{
+			Assertions.assertEquals(nonce, pending.get(nonce));
+		}
+		Assertions.assertEquals(21, pending.size());
+	}
+
+	@Test
+	void overflowKeepsFindingRequestsAfterRemovals()
+	{
+		PendingRequests<Long> pending = new PendingRequests<>(2);
+		pending.put(0, 0L);
+		pending.put(1, 1L);
+		// all of these overflow, enough to grow the overflow table several times
+		for(long nonce = 2; nonce < 200; nonce++)
+			pending.put(nonce, nonce);
+
+		for(long nonce = 2; nonce < 200; nonce += 3)
+			Assertions.assertEquals(nonce, pending.cancel(nonce));
+		Assertions.assertNull(pending.get(-1));
+		Assertions.assertNull(pending.remove(-1));
+		for(long nonce = 0; nonce < 200; nonce++)
+		{
+			if(nonce >= 2 && (nonce - 2) % 3 == 0)
+				Assertions.assertNull(pending.get(nonce));
+			else
+				Assertions.assertEquals(nonce, pending.get(nonce));
+		}
+		Assertions.assertThrows(IllegalStateException.class, ()->pending.put(4, 4L));
+		Assertions.assertEquals(200 - 66, pending.size());
+	}
+}
@@ -0,0 +1,28 @@
+package de.jcm.discordgamesdk.impl;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RateLimiterTest
+{
+	@Test
+	void burstThenSteadyRate()
+	{
+		long start = -1_000; // nanoTime may be negative
+		RateLimiter limiter = new RateLimiter(5, 20_000, start);
+
+		for(int i = 0; i < 5; i++)
+			Assertions.assertTrue(limiter.tryAcquire(start));
+		Assertions.assertFalse(limiter.tryAcquire(start));
+		Assertions.assertFalse(limiter.tryAcquire(start + 3_999));
+
+		Assertions.assertTrue(limiter.tryAcquire(start + 4_000));
+		Assertions.assertFalse(limiter.tryAcquire(start + 4_000));
+
+		// a long pause refills the bucket, but never beyond the burst
+		long later = start + 1_000_000;
+		for(int i = 0; i < 5; i++)
+			Assertions.assertTrue(limiter.tryAcquire(later));
+		Assertions.assertFalse(limiter.tryAcquire(later));
+	}
+}
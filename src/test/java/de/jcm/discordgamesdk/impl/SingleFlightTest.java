@@ -0,0 +1,87 @@
+package de.jcm.discordgamesdk.impl;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class SingleFlightTest
+{
+	private static byte[] args(String json)
+	{
+		return json.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static SingleFlight.Flight join(SingleFlight flights, String args, long nonce)
+	{
+		return flights.join(Command.Type.GET_USER, Object.class, args(args), nonce);
+	}
+
+	@Test
+	void identicalRequestsJoinUntilLanding()
+	{
+		SingleFlight flights = new SingleFlight(16);
+
+		SingleFlight.Flight a = join(flights, "{\"id\":\"1\"}", 1);
+		Assertions.assertEquals(1, a.getNonce());
+		Assertions.assertSame(a, join(flights, "{\"id\":\"1\"}", 2));
+		SingleFlight.Flight b = join(flights, "{\"id\":\"2\"}", 3);
+		Assertions.assertEquals(3, b.getNonce());
+		Assertions.assertSame(a, join(flights, "{\"id\":\"1\"}", 4));
+		Assertions.assertEquals(2, flights.getJoinedCount());
+
+		// the same arguments for another command or data class are a different request
+		Assertions.assertEquals(5, flights.join(Command.Type.GET_IMAGE, Object.class, args("{\"id\":\"1\"}"), 5).getNonce());
+		Assertions.assertEquals(6, flights.join(Command.Type.GET_USER, String.class, args("{\"id\":\"1\"}"), 6).getNonce());
+
+		Assertions.assertArrayEquals(new long[]{2, 4}, flights.land(a));
+		Assertions.assertArrayEquals(new long[0], flights.land(a));
+		Assertions.assertArrayEquals(new long[0], flights.land(b));
+		Assertions.assertTrue(flights.answerLeader(a));
+		Assertions.assertFalse(flights.answerLeader(a));
+
+		Assertions.assertEquals(7, join(flights, "{\"id\":\"1\"}", 7).getNonce());
+	}
+
+	@Test
+	void detachedFlightKeepsItsRequests()
+	{
+		SingleFlight flights = new SingleFlight(16);
+		SingleFlight.Flight flight = join(flights, "{}", 1);
+		join(flights, "{}", 2);
+		join(flights, "{}", 3);
+
+		Assertions.assertTrue(flights.detach(flight));
+		Assertions.assertEquals(4, join(flights, "{}", 4).getNonce());
+
+		Assertions.assertFalse(flights.leave(flight, 2));
+		Assertions.assertArrayEquals(new long[]{3}, flights.land(flight));
+
+		SingleFlight.Flight abandoned = join(flights, "{\"id\":\"1\"}", 5);
+		join(flights, "{\"id\":\"1\"}", 6);
+		Assertions.assertTrue(flights.detach(abandoned));
+		Assertions.assertTrue(flights.leave(abandoned, 6));
+		Assertions.assertFalse(flights.detach(abandoned));
+	}
+
+	@Test
+	void requestInTakenSlotIsNotShared()
+	{
+		SingleFlight flights = new SingleFlight(2);
+		SingleFlight.Flight first = join(flights, "{\"id\":\"0\"}", 1);
+
+		// with two slots, one of the next requests soon finds its slot taken by a different one
+		long nonce = 2;
+		boolean collided = false;
+		for(int i = 1; i < 64 && !collided; i++)
+		{
+			SingleFlight.Flight flight = join(flights, "{\"id\":\""+i+"\"}", nonce);
+			collided = join(flights, "{\"id\":\""+i+"\"}", nonce + 1) != flight;
+			nonce += 2;
+		}
+		Assertions.assertTrue(collided);
+
+		Assertions.assertSame(first, join(flights, "{\"id\":\"0\"}", nonce));
+		Assertions.assertArrayEquals(new long[]{nonce}, flights.land(first));
+	}
+}
@@ -0,0 +1,70 @@
+package de.jcm.discordgamesdk.impl;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TimeoutWheelTest
+{
+	private static final long TICK = 100;
+
+	@Test
+	void expiresAfterDeadline()
+	{
+		TimeoutWheel wheel = new TimeoutWheel(TICK, 8, 0);
+		List<Long> expired = new ArrayList<>();
+		wheel.schedule(1, 250);
+		wheel.schedule(2, 120);
+
+		wheel.advance(199, expired::add);
+		Assertions.assertEquals(List.of(), expired);
+		wheel.advance(200, expired::add);
+		Assertions.assertEquals(List.of(2L), expired);
+		wheel.advance(299, expired::add);
+		Assertions.assertEquals(List.of(2L), expired);
+		wheel.advance(300, expired::add);
+		Assertions.assertEquals(List.of(2L, 1L), expired);
+		Assertions.assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void deadlinesBeyondOneTurn()
+	{
+		TimeoutWheel wheel = new TimeoutWheel(TICK, 4, 0);
+		List<Long> expired = new ArrayList<>();
+		wheel.schedule(1, 1000); // two and a half turns
+
+		for(long now = 0; now < 1000; now += TICK)
+		{
+			wheel.advance(now, expired::add);
+		}
+		Assertions.assertEquals(List.of(), expired);
+		wheel.advance(1100, expired::add);
+		Assertions.assertEquals(List.of(1L), expired);
+	}
+
+	@Test
+	void longPause()
+	{
+		TimeoutWheel wheel = new TimeoutWheel(TICK, 4, 0);
+		List<Long> expired = new ArrayList<>();
+		for(long nonce = 1; nonce <= 10; nonce++)
+		{
+			wheel.schedule(nonce, nonce * 50);
+		}
+		wheel.schedule(11, 100_000);
+
+		wheel.advance(10_000, expired::add);
+		Assertions.assertEquals(10, expired.size());
+		Assertions.assertEquals(1, wheel.size());
+
+		// scheduled in the past, expires with the next tick
+		wheel.schedule(12, 5_000);
+		wheel.advance(10_050, expired::add);
+		Assertions.assertEquals(10, expired.size());
+		wheel.advance(10_100, expired::add);
+		Assertions.assertEquals(11, expired.size());
+	}
+}
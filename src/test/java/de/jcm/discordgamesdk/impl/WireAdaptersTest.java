@@ -0,0 +1,157 @@
+package de.jcm.discordgamesdk.impl;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import de.jcm.discordgamesdk.activity.Activity;
+import de.jcm.discordgamesdk.activity.ActivityButton;
+import de.jcm.discordgamesdk.activity.ActivityButtonsMode;
+import de.jcm.discordgamesdk.activity.ActivityType;
+import de.jcm.discordgamesdk.impl.commands.*;
+import de.jcm.discordgamesdk.impl.events.ActivityJoinEvent;
+import de.jcm.discordgamesdk.impl.events.ActivityJoinRequestEvent;
+import de.jcm.discordgamesdk.impl.events.OverlayUpdateEvent;
+import de.jcm.discordgamesdk.impl.events.ReadyEvent;
+import de.jcm.discordgamesdk.impl.events.VoiceSettingsUpdate2Event;
+import de.jcm.discordgamesdk.user.DiscordUser;
+import de.jcm.discordgamesdk.voice.VoiceInputMode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+public class WireAdaptersTest
+{
+	private final Gson reflective = new Gson();
+	private final Gson wire = new GsonBuilder().registerTypeAdapterFactory(new WireAdapters()).create();
+
+	private void assertSameJson(Object message)
+	{
+		Assertions.assertEquals(reflective.toJson(message), wire.toJson(message));
+		Assertions.assertEquals(reflective.toJsonTree(message), wire.toJsonTree(message));
+	}
+
+	private void assertSameObject(String json, Class<?> type)
+	{
+		Object expected = reflective.fromJson(json, type);
+		Object actual = wire.fromJson(json, type);
+		Assertions.assertSame(type, actual.getClass());
+		// the reflective adapter shows every field, so this compares all of them
+		Assertions.assertEquals(reflective.toJson(expected), reflective.toJson(actual));
+	}
+
+	@Test
+	void writesSameJsonAsGson()
+	{
+		Activity activity = new Activity();
+		activity.setState("<state> & \"quotes\"");
+		activity.setType(ActivityType.LISTENING);
+		activity.timestamps().setStart(Instant.ofEpochSecond(1234));
+		activity.assets().setLargeImage("large");
+		activity.party().size().setMaxSize(4);
+		activity.addButton(new ActivityButton("label", "https://example.com/?a=1&b=2"));
+		activity.setActivityButtonsMode(ActivityButtonsMode.BUTTONS);
+
+		assertSameJson(new HandshakeMessage("1234"));
+		assertSameJson(new ActivityInviteUser.Args(1, "42", null, 7));
+		assertSameJson(new GetImage.Args("user", "42", "png", 128));
+		assertSameJson(new OpenOverlayActivityInvite.Args(1, 7));
+		assertSameJson(new OpenOverlayGuildInvite.Args("code", 7));
+		assertSameJson(new OpenOverlayVoiceSettings.Args(7));
+		assertSameJson(new SendActivityJoinInvite.Args("42"));
+		assertSameJson(new SetActivity.Args(7, activity));
+		assertSameJson(new SetActivity.Args(7, null));
+		assertSameJson(new SetOverlayLocked.Args(true, 7));
+		assertSameJson(new SetUserVoiceSettings.Args("42"));
+		assertSameJson(new SetUserVoiceSettings.Mute("42", true));
+		assertSameJson(new SetUserVoiceSettings.Volume("42", 150));
+		assertSameJson(new SetVoiceSettings2.InputMode(new VoiceInputMode(VoiceInputMode.InputModeType.PUSH_TO_TALK, "ctrl")));
+		assertSameJson(new SetVoiceSettings2.SelfMute(true));
+		assertSameJson(new SetVoiceSettings2.SelfDeaf(false));
+		assertSameJson(new OverlayUpdateEvent.Handler.Args(7));
+
+		Activity full = new Activity();
+		full.setDetails("details");
+		full.setInstance(true);
+		full.timestamps().setStartAndEnd(Instant.ofEpochSecond(1234), Instant.ofEpochSecond(5678));
+		full.assets().setSmallImage("small");
+		full.assets().setSmallText("text");
+		full.party().setID("party");
+		full.secrets().setJoinSecret("join");
+		full.secrets().setSpectateSecret("spectate");
+		assertSameJson(full);
+		assertSameJson(new Activity());
+		assertSameJson(reflective.fromJson("{\"applicationId\":42,\"name\":\"Game\",\"type\":1,\"instance\":false,"
+				+"\"buttons\":[{\"label\":\"a\"},null],\"timestamps\":{},\"assets\":{},\"party\":{\"size\":[1,2]}}", Activity.class));
+		assertSameJson(new ActivityButton());
+		assertSameJson(new DiscordUser(42, "user", "0001", null, true));
+		assertSameJson(reflective.fromJson("{\"id\":\"42\",\"avatar_decoration\":\"deco\",\"flags\":64}", DiscordUser.class));
+		assertSameJson(new VoiceInputMode(VoiceInputMode.InputModeType.VOICE_ACTIVITY, null));
+		assertSameJson(new VoiceInputMode((VoiceInputMode.InputModeType) null, "ctrl"));
+	}
+
+	@Test
+	void readsSameObjectsAsGson()
+	{
+		String user = "{\"id\":\"42\",\"username\":\"user\",\"discriminator\":\"0001\",\"avatar\":null,\"bot\":false,\"flags\":64}";
+
+		assertSameObject("{\"code\":4000,\"message\":\"bad\",\"extra\":[1,{\"a\":2}]}", Error.class);
+		assertSameObject("{\"code\":null,\"message\":null}", Error.class);
+		assertSameObject("{\"access_token\":\"token\",\"scopes\":[\"identify\",\"rpc\"],\"expires\":\"2020-01-02T03:04:05.000Z\",\"user\":"+user
+				+",\"application\":{\"id\":\"1\",\"name\":\"app\",\"is_monetized\":\"true\",\"flags\":\"3\",\"hook\":true}}", Authenticate.Response.class);
+		assertSameObject("{\"data_url\":\"data:image/png;base64,AAAA\"}", GetImage.Response.class);
+		assertSameObject("{\"relationships\":[{\"type\":1,\"user\":"+user+",\"presence\":{\"status\":\"online\",\"activity\":{\"created_at\":123,"
+				+"\"emoji\":{\"name\":\"x\",\"id\":null},\"id\":\"custom\",\"name\":\"Game\",\"state\":\"playing\",\"type\":0,\"flags\":1}}},"
+				+"{\"type\":null,\"user\":null,\"presence\":{\"status\":true,\"activity\":null}}]}", GetRelationships.Response.class);
+		assertSameObject("{\"relationships\":null}", GetRelationships.Response.class);
+		assertSameObject("{\"evt\":\"READY\"}", Subscribe.Response.class);
+		assertSameObject("{\"evt\":\"NOT_AN_EVENT\"}", Subscribe.Response.class);
+		assertSameObject("{\"secret\":\"s3cr3t\"}", ActivityJoinEvent.Data.class);
+		assertSameObject("{\"enabled\":true,\"locked\":null}", OverlayUpdateEvent.Data.class);
+		assertSameObject("{\"v\":1,\"config\":{\"cdn_host\":\"cdn.discordapp.com\",\"api_endpoint\":\"//discord.com/api\",\"environment\":\"production\"},"
+				+"\"user\":"+user+"}", ReadyEvent.Data.class);
+		assertSameObject("{\"input_mode\":{\"type\":\"PUSH_TO_TALK\",\"shortcut\":\"ctrl\"},\"local_mutes\":[\"1\",\"2\"],"
+				+"\"local_volumes\":{\"1\":50,\"2\":200},\"self_mute\":true,\"self_deaf\":false}", VoiceSettingsUpdate2Event.Data.class);
+		assertSameObject("{}", VoiceSettingsUpdate2Event.Data.class);
+		assertSameObject(user, DiscordUser.class);
+		assertSameObject("{\"id\":42,\"avatar_decoration\":\"deco\",\"bot\":\"true\",\"flags\":\"64\",\"extra\":{}}", DiscordUser.class);
+		assertSameObject("{\"bot\":null,\"flags\":null}", DiscordUser.class);
+		assertSameObject("{\"type\":\"VOICE_ACTIVITY\",\"shortcut\":\"\"}", VoiceInputMode.class);
+		assertSameObject("{\"type\":\"NOT_A_MODE\",\"extra\":1}", VoiceInputMode.class);
+	}
+
+	@Test
+	void usesGsonForDirectionWithoutAdapter()
+	{
+		// messages that are only ever sent can still be read, and the other way round
+		assertSameObject("{\"name\":\"Game\",\"type\":2,\"secrets\":{\"join\":\"s\"},\"timestamps\":{\"start\":5}}", Activity.class);
+		assertSameObject("{\"pid\":7,\"activity\":{\"state\":\"playing\"}}", SetActivity.Args.class);
+		assertSameJson(reflective.fromJson("{\"v\":1,\"config\":{\"cdn_host\":\"cdn.discordapp.com\"},\"user\":{\"id\":\"42\"}}",
+				ReadyEvent.Data.class));
+		assertSameJson(reflective.fromJson("{\"access_token\":\"token\",\"scopes\":[\"rpc\"],\"application\":{\"id\":\"1\"}}",
+				Authenticate.Response.class));
+	}
+
+	@Test
+	void readsOnlyPassedOnFieldsOfJoinRequests()
+	{
+		ActivityJoinRequestEvent.Data data = wire.fromJson("{\"user\":{\"id\":\"42\",\"username\":\"name\","
+				+"\"discriminator\":\"0001\",\"avatar\":null,\"avatar_decoration\":\"deco\",\"flags\":64}}",
+				ActivityJoinRequestEvent.Data.class);
+		Assertions.assertEquals("{\"user\":{\"id\":\"42\",\"username\":\"name\",\"discriminator\":\"0001\",\"bot\":false}}",
+				reflective.toJson(data));
+	}
+
+	@Test
+	void decodesRelationshipsThroughAdapters()
+	{
+		GetRelationships.Response response = wire.fromJson("{\"relationships\":[{\"type\":1,\"user\":{\"id\":\"42\"},"
+				+"\"presence\":{\"status\":\"idle\",\"activity\":{\"state\":\"playing\",\"type\":2}}}]}", GetRelationships.Response.class);
+
+		List<DataProxies.RelationshipImpl> relationships = response.getRelationships();
+		Assertions.assertEquals(1, relationships.size());
+		Assertions.assertEquals(42, relationships.get(0).user.getUserId());
+		Assertions.assertEquals("playing", relationships.get(0).toRelationship().getPresence().getActivity().getState());
+		Assertions.assertEquals(ActivityType.LISTENING, relationships.get(0).toRelationship().getPresence().getActivity().getType());
+	}
+}
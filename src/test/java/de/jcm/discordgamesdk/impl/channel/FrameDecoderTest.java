@@ -0,0 +1,94 @@
+package de.jcm.discordgamesdk.impl.channel;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class FrameDecoderTest
+{
+	private static String body(FrameDecoder decoder)
+	{
+		return StandardCharsets.UTF_8.decode(decoder.getBody()).toString();
+	}
+
+	@Test
+	void partialFrames() throws IOException
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		FrameDecoder decoder = new FrameDecoder(1024);
+		byte[] frame = MemoryDiscordChannel.frame(1, "{\"cmd\":\"DISPATCH\"}");
+
+		Assertions.assertFalse(decoder.read(channel));
+		Assertions.assertFalse(decoder.hasPartialFrame());
+
+		channel.supply(Arrays.copyOfRange(frame, 0, 3));
+		Assertions.assertFalse(decoder.read(channel));
+		Assertions.assertTrue(decoder.hasPartialFrame());
+
+		channel.supply(Arrays.copyOfRange(frame, 3, 12));
+		Assertions.assertFalse(decoder.read(channel));
+
+		channel.supply(Arrays.copyOfRange(frame, 12, frame.length));
+		Assertions.assertTrue(decoder.read(channel));
+		Assertions.assertEquals(1, decoder.getOpcode());
+		Assertions.assertEquals("{\"cmd\":\"DISPATCH\"}", body(decoder));
+
+		Assertions.assertFalse(decoder.read(channel));
+		Assertions.assertFalse(decoder.hasPartialFrame());
+	}
+
+	@Test
+	void consecutiveFrames() throws IOException
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		FrameDecoder decoder = new FrameDecoder(1024);
+		channel.supply(MemoryDiscordChannel.frame(1, "first"));
+		channel.supply(MemoryDiscordChannel.frame(3, "second"));
+
+		Assertions.assertTrue(decoder.read(channel));
+		Assertions.assertEquals("first", body(decoder));
+		Assertions.assertTrue(decoder.read(channel));
+		Assertions.assertEquals(3, decoder.getOpcode());
+		Assertions.assertEquals("second", body(decoder));
+	}
+
+	@Test
+	void frameTooLarge() throws IOException
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		FrameDecoder decoder = new FrameDecoder(4);
+		channel.supply(MemoryDiscordChannel.frame(1, "too long"));
+		channel.supply(MemoryDiscordChannel.frame(1, "ok"));
+
+		Assertions.assertThrows(ProtocolException.class, ()->decoder.read(channel));
+		Assertions.assertTrue(decoder.isFailed());
+		Assertions.assertFalse(channel.isAvailable());
+
+		// the stream cannot be framed anymore, so the decoder neither throws again nor reads on
+		Assertions.assertFalse(decoder.read(channel));
+		Assertions.assertTrue(decoder.isEndOfStream());
+		Assertions.assertFalse(decoder.hasPartialFrame());
+	}
+
+	@Test
+	void largeBodyBufferIsReleased() throws IOException
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		FrameDecoder decoder = new FrameDecoder(1024 * 1024);
+		String large = "x".repeat(FrameDecoder.RETAINED_BODY_CAPACITY * 2);
+		channel.supply(MemoryDiscordChannel.frame(1, large));
+		channel.supply(MemoryDiscordChannel.frame(1, "small"));
+
+		Assertions.assertTrue(decoder.read(channel));
+		Assertions.assertEquals(large, body(decoder));
+		Assertions.assertTrue(decoder.getBodyCapacity() > FrameDecoder.RETAINED_BODY_CAPACITY);
+
+		Assertions.assertTrue(decoder.read(channel));
+		Assertions.assertEquals("small", body(decoder));
+		Assertions.assertTrue(decoder.getBodyCapacity() <= FrameDecoder.RETAINED_BODY_CAPACITY);
+	}
+}
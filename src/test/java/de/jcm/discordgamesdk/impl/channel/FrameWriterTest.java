@@ -0,0 +1,59 @@
+package de.jcm.discordgamesdk.impl.channel;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class FrameWriterTest
+{
+	private static byte[] bytes(ByteBuffer frame)
+	{
+		byte[] bytes = new byte[frame.remaining()];
+		frame.get(bytes);
+		return bytes;
+	}
+
+	@Test
+	void sameBytesAsFrameOfString()
+	{
+		FrameWriter writer = new FrameWriter(new OutboundQueue(new BufferPool(4)));
+		// long enough to grow the buffer, with a surrogate pair across the staged characters
+		String body = "{\"x\":\"" + "a".repeat(1023 - 6) + "😀 Jörg ☃ " + "b".repeat(5000) + "\"}";
+
+		writer.begin(3);
+		writer.write(body, 0, 1023);
+		writer.write(body.charAt(1023));
+		writer.write(body.toCharArray(), 1024, body.length() - 1024);
+		ByteBuffer frame = writer.finish();
+
+		Assertions.assertArrayEquals(MemoryDiscordChannel.frame(3, body), bytes(frame));
+	}
+
+	@Test
+	void lonelySurrogateIsReplaced()
+	{
+		FrameWriter writer = new FrameWriter(new OutboundQueue(new BufferPool(4)));
+
+		writer.begin(1);
+		writer.write("a\uD83D");
+		ByteBuffer frame = writer.finish();
+
+		Assertions.assertArrayEquals(MemoryDiscordChannel.frame(1, "a?"), bytes(frame));
+	}
+
+	@Test
+	void abortedFrameCanBeFollowedByAnother()
+	{
+		FrameWriter writer = new FrameWriter(new OutboundQueue(new BufferPool(4)));
+
+		writer.begin(1);
+		writer.write("partial");
+		writer.abort();
+		writer.begin(1);
+		writer.write("{}");
+
+		Assertions.assertEquals("{}", StandardCharsets.UTF_8.decode(writer.finish().position(8)).toString());
+	}
+}
@@ -0,0 +1,184 @@
+package de.jcm.discordgamesdk.impl.channel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectableChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory {@link DiscordChannel} for tests that do not need a running Discord client.
+ * <p>
+ * Bytes passed to {@link #supply(byte[])} become readable, everything written is collected
+ * and can be obtained with {@link #written()}.
+ * A full socket can be simulated with {@link #setWriteLimit(int)}.
+ */
+public class MemoryDiscordChannel implements DiscordChannel
+{
+	private static final Pattern NONCE = Pattern.compile("\"nonce\":\"(\\d+)\"");
+
+	private ByteBuffer inbound = ByteBuffer.allocate(0);
+	private final ByteArrayOutputStream outbound = new ByteArrayOutputStream();
+	private boolean open = true;
+	private int writeLimit = Integer.MAX_VALUE;
+	private int writeCalls;
+
+	public static byte[] frame(int opcode, String body)
+	{
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer buf = ByteBuffer.allocate(bytes.length + 8).order(ByteOrder.LITTLE_ENDIAN);
+		buf.putInt(opcode);
+		buf.putInt(bytes.length);
+		buf.put(bytes);
+		return buf.array();
+	}
+
+	public synchronized void supply(byte[] bytes)
+	{
+		ByteBuffer merged = ByteBuffer.allocate(inbound.remaining() + bytes.length);
+		merged.put(inbound).put(bytes).flip();
+		inbound = merged;
+	}
+
+	public synchronized byte[] written()
+	{
+		return outbound.toByteArray();
+	}
+
+	/**
+	 * Gets the bodies of all complete frames written so far.
+	 * @return The bodies in the order they were written
+	 */
+	public synchronized List<String> writtenFrames()
+	{
+		ByteBuffer buf = ByteBuffer.wrap(outbound.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+		List<String> frames = new ArrayList<>();
+		while(buf.remaining() >= 8 && buf.remaining() - 8 >= buf.getInt(buf.position() + 4))
+		{
+			buf.getInt();
+			byte[] body = new byte[buf.getInt()];
+			buf.get(body);
+			frames.add(new String(body, StandardCharsets.UTF_8));
+		}
+		return frames;
+	}
+
+	/**
+	 * Gets the nonces of the commands of a type written so far, e.g. to answer them.
+	 * @param cmd Name of the command, e.g. {@code "GET_USER"}
+	 * @return The nonces in the order the commands were written
+	 */
+	public List<String> nonces(String cmd)
+	{
+		List<String> nonces = new ArrayList<>();
+		for(String frame : writtenFrames())
+		{
+			Matcher matcher = NONCE.matcher(frame);
+			if(frame.contains("\"cmd\":\""+cmd+"\"") && matcher.find())
+				nonces.add(matcher.group(1));
+		}
+		return nonces;
+	}
+
+	/**
+	 * Gets the nonce of the last command of a type written so far.
+	 * @param cmd Name of the command, e.g. {@code "GET_USER"}
+	 * @return The nonce
+	 * @throws IllegalStateException if no such command has been written
+	 */
+	public String nonce(String cmd)
+	{
+		List<String> nonces = nonces(cmd);
+		if(nonces.isEmpty())
+			throw new IllegalStateException("no "+cmd+" written");
+		return nonces.get(nonces.size() - 1);
+	}
+
+	/**
+	 * Limits how many bytes a single call to one of the write methods accepts.
+	 * @param writeLimit Maximum number of bytes per call
+	 */
+	public synchronized void setWriteLimit(int writeLimit)
+	{
+		this.writeLimit = writeLimit;
+	}
+
+	/**
+	 * Gets how often one of the write methods was called, counting a gathering write once.
+	 * @return Number of calls
+	 */
+	public synchronized int getWriteCalls()
+	{
+		return writeCalls;
+	}
+
+	@Override
+	public synchronized void close()
+	{
+		open = false;
+	}
+
+	@Override
+	public void configureBlocking(boolean block)
+	{
+	}
+
+	@Override
+	public synchronized int read(ByteBuffer dst)
+	{
+		int n = Math.min(dst.remaining(), inbound.remaining());
+		for(int i = 0; i < n; i++)
+			dst.put(inbound.get());
+		return n;
+	}
+
+	@Override
+	public synchronized long read(ByteBuffer[] dsts, int offset, int length)
+	{
+		long n = 0;
+		for(int i = offset; i < offset + length; i++)
+			n += read(dsts[i]);
+		return n;
+	}
+
+	@Override
+	public synchronized int write(ByteBuffer src) throws IOException
+	{
+		return (int) write(new ByteBuffer[]{src}, 0, 1);
+	}
+
+	@Override
+	public synchronized long write(ByteBuffer[] srcs, int offset, int length) throws IOException
+	{
+		if(!open)
+			throw new IOException("closed");
+		writeCalls++;
+		long n = 0;
+		for(int i = offset; i < offset + length && n < writeLimit; i++)
+		{
+			while(srcs[i].hasRemaining() && n < writeLimit)
+			{
+				outbound.write(srcs[i].get());
+				n++;
+			}
+		}
+		return n;
+	}
+
+	@Override
+	public synchronized boolean isAvailable()
+	{
+		return open;
+	}
+
+	@Override
+	public SelectableChannel getSelectableChannel()
+	{
+		return null;
+	}
+}
@@ -0,0 +1,116 @@
+package de.jcm.discordgamesdk.impl.channel;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class OutboundQueueTest
+{
+	/**
+	 * Queues frames with the given bodies and returns the bytes they should be written as.
+	 */
+	private static byte[] enqueue(OutboundQueue queue, int count)
+	{
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		for(int i = 0; i < count; i++)
+		{
+			byte[] frame = MemoryDiscordChannel.frame(1, "{\"frame\":"+i+"}");
+			ByteBuffer buffer = queue.acquire(frame.length);
+			buffer.put(frame).flip();
+			queue.enqueue(buffer);
+			expected.writeBytes(frame);
+		}
+		return expected.toByteArray();
+	}
+
+	@Test
+	void queuedFramesAreGathered() throws IOException
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		OutboundQueue queue = new OutboundQueue(new BufferPool(4));
+		byte[] expected = enqueue(queue, 3);
+
+		Assertions.assertTrue(queue.flush(channel));
+		Assertions.assertTrue(queue.isEmpty());
+		Assertions.assertEquals(1, channel.getWriteCalls());
+		Assertions.assertArrayEquals(expected, channel.written());
+
+		// nothing left to write
+		Assertions.assertTrue(queue.flush(channel));
+		Assertions.assertEquals(1, channel.getWriteCalls());
+	}
+
+	@Test
+	void manyFramesTakeSeveralWrites() throws IOException
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		OutboundQueue queue = new OutboundQueue(new BufferPool(4));
+		byte[] expected = enqueue(queue, 100);
+
+		Assertions.assertTrue(queue.flush(channel));
+		Assertions.assertEquals(2, channel.getWriteCalls());
+		Assertions.assertArrayEquals(expected, channel.written());
+	}
+
+	@Test
+	void partialWriteKeepsRestQueued() throws IOException
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		OutboundQueue queue = new OutboundQueue(new BufferPool(4));
+		byte[] expected = enqueue(queue, 3);
+		// ends in the middle of the second frame
+		channel.setWriteLimit(30);
+
+		Assertions.assertFalse(queue.flush(channel));
+		Assertions.assertFalse(queue.isEmpty());
+		Assertions.assertEquals(1, channel.getWriteCalls());
+		Assertions.assertEquals(30, channel.written().length);
+
+		// frames queued meanwhile go out after the rest of the earlier ones
+		byte[] later = MemoryDiscordChannel.frame(1, "{\"later\":true}");
+		ByteBuffer buffer = queue.acquire(later.length);
+		buffer.put(later).flip();
+		queue.enqueue(buffer);
+
+		while(!queue.flush(channel))
+			Assertions.assertEquals(30 * channel.getWriteCalls(), channel.written().length);
+		Assertions.assertEquals((expected.length + later.length + 29) / 30, channel.getWriteCalls());
+
+		ByteArrayOutputStream all = new ByteArrayOutputStream();
+		all.writeBytes(expected);
+		all.writeBytes(later);
+		Assertions.assertArrayEquals(all.toByteArray(), channel.written());
+		Assertions.assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	void fullChannelWritesNothing() throws IOException
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		OutboundQueue queue = new OutboundQueue(new BufferPool(4));
+		byte[] expected = enqueue(queue, 2);
+
+		channel.setWriteLimit(0);
+		Assertions.assertFalse(queue.flush(channel));
+		Assertions.assertEquals(0, channel.written().length);
+
+		channel.setWriteLimit(Integer.MAX_VALUE);
+		Assertions.assertTrue(queue.flush(channel));
+		Assertions.assertArrayEquals(expected, channel.written());
+	}
+
+	@Test
+	void failedWriteKeepsFrames() throws IOException
+	{
+		MemoryDiscordChannel channel = new MemoryDiscordChannel();
+		OutboundQueue queue = new OutboundQueue(new BufferPool(4));
+		enqueue(queue, 2);
+
+		channel.close();
+		Assertions.assertThrows(IOException.class, ()->queue.flush(channel));
+		Assertions.assertFalse(queue.isEmpty());
+	}
+}
@@ -0,0 +1,122 @@
+package de.jcm.discordgamesdk.impl.channel;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link DiscordChannel} over a loopback socket, for tests of the background I/O modes,
+ * which need a channel that can be selected and blocks on reads.
+ * <p>
+ * The other end of the connection plays Discord: frames can be sent with {@link #send(byte[])}
+ * and the ones written by the Core are received with {@link #receive()}.
+ */
+public class SocketPairDiscordChannel implements DiscordChannel
+{
+	private final SocketChannel channel;
+	private final SocketChannel peer;
+
+	public SocketPairDiscordChannel() throws IOException
+	{
+		try(ServerSocketChannel server = ServerSocketChannel.open())
+		{
+			server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+			channel = SocketChannel.open(server.getLocalAddress());
+			peer = server.accept();
+		}
+	}
+
+	/**
+	 * Sends bytes from the peer to the Core.
+	 */
+	public void send(byte[] bytes) throws IOException
+	{
+		ByteBuffer buf = ByteBuffer.wrap(bytes);
+		while(buf.hasRemaining())
+			peer.write(buf);
+	}
+
+	/**
+	 * Receives the body of the next frame written by the Core, blocking until it is there.
+	 * @return The body or {@code null} if the connection was closed
+	 */
+	public String receive() throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+		if(!readFully(header))
+			return null;
+		ByteBuffer body = ByteBuffer.allocate(header.getInt(4));
+		if(!readFully(body))
+			return null;
+		return new String(body.array(), StandardCharsets.UTF_8);
+	}
+
+	private boolean readFully(ByteBuffer buf) throws IOException
+	{
+		while(buf.hasRemaining())
+		{
+			if(peer.read(buf) < 0)
+				return false;
+		}
+		return true;
+	}
+
+	public void closePeer() throws IOException
+	{
+		peer.close();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+
+	@Override
+	public void configureBlocking(boolean block) throws IOException
+	{
+		channel.configureBlocking(block);
+	}
+
+	@Override
+	public int read(ByteBuffer dst) throws IOException
+	{
+		return channel.read(dst);
+	}
+
+	@Override
+	public long read(ByteBuffer[] dsts, int offset, int length) throws IOException
+	{
+		return channel.read(dsts, offset, length);
+	}
+
+	@Override
+	public int write(ByteBuffer src) throws IOException
+	{
+		return channel.write(src);
+	}
+
+	@Override
+	public long write(ByteBuffer[] srcs, int offset, int length) throws IOException
+	{
+		return channel.write(srcs, offset, length);
+	}
+
+	@Override
+	public boolean isAvailable()
+	{
+		return channel.isOpen();
+	}
+
+	@Override
+	public SelectableChannel getSelectableChannel()
+	{
+		return channel;
+	}
+}